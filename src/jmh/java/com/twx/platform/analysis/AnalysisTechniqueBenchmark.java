@@ -0,0 +1,67 @@
+package com.twx.platform.analysis;
+
+import com.twx.platform.analysis.impl.BollingerBandsTechnique;
+import com.twx.platform.analysis.impl.CandlestickChartTechnique;
+import com.twx.platform.analysis.impl.MacdTechnique;
+import com.twx.platform.analysis.impl.MovingAverageTechnique;
+import com.twx.platform.analysis.impl.RsiTechnique;
+import com.twx.platform.bench.BenchmarkData;
+import com.twx.platform.data.BarColumns;
+import org.jfree.data.xy.XYDataset;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每个 {@link AnalysisTechnique#calculate} 的耗时，参数与界面的默认值相同。
+ * 列数据在准备阶段抽取一次，与界面中多个指标共享同一份 {@link BarColumns} 的用法一致。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AnalysisTechniqueBenchmark {
+
+    @Param({"MA", "MACD", "RSI", "BB", "CANDLESTICK"})
+    public String technique;
+
+    @Param({BenchmarkData.SYNTHETIC})
+    public String data;
+
+    @Param({"2500"})
+    public int bars;
+
+    private AnalysisTechnique analysis;
+    private BarColumns columns;
+
+    @Setup
+    public void setUp() {
+        columns = BarColumns.of(BenchmarkData.series(data, bars, 42));
+        analysis = switch (technique) {
+            case "MA" -> new MovingAverageTechnique(10, 30);
+            case "MACD" -> new MacdTechnique(12, 26, 9);
+            case "RSI" -> new RsiTechnique(14);
+            case "BB" -> new BollingerBandsTechnique(20, 2.0);
+            case "CANDLESTICK" -> new CandlestickChartTechnique();
+            default -> throw new IllegalArgumentException("未知的指标: " + technique);
+        };
+    }
+
+    @Benchmark
+    public List<XYDataset> calculate() {
+        return analysis.calculate(columns);
+    }
+}
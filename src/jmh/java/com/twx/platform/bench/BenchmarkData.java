@@ -0,0 +1,100 @@
+package com.twx.platform.bench;
+
+import com.twx.platform.data.impl.KlinePayloads;
+import org.ta4j.core.BarSeries;
+import org.ta4j.core.BaseBar;
+import org.ta4j.core.BaseBarSeries;
+import org.ta4j.core.num.DoubleNum;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 基准测试的输入数据，全部离线生成或读取，保证每次运行的输入相同。
+ * <ul>
+ *     <li>{@value #SYNTHETIC}：固定种子的几何布朗运动日K线 (只含交易日)</li>
+ *     <li>{@value #RECORDED}：{@link KlinePayloads} 录制的真实响应中最长的一份</li>
+ * </ul>
+ */
+public final class BenchmarkData {
+
+    public static final String SYNTHETIC = "synthetic";
+    public static final String RECORDED = "recorded";
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2010, 1, 4);
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * @param data 数据来源，{@value #SYNTHETIC} 或 {@value #RECORDED}
+     * @param bars 合成数据的K线条数 (录制数据忽略)
+     * @param seed 合成数据的随机种子 (录制数据忽略)
+     */
+    public static BarSeries series(String data, int bars, long seed) {
+        return switch (data) {
+            case SYNTHETIC -> synthetic("SYN" + seed, bars, seed);
+            case RECORDED -> {
+                Map.Entry<String, String> longest = KlinePayloads.recorded().entrySet().stream()
+                        .max(Comparator.comparingInt(entry -> entry.getValue().length()))
+                        .orElseThrow();
+                yield KlinePayloads.parse(longest.getKey(), longest.getValue());
+            }
+            default -> throw new IllegalArgumentException("未知的数据来源: " + data);
+        };
+    }
+
+    /**
+     * 合成日K线：年化收益 8%、年化波动 30%，开盘价在前收盘附近，最高 / 最低价包住开盘和收盘。
+     */
+    public static BarSeries synthetic(String name, int bars, long seed) {
+        List<ZonedDateTime> endTimes = new ArrayList<>(bars);
+        LocalDate day = FIRST_DAY;
+        for (int i = 0; i < bars; i++) {
+            while (day.getDayOfWeek() == DayOfWeek.SATURDAY || day.getDayOfWeek() == DayOfWeek.SUNDAY) {
+                day = day.plusDays(1);
+            }
+            endTimes.add(day.atStartOfDay(ZoneId.systemDefault()).plusDays(1).minusNanos(1));
+            day = day.plusDays(1);
+        }
+        return synthetic(name, endTimes, seed);
+    }
+
+    /**
+     * 与 template 逐根K线结束时间相同的合成日K线，用作配对交易的另一腿。
+     * 配对策略按日期对齐两条序列，日期对不上时价差全部为 NaN，录制数据的交易日又与合成数据的日历不同。
+     */
+    public static BarSeries synthetic(String name, BarSeries template, long seed) {
+        List<ZonedDateTime> endTimes = new ArrayList<>(template.getBarCount());
+        for (int i = template.getBeginIndex(); i <= template.getEndIndex(); i++) {
+            endTimes.add(template.getBar(i).getEndTime());
+        }
+        return synthetic(name, endTimes, seed);
+    }
+
+    private static BarSeries synthetic(String name, List<ZonedDateTime> endTimes, long seed) {
+        Random random = new Random(seed);
+        BarSeries series = new BaseBarSeries(name, DoubleNum::valueOf);
+        double dt = 1.0 / 250;
+        double drift = 0.08;
+        double volatility = 0.30;
+        double close = 10.0;
+        for (ZonedDateTime endTime : endTimes) {
+            double open = close * (1 + 0.003 * random.nextGaussian());
+            close = close * Math.exp((drift - volatility * volatility / 2) * dt + volatility * Math.sqrt(dt) * random.nextGaussian());
+            double high = Math.max(open, close) * (1 + 0.01 * Math.abs(random.nextGaussian()));
+            double low = Math.min(open, close) * (1 - 0.01 * Math.abs(random.nextGaussian()));
+            double volume = 1_000_000 * (0.5 + random.nextDouble());
+            series.addBar(new BaseBar(Duration.ofDays(1), endTime, open, high, low, close, volume));
+        }
+        return series;
+    }
+}
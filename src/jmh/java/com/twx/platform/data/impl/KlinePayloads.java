@@ -0,0 +1,132 @@
+package com.twx.platform.data.impl;
+
+import com.twx.platform.common.HttpTransport;
+import com.twx.platform.common.Ticker;
+import org.ta4j.core.Bar;
+import org.ta4j.core.BarSeries;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * 基准测试用的K线接口响应 (腾讯 fqkline 格式)。
+ * <ul>
+ *     <li>合成响应：由合成K线按接口的格式拼出，不需要网络</li>
+ *     <li>录制响应：{@link #main(String[])} 把真实接口的原始响应保存到 {@value #DIRECTORY_PROPERTY} 指定的目录
+ *     (默认 {@value #DEFAULT_DIRECTORY})，之后的基准测试离线读取</li>
+ * </ul>
+ */
+public final class KlinePayloads {
+
+    public static final String DIRECTORY_PROPERTY = "quant.bench.payloads";
+    public static final String DEFAULT_DIRECTORY = "bench-data/kline";
+
+    private KlinePayloads() {
+    }
+
+    public static Path directory() {
+        return Path.of(System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY));
+    }
+
+    /**
+     * 读取录制的全部响应
+     *
+     * @return 文件名 (即股票代码) 到响应体的映射，按文件名排序
+     * @throws IllegalStateException 目录不存在或没有录制的响应
+     */
+    public static Map<String, String> recorded() {
+        Path dir = directory();
+        if (!Files.isDirectory(dir)) {
+            throw new IllegalStateException("没有录制的行情响应: " + dir.toAbsolutePath()
+                    + "，请先运行 java -cp target/benchmarks.jar " + KlinePayloads.class.getName() + " <股票代码...>");
+        }
+        Map<String, String> payloads = new LinkedHashMap<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.filter(f -> f.toString().endsWith(".json")).sorted().toList()) {
+                String name = file.getFileName().toString();
+                payloads.put(name.substring(0, name.length() - ".json".length()), Files.readString(file, StandardCharsets.UTF_8));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取录制的行情响应失败: " + dir, e);
+        }
+        if (payloads.isEmpty()) {
+            throw new IllegalStateException("目录中没有 .json 文件: " + dir.toAbsolutePath());
+        }
+        return payloads;
+    }
+
+    /**
+     * 用生产代码中的解析器解析一份响应，不按日期过滤
+     */
+    public static BarSeries parse(String symbol, String payload) {
+        return DataProvider.parseResponseWithRegex(payload, symbol, LocalDate.MIN, LocalDate.MAX);
+    }
+
+    /**
+     * 按接口格式拼出响应体
+     */
+    public static String synthetic(String symbol, BarSeries series) {
+        StringBuilder json = new StringBuilder(series.getBarCount() * 64 + 128);
+        json.append("{\"code\":0,\"msg\":\"\",\"data\":{\"").append(symbol).append("\":{\"qfqday\":[");
+        for (int i = series.getBeginIndex(); i <= series.getEndIndex(); i++) {
+            Bar bar = series.getBar(i);
+            if (i > series.getBeginIndex()) {
+                json.append(',');
+            }
+            json.append("[\"").append(bar.getEndTime().toLocalDate()).append('"');
+            appendNumber(json, bar.getOpenPrice().doubleValue(), "%.3f");
+            appendNumber(json, bar.getClosePrice().doubleValue(), "%.3f");
+            appendNumber(json, bar.getHighPrice().doubleValue(), "%.3f");
+            appendNumber(json, bar.getLowPrice().doubleValue(), "%.3f");
+            appendNumber(json, bar.getVolume().doubleValue(), "%.0f");
+            json.append(']');
+        }
+        json.append("],\"qt\":{},\"mx_price\":{},\"prec\":\"2\",\"version\":\"16\"}}}");
+        return json.toString();
+    }
+
+    private static void appendNumber(StringBuilder json, double value, String format) {
+        json.append(",\"").append(String.format(Locale.ROOT, format, value)).append('"');
+    }
+
+    /**
+     * 录制真实的接口响应，供离线基准测试使用。
+     * 用法: KlinePayloads [开始日期 yyyy-MM-dd] 股票代码...
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            System.err.println("用法: KlinePayloads [开始日期 yyyy-MM-dd] <股票代码...>");
+            System.exit(2);
+        }
+        int first = 0;
+        LocalDate startDate = LocalDate.now().minusYears(3);
+        if (args[0].matches("\\d{4}-\\d{2}-\\d{2}")) {
+            startDate = LocalDate.parse(args[0]);
+            first = 1;
+        }
+        Path dir = directory();
+        Files.createDirectories(dir);
+        for (int i = first; i < args.length; i++) {
+            String symbol = args[i];
+            HttpResponse<byte[]> response = HttpTransport.getInstance()
+                    .send(DataProvider.klineRequest(new Ticker(symbol), startDate, LocalDate.now()));
+            if (response.statusCode() != 200) {
+                System.err.println(symbol + ": HTTP " + response.statusCode());
+                continue;
+            }
+            String body = HttpTransport.bodyAsString(response, StandardCharsets.UTF_8);
+            Path file = dir.resolve(symbol + ".json");
+            Files.writeString(file, body, StandardCharsets.UTF_8);
+            System.out.printf("%s: %d 条K线 -> %s%n", symbol, parse(symbol, body).getBarCount(), file);
+        }
+    }
+}
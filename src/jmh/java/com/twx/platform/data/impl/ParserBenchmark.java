@@ -0,0 +1,66 @@
+package com.twx.platform.data.impl;
+
+import com.twx.platform.bench.BenchmarkData;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ta4j.core.BarSeries;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 行情响应解析 ({@link DataProvider#parseResponseWithRegex}) 的耗时。
+ * 合成响应的条数与接口单次请求的上限 (640) 相同；录制响应取 {@link KlinePayloads} 目录中的全部文件。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({BenchmarkData.SYNTHETIC})
+    public String data;
+
+    @Param({"640"})
+    public int bars;
+
+    private String[] symbols;
+    private String[] payloads;
+
+    @Setup
+    public void setUp() {
+        if (BenchmarkData.RECORDED.equals(data)) {
+            Map<String, String> recorded = KlinePayloads.recorded();
+            symbols = recorded.keySet().toArray(new String[0]);
+            payloads = recorded.values().toArray(new String[0]);
+        } else {
+            symbols = new String[]{"sh600000"};
+            payloads = new String[]{KlinePayloads.synthetic(symbols[0], BenchmarkData.synthetic(symbols[0], bars, 42))};
+        }
+    }
+
+    /**
+     * 一次操作解析全部响应
+     */
+    @Benchmark
+    public int parse() {
+        int total = 0;
+        for (int i = 0; i < payloads.length; i++) {
+            BarSeries series = DataProvider.parseResponseWithRegex(payloads[i], symbols[i], LocalDate.MIN, LocalDate.MAX);
+            total += series.getBarCount();
+        }
+        return total;
+    }
+}
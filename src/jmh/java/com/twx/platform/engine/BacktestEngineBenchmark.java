@@ -0,0 +1,111 @@
+package com.twx.platform.engine;
+
+import com.twx.platform.bench.BenchmarkData;
+import com.twx.platform.common.Ticker;
+import com.twx.platform.common.TimeFrame;
+import com.twx.platform.data.DataProvider;
+import com.twx.platform.portfolio.impl.BasicPortfolio;
+import com.twx.platform.position.impl.CashPercentagePositionSizer;
+import com.twx.platform.risk.RiskManager;
+import com.twx.platform.strategy.Strategy;
+import com.twx.platform.strategy.impl.BollingerBandsStrategy;
+import com.twx.platform.strategy.impl.MACDStrategy;
+import com.twx.platform.strategy.impl.MovingAverageCrossStrategy;
+import com.twx.platform.strategy.impl.PairsTradingStrategy;
+import com.twx.platform.strategy.impl.RsiStrategy;
+import com.twx.platform.strategy.impl.RuleStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ta4j.core.BarSeries;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BacktestEngine#run} 对 strategy.impl 中每个策略的耗时。
+ * <p>
+ * 每次操作都新建策略和账户，与界面点一次 "运行回测" 的工作量相同 (策略在构造时预计算指标)；
+ * 行情由内存中的数据源提供，不访问网络。策略参数与界面的默认值相同。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BacktestEngineBenchmark {
+
+    @Param({"MovingAverageCrossStrategy", "RsiStrategy", "BollingerBandsStrategy", "MACDStrategy", "RuleStrategy",
+            "PairsTradingStrategy"})
+    public String strategy;
+
+    @Param({BenchmarkData.SYNTHETIC})
+    public String data;
+
+    @Param({"2500"})
+    public int bars;
+
+    private BarSeries series;
+    private BarSeries hedgeSeries;
+    private BacktestEngine engine;
+
+    @Setup
+    public void setUp() {
+        series = BenchmarkData.series(data, bars, 42);
+        // 配对交易的另一腿：沿用被交易一腿每根K线的结束时间，录制数据也能按日期对齐
+        hedgeSeries = BenchmarkData.synthetic("HEDGE", series, 7);
+        Ticker ticker = new Ticker(series.getName());
+        engine = new BacktestEngine(new OfflineDataProvider(series), ticker, LocalDate.MIN, LocalDate.MAX, TimeFrame.DAILY);
+    }
+
+    @Benchmark
+    public BacktestResult run() {
+        return engine.run(createStrategy(), new BasicPortfolio(100_000, 0.0003),
+                new CashPercentagePositionSizer(0.15), RiskManager.NONE);
+    }
+
+    private Strategy createStrategy() {
+        return switch (strategy) {
+            case "MovingAverageCrossStrategy" -> new MovingAverageCrossStrategy(series, 10, 30);
+            case "RsiStrategy" -> new RsiStrategy(series, 14, 30, 70);
+            case "BollingerBandsStrategy" -> new BollingerBandsStrategy(series, 20, 2.0);
+            case "MACDStrategy" -> new MACDStrategy(series, 12, 26, 9);
+            case "RuleStrategy" -> new RuleStrategy(series,
+                    "cross_up(sma(close,5), sma(close,20)) and rsi(close,14) < 70",
+                    "cross_down(sma(close,5), sma(close,20))");
+            case "PairsTradingStrategy" -> new PairsTradingStrategy(series, hedgeSeries, 60, 2.0, 0.5);
+            default -> throw new IllegalArgumentException("未知的策略: " + strategy);
+        };
+    }
+
+    /**
+     * 始终返回同一份内存中的K线
+     */
+    private record OfflineDataProvider(BarSeries series) implements DataProvider {
+
+        @Override
+        public BarSeries getHistoricalData(Ticker ticker, LocalDate startDate, LocalDate endDate, TimeFrame timeFrame) {
+            return series;
+        }
+
+        @Override
+        public String getCompanyName(Ticker ticker) {
+            return ticker.symbol();
+        }
+
+        @Override
+        public List<StockSuggestion> searchStocks(String keyword, MarketType marketType) {
+            return List.of();
+        }
+    }
+}
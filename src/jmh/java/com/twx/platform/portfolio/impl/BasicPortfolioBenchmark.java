@@ -0,0 +1,89 @@
+package com.twx.platform.portfolio.impl;
+
+import com.twx.platform.bench.BenchmarkData;
+import com.twx.platform.common.Order;
+import com.twx.platform.common.Ticker;
+import com.twx.platform.common.TradeSignal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.ta4j.core.BarSeries;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link BasicPortfolio#processOrder} 和 {@link BasicPortfolio#updateValue} 的耗时。
+ * <p>
+ * updateValue 每次都向净值序列追加一根K线，时间必须递增，所以每次操作都新建账户并完整走一遍K线序列；
+ * 结果除以K线条数即为单根K线的耗时。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BasicPortfolioBenchmark {
+
+    @Param({BenchmarkData.SYNTHETIC})
+    public String data;
+
+    @Param({"2500"})
+    public int bars;
+
+    private BarSeries series;
+    private Ticker ticker;
+    private double[] closes;
+    private Order[] orders;
+
+    @Setup
+    public void setUp() {
+        series = BenchmarkData.series(data, bars, 42);
+        ticker = new Ticker(series.getName());
+        int n = series.getBarCount();
+        closes = new double[n];
+        for (int i = 0; i < n; i++) {
+            closes[i] = series.getBar(series.getBeginIndex() + i).getClosePrice().doubleValue();
+        }
+        // 每 5 根K线交替买入 / 卖出 100 股
+        orders = new Order[n / 5];
+        for (int k = 0; k < orders.length; k++) {
+            int i = k * 5;
+            TradeSignal signal = k % 2 == 0 ? TradeSignal.BUY : TradeSignal.SELL;
+            orders[k] = new Order(ticker, signal, 100, closes[i], series.getBar(series.getBeginIndex() + i).getEndTime());
+        }
+    }
+
+    /**
+     * 一次操作处理全部订单 (买卖交替)
+     */
+    @Benchmark
+    public double processOrder() {
+        BasicPortfolio portfolio = new BasicPortfolio(1_000_000, 0.0003);
+        for (Order order : orders) {
+            portfolio.processOrder(order);
+        }
+        return portfolio.getCash();
+    }
+
+    /**
+     * 一次操作对全部K线调用 updateValue
+     */
+    @Benchmark
+    public double updateValue() {
+        BasicPortfolio portfolio = new BasicPortfolio(1_000_000, 0.0003);
+        int begin = series.getBeginIndex();
+        for (int i = 0; i < closes.length; i++) {
+            portfolio.updateValue(ticker, closes[i], series, begin + i);
+        }
+        return portfolio.getTotalValue();
+    }
+}
@@ -2,10 +2,10 @@
 package com.twx.platform.ai;
 
 import com.twx.platform.common.ConfigurationManager;
-import com.twx.platform.common.Order;
+import com.twx.platform.common.HttpTransport;
+import com.twx.platform.common.TaskScheduler;
 import com.twx.platform.engine.BacktestResult;
 import com.twx.platform.strategy.Strategy;
-import com.twx.platform.strategy.impl.MovingAverageCrossStrategy;
 import com.twx.platform.ui.CustomDialog;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
@@ -17,36 +17,27 @@ import javafx.scene.layout.Priority;
 import javafx.scene.layout.VBox;
 import javafx.stage.Stage;
 import org.json.JSONArray;
-import org.json.JSONException;
-import org.json.JSONObject;
-import org.ta4j.core.BarSeries;
-import org.ta4j.core.indicators.EMAIndicator;
-import org.ta4j.core.indicators.helpers.ClosePriceIndicator;
-
-import java.net.URI;
-import java.net.http.HttpClient;
-import java.net.http.HttpRequest;
-import java.net.http.HttpResponse;
-import java.util.ArrayList;
-import java.util.List;
+
+import java.io.IOException;
 import java.util.function.Consumer; // >>> 新增导入 <<<
-import java.net.CookieManager;
 
 public class AIAssistant extends VBox {
 
-    private static final String KIMI_API_URL = "https://api.moonshot.cn/v1/chat/completions";
-    private static final String KIMI_MODEL = "moonshot-v1-8k";
+    private static final String SYSTEM_PROMPT = "你是一个专业的量化交易助手。请基于用户提供的上下文数据，用简洁、专业的语言回答问题。";
 
     private final VBox chatHistory;
     private final TextArea inputArea;
     private final Button sendButton;
+    private final Button newChatButton;
     private final CheckBox analyzeDataCheck;
     private final CheckBox enableSearchCheck;
 
-    private final HttpClient httpClient;
+    private final KimiClient kimiClient;
     private final SearchService searchService;
+    private final ConversationStore conversation;
     private BacktestResult currentBacktestResult;
     private Strategy currentStrategy;
+    private BacktestDigest currentDigest;
 
     public AIAssistant() {
         super(10);
@@ -54,12 +45,10 @@ public class AIAssistant extends VBox {
         this.getStyleClass().add("side-panel");
         this.setPrefWidth(300);
 
-        // 修改后的代码
-        this.httpClient = HttpClient.newBuilder()
-                .cookieHandler(new CookieManager()) // <<< 核心改动：为HttpClient提供一个独立的Cookie处理器
-                .build();
-
+        // 【修改】使用全局共享的 HttpTransport (其中的 HttpClient 带有独立的 Cookie 处理器)
+        this.kimiClient = KimiClient.create(HttpTransport.getInstance());
         this.searchService = new SearchService();
+        this.conversation = new ConversationStore(ConversationStore.DEFAULT_LOG);
 
         Label title = new Label("AI 智能助手");
         title.getStyleClass().add("panel-title");
@@ -81,6 +70,17 @@ public class AIAssistant extends VBox {
         sendButton.setMaxWidth(Double.MAX_VALUE);
         sendButton.setOnAction(e -> handleSendMessage());
 
+        // 【新增】清空对话记忆，开始新的话题
+        newChatButton = new Button("新对话");
+        newChatButton.setTooltip(new Tooltip("清空对话记忆 (包括保存在本地的历史记录)"));
+        newChatButton.setOnAction(e -> {
+            conversation.clear();
+            chatHistory.getChildren().clear();
+            addMessage("已开始新的对话。", "ai-static");
+        });
+        HBox.setHgrow(sendButton, Priority.ALWAYS);
+        HBox buttonBox = new HBox(5, sendButton, newChatButton);
+
         analyzeDataCheck = new CheckBox("附带当前回测数据");
         analyzeDataCheck.setDisable(true);
         enableSearchCheck = new CheckBox("启用网络搜索");
@@ -88,7 +88,7 @@ public class AIAssistant extends VBox {
 
         HBox optionsBox = new HBox(10, analyzeDataCheck, enableSearchCheck);
         VBox inputGroup = new VBox(5, optionsBox, inputArea);
-        this.getChildren().addAll(title, scrollPane, inputGroup, sendButton);
+        this.getChildren().addAll(title, scrollPane, inputGroup, buttonBox);
 
         initializeWelcomeMessage();
     }
@@ -97,6 +97,9 @@ public class AIAssistant extends VBox {
     public void updateAnalysisContext(BacktestResult result, Strategy strategy) {
         this.currentBacktestResult = result;
         this.currentStrategy = strategy;
+        synchronized (this) {
+            this.currentDigest = null;
+        }
         boolean hasData = result != null && result.executedOrders() != null && !result.executedOrders().isEmpty();
         analyzeDataCheck.setDisable(!hasData);
         if (hasData) {
@@ -111,6 +114,9 @@ public class AIAssistant extends VBox {
         sceneProperty().addListener((obs, oldScene, newScene) -> {
             if (newScene != null && chatHistory.getChildren().isEmpty()) {
                 addMessage("你好！我是您的量化交易助手。", "ai-static");
+                if (conversation.size() > 0) {
+                    addMessage("已恢复之前的 " + conversation.size() + " 轮对话记忆，点击“新对话”可以清空。", "ai-static");
+                }
             }
         });
     }
@@ -130,10 +136,11 @@ public class AIAssistant extends VBox {
 
         // 1. 为即将到来的 AI 流式响应创建一个占位符
         MarkdownView aiResponseView = (MarkdownView) addMessage("", "ai-streaming");
+        aiResponseView.beginStream();
         StringBuilder fullResponseContent = new StringBuilder();
 
-        // 2. 在后台线程中执行所有耗时操作
-        new Thread(() -> {
+        // 2. 【修改】交给统一的任务调度器在虚拟线程上执行所有耗时操作 (网络搜索 + 流式请求)
+        TaskScheduler.getInstance().submit("ai-chat", "AI 对话", TaskScheduler.Kind.IO, TaskScheduler.Priority.INTERACTIVE, () -> {
             try {
                 // 2.1 (可选) 进行网络搜索
                 String searchResults = null;
@@ -149,34 +156,51 @@ public class AIAssistant extends VBox {
 
                 Platform.runLater(() -> sendButton.setText("思考中..."));
 
-                // 2.2 构建最终的提示词
+                // 2.2 构建最终的提示词，回测摘要与对话记忆由 ConversationStore 放入系统消息
                 String fullPrompt = buildContextualPrompt(userMessage, searchResults);
+                String context = analyzeDataCheck.isSelected() && currentBacktestResult != null
+                        ? getCurrentDigest().render(BacktestDigest.DEFAULT_TOKEN_BUDGET) : null;
 
                 // 2.3 调用流式 API
-                getKimiResponseStream(fullPrompt,
+                getKimiResponseStream(conversation.buildMessages(SYSTEM_PROMPT, context, fullPrompt),
                         // onChunkReceived: 每收到一个文本块时执行
                         (chunk) -> {
                             fullResponseContent.append(chunk);
-                            // 在 UI 线程上更新 MarkdownView
-                            Platform.runLater(() -> aiResponseView.updateContent(fullResponseContent.toString()));
+                            // 【修改】只追加文本，由 MarkdownView 按显示帧合并并增量渲染
+                            aiResponseView.append(chunk);
                         },
                         // onComplete: 流结束时执行
-                        () -> Platform.runLater(() -> setUiLoading(false)),
+                        (metrics) -> {
+                            aiResponseView.endStream();
+                            if (metrics != null && !fullResponseContent.isEmpty()) {
+                                conversation.append(userMessage, fullResponseContent.toString());
+                            }
+                            Platform.runLater(() -> {
+                                if (metrics != null) {
+                                    Tooltip.install(aiResponseView, new Tooltip(metrics.toString()));
+                                }
+                                setUiLoading(false);
+                            });
+                        },
                         // onError: 发生错误时执行
-                        (error) -> Platform.runLater(() -> {
-                            showErrorDialog(error);
-                            setUiLoading(false);
-                        })
+                        (error) -> {
+                            aiResponseView.endStream();
+                            Platform.runLater(() -> {
+                                showErrorDialog(error);
+                                setUiLoading(false);
+                            });
+                        }
                 );
 
             } catch (Exception e) {
                 e.printStackTrace();
+                aiResponseView.endStream();
                 Platform.runLater(() -> {
                     showErrorDialog(e);
                     setUiLoading(false);
                 });
             }
-        }).start();
+        });
     }
 
     /**
@@ -214,6 +238,7 @@ public class AIAssistant extends VBox {
         inputArea.setDisable(isLoading);
         sendButton.setDisable(isLoading);
         enableSearchCheck.setDisable(isLoading);
+        newChatButton.setDisable(isLoading);
         if (!isLoading) {
             sendButton.setText("发送");
         }
@@ -228,61 +253,25 @@ public class AIAssistant extends VBox {
         }
     }
 
-    private String buildContextualPrompt(String userMessage, String searchResults) {
-        // ... [这个方法保持不变] ...
-        StringBuilder sb = new StringBuilder();
-        boolean hasContext = false;
-
-        if (analyzeDataCheck.isSelected() && currentBacktestResult != null && currentStrategy != null) {
-            sb.append("--- 以下是当前的量化回测上下文数据 ---\n\n");
-            sb.append("## 1. 当前策略与参数\n");
-            sb.append("- **策略名称:** ").append(currentStrategy.getClass().getSimpleName()).append("\n");
-            if (currentStrategy instanceof MovingAverageCrossStrategy macs) {
-                sb.append("- **参数:** 短周期 = ").append(macs.getShortBarCount())
-                        .append(", 长周期 = ").append(macs.getLongBarCount()).append("\n");
-            }
-            sb.append("\n");
-            sb.append("## 2. 总体回测表现\n");
-            if (currentBacktestResult.finalPortfolio() != null) {
-                sb.append(currentBacktestResult.finalPortfolio().getSummary()).append("\n");
-            }
-            sb.append("## 3. 最新交易记录\n");
-            List<Order> orders = currentBacktestResult.executedOrders();
-            sb.append("| 交易信号 | 价格 | 数量 |\n");
-            sb.append("|---|---|---|\n");
-            orders.stream().skip(Math.max(0, orders.size() - 5)).forEach(order ->
-                    sb.append(String.format("| %s | %.2f | %.0f |\n", order.signal(), order.price(), order.quantity()))
-            );
-            sb.append("\n");
-            sb.append("## 4. 最新K线收盘时的指标数据\n");
-            BarSeries series = currentBacktestResult.series();
-            if (series != null && !series.isEmpty()) {
-                ClosePriceIndicator closePrice = new ClosePriceIndicator(series);
-                if (currentStrategy instanceof MovingAverageCrossStrategy macs) {
-                    EMAIndicator shortEma = new EMAIndicator(closePrice, macs.getShortBarCount());
-                    EMAIndicator longEma = new EMAIndicator(closePrice, macs.getLongBarCount());
-                    sb.append(String.format("- **最新收盘价:** %.2f\n", series.getLastBar().getClosePrice().doubleValue()));
-                    sb.append(String.format("- **短周期均线 (%d):** %.2f\n", macs.getShortBarCount(), shortEma.getValue(series.getEndIndex()).doubleValue()));
-                    sb.append(String.format("- **长周期均线 (%d):** %.2f\n", macs.getLongBarCount(), longEma.getValue(series.getEndIndex()).doubleValue()));
-                }
-            }
-            sb.append("\n---\n\n");
-            hasContext = true;
-        }
-
-        if (searchResults != null && !searchResults.isEmpty()) {
-            sb.append("--- 以下是针对用户问题的实时网络搜索结果（这些内容是由AIagent查询的，也就是应用后台查询到的） ---\n\n");
-            sb.append(searchResults).append("\n");
-            sb.append("\n---\n\n");
-            hasContext = true;
+    /**
+     * 【新增】当前回测结果的摘要，每个回测结果只计算一次
+     */
+    private synchronized BacktestDigest getCurrentDigest() {
+        if (currentDigest == null) {
+            currentDigest = BacktestDigest.of(currentBacktestResult, currentStrategy);
         }
+        return currentDigest;
+    }
 
-        if(hasContext){
-            sb.append("**请结合以上提供的上下文信息（如果有），回答以下问题：**\n");
-        } else {
+    private String buildContextualPrompt(String userMessage, String searchResults) {
+        if (searchResults == null || searchResults.isEmpty()) {
             return userMessage;
         }
-
+        StringBuilder sb = new StringBuilder();
+        sb.append("--- 以下是针对用户问题的实时网络搜索结果（这些内容是由AIagent查询的，也就是应用后台查询到的） ---\n\n");
+        sb.append(searchResults).append("\n");
+        sb.append("\n---\n\n");
+        sb.append("**请结合以上提供的上下文信息（如果有），回答以下问题：**\n");
         sb.append(userMessage);
         return sb.toString();
     }
@@ -291,65 +280,29 @@ public class AIAssistant extends VBox {
     /**
      * [新] 调用 Kimi API 并以流式方式获取响应。
      *
-     * @param fullPrompt       完整的提示词
+     * @param messages         完整的消息列表 (系统提示、对话记忆和本次提问)
      * @param onChunkReceived  每当收到新的文本块时调用的回调
-     * @param onComplete       流结束时调用的回调
+     * @param onComplete       流结束时调用的回调，参数为本次响应的耗时统计 (被取消时为 null)
      * @param onError          发生错误时调用的回调
      */
-    private void getKimiResponseStream(String fullPrompt, Consumer<String> onChunkReceived, Runnable onComplete, Consumer<Exception> onError) {
+    private void getKimiResponseStream(JSONArray messages, Consumer<String> onChunkReceived,
+                                       Consumer<KimiClient.StreamMetrics> onComplete, Consumer<Exception> onError) {
         try {
             String apiKey = ConfigurationManager.getInstance().getKimiApiKey();
             if (apiKey == null || apiKey.trim().isEmpty()) {
                 throw new IllegalStateException("Kimi API Key 未设置。请通过主菜单设置。");
             }
 
-            List<JSONObject> messages = new ArrayList<>();
-            messages.add(new JSONObject().put("role", "system").put("content", "你是一个专业的量化交易助手。请基于用户提供的上下文数据，用简洁、专业的语言回答问题。"));
-            messages.add(new JSONObject().put("role", "user").put("content", fullPrompt));
-
-            JSONObject payload = new JSONObject();
-            payload.put("model", KIMI_MODEL);
-            payload.put("messages", new JSONArray(messages));
-            payload.put("temperature", 0.3);
-            payload.put("stream", true); // <<< 开启流式响应
-
-            HttpRequest request = HttpRequest.newBuilder()
-                    .uri(URI.create(KIMI_API_URL))
-                    .header("Content-Type", "application/json")
-                    .header("Authorization", "Bearer " + apiKey)
-                    .POST(HttpRequest.BodyPublishers.ofString(payload.toString()))
-                    .build();
-
-            httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofLines())
-                    .thenAccept(response -> {
-                        if (response.statusCode() == 200) {
-                            response.body().forEach(line -> {
-                                if (line.startsWith("data: ")) {
-                                    String jsonPart = line.substring(6);
-                                    if ("[DONE]".equals(jsonPart)) {
-                                        return; // 流结束
-                                    }
-                                    try {
-                                        JSONObject json = new JSONObject(jsonPart);
-                                        String chunk = json.getJSONArray("choices").getJSONObject(0).getJSONObject("delta").getString("content");
-                                        onChunkReceived.accept(chunk);
-                                    } catch (JSONException e) {
-                                        // 忽略无法解析的行
-                                    }
-                                }
-                            });
-                            onComplete.run();
-                        } else {
-                            String errorBody = "请求失败，状态码: " + response.statusCode();
-                            // 异步读取响应体可能比较复杂，这里简化处理
-                            onError.accept(new RuntimeException(errorBody));
-                        }
-                    })
-                    .exceptionally(ex -> {
-                        onError.accept(new Exception("请求AI服务时发生网络错误。", ex));
-                        return null;
-                    });
+            // 【修改】由 KimiClient 直接扫描 SSE 字节流提取 delta.content，不再为每行构建 JSONObject
+            KimiClient.StreamMetrics metrics = kimiClient.streamChat(apiKey, messages, 0.3, onChunkReceived);
+            onComplete.accept(metrics);
 
+        } catch (InterruptedException e) {
+            // 任务被取消
+            Thread.currentThread().interrupt();
+            onComplete.accept(null);
+        } catch (IOException e) {
+            onError.accept(new Exception("请求AI服务时发生网络错误。", e));
         } catch (Exception e) {
             onError.accept(e);
         }
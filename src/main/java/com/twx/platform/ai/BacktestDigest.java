@@ -0,0 +1,333 @@
+package com.twx.platform.ai;
+
+import com.twx.platform.analysis.IndicatorKernels;
+import com.twx.platform.common.Order;
+import com.twx.platform.common.TradeSignal;
+import com.twx.platform.data.BarColumns;
+import com.twx.platform.engine.BacktestResult;
+import com.twx.platform.strategy.Strategy;
+import org.ta4j.core.BarSeries;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 一次回测结果的紧凑统计摘要，作为 AI 提问时附带的上下文。
+ * <p>
+ * 摘要在每个回测结果上只计算一次 (见 {@link #of(BacktestResult, Strategy)})，
+ * 之后每次提问只需按 token 预算裁剪 ({@link #render(int)})，渲染结果也按预算缓存。
+ * 各部分按重要性排序：核心指标、指标快照、回撤区间、交易簇、最近成交；
+ * 预算不足时先截掉靠后部分的行，核心指标总是保留。
+ * 指标快照只依赖K线本身 (均线、RSI、ATR、波动率等)，对任何策略都适用。
+ */
+public final class BacktestDigest {
+
+    /**
+     * 默认的摘要预算。moonshot-v1-8k 的窗口需要同时容纳系统提示、对话历史、搜索结果和回答。
+     */
+    public static final int DEFAULT_TOKEN_BUDGET = 1200;
+
+    private static final int MAX_DRAWDOWN_EPISODES = 3;
+    private static final int MAX_RECENT_ORDERS = 5;
+    /**
+     * 相邻成交间隔超过这个天数时划分为新的交易簇
+     */
+    private static final long CLUSTER_GAP_DAYS = 10;
+
+    /**
+     * 摘要中的一个部分。
+     *
+     * @param title 标题
+     * @param lines 内容行，越靠前越重要
+     */
+    public record Section(String title, List<String> lines) {
+    }
+
+    private final List<Section> sections;
+    private final Map<Integer, String> rendered = new ConcurrentHashMap<>();
+
+    private BacktestDigest(List<Section> sections) {
+        this.sections = List.copyOf(sections);
+    }
+
+    public List<Section> sections() {
+        return sections;
+    }
+
+    /**
+     * 计算回测结果的摘要。
+     *
+     * @param result   回测结果
+     * @param strategy 回测使用的策略，可以为 null
+     */
+    public static BacktestDigest of(BacktestResult result, Strategy strategy) {
+        List<Section> sections = new ArrayList<>();
+        double initialCash = result.finalPortfolio().getInitialCash();
+        BarSeries history = result.finalPortfolio().getValueHistory();
+        int n = history.getBarCount();
+        double[] equity = new double[n];
+        LocalDate[] dates = new LocalDate[n];
+        for (int i = 0; i < n; i++) {
+            equity[i] = history.getBar(i).getClosePrice().doubleValue();
+            dates[i] = history.getBar(i).getEndTime().toLocalDate();
+        }
+        BarColumns bars = BarColumns.of(result.series());
+        List<Order> orders = result.executedOrders().stream()
+                .sorted(Comparator.comparing(Order::timestamp))
+                .toList();
+
+        sections.add(metrics(strategy, initialCash, equity, dates, bars, orders));
+        if (bars.size() > 0) {
+            sections.add(indicatorSnapshot(bars));
+        }
+        if (n > 0) {
+            sections.add(drawdowns(initialCash, equity, dates));
+        }
+        if (!orders.isEmpty()) {
+            sections.add(tradeClusters(orders));
+            sections.add(recentOrders(orders));
+        }
+        return new BacktestDigest(sections);
+    }
+
+    /**
+     * 按 token 预算输出 Markdown 文本。同一预算的结果会被缓存。
+     */
+    public String render(int tokenBudget) {
+        return rendered.computeIfAbsent(tokenBudget, this::fit);
+    }
+
+    private String fit(int tokenBudget) {
+        StringBuilder sb = new StringBuilder();
+        int used = 0;
+        for (int s = 0; s < sections.size(); s++) {
+            Section section = sections.get(s);
+            String header = "## " + section.title() + "\n";
+            int headerTokens = TokenEstimator.estimate(header);
+            // 核心指标 (第一部分) 总是保留；其他部分至少要能放下标题和一行
+            if (s > 0 && (section.lines().isEmpty()
+                    || used + headerTokens + TokenEstimator.estimate(section.lines().get(0)) + 1 > tokenBudget)) {
+                continue;
+            }
+            sb.append(header);
+            used += headerTokens;
+            for (String line : section.lines()) {
+                int cost = TokenEstimator.estimate(line) + 1;
+                if (s > 0 && used + cost > tokenBudget) break;
+                sb.append(line).append('\n');
+                used += cost;
+            }
+            sb.append('\n');
+        }
+        return sb.toString();
+    }
+
+    private static Section metrics(Strategy strategy, double initialCash, double[] equity, LocalDate[] dates,
+                                   BarColumns bars, List<Order> orders) {
+        List<String> lines = new ArrayList<>();
+        int n = equity.length;
+        double finalValue = n == 0 ? initialCash : equity[n - 1];
+        if (strategy != null) {
+            lines.add("- 策略: " + strategy.getName());
+        }
+        if (n > 0) {
+            lines.add(String.format("- 区间: %s ~ %s (%d 根K线)", dates[0], dates[n - 1], n));
+        }
+        lines.add(String.format("- 初始资金 %,.0f, 最终总值 %,.0f, 总收益 %.2f%%",
+                initialCash, finalValue, (finalValue / initialCash - 1) * 100));
+
+        double peak = initialCash;
+        double maxDrawdown = 0;
+        double mean = 0;
+        double m2 = 0;
+        double previous = initialCash;
+        for (int i = 0; i < n; i++) {
+            peak = Math.max(peak, equity[i]);
+            maxDrawdown = Math.max(maxDrawdown, (peak - equity[i]) / peak);
+            double r = equity[i] / previous - 1;
+            previous = equity[i];
+            double delta = r - mean;
+            mean += delta / (i + 1);
+            m2 += delta * (r - mean);
+        }
+        double stdev = n > 1 ? Math.sqrt(m2 / (n - 1)) : 0;
+        double annualized = n < 2 ? 0 : Math.pow(finalValue / initialCash, 252.0 / n) - 1;
+        lines.add(String.format("- 年化收益 %.2f%%, 年化波动 %.2f%%, 夏普 %.2f, 最大回撤 %.2f%%",
+                annualized * 100, stdev * Math.sqrt(252) * 100,
+                stdev > 0 ? mean / stdev * Math.sqrt(252) : 0, maxDrawdown * 100));
+
+        int size = bars.size();
+        if (size > 1) {
+            double buyAndHold = bars.close()[size - 1] / bars.close()[0] - 1;
+            lines.add(String.format("- 同期买入持有收益 %.2f%%", buyAndHold * 100));
+        }
+
+        // 按成交价配对估算每笔平仓的盈亏 (不含手续费)
+        double position = 0;
+        double cost = 0;
+        int wins = 0;
+        int closed = 0;
+        double grossProfit = 0;
+        double grossLoss = 0;
+        for (Order order : orders) {
+            if (order.signal() == TradeSignal.BUY) {
+                cost += order.price() * order.quantity();
+                position += order.quantity();
+            } else if (order.signal() == TradeSignal.SELL && position > 0) {
+                double quantity = Math.min(order.quantity(), position);
+                double avgCost = cost / position;
+                double profit = (order.price() - avgCost) * quantity;
+                cost -= avgCost * quantity;
+                position -= quantity;
+                closed++;
+                if (profit > 0) {
+                    wins++;
+                    grossProfit += profit;
+                } else {
+                    grossLoss -= profit;
+                }
+            }
+        }
+        lines.add(String.format("- 成交 %d 笔, 平仓 %d 次, 胜率 %.1f%%, 利润因子 %s%s",
+                orders.size(), closed, closed == 0 ? 0.0 : wins * 100.0 / closed,
+                grossLoss == 0 ? "-" : String.format("%.2f", grossProfit / grossLoss),
+                position > 0 ? String.format(", 期末持仓 %.0f", position) : ""));
+        return new Section("回测核心指标", lines);
+    }
+
+    /**
+     * K线数量不足一个周期时，指标内核会按已有数据计算 (与 ta4j 一致)，此时的数值名不副实，
+     * 因此对应字段标注为"数据不足"或直接省略，避免向 AI 提供误导性的数字。
+     */
+    private static Section indicatorSnapshot(BarColumns bars) {
+        double[] close = bars.close();
+        int size = close.length;
+        int last = size - 1;
+        double price = close[last];
+
+        List<String> lines = new ArrayList<>();
+        lines.add(String.format("- 收盘 %.2f (%s), 相对 SMA20 %s, 相对 SMA60 %s",
+                price, Instant.ofEpochMilli(bars.times()[last]).atZone(ZoneId.systemDefault()).toLocalDate(),
+                relativeToSma(close, 20, price), relativeToSma(close, 60, price)));
+
+        List<String> oscillators = new ArrayList<>();
+        if (size > 14) {
+            double rsi = IndicatorKernels.rsi(close, 14)[last];
+            double atr = IndicatorKernels.atr(bars.high(), bars.low(), close, 14)[last];
+            oscillators.add(String.format("RSI14 %.1f", rsi));
+            oscillators.add(String.format("ATR14 %.2f (%.2f%%)", atr, atr / price * 100));
+        }
+        if (size > 20) {
+            double sumSq = 0;
+            for (int i = last - 19; i <= last; i++) {
+                double r = Math.log(close[i] / close[i - 1]);
+                sumSq += r * r;
+            }
+            oscillators.add(String.format("20日年化波动 %.1f%%", Math.sqrt(sumSq / 20 * 252) * 100));
+        }
+        lines.add(oscillators.isEmpty() ? "- RSI14、ATR14、20日波动: 数据不足" : "- " + String.join(", ", oscillators));
+
+        // 不足250根时按全部K线统计，并在文字中注明实际根数
+        int window = Math.min(250, size);
+        double high = IndicatorKernels.highest(bars.high(), window)[last];
+        double low = IndicatorKernels.lowest(bars.low(), window)[last];
+        lines.add(String.format("- 近%d根K线区间 %.2f ~ %.2f, 当前处于 %.0f%% 分位",
+                window, low, high, high > low ? (price - low) / (high - low) * 100 : 50.0));
+        if (size >= 20) {
+            double avgVolume = IndicatorKernels.sma(bars.volume(), 20)[last];
+            if (avgVolume > 0) {
+                lines.add(String.format("- 成交量为20日均量的 %.2f 倍", bars.volume()[last] / avgVolume));
+            }
+        }
+        return new Section("最新K线指标快照", lines);
+    }
+
+    private static String relativeToSma(double[] close, int period, double price) {
+        if (close.length < period) {
+            return "数据不足";
+        }
+        double sma = IndicatorKernels.smaAt(close, period, close.length - 1);
+        return sma > 0 ? String.format("%+.2f%%", (price / sma - 1) * 100) : "-";
+    }
+
+    private static Section drawdowns(double initialCash, double[] equity, LocalDate[] dates) {
+        record Episode(int peak, int trough, int recovery, double depth) {
+        }
+        List<Episode> episodes = new ArrayList<>();
+        double peakValue = initialCash;
+        int peak = 0;
+        int trough = -1;
+        double depth = 0;
+        for (int i = 0; i < equity.length; i++) {
+            if (equity[i] >= peakValue) {
+                if (trough >= 0) {
+                    episodes.add(new Episode(peak, trough, i, depth));
+                }
+                peakValue = equity[i];
+                peak = i;
+                trough = -1;
+                depth = 0;
+            } else {
+                double d = (peakValue - equity[i]) / peakValue;
+                if (d > depth) {
+                    depth = d;
+                    trough = i;
+                }
+            }
+        }
+        if (trough >= 0) {
+            episodes.add(new Episode(peak, trough, -1, depth));
+        }
+
+        List<String> lines = new ArrayList<>();
+        episodes.stream()
+                .filter(e -> e.depth() >= 0.01)
+                .sorted(Comparator.comparingDouble(Episode::depth).reversed())
+                .limit(MAX_DRAWDOWN_EPISODES)
+                .forEach(e -> lines.add(String.format("- 回撤 %.2f%%: %s 高点 -> %s 低点, %s",
+                        e.depth() * 100, dates[e.peak()], dates[e.trough()],
+                        e.recovery() < 0 ? "尚未收复"
+                                : "持续 " + (e.recovery() - e.peak()) + " 根K线后于 " + dates[e.recovery()] + " 收复")));
+        if (lines.isEmpty()) {
+            lines.add("- 没有超过 1% 的回撤");
+        }
+        return new Section("主要回撤区间", lines);
+    }
+
+    private static Section tradeClusters(List<Order> orders) {
+        List<String> lines = new ArrayList<>();
+        int start = 0;
+        for (int i = 1; i <= orders.size(); i++) {
+            boolean split = i == orders.size() || ChronoUnit.DAYS.between(
+                    orders.get(i - 1).timestamp(), orders.get(i).timestamp()) > CLUSTER_GAP_DAYS;
+            if (!split) continue;
+            List<Order> cluster = orders.subList(start, i);
+            long buys = cluster.stream().filter(o -> o.signal() == TradeSignal.BUY).count();
+            double low = cluster.stream().mapToDouble(Order::price).min().orElse(0);
+            double high = cluster.stream().mapToDouble(Order::price).max().orElse(0);
+            lines.add(String.format("- %s ~ %s: 买 %d 卖 %d, 价格 %.2f ~ %.2f",
+                    cluster.get(0).timestamp().toLocalDate(), cluster.get(cluster.size() - 1).timestamp().toLocalDate(),
+                    buys, cluster.size() - buys, low, high));
+            start = i;
+        }
+        // 最近的交易簇最相关，预算不足时保留靠前的行
+        return new Section("交易簇 (间隔超过 " + CLUSTER_GAP_DAYS + " 天划分, 由近及远)", lines.reversed());
+    }
+
+    private static Section recentOrders(List<Order> orders) {
+        List<String> lines = new ArrayList<>();
+        for (int i = orders.size() - 1; i >= Math.max(0, orders.size() - MAX_RECENT_ORDERS); i--) {
+            Order order = orders.get(i);
+            lines.add(String.format("- %s %s %.0f @ %.2f", order.timestamp().toLocalDate(), order.signal(),
+                    order.quantity(), order.price()));
+        }
+        return new Section("最近成交", lines);
+    }
+}
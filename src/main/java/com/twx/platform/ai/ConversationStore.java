@@ -0,0 +1,203 @@
+package com.twx.platform.ai;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * AI 助手的对话记忆。
+ * <p>
+ * 每轮对话 (用户提问 + 助手回答) 以一行 JSON 追加写入磁盘日志，重启后继续使用。
+ * 构建请求时只发送最近若干轮 (受 token 预算限制的滑动窗口)，
+ * 滑出窗口的轮次被压缩成一段滚动摘要 (每轮只保留问题和回答的开头)，摘要本身也有预算上限。
+ * 因此长时间的分析会话每次发送的请求大小是有界的，而不会随轮数增长。
+ * <p>
+ * 回测上下文摘要放在系统消息中，由调用方传入缓存好的 {@link BacktestDigest} 文本，每轮复用，不再重复附加到用户消息里。
+ * 所有方法都是线程安全的。
+ */
+public class ConversationStore {
+
+    /**
+     * 一轮对话。
+     *
+     * @param question  用户的原始问题 (不含附加的上下文和搜索结果)
+     * @param answer    助手的回答
+     * @param timestamp 毫秒时间戳
+     */
+    public record Turn(String question, String answer, long timestamp) {
+    }
+
+    public static final Path DEFAULT_LOG = Path.of(System.getProperty("user.home"), ".quant-trading", "ai-history.jsonl");
+
+    /**
+     * 最近对话窗口的 token 预算
+     */
+    private static final int WINDOW_BUDGET = 1500;
+    /**
+     * 滚动摘要的 token 预算
+     */
+    private static final int SUMMARY_BUDGET = 400;
+    private static final int SUMMARY_QUESTION_CHARS = 60;
+    private static final int SUMMARY_ANSWER_CHARS = 120;
+    /**
+     * 日志超过这个轮数时在下次启动时压缩，只保留最近的轮次
+     */
+    private static final int MAX_LOG_TURNS = 200;
+
+    private final Path logFile;
+    private final Deque<Turn> window = new ArrayDeque<>();
+    private final Deque<String> summary = new ArrayDeque<>();
+    private int windowTokens;
+    private int summaryTokens;
+
+    public ConversationStore(Path logFile) {
+        this.logFile = logFile;
+        load();
+    }
+
+    /**
+     * 记录一轮完成的对话，并追加写入日志
+     */
+    public synchronized void append(String question, String answer) {
+        Turn turn = new Turn(question, answer, System.currentTimeMillis());
+        push(turn);
+        try {
+            Files.createDirectories(logFile.getParent());
+            try (BufferedWriter writer = Files.newBufferedWriter(logFile, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+                writer.write(toJson(turn).toString());
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            System.err.println("保存对话记录失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 构建一次请求的消息列表：系统提示 (含回测摘要和滚动摘要)、最近窗口内的对话、本次用户消息。
+     *
+     * @param systemPrompt 系统提示
+     * @param context      回测上下文摘要，没有时为 null
+     * @param userMessage  本次用户消息 (可以包含搜索结果)
+     */
+    public synchronized JSONArray buildMessages(String systemPrompt, String context, String userMessage) {
+        StringBuilder system = new StringBuilder(systemPrompt);
+        if (context != null && !context.isEmpty()) {
+            system.append("\n\n--- 以下是当前的量化回测上下文数据 ---\n\n").append(context);
+        }
+        if (!summary.isEmpty()) {
+            system.append("\n\n--- 更早的对话摘要 ---\n");
+            summary.forEach(line -> system.append(line).append('\n'));
+        }
+
+        JSONArray messages = new JSONArray();
+        messages.put(message("system", system.toString()));
+        for (Turn turn : window) {
+            messages.put(message("user", turn.question()));
+            messages.put(message("assistant", turn.answer()));
+        }
+        messages.put(message("user", userMessage));
+        return messages;
+    }
+
+    public synchronized int size() {
+        return window.size() + summary.size();
+    }
+
+    /**
+     * 清空对话记忆并删除日志
+     */
+    public synchronized void clear() {
+        window.clear();
+        summary.clear();
+        windowTokens = 0;
+        summaryTokens = 0;
+        try {
+            Files.deleteIfExists(logFile);
+        } catch (IOException e) {
+            System.err.println("删除对话记录失败: " + e.getMessage());
+        }
+    }
+
+    private void push(Turn turn) {
+        window.addLast(turn);
+        windowTokens += tokens(turn);
+        // 最新一轮总是保留在窗口中
+        while (window.size() > 1 && windowTokens > WINDOW_BUDGET) {
+            Turn evicted = window.removeFirst();
+            windowTokens -= tokens(evicted);
+            summarize(evicted);
+        }
+    }
+
+    private void summarize(Turn turn) {
+        String line = "- 问: " + abbreviate(turn.question(), SUMMARY_QUESTION_CHARS)
+                + " | 答: " + abbreviate(turn.answer(), SUMMARY_ANSWER_CHARS);
+        summary.addLast(line);
+        summaryTokens += TokenEstimator.estimate(line);
+        while (summaryTokens > SUMMARY_BUDGET && !summary.isEmpty()) {
+            summaryTokens -= TokenEstimator.estimate(summary.removeFirst());
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(logFile)) return;
+        List<Turn> turns = new ArrayList<>();
+        try {
+            for (String line : Files.readAllLines(logFile, StandardCharsets.UTF_8)) {
+                if (line.isBlank()) continue;
+                try {
+                    JSONObject json = new JSONObject(line);
+                    turns.add(new Turn(json.getString("q"), json.getString("a"), json.optLong("t", 0)));
+                } catch (JSONException e) {
+                    // 跳过写了一半的行
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("读取对话记录失败: " + e.getMessage());
+            return;
+        }
+        if (turns.size() > MAX_LOG_TURNS) {
+            turns = new ArrayList<>(turns.subList(turns.size() - MAX_LOG_TURNS, turns.size()));
+            compact(turns);
+        }
+        turns.forEach(this::push);
+    }
+
+    private void compact(List<Turn> turns) {
+        List<String> lines = turns.stream().map(turn -> toJson(turn).toString()).toList();
+        try {
+            Files.write(logFile, lines, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            System.err.println("压缩对话记录失败: " + e.getMessage());
+        }
+    }
+
+    private static int tokens(Turn turn) {
+        return TokenEstimator.estimate(turn.question()) + TokenEstimator.estimate(turn.answer()) + 8;
+    }
+
+    private static String abbreviate(String text, int maxChars) {
+        String flat = text.replaceAll("\\s+", " ").trim();
+        return flat.length() <= maxChars ? flat : flat.substring(0, maxChars) + "…";
+    }
+
+    private static JSONObject toJson(Turn turn) {
+        return new JSONObject().put("q", turn.question()).put("a", turn.answer()).put("t", turn.timestamp());
+    }
+
+    private static JSONObject message(String role, String content) {
+        return new JSONObject().put("role", role).put("content", content);
+    }
+}
@@ -0,0 +1,127 @@
+package com.twx.platform.ai;
+
+import com.twx.platform.common.HttpTransport;
+import com.twx.platform.metrics.Counter;
+import com.twx.platform.metrics.MetricsRegistry;
+import com.twx.platform.metrics.Timer;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+/**
+ * Kimi (Moonshot) 聊天补全接口的流式客户端。
+ * <p>
+ * 接口地址通过构造函数注入，可以指向本地的 SSE 桩服务器 (例如 com.sun.net.httpserver.HttpServer)
+ * 来复现和测量流式响应；界面中可以用系统属性 {@value #ENDPOINT_PROPERTY} 覆盖默认地址。
+ */
+public class KimiClient {
+
+    public static final URI DEFAULT_ENDPOINT = URI.create("https://api.moonshot.cn/v1/chat/completions");
+    public static final String DEFAULT_MODEL = "moonshot-v1-8k";
+    public static final String ENDPOINT_PROPERTY = "quant.kimi.endpoint";
+
+    /**
+     * 一次流式响应的耗时统计。
+     *
+     * @param timeToFirstTokenMillis 从发出请求到收到第一个文本块的毫秒数，没有收到文本时为 -1
+     * @param totalMillis            从发出请求到流结束的毫秒数
+     * @param chunks                 收到的文本块数量
+     * @param characters             收到的字符数
+     * @param tokens                 生成的 token 数：服务端报告了 usage 时使用其值，否则按文本块数估计
+     */
+    public record StreamMetrics(long timeToFirstTokenMillis, long totalMillis, int chunks, int characters, int tokens) {
+
+        /**
+         * 首个文本块之后的生成速度 (tokens/s)
+         */
+        public double tokensPerSecond() {
+            long generationMillis = totalMillis - Math.max(0, timeToFirstTokenMillis);
+            return tokens > 1 && generationMillis > 0 ? (tokens - 1) * 1000.0 / generationMillis : 0.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("首字 %d ms, 共 %d ms, %d tokens, %.1f tokens/s",
+                    timeToFirstTokenMillis, totalMillis, tokens, tokensPerSecond());
+        }
+    }
+
+    private static final Timer ROUND_TRIP_TIMER = MetricsRegistry.getInstance().timer("ai.roundtrip", "AI 对话一次完整的流式响应");
+    private static final Timer TTFT_TIMER = MetricsRegistry.getInstance().timer("ai.ttft", "AI 对话首字耗时");
+    private static final Counter TOKENS = MetricsRegistry.getInstance().counter("ai.tokens", "AI 生成的 token 数");
+
+    private final HttpTransport transport;
+    private final URI endpoint;
+    private final String model;
+
+    public KimiClient(HttpTransport transport, URI endpoint, String model) {
+        this.transport = transport;
+        this.endpoint = endpoint;
+        this.model = model;
+    }
+
+    /**
+     * 使用默认模型，接口地址取系统属性 {@value #ENDPOINT_PROPERTY}，未设置时使用 {@link #DEFAULT_ENDPOINT}
+     */
+    public static KimiClient create(HttpTransport transport) {
+        String endpoint = System.getProperty(ENDPOINT_PROPERTY);
+        return new KimiClient(transport, endpoint == null || endpoint.isBlank() ? DEFAULT_ENDPOINT : URI.create(endpoint),
+                DEFAULT_MODEL);
+    }
+
+    /**
+     * 发送对话请求并在当前线程上同步读取流式响应。线程被中断时提前结束读取。
+     *
+     * @param apiKey      API Key
+     * @param messages    对话消息 (role/content)
+     * @param temperature 采样温度
+     * @param onDelta     每个文本块调用一次，在当前线程上执行
+     * @return 本次响应的耗时统计
+     * @throws IOException 网络错误或服务端返回非 200 状态码
+     */
+    public StreamMetrics streamChat(String apiKey, JSONArray messages, double temperature, Consumer<String> onDelta)
+            throws IOException, InterruptedException {
+        JSONObject payload = new JSONObject();
+        payload.put("model", model);
+        payload.put("messages", messages);
+        payload.put("temperature", temperature);
+        payload.put("stream", true);
+
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(endpoint)
+                .header("Content-Type", "application/json")
+                .header("Accept", "text/event-stream")
+                .header("Authorization", "Bearer " + apiKey)
+                .POST(HttpRequest.BodyPublishers.ofString(payload.toString()))
+                .build();
+
+        long started = System.nanoTime();
+        HttpResponse<InputStream> response = transport.stream(request);
+        try (InputStream body = response.body()) {
+            if (response.statusCode() != 200) {
+                String detail = new String(body.readNBytes(512), StandardCharsets.UTF_8);
+                throw new IOException("请求失败，状态码: " + response.statusCode() + (detail.isBlank() ? "" : ", " + detail));
+            }
+            SseDeltaReader reader = new SseDeltaReader(body);
+            reader.readAll(onDelta);
+
+            long finished = System.nanoTime();
+            long ttft = reader.getDeltaCount() == 0 ? -1 : (reader.getFirstDeltaNanos() - started) / 1_000_000;
+            int tokens = reader.getCompletionTokens() >= 0 ? reader.getCompletionTokens() : reader.getDeltaCount();
+            ROUND_TRIP_TIMER.record(finished - started);
+            if (reader.getDeltaCount() > 0) {
+                TTFT_TIMER.record(reader.getFirstDeltaNanos() - started);
+            }
+            TOKENS.add(tokens);
+            return new StreamMetrics(ttft, (finished - started) / 1_000_000, reader.getDeltaCount(),
+                    reader.getCharacterCount(), tokens);
+        }
+    }
+}
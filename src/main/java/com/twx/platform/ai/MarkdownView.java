@@ -8,14 +8,18 @@ import com.vladsch.flexmark.html.HtmlRenderer;
 import com.vladsch.flexmark.parser.Parser;
 import com.vladsch.flexmark.util.ast.Node;
 import com.vladsch.flexmark.util.data.MutableDataSet;
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
+import javafx.concurrent.Worker;
 import javafx.scene.layout.StackPane;
 import javafx.scene.text.Font;
 import javafx.scene.text.Text;
 import javafx.scene.web.WebView;
 import javafx.stage.Stage; // <<< 新增导入
+import netscape.javascript.JSObject;
 
 import java.util.Objects;
+import java.util.regex.Pattern;
 
 /**
  * 【交互升级版 v2.2】一个稳定、可靠且美观的 Markdown 显示组件。
@@ -23,28 +27,63 @@ import java.util.Objects;
  */
 public class MarkdownView extends StackPane {
 
-    private static final Parser PARSER;
-    private static final HtmlRenderer RENDERER;
-
     private final WebView webView;
     private final boolean isDarkMode;
     private String rawMarkdownContent = "";
 
+    // --- 【新增】流式渲染状态 ---
+    // 流式页面骨架：已完成的块只追加一次，末尾未完成的块每帧替换
+    private static final String STREAM_SHELL = """
+            <div id="md-done"></div><div id="md-tail"></div>
+            <script>
+              function appendBlocks(html) { document.getElementById('md-done').insertAdjacentHTML('beforeend', html); }
+              function setDone(html) { document.getElementById('md-done').innerHTML = html; }
+              function setTail(html) { document.getElementById('md-tail').innerHTML = html; }
+              function contentHeight() { return document.querySelector('.content-wrapper').offsetHeight; }
+            </script>
+            """;
+    private static final Pattern LIST_ITEM = Pattern.compile("[-*+]\\s|\\d{1,9}[.)]\\s");
+    private static final Pattern REFERENCE_DEFINITION = Pattern.compile("(?m)^ {0,3}\\[[^\\]]+]:\\s*\\S");
+    private final StringBuilder streamBuffer = new StringBuilder(); // 由 streamBuffer 自身加锁保护
+    private boolean streamDirty;
+    private boolean streamFinished;
+    private int committedLength; // 已作为完整块渲染的字符数 (仅 FX 线程访问)
+    private boolean streamPageLoaded;
+    private AnimationTimer streamTimer;
+
     private static final Text heightCalculator = new Text();
     private static final double FIXED_WIDTH = 240.0;
     private static final double PADDING = 12.0 * 2;
     private static final double LINE_SPACING = 5;
 
     static {
-        MutableDataSet options = new MutableDataSet();
-        PARSER = Parser.builder(options).build();
-        RENDERER = HtmlRenderer.builder(options).build();
-
         heightCalculator.setFont(Font.font("System", 13));
         heightCalculator.setWrappingWidth(FIXED_WIDTH - PADDING);
         heightCalculator.setLineSpacing(LINE_SPACING);
     }
 
+    /**
+     * 【新增】flexmark 解析器延迟到第一次渲染 (或 {@link #preload()}) 时才创建，
+     * 不打开 AI 助手的用户不必在启动时加载 flexmark。
+     */
+    private static final class Flexmark {
+        static final Parser PARSER;
+        static final HtmlRenderer RENDERER;
+
+        static {
+            MutableDataSet options = new MutableDataSet();
+            PARSER = Parser.builder(options).build();
+            RENDERER = HtmlRenderer.builder(options).build();
+        }
+    }
+
+    /**
+     * 【新增】提前加载 flexmark 并预热一次解析。不涉及任何 JavaFX 对象，可以在后台线程调用。
+     */
+    public static void preload() {
+        Flexmark.RENDERER.render(Flexmark.PARSER.parse("# warm up\n\n- item `code`"));
+    }
+
     public MarkdownView(boolean isDarkMode) {
         super();
         this.isDarkMode = isDarkMode;
@@ -98,8 +137,8 @@ public class MarkdownView extends StackPane {
         heightCalculator.setText(plainText);
         double requiredHeight = heightCalculator.getLayoutBounds().getHeight() + 30;
 
-        Node document = PARSER.parse(markdownContent);
-        String contentHtml = RENDERER.render(document);
+        Node document = Flexmark.PARSER.parse(markdownContent);
+        String contentHtml = Flexmark.RENDERER.render(document);
         String fullHtml = buildFullHtml(contentHtml);
 
         Platform.runLater(() -> {
@@ -108,6 +147,134 @@ public class MarkdownView extends StackPane {
         });
     }
 
+    // =================================================================================
+    // >>> 【新增】流式渲染：增量解析，只重绘末尾未完成的块 <<<
+    // =================================================================================
+
+    /**
+     * 进入流式模式 (FX 线程调用)。页面骨架只加载一次，之后的内容通过 JavaScript 增量写入 DOM。
+     */
+    public void beginStream() {
+        synchronized (streamBuffer) {
+            streamBuffer.setLength(0);
+            streamDirty = false;
+            streamFinished = false;
+        }
+        committedLength = 0;
+        streamPageLoaded = false;
+        rawMarkdownContent = "";
+        webView.getEngine().getLoadWorker().stateProperty().addListener((obs, oldState, newState) -> {
+            if (newState == Worker.State.SUCCEEDED) {
+                streamPageLoaded = true;
+            }
+        });
+        webView.getEngine().loadContent(buildFullHtml(STREAM_SHELL));
+        // 所有文本块的更新合并到显示帧上执行，每帧最多渲染一次
+        streamTimer = new AnimationTimer() {
+            @Override
+            public void handle(long now) {
+                renderStreamFrame();
+            }
+        };
+        streamTimer.start();
+    }
+
+    /**
+     * 追加一段流式文本，可以在任意线程调用；真正的渲染在下一帧进行。
+     */
+    public void append(String chunk) {
+        synchronized (streamBuffer) {
+            streamBuffer.append(chunk);
+            streamDirty = true;
+        }
+    }
+
+    /**
+     * 结束流式输出，可以在任意线程调用。下一帧会把剩余内容作为完整块渲染并停止帧回调。
+     */
+    public void endStream() {
+        synchronized (streamBuffer) {
+            streamFinished = true;
+            streamDirty = true;
+        }
+    }
+
+    private void renderStreamFrame() {
+        if (!streamPageLoaded) return;
+        String pending;
+        boolean finished;
+        synchronized (streamBuffer) {
+            if (!streamDirty) return;
+            streamDirty = false;
+            pending = streamBuffer.substring(committedLength);
+            finished = streamFinished;
+            if (finished) {
+                rawMarkdownContent = streamBuffer.toString();
+            }
+        }
+
+        JSObject window = (JSObject) webView.getEngine().executeScript("window");
+        if (finished && committedLength > 0 && REFERENCE_DEFINITION.matcher(rawMarkdownContent).find()) {
+            // 引用式链接的定义可能在已提交的块之后才出现，分块解析时无法解析，结束时整篇重新渲染一次
+            window.call("setDone", Flexmark.RENDERER.render(Flexmark.PARSER.parse(rawMarkdownContent)));
+            committedLength += pending.length();
+            pending = "";
+        }
+        int split = finished ? pending.length() : lastBlockBoundary(pending);
+        if (split > 0) {
+            // 完整的块只解析、追加一次
+            window.call("appendBlocks", Flexmark.RENDERER.render(Flexmark.PARSER.parse(pending.substring(0, split))));
+            committedLength += split;
+        }
+        String tail = pending.substring(split);
+        window.call("setTail", tail.isBlank() ? "" : Flexmark.RENDERER.render(Flexmark.PARSER.parse(tail)));
+
+        Object height = webView.getEngine().executeScript("contentHeight()");
+        if (height instanceof Number number) {
+            this.setPrefHeight(number.doubleValue() + 16);
+        }
+        if (finished) {
+            streamTimer.stop();
+        }
+    }
+
+    /**
+     * 找到最后一个完整块的结束位置：代码围栏之外的空行，并且空行之后已经出现了下一行、
+     * 这一行既不缩进也不是列表项。缩进的行 (列表项的续段、列表内的代码) 和新的列表项都可能属于前面的列表
+     * (宽松列表)，在那里切开会让分块渲染的结果与整篇渲染不同。之后的内容可能还会继续变化。
+     * @return 可以安全提交的字符数，没有完整块时为 0
+     */
+    static int lastBlockBoundary(String text) {
+        int boundary = 0;
+        int candidate = -1; // 最近一串空行之后的位置，等看到下一行再决定能否切开
+        boolean inFence = false;
+        int lineStart = 0;
+        while (lineStart < text.length()) {
+            int newline = text.indexOf('\n', lineStart);
+            int lineEnd = newline < 0 ? text.length() : newline;
+            String rawLine = text.substring(lineStart, lineEnd);
+            String line = rawLine.strip();
+            if (line.isEmpty()) {
+                if (!inFence && newline >= 0) {
+                    candidate = newline + 1;
+                }
+            } else {
+                if (candidate >= 0 && !Character.isWhitespace(rawLine.charAt(0)) && !LIST_ITEM.matcher(rawLine).lookingAt()) {
+                    boundary = candidate;
+                }
+                candidate = -1;
+                if (line.startsWith("```") || line.startsWith("~~~")) {
+                    inFence = !inFence;
+                }
+            }
+            if (newline < 0) {
+                break;
+            }
+            lineStart = newline + 1;
+        }
+        return boundary;
+    }
+
     private String buildFullHtml(String contentHtml) {
         // ... [此方法保持不变] ...
         String mainCssPath = Objects.requireNonNull(getClass().getResource("/com/twx/platform/ui/style.css")).toExternalForm();
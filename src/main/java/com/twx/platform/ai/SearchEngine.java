@@ -0,0 +1,35 @@
+package com.twx.platform.ai;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 单个网络搜索引擎。{@link SearchService} 会并行 (对冲) 调用多个引擎，取第一个有效的结果。
+ */
+public interface SearchEngine {
+
+    /**
+     * 一条搜索结果。
+     *
+     * @param title   标题
+     * @param url     链接，可能为空字符串
+     * @param snippet 摘要
+     */
+    record SearchHit(String title, String url, String snippet) {
+    }
+
+    /**
+     * 引擎名称，用于配置和日志
+     */
+    String getName();
+
+    /**
+     * 执行搜索。实现应在线程被中断时尽快返回。
+     *
+     * @param query      查询关键词
+     * @param maxResults 最多返回的结果数
+     * @return 搜索结果，没有结果时返回空列表
+     * @throws IOException 网络或解析失败
+     */
+    List<SearchHit> search(String query, int maxResults) throws IOException;
+}
@@ -1,32 +1,83 @@
 // src/main/java/com/twx/platform/ai/SearchService.java
-// 【国内网络优化版】请用这份代码完整替换您现有的同名文件
 
 package com.twx.platform.ai;
 
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
-import org.jsoup.nodes.Element;
-import org.jsoup.select.Elements;
+import com.twx.platform.ai.impl.HtmlSearchEngine;
+import com.twx.platform.common.ConfigurationManager;
+import com.twx.platform.common.TaskScheduler;
 
 import java.io.IOException;
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 /**
- * 网络搜索服务 v2.1 (基于 Jsoup, 优化国内网络环境)。
- * 通过直接抓取和解析必应搜索(cn.bing.com)的HTML结果，提供在国内稳定、免费且无API Key依赖的搜索功能。
+ * 网络搜索服务 v3。
+ * <p>
+ * 同时配置多个搜索引擎 (默认必应中国 + 百度，见 {@link ConfigurationManager#getSearchEngines()})，
+ * 以对冲方式请求：先请求第一个引擎，若超过对冲延迟仍未返回、或失败、或没有结果，就立即请求下一个；
+ * 返回最先得到的有效结果，并取消其余仍在进行的请求。这样单个引擎偶尔变慢不会拖住整个 AI 回答。
+ * <p>
+ * 有效结果按规范化后的查询 (全半角、大小写、空白) 缓存一段时间，重复提问直接命中缓存。
  */
 public class SearchService {
 
-    private static final int MAX_RESULTS = 5; // 最多取前4条结果，以保证上下文简洁
-    // 使用在国内访问稳定的必应搜索
-    private static final String SEARCH_URL_TEMPLATE = "https://cn.bing.com/search?q=%s";
-    // 模拟一个常见的浏览器User-Agent
-    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/108.0.0.0 Safari/537.36";
-    private static final int TIMEOUT_MS = 15000; // 15秒超时，国内访问有时需要更长时间
+    private static final int MAX_RESULTS = 5; // 最多取前5条结果，以保证上下文简洁
+    private static final Duration DEFAULT_TTL = Duration.ofMinutes(10);
+    private static final Duration DEFAULT_HEDGE_DELAY = Duration.ofMillis(1200);
+    private static final Duration DEFAULT_DEADLINE = Duration.ofSeconds(10);
+    private static final int MAX_CACHE_ENTRIES = 100;
 
+    private record CacheEntry(List<SearchEngine.SearchHit> hits, long expiresAt) {
+    }
+
+    private final List<SearchEngine> engines;
+    private final long ttlMillis;
+    private final long hedgeDelayMillis;
+    private final long deadlineMillis;
+    private final Map<String, CacheEntry> cache = new ConcurrentHashMap<>();
+
+    /**
+     * 使用设置中配置的搜索引擎和默认的缓存、对冲参数
+     */
     public SearchService() {
-        // 构造函数为空
+        this(configuredEngines(), DEFAULT_TTL, DEFAULT_HEDGE_DELAY, DEFAULT_DEADLINE);
+    }
+
+    /**
+     * @param engines    按优先顺序排列的搜索引擎
+     * @param ttl        结果缓存时间
+     * @param hedgeDelay 前一个引擎超过这个时间仍未返回时，开始请求下一个引擎
+     * @param deadline   整次搜索的最长等待时间
+     */
+    public SearchService(List<SearchEngine> engines, Duration ttl, Duration hedgeDelay, Duration deadline) {
+        if (engines.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一个搜索引擎");
+        }
+        this.engines = List.copyOf(engines);
+        this.ttlMillis = ttl.toMillis();
+        this.hedgeDelayMillis = hedgeDelay.toMillis();
+        this.deadlineMillis = deadline.toMillis();
+    }
+
+    /**
+     * 按设置创建搜索引擎。无法识别的名称会退回默认引擎，因此按名称去重；设置为空时使用必应
+     */
+    private static List<SearchEngine> configuredEngines() {
+        Map<String, SearchEngine> engines = new LinkedHashMap<>();
+        for (String name : ConfigurationManager.getInstance().getSearchEngines()) {
+            HtmlSearchEngine engine = HtmlSearchEngine.forName(name);
+            engines.putIfAbsent(engine.getName(), engine);
+        }
+        return engines.isEmpty() ? List.of(HtmlSearchEngine.bing()) : new ArrayList<>(engines.values());
     }
 
     /**
@@ -34,75 +85,102 @@ public class SearchService {
      *
      * @param query 用户查询关键词
      * @return 格式化后的搜索结果摘要
-     * @throws IOException 如果网络连接或HTML解析失败
+     * @throws IOException 如果所有引擎都失败
      */
     public String search(String query) throws IOException {
-        try {
-            String encodedQuery = URLEncoder.encode(query, StandardCharsets.UTF_8);
-            String requestUrl = String.format(SEARCH_URL_TEMPLATE, encodedQuery);
+        String key = normalize(query);
+        long now = System.currentTimeMillis();
+        CacheEntry cached = cache.get(key);
+        if (cached != null && cached.expiresAt() > now) {
+            return format(cached.hits());
+        }
 
-            // 使用 Jsoup 连接并获取 HTML 文档
-            Document doc = Jsoup.connect(requestUrl)
-                    .userAgent(USER_AGENT)
-                    .timeout(TIMEOUT_MS)
-                    .get();
+        List<SearchEngine.SearchHit> hits = hedgedSearch(query);
+        if (!hits.isEmpty()) {
+            if (cache.size() >= MAX_CACHE_ENTRIES) {
+                cache.values().removeIf(entry -> entry.expiresAt() <= now);
+                if (cache.size() >= MAX_CACHE_ENTRIES) cache.clear();
+            }
+            cache.put(key, new CacheEntry(hits, now + ttlMillis));
+        }
+        return format(hits);
+    }
 
-            // 解析HTML并提取结果
-            return parseBingSearchResults(doc);
+    private List<SearchEngine.SearchHit> hedgedSearch(String query) throws IOException {
+        ExecutorCompletionService<List<SearchEngine.SearchHit>> completion = new ExecutorCompletionService<>(
+                TaskScheduler.getInstance().executor("网络搜索", TaskScheduler.Kind.IO, TaskScheduler.Priority.INTERACTIVE));
+        List<Future<List<SearchEngine.SearchHit>>> attempts = new ArrayList<>();
+        List<String> errors = new ArrayList<>();
+        long deadline = System.currentTimeMillis() + deadlineMillis;
+        int finished = 0;
+        try {
+            attempts.add(submit(completion, engines.get(0), query));
+            while (finished < attempts.size()) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) break;
+                boolean canHedge = attempts.size() < engines.size();
+                Future<List<SearchEngine.SearchHit>> done = completion.poll(
+                        canHedge ? Math.min(hedgeDelayMillis, remaining) : remaining, TimeUnit.MILLISECONDS);
+                if (done == null) {
+                    // 超过对冲延迟仍未返回，追加请求下一个引擎
+                    if (canHedge) attempts.add(submit(completion, engines.get(attempts.size()), query));
+                    continue;
+                }
+                finished++;
+                try {
+                    List<SearchEngine.SearchHit> hits = done.get();
+                    if (!hits.isEmpty()) return hits;
+                } catch (ExecutionException e) {
+                    errors.add(e.getCause().getMessage());
+                }
+                // 失败或没有结果时不再等待对冲延迟，直接请求下一个引擎
+                if (canHedge) attempts.add(submit(completion, engines.get(attempts.size()), query));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("网络搜索被取消", e);
+        } finally {
+            attempts.forEach(attempt -> attempt.cancel(true));
+        }
 
-        } catch (Exception e) {
-            // 将所有异常（包括超时、SSL问题等）统一包装为IOException
-            throw new IOException("执行网络搜索时发生错误: " + e.getMessage(), e);
+        if (finished < attempts.size()) {
+            throw new IOException("网络搜索超时" + (errors.isEmpty() ? "" : ": " + String.join("; ", errors)));
         }
+        if (errors.size() == attempts.size()) {
+            throw new IOException("执行网络搜索时发生错误: " + String.join("; ", errors));
+        }
+        return List.of();
+    }
+
+    private static Future<List<SearchEngine.SearchHit>> submit(
+            ExecutorCompletionService<List<SearchEngine.SearchHit>> completion, SearchEngine engine, String query) {
+        return completion.submit(() -> engine.search(query, MAX_RESULTS));
     }
 
     /**
-     * 解析 Jsoup 从必应搜索获取的 Document 对象，并将其格式化为易读的文本。
-     *
-     * @param doc Jsoup 解析后的 HTML 文档对象
-     * @return 格式化后的结果文本
+     * 缓存键：统一全半角 (NFKC)、大小写和空白
      */
-    private String parseBingSearchResults(Document doc) {
-        // 必应搜索的结果项通常在 id="b_results" 下的 <li> 标签中，且带有 "b_algo" 类
-        Elements results = doc.select("#b_results > li.b_algo");
+    static String normalize(String query) {
+        return Normalizer.normalize(query, Normalizer.Form.NFKC)
+                .toLowerCase()
+                .replaceAll("\\s+", " ")
+                .trim();
+    }
 
-        if (results.isEmpty()) {
+    private static String format(List<SearchEngine.SearchHit> hits) {
+        if (hits.isEmpty()) {
             return "未找到相关的网络搜索结果。";
         }
-
         StringBuilder sb = new StringBuilder();
         sb.append("**网络搜索结果摘要：**\n\n");
-
-        int count = 0;
-        for (Element result : results) {
-            if (count >= MAX_RESULTS) break;
-
-            // 提取标题和链接 (通常在 <h2> 下的 <a> 标签)
-            Element titleElement = result.selectFirst("h2 > a");
-            // 提取摘要 (通常在 class="b_caption" 的 <div> 下的 <p> 标签)
-            Element snippetElement = result.selectFirst("div.b_caption > p");
-
-            if (titleElement != null && snippetElement != null) {
-                String title = titleElement.text();
-                String url = titleElement.attr("href"); // 获取链接
-                String snippet = snippetElement.text();
-
-                // 过滤掉没有实际内容的项和广告
-                if (!title.isEmpty() && !snippet.isEmpty() && !url.startsWith("https://go.microsoft.com")) {
-                    sb.append(count + 1).append(". **").append(title).append("**\n");
-                    sb.append("   ").append(snippet).append("\n");
-                    if (!url.isEmpty()) {
-                        sb.append("   来源: [链接](").append(url).append(")\n\n");
-                    }
-                    count++;
-                }
+        for (int i = 0; i < hits.size(); i++) {
+            SearchEngine.SearchHit hit = hits.get(i);
+            sb.append(i + 1).append(". **").append(hit.title()).append("**\n");
+            sb.append("   ").append(hit.snippet()).append("\n");
+            if (!hit.url().isEmpty()) {
+                sb.append("   来源: [链接](").append(hit.url()).append(")\n\n");
             }
         }
-
-        if (count == 0) {
-            return "无法从搜索页面中解析出有效结果。(可能是页面结构已更新)";
-        }
-
         return sb.toString();
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,223 @@
+package com.twx.platform.ai;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * OpenAI 兼容的 server-sent events 流 (Kimi 的流式接口) 的轻量解析器。
+ * <p>
+ * 直接在字节缓冲区上按行扫描，不为每行创建 String，也不构建 JSON 树：
+ * 只定位 {@code "delta"} 之后的 {@code "content"} 字符串并就地解码转义，
+ * 每个文本块只在交给回调时创建一次 String。
+ * 同时记录首个文本块到达时间、文本块数量，以及服务端在最后一个事件里给出的 completion_tokens (如果有)。
+ */
+public final class SseDeltaReader {
+
+    private static final byte[] DATA = "data:".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DONE = "[DONE]".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] DELTA_KEY = "\"delta\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] CONTENT_KEY = "\"content\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] COMPLETION_TOKENS_KEY = "\"completion_tokens\"".getBytes(StandardCharsets.US_ASCII);
+
+    private final InputStream in;
+    private byte[] buffer = new byte[8192];
+    private int start;
+    private int end;
+    private final StringBuilder decoded = new StringBuilder();
+
+    private long firstDeltaNanos;
+    private int deltaCount;
+    private int characterCount;
+    private int completionTokens = -1;
+
+    public SseDeltaReader(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * 读取整个流，每个非空的 delta.content 调用一次 onDelta。
+     * 遇到 [DONE]、流结束或当前线程被中断时返回。
+     */
+    public void readAll(Consumer<String> onDelta) throws IOException {
+        while (!Thread.currentThread().isInterrupted()) {
+            int newline = indexOf((byte) '\n', start, end);
+            if (newline < 0) {
+                if (!fill()) {
+                    // 最后一行可能没有换行符
+                    if (start < end) handleLine(start, end, onDelta);
+                    return;
+                }
+                continue;
+            }
+            int lineEnd = newline > start && buffer[newline - 1] == '\r' ? newline - 1 : newline;
+            boolean done = handleLine(start, lineEnd, onDelta);
+            start = newline + 1;
+            if (done) return;
+        }
+    }
+
+    /**
+     * @return 首个文本块到达的 System.nanoTime()，尚未收到时为 0
+     */
+    public long getFirstDeltaNanos() {
+        return firstDeltaNanos;
+    }
+
+    public int getDeltaCount() {
+        return deltaCount;
+    }
+
+    public int getCharacterCount() {
+        return characterCount;
+    }
+
+    /**
+     * @return 服务端报告的生成 token 数，未报告时为 -1
+     */
+    public int getCompletionTokens() {
+        return completionTokens;
+    }
+
+    private boolean fill() throws IOException {
+        if (start > 0) {
+            System.arraycopy(buffer, start, buffer, 0, end - start);
+            end -= start;
+            start = 0;
+        }
+        if (end == buffer.length) {
+            buffer = Arrays.copyOf(buffer, buffer.length * 2);
+        }
+        int read = in.read(buffer, end, buffer.length - end);
+        if (read < 0) return false;
+        end += read;
+        return true;
+    }
+
+    /**
+     * @return 读到 [DONE] 时返回 true
+     */
+    private boolean handleLine(int from, int to, Consumer<String> onDelta) {
+        if (!startsWith(from, to, DATA)) {
+            return false; // 空行、注释 (":" 开头) 或 event/id 字段
+        }
+        int pos = from + DATA.length;
+        if (pos < to && buffer[pos] == ' ') pos++;
+        if (startsWith(pos, to, DONE)) {
+            return true;
+        }
+
+        int tokens = findNumberAfter(COMPLETION_TOKENS_KEY, pos, to);
+        if (tokens >= 0) completionTokens = tokens;
+
+        int delta = find(DELTA_KEY, pos, to);
+        if (delta < 0) return false;
+        int key = find(CONTENT_KEY, delta + DELTA_KEY.length, to);
+        if (key < 0) return false;
+        int quote = skipToValue(key + CONTENT_KEY.length, to);
+        if (quote < 0 || buffer[quote] != '"') {
+            return false; // "content": null
+        }
+        String text = decodeString(quote + 1, to);
+        if (text != null && !text.isEmpty()) {
+            if (deltaCount == 0) firstDeltaNanos = System.nanoTime();
+            deltaCount++;
+            characterCount += text.length();
+            onDelta.accept(text);
+        }
+        return false;
+    }
+
+    /**
+     * 解码从 from 开始的 JSON 字符串内容 (不含起始引号)。没有转义字符时直接按 UTF-8 构造一次。
+     */
+    private String decodeString(int from, int to) {
+        int i = from;
+        boolean escaped = false;
+        while (i < to && buffer[i] != '"') {
+            if (buffer[i] == '\\') {
+                escaped = true;
+                i++;
+            }
+            i++;
+        }
+        if (i >= to) return null; // 不完整的 JSON
+        if (!escaped) {
+            return new String(buffer, from, i - from, StandardCharsets.UTF_8);
+        }
+
+        decoded.setLength(0);
+        int runStart = from;
+        int p = from;
+        while (p < i) {
+            if (buffer[p] != '\\') {
+                p++;
+                continue;
+            }
+            if (p > runStart) decoded.append(new String(buffer, runStart, p - runStart, StandardCharsets.UTF_8));
+            byte c = buffer[p + 1];
+            switch (c) {
+                case 'n' -> decoded.append('\n');
+                case 't' -> decoded.append('\t');
+                case 'r' -> decoded.append('\r');
+                case 'b' -> decoded.append('\b');
+                case 'f' -> decoded.append('\f');
+                case 'u' -> {
+                    if (p + 6 <= i) {
+                        decoded.append((char) Integer.parseInt(new String(buffer, p + 2, 4, StandardCharsets.US_ASCII), 16));
+                        p += 4;
+                    }
+                }
+                default -> decoded.append((char) c); // \" \\ \/
+            }
+            p += 2;
+            runStart = p;
+        }
+        if (i > runStart) decoded.append(new String(buffer, runStart, i - runStart, StandardCharsets.UTF_8));
+        return decoded.toString();
+    }
+
+    private int skipToValue(int pos, int to) {
+        while (pos < to && (buffer[pos] == ' ' || buffer[pos] == ':')) pos++;
+        return pos < to ? pos : -1;
+    }
+
+    private int findNumberAfter(byte[] key, int from, int to) {
+        int k = find(key, from, to);
+        if (k < 0) return -1;
+        int pos = skipToValue(k + key.length, to);
+        if (pos < 0) return -1;
+        int value = 0;
+        boolean any = false;
+        while (pos < to && buffer[pos] >= '0' && buffer[pos] <= '9') {
+            value = value * 10 + (buffer[pos++] - '0');
+            any = true;
+        }
+        return any ? value : -1;
+    }
+
+    private boolean startsWith(int from, int to, byte[] prefix) {
+        if (to - from < prefix.length) return false;
+        for (int i = 0; i < prefix.length; i++) {
+            if (buffer[from + i] != prefix[i]) return false;
+        }
+        return true;
+    }
+
+    private int find(byte[] needle, int from, int to) {
+        byte first = needle[0];
+        for (int i = from; i <= to - needle.length; i++) {
+            if (buffer[i] == first && startsWith(i, to, needle)) return i;
+        }
+        return -1;
+    }
+
+    private int indexOf(byte b, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer[i] == b) return i;
+        }
+        return -1;
+    }
+}
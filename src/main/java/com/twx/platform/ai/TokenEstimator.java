@@ -0,0 +1,33 @@
+package com.twx.platform.ai;
+
+/**
+ * 提示词 token 数的粗略估计，用于在发送前控制请求大小。
+ * <p>
+ * Moonshot 的分词器对中文大约每个汉字 1 个 token，对英文、数字和符号大约每 3~4 个字符 1 个 token。
+ * 这里按偏保守的比例估计 (宁可高估)，不需要加载真实的分词器。
+ */
+public final class TokenEstimator {
+
+    /**
+     * moonshot-v1-8k 的上下文窗口 (输入 + 输出)
+     */
+    public static final int MOONSHOT_8K_WINDOW = 8192;
+
+    private TokenEstimator() {
+    }
+
+    public static int estimate(CharSequence text) {
+        if (text == null) return 0;
+        int wide = 0;
+        int narrow = 0;
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                narrow++;
+            } else if (!Character.isLowSurrogate(c)) {
+                wide++;
+            }
+        }
+        return wide + (narrow + 2) / 3;
+    }
+}
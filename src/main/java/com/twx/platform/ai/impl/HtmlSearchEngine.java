@@ -0,0 +1,159 @@
+package com.twx.platform.ai.impl;
+
+import com.twx.platform.ai.SearchEngine;
+import com.twx.platform.common.HttpTransport;
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.jsoup.nodes.Element;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 抓取搜索结果页 HTML 并用 CSS 选择器提取结果的搜索引擎。
+ * 不同的引擎只是 URL 模板和选择器不同；URL 模板也可以指向本地的 HTML 桩服务器来复现页面。
+ */
+public class HtmlSearchEngine implements SearchEngine {
+
+    // 模拟一个常见的浏览器User-Agent
+    private static final String USER_AGENT = "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/108.0.0.0 Safari/537.36";
+    private static final Duration TIMEOUT = Duration.ofSeconds(8);
+
+    private final String name;
+    private final String urlTemplate;
+    private final String resultSelector;
+    private final String titleSelector;
+    private final String snippetSelector;
+    private final HttpTransport transport = HttpTransport.getInstance();
+
+    /**
+     * @param name            引擎名称
+     * @param urlTemplate     搜索地址，%s 处替换为 URL 编码后的关键词
+     * @param resultSelector  每条结果的选择器
+     * @param titleSelector   结果内标题链接 (&lt;a&gt;) 的选择器
+     * @param snippetSelector 结果内摘要的选择器
+     */
+    public HtmlSearchEngine(String name, String urlTemplate, String resultSelector, String titleSelector,
+                            String snippetSelector) {
+        this.name = name;
+        this.urlTemplate = urlTemplate;
+        this.resultSelector = resultSelector;
+        this.titleSelector = titleSelector;
+        this.snippetSelector = snippetSelector;
+    }
+
+    /**
+     * 必应中国，国内访问稳定
+     */
+    public static HtmlSearchEngine bing() {
+        return new HtmlSearchEngine("bing", "https://cn.bing.com/search?q=%s",
+                "#b_results > li.b_algo", "h2 > a", "div.b_caption > p");
+    }
+
+    public static HtmlSearchEngine baidu() {
+        return new HtmlSearchEngine("baidu", "https://www.baidu.com/s?wd=%s",
+                "#content_left > div.c-container", "h3 > a", ".c-abstract, [class*=content-right], .c-span-last");
+    }
+
+    public static HtmlSearchEngine sogou() {
+        return new HtmlSearchEngine("sogou", "https://www.sogou.com/web?query=%s",
+                "#main .vrwrap, #main .rb", "h3 > a", ".space-txt, .str-text-info, .ft");
+    }
+
+    /**
+     * 按名称创建内置引擎。名称无法识别时 (如设置里写错) 记录错误并退回默认的必应，
+     * 不让一项错误的设置导致 AI 助手无法创建。
+     */
+    public static HtmlSearchEngine forName(String name) {
+        return switch (name.trim().toLowerCase()) {
+            case "bing" -> bing();
+            case "baidu" -> baidu();
+            case "sogou" -> sogou();
+            default -> {
+                System.err.println("不支持的搜索引擎: " + name + "，改用默认的 bing");
+                yield bing();
+            }
+        };
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public List<SearchHit> search(String query, int maxResults) throws IOException {
+        String requestUrl = String.format(urlTemplate, URLEncoder.encode(query, StandardCharsets.UTF_8));
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(requestUrl))
+                .header("User-Agent", USER_AGENT)
+                .header("Accept", "text/html")
+                .timeout(TIMEOUT)
+                .GET()
+                .build();
+        HttpResponse<byte[]> response;
+        try {
+            response = transport.send(request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(name + " 搜索被取消", e);
+        }
+        if (response.statusCode() != 200) {
+            throw new IOException(name + " 搜索失败，状态码: " + response.statusCode());
+        }
+        // 优先使用响应头声明的编码，没有声明时由 Jsoup 按 BOM 和 meta 标签检测
+        Document doc = Jsoup.parse(new ByteArrayInputStream(response.body()), charsetOf(response), response.uri().toString());
+        return parse(doc, maxResults);
+    }
+
+    /**
+     * 从 Content-Type 响应头中取出 charset 参数
+     * @return 编码名；未声明或当前 JVM 不支持时返回 null
+     */
+    private static String charsetOf(HttpResponse<?> response) {
+        String contentType = response.headers().firstValue("Content-Type").orElse("");
+        for (String param : contentType.split(";")) {
+            String[] pair = param.trim().split("=", 2);
+            if (pair.length == 2 && pair[0].trim().equalsIgnoreCase("charset")) {
+                String charset = pair[1].trim().replace("\"", "");
+                try {
+                    return Charset.isSupported(charset) ? charset : null;
+                } catch (IllegalCharsetNameException e) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 从结果页中提取结果，过滤掉没有摘要的项和广告
+     */
+    List<SearchHit> parse(Document doc, int maxResults) {
+        List<SearchHit> hits = new ArrayList<>();
+        for (Element result : doc.select(resultSelector)) {
+            if (hits.size() >= maxResults) break;
+            Element titleElement = result.selectFirst(titleSelector);
+            Element snippetElement = result.selectFirst(snippetSelector);
+            if (titleElement == null || snippetElement == null) continue;
+
+            String title = titleElement.text();
+            String url = titleElement.absUrl("href");
+            String snippet = snippetElement.text();
+            if (!title.isEmpty() && !snippet.isEmpty() && !url.startsWith("https://go.microsoft.com")) {
+                hits.add(new SearchHit(title, url, snippet));
+            }
+        }
+        return hits;
+    }
+}
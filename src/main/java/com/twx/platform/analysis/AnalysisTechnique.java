@@ -1,5 +1,6 @@
 package com.twx.platform.analysis;
 
+import com.twx.platform.data.BarColumns;
 import org.jfree.data.xy.XYDataset; // 导入JFreeChart的数据集
 import org.ta4j.core.BarSeries;
 import java.util.List;
@@ -8,7 +9,15 @@ public interface AnalysisTechnique {
     /**
      * 注意：返回类型已更改为 JFreeChart 的 XYDataset 列表
      */
-    List<XYDataset> calculate(BarSeries series);
+    default List<XYDataset> calculate(BarSeries series) {
+        return calculate(BarColumns.of(series));
+    }
+
+    /**
+     * 【新增】基于已抽取的列数据计算。多个技术可以共享同一份 BarColumns，
+     * 返回的数据集直接引用计算得到的数组，不再逐点构建 XYSeries。
+     */
+    List<XYDataset> calculate(BarColumns columns);
 
     String getName();
-}
\ No newline at end of file
+}
@@ -0,0 +1,893 @@
+package com.twx.platform.analysis;
+
+import com.twx.platform.analysis.chart.ArrayOHLCDataset;
+import com.twx.platform.analysis.chart.ArrayXYDataset;
+import com.twx.platform.analysis.chart.TradeMarkerDataset;
+import com.twx.platform.data.BarColumns;
+import javafx.animation.AnimationTimer;
+import javafx.geometry.VPos;
+import javafx.scene.Node;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.text.Font;
+import javafx.scene.text.FontWeight;
+import javafx.scene.text.TextAlignment;
+import org.jfree.data.xy.OHLCDataset;
+import org.jfree.data.xy.XYDataset;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 直接在 JavaFX Canvas 上绘制的高性能K线图，面向十万根K线级别的分钟线。
+ * <ul>
+ *     <li>横轴按K线序号排列 (没有非交易时段的空白)，主图与 RSI / MACD 子图共享同一个可见区间。</li>
+ *     <li>视口裁剪：每帧只访问可见区间内的K线。</li>
+ *     <li>按像素列聚合：一个像素列对应多根K线时，K线取该列的开高低收，指标线取该列的首、最小、最大、末值，
+ *     绘制量与像素宽度成正比，而不是与K线数量成正比。</li>
+ *     <li>分层缓存：数据层 (网格、K线、指标、成交标记) 只在数据、视口或尺寸变化时重绘，
+ *     鼠标移动只重绘覆盖层 (十字光标)；聚合结果在视口不变时复用。</li>
+ *     <li>所有重绘请求合并到 AnimationTimer 的下一帧执行，拖动和滚轮缩放最多每帧绘制一次；
+ *     没有待绘制的内容时定时器停止，不占用空闲时的 FX 脉冲。</li>
+ * </ul>
+ * 配色与 {@link FinancialChart} 共用 {@link ChartTheme}。
+ */
+public class CanvasFinancialChart extends Region implements ChartView {
+
+    private static final double AXIS_WIDTH = 64;
+    private static final double AXIS_HEIGHT = 22;
+    private static final double PANE_GAP = 8;
+    private static final double Y_PADDING = 0.05;
+    private static final double MIN_VISIBLE_BARS = 10;
+    private static final double DATE_LABEL_SPACING = 110;
+    private static final double MARKER_CLUSTER_PIXELS = 14;
+    private static final double ZOOM_STEP = 0.85;
+    private static final Font LABEL_FONT = Font.font("Microsoft YaHei UI", 11);
+    private static final Font MARKER_FONT = Font.font("SansSerif", FontWeight.BOLD, 13);
+    private static final DateTimeFormatter DAY_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter MINUTE_FORMAT = DateTimeFormatter.ofPattern("MM-dd HH:mm");
+    private static final long THREE_DAYS_MILLIS = 3L * 24 * 60 * 60 * 1000;
+
+    private static final Color BULL = fx(ChartTheme.COLOR_BULL);
+    private static final Color BEAR = fx(ChartTheme.COLOR_BEAR);
+    private static final Color BUY = fx(ChartTheme.COLOR_BUY);
+    private static final Color SELL = fx(ChartTheme.COLOR_SELL);
+
+    /**
+     * 一条指标线，数值与K线一一对应，缺失处为 NaN
+     */
+    private record Line(String name, double[] values, Color color) {
+    }
+
+    /**
+     * 一个绘图区 (主图或子图)，纵轴按可见数据自动缩放
+     */
+    private static final class ChartPane {
+        final double weight;
+        final boolean candles;
+        List<Line> lines = List.of();
+        boolean visible;
+        double top;
+        double height;
+        double yMin;
+        double yMax;
+        // 聚合缓存: [line][first, min, max, last][slot]
+        double[][][] lineSlots = new double[0][][];
+
+        ChartPane(double weight, boolean candles, boolean visible) {
+            this.weight = weight;
+            this.candles = candles;
+            this.visible = visible;
+        }
+
+        double toY(double value) {
+            return top + (yMax - value) / (yMax - yMin) * height;
+        }
+
+        double fromY(double y) {
+            return yMax - (y - top) / height * (yMax - yMin);
+        }
+    }
+
+    // --- 数据 ---
+    private long[] times = new long[0];
+    private double[] open = new double[0];
+    private double[] high = new double[0];
+    private double[] low = new double[0];
+    private double[] close = new double[0];
+    private boolean candlesVisible = true;
+    private XYDataset maDataset, bbDataset, rsiDataset, macdDataset;
+    private TradeMarkerDataset tradeMarkers;
+    private int[][] markerIndex = {new int[0], new int[0]};
+    private double[][] markerPrice = {new double[0], new double[0]};
+    private final ChartPane mainPane = new ChartPane(3, true, true);
+    private final ChartPane rsiPane = new ChartPane(1, false, false);
+    private final ChartPane macdPane = new ChartPane(1, false, false);
+    private final ChartPane[] panes = {mainPane, rsiPane, macdPane};
+
+    // --- 视口 (K线序号) ---
+    private double viewStart = -0.5;
+    private double viewEnd = 0.5;
+    private boolean autoRange = true;
+
+    // --- 聚合缓存 ---
+    private int dataVersion;
+    private int slotsVersion = -1;
+    private double slotsStart = Double.NaN, slotsEnd = Double.NaN, slotsWidth = Double.NaN;
+    private int slotCount;
+    private int[] slotFrom = new int[0];
+    private int[] slotTo = new int[0];
+    private double[] slotX = new double[0];
+    private double[] candleOpen = new double[0], candleHigh = new double[0], candleLow = new double[0], candleClose = new double[0];
+
+    // --- 绘制状态 ---
+    private final Canvas dataCanvas = new Canvas();
+    private final Canvas overlayCanvas = new Canvas();
+    private boolean dataDirty = true;
+    private boolean overlayDirty = true;
+    private boolean notify = true;
+    private boolean disposed;
+    private double mouseX = -1, mouseY = -1;
+    private double dragStartX, dragStartView;
+    private Color background, plotBackground, textPrimary, textSecondary, grid;
+    private final AnimationTimer frameTimer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            renderFrame();
+            // 已经画完或暂时无法绘制时停止，下一次变化由 requestFrame 重新启动
+            if (!dataDirty && !overlayDirty || !canRender()) {
+                stop();
+            }
+        }
+    };
+    // 成交标记三角形的顶点坐标，每次绘制复用
+    private final double[] markerXs = new double[3];
+    private final double[] markerYs = new double[3];
+
+    public CanvasFinancialChart(boolean isDark) {
+        getChildren().addAll(dataCanvas, overlayCanvas);
+        applyTheme(isDark);
+        installHandlers();
+        requestFrame();
+    }
+
+    private static Color fx(java.awt.Color color) {
+        return Color.rgb(color.getRed(), color.getGreen(), color.getBlue(), color.getAlpha() / 255.0);
+    }
+
+    private static Color[] fx(java.awt.Color[] colors) {
+        Color[] out = new Color[colors.length];
+        for (int i = 0; i < colors.length; i++) {
+            out[i] = fx(colors[i]);
+        }
+        return out;
+    }
+
+    // =========================== ChartView ===========================
+
+    @Override
+    public Node getNode() {
+        return this;
+    }
+
+    @Override
+    public void setNotify(boolean notify) {
+        this.notify = notify;
+        if (notify) {
+            requestFrame();
+        }
+    }
+
+    @Override
+    public void applyTheme(boolean isDark) {
+        ChartTheme theme = ChartTheme.of(isDark);
+        background = fx(theme.background());
+        plotBackground = fx(theme.plotBackground());
+        textPrimary = fx(theme.textPrimary());
+        textSecondary = fx(theme.textSecondary());
+        grid = fx(theme.grid());
+        markDataDirty();
+    }
+
+    @Override
+    public void restoreAutoBounds() {
+        autoRange = true;
+        viewStart = -0.5;
+        viewEnd = Math.max(times.length, MIN_VISIBLE_BARS) - 0.5;
+        markDataDirty();
+    }
+
+    @Override
+    public void clearAll() {
+        times = new long[0];
+        open = high = low = close = new double[0];
+        maDataset = bbDataset = rsiDataset = macdDataset = null;
+        tradeMarkers = null;
+        rsiPane.visible = false;
+        macdPane.visible = false;
+        rebuildAll();
+    }
+
+    @Override
+    public void setCandlestickDataset(XYDataset dataset, boolean visible) {
+        candlesVisible = visible;
+        if (dataset instanceof ArrayOHLCDataset arrays) {
+            BarColumns columns = arrays.getColumns();
+            times = columns.times();
+            open = columns.open();
+            high = columns.high();
+            low = columns.low();
+            close = columns.close();
+        } else if (dataset instanceof OHLCDataset ohlc && ohlc.getSeriesCount() > 0) {
+            int n = ohlc.getItemCount(0);
+            times = new long[n];
+            open = new double[n];
+            high = new double[n];
+            low = new double[n];
+            close = new double[n];
+            for (int i = 0; i < n; i++) {
+                times[i] = (long) ohlc.getXValue(0, i);
+                open[i] = ohlc.getOpenValue(0, i);
+                high[i] = ohlc.getHighValue(0, i);
+                low[i] = ohlc.getLowValue(0, i);
+                close[i] = ohlc.getCloseValue(0, i);
+            }
+        } else {
+            times = new long[0];
+            open = high = low = close = new double[0];
+        }
+        // K线决定横轴，所有指标线和成交标记都要重新对齐
+        rebuildAll();
+    }
+
+    @Override
+    public void setMaDataset(XYDataset dataset) {
+        maDataset = dataset;
+        rebuildMainLines();
+    }
+
+    @Override
+    public void setBollingerBandsDataset(XYDataset dataset) {
+        bbDataset = dataset;
+        rebuildMainLines();
+    }
+
+    @Override
+    public void setRsiDataset(XYDataset dataset) {
+        if (dataset == null) return;
+        rsiDataset = dataset;
+        rsiPane.visible = true;
+        rsiPane.lines = toLines(dataset, fx(ChartTheme.rsiColors()));
+        markDataChanged();
+    }
+
+    @Override
+    public void setMacdDataset(XYDataset dataset) {
+        if (dataset == null) return;
+        macdDataset = dataset;
+        macdPane.visible = true;
+        macdPane.lines = toLines(dataset, fx(ChartTheme.macdColors()));
+        markDataChanged();
+    }
+
+    @Override
+    public void setTradeMarkers(TradeMarkerDataset dataset) {
+        tradeMarkers = dataset;
+        rebuildMarkers();
+        markDataChanged();
+    }
+
+    /**
+     * 停止帧定时器 (否则它会一直挂在 FX 脉冲上，连同画布和数据一起无法回收) 并丢弃数据
+     */
+    @Override
+    public void dispose() {
+        disposed = true;
+        frameTimer.stop();
+        clearAll();
+    }
+
+    // =========================== 数据对齐 ===========================
+
+    private void rebuildAll() {
+        if (autoRange) {
+            viewStart = -0.5;
+            viewEnd = Math.max(times.length, MIN_VISIBLE_BARS) - 0.5;
+        }
+        rebuildMainLines();
+        rsiPane.lines = rsiDataset == null ? List.of() : toLines(rsiDataset, fx(ChartTheme.rsiColors()));
+        macdPane.lines = macdDataset == null ? List.of() : toLines(macdDataset, fx(ChartTheme.macdColors()));
+        rebuildMarkers();
+        markDataChanged();
+    }
+
+    private void rebuildMainLines() {
+        List<Line> lines = new ArrayList<>();
+        if (maDataset != null) lines.addAll(toLines(maDataset, fx(ChartTheme.maColors())));
+        if (bbDataset != null) lines.addAll(toLines(bbDataset, fx(ChartTheme.bollingerBandsColors())));
+        mainPane.lines = lines;
+        markDataChanged();
+    }
+
+    /**
+     * 把数据集的每个序列对齐到K线上。与K线共享时间戳的 ArrayXYDataset 直接引用其数组。
+     */
+    private List<Line> toLines(XYDataset dataset, Color[] colors) {
+        List<Line> lines = new ArrayList<>();
+        for (int s = 0; s < dataset.getSeriesCount(); s++) {
+            Color color = colors[s % colors.length];
+            String name = String.valueOf(dataset.getSeriesKey(s));
+            if (dataset instanceof ArrayXYDataset arrays && sameAxis(arrays.getTimes())) {
+                lines.add(new Line(name, arrays.getValues(s), color));
+                continue;
+            }
+            double[] values = new double[times.length];
+            Arrays.fill(values, Double.NaN);
+            for (int i = 0; i < dataset.getItemCount(s); i++) {
+                int index = Arrays.binarySearch(times, (long) dataset.getXValue(s, i));
+                if (index >= 0) {
+                    values[index] = dataset.getYValue(s, i);
+                }
+            }
+            lines.add(new Line(name, values, color));
+        }
+        return lines;
+    }
+
+    private boolean sameAxis(long[] other) {
+        if (other == times) return true;
+        int n = times.length;
+        return other.length == n && (n == 0 || (other[0] == times[0] && other[n - 1] == times[n - 1]));
+    }
+
+    private void rebuildMarkers() {
+        for (int s = 0; s < 2; s++) {
+            if (tradeMarkers == null) {
+                markerIndex[s] = new int[0];
+                markerPrice[s] = new double[0];
+                continue;
+            }
+            double[] tradeTimes = tradeMarkers.getTradeTimes(s);
+            double[] tradePrices = tradeMarkers.getTradePrices(s);
+            int[] index = new int[tradeTimes.length];
+            double[] price = new double[tradeTimes.length];
+            int k = 0;
+            for (int i = 0; i < tradeTimes.length; i++) {
+                int bar = Arrays.binarySearch(times, (long) tradeTimes[i]);
+                if (bar >= 0) {
+                    index[k] = bar;
+                    price[k++] = tradePrices[i];
+                }
+            }
+            markerIndex[s] = Arrays.copyOf(index, k);
+            markerPrice[s] = Arrays.copyOf(price, k);
+        }
+    }
+
+    // =========================== 交互 ===========================
+
+    private void installHandlers() {
+        setOnScroll(e -> {
+            if (times.length == 0 || e.getDeltaY() == 0) return;
+            double factor = e.getDeltaY() > 0 ? ZOOM_STEP : 1 / ZOOM_STEP;
+            double plotWidth = plotWidth();
+            double x = Math.max(0, Math.min(plotWidth, e.getX()));
+            double span = viewEnd - viewStart;
+            double anchor = viewStart + x / plotWidth * span;
+            double newSpan = span * factor;
+            setView(anchor - x / plotWidth * newSpan, newSpan);
+        });
+        setOnMousePressed(e -> {
+            dragStartX = e.getX();
+            dragStartView = viewStart;
+        });
+        setOnMouseDragged(e -> {
+            if (times.length == 0) return;
+            double span = viewEnd - viewStart;
+            double shift = (e.getX() - dragStartX) * span / plotWidth();
+            setView(dragStartView - shift, span);
+            updateMouse(e.getX(), e.getY());
+        });
+        setOnMouseMoved(e -> updateMouse(e.getX(), e.getY()));
+        setOnMouseExited(e -> updateMouse(-1, -1));
+        setOnMouseClicked(e -> {
+            if (e.getClickCount() == 2) restoreAutoBounds();
+        });
+    }
+
+    private void updateMouse(double x, double y) {
+        mouseX = x;
+        mouseY = y;
+        overlayDirty = true;
+        requestFrame();
+    }
+
+    private void setView(double start, double span) {
+        int n = times.length;
+        span = Math.max(MIN_VISIBLE_BARS, Math.min(span, Math.max(n, MIN_VISIBLE_BARS) * 1.1));
+        // 至少保留半屏K线在视口内
+        start = Math.max(-span / 2, Math.min(start, n - span / 2));
+        viewStart = start;
+        viewEnd = start + span;
+        autoRange = false;
+        markDataDirty();
+    }
+
+    // =========================== 绘制 ===========================
+
+    private void markDataChanged() {
+        dataVersion++;
+        markDataDirty();
+    }
+
+    private void markDataDirty() {
+        dataDirty = true;
+        overlayDirty = true;
+        requestFrame();
+    }
+
+    /**
+     * 在下一帧绘制；定时器已在运行时不做任何事
+     */
+    private void requestFrame() {
+        if (!disposed) {
+            frameTimer.start();
+        }
+    }
+
+    private boolean canRender() {
+        return notify && getWidth() > 0 && getHeight() > 0;
+    }
+
+    @Override
+    protected void layoutChildren() {
+        double w = getWidth();
+        double h = getHeight();
+        if (dataCanvas.getWidth() != w || dataCanvas.getHeight() != h) {
+            dataCanvas.setWidth(w);
+            dataCanvas.setHeight(h);
+            overlayCanvas.setWidth(w);
+            overlayCanvas.setHeight(h);
+            markDataDirty();
+        }
+    }
+
+    @Override
+    protected double computePrefWidth(double height) {
+        return 800;
+    }
+
+    @Override
+    protected double computePrefHeight(double width) {
+        return 600;
+    }
+
+    private double plotWidth() {
+        return Math.max(1, getWidth() - AXIS_WIDTH);
+    }
+
+    private void renderFrame() {
+        if (!canRender()) return;
+        if (dataDirty) {
+            dataDirty = false;
+            drawData();
+        }
+        if (overlayDirty) {
+            overlayDirty = false;
+            drawOverlay();
+        }
+    }
+
+    private void layoutPanes() {
+        double totalWeight = 0;
+        int visibleCount = 0;
+        for (ChartPane pane : panes) {
+            if (pane.visible) {
+                totalWeight += pane.weight;
+                visibleCount++;
+            }
+        }
+        double available = Math.max(1, getHeight() - AXIS_HEIGHT - PANE_GAP * (visibleCount - 1));
+        double top = 0;
+        for (ChartPane pane : panes) {
+            if (!pane.visible) continue;
+            pane.top = top;
+            pane.height = available * pane.weight / totalWeight;
+            top += pane.height + PANE_GAP;
+        }
+    }
+
+    /**
+     * 计算当前视口下的绘制单元 (slot)：放大时每根K线一个单元，缩小时每个像素列一个单元。
+     * 视口、尺寸和数据都没变时直接复用上一次的结果。
+     */
+    private void updateSlots() {
+        double plotWidth = plotWidth();
+        if (slotsVersion == dataVersion && slotsStart == viewStart && slotsEnd == viewEnd && slotsWidth == plotWidth) {
+            return;
+        }
+        slotsVersion = dataVersion;
+        slotsStart = viewStart;
+        slotsEnd = viewEnd;
+        slotsWidth = plotWidth;
+
+        int n = times.length;
+        double barsPerPixel = (viewEnd - viewStart) / plotWidth;
+        int first = Math.max(0, (int) Math.ceil(viewStart));
+        int last = Math.min(n - 1, (int) Math.floor(viewEnd));
+        int capacity = Math.max(0, barsPerPixel <= 1 ? last - first + 1 : (int) plotWidth + 1);
+        if (slotFrom.length < capacity) {
+            slotFrom = new int[capacity];
+            slotTo = new int[capacity];
+            slotX = new double[capacity];
+        }
+        int count = 0;
+        if (barsPerPixel <= 1) {
+            for (int i = first; i <= last; i++) {
+                slotFrom[count] = i;
+                slotTo[count] = i + 1;
+                slotX[count++] = (i - viewStart) / barsPerPixel;
+            }
+        } else {
+            int columns = (int) plotWidth;
+            for (int c = 0; c <= columns && count < capacity; c++) {
+                int from = Math.max(first, (int) Math.ceil(viewStart + c * barsPerPixel));
+                int to = Math.min(last + 1, (int) Math.ceil(viewStart + (c + 1) * barsPerPixel));
+                if (from < to) {
+                    slotFrom[count] = from;
+                    slotTo[count] = to;
+                    slotX[count++] = c + 0.5;
+                }
+            }
+        }
+        slotCount = count;
+
+        // K线按单元聚合
+        if (candleOpen.length < count) {
+            candleOpen = new double[slotFrom.length];
+            candleHigh = new double[slotFrom.length];
+            candleLow = new double[slotFrom.length];
+            candleClose = new double[slotFrom.length];
+        }
+        for (int k = 0; k < count; k++) {
+            int from = slotFrom[k];
+            int to = slotTo[k];
+            double h = Double.NEGATIVE_INFINITY;
+            double l = Double.POSITIVE_INFINITY;
+            for (int i = from; i < to; i++) {
+                h = Math.max(h, high[i]);
+                l = Math.min(l, low[i]);
+            }
+            candleOpen[k] = open[from];
+            candleHigh[k] = h;
+            candleLow[k] = l;
+            candleClose[k] = close[to - 1];
+        }
+
+        // 指标线按单元聚合 (首、最小、最大、末)
+        for (ChartPane pane : panes) {
+            if (!pane.visible) continue;
+            double[][][] slots = new double[pane.lines.size()][][];
+            for (int j = 0; j < slots.length; j++) {
+                double[] values = pane.lines.get(j).values();
+                double[][] agg = new double[4][count];
+                for (int k = 0; k < count; k++) {
+                    double firstValue = Double.NaN, min = Double.POSITIVE_INFINITY, max = Double.NEGATIVE_INFINITY, lastValue = Double.NaN;
+                    for (int i = slotFrom[k]; i < slotTo[k] && i < values.length; i++) {
+                        double v = values[i];
+                        if (Double.isNaN(v)) continue;
+                        if (Double.isNaN(firstValue)) firstValue = v;
+                        min = Math.min(min, v);
+                        max = Math.max(max, v);
+                        lastValue = v;
+                    }
+                    agg[0][k] = firstValue;
+                    agg[1][k] = Double.isNaN(firstValue) ? Double.NaN : min;
+                    agg[2][k] = Double.isNaN(firstValue) ? Double.NaN : max;
+                    agg[3][k] = lastValue;
+                }
+                slots[j] = agg;
+            }
+            pane.lineSlots = slots;
+        }
+    }
+
+    private void updateYRange(ChartPane pane) {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        if (pane.candles && candlesVisible) {
+            for (int k = 0; k < slotCount; k++) {
+                min = Math.min(min, candleLow[k]);
+                max = Math.max(max, candleHigh[k]);
+            }
+        }
+        for (double[][] agg : pane.lineSlots) {
+            for (int k = 0; k < slotCount; k++) {
+                if (!Double.isNaN(agg[1][k])) {
+                    min = Math.min(min, agg[1][k]);
+                    max = Math.max(max, agg[2][k]);
+                }
+            }
+        }
+        if (min > max) {
+            min = 0;
+            max = 1;
+        } else if (min == max) {
+            min -= 1;
+            max += 1;
+        }
+        double padding = (max - min) * Y_PADDING;
+        pane.yMin = min - padding;
+        pane.yMax = max + padding;
+    }
+
+    private void drawData() {
+        GraphicsContext g = dataCanvas.getGraphicsContext2D();
+        double width = getWidth();
+        double height = getHeight();
+        double plotWidth = plotWidth();
+        g.setFill(background);
+        g.fillRect(0, 0, width, height);
+        layoutPanes();
+        updateSlots();
+        double barsPerPixel = (viewEnd - viewStart) / plotWidth;
+
+        g.setFont(LABEL_FONT);
+        for (ChartPane pane : panes) {
+            if (!pane.visible) continue;
+            updateYRange(pane);
+            g.setFill(plotBackground);
+            g.fillRect(0, pane.top, plotWidth, pane.height);
+            drawValueAxis(g, pane, plotWidth);
+            g.save();
+            g.beginPath();
+            g.rect(0, pane.top, plotWidth, pane.height);
+            g.clip();
+            if (pane.candles && candlesVisible) {
+                drawCandles(g, pane, barsPerPixel);
+            }
+            for (int j = 0; j < pane.lines.size(); j++) {
+                drawLine(g, pane, pane.lines.get(j).color(), pane.lineSlots[j], barsPerPixel);
+            }
+            if (pane == mainPane) {
+                drawMarkers(g, barsPerPixel);
+            }
+            g.restore();
+            drawLegend(g, pane);
+        }
+        drawTimeAxis(g, plotWidth, barsPerPixel);
+    }
+
+    private void drawValueAxis(GraphicsContext g, ChartPane pane, double plotWidth) {
+        double step = niceStep((pane.yMax - pane.yMin) / Math.max(2, pane.height / 50));
+        g.setStroke(grid);
+        g.setLineWidth(1);
+        g.setFill(textSecondary);
+        g.setTextAlign(TextAlignment.LEFT);
+        g.setTextBaseline(VPos.CENTER);
+        for (double v = Math.ceil(pane.yMin / step) * step; v <= pane.yMax; v += step) {
+            double y = Math.round(pane.toY(v)) + 0.5;
+            g.strokeLine(0, y, plotWidth, y);
+            g.fillText(formatValue(v, step), plotWidth + 6, y);
+        }
+        g.setStroke(textSecondary);
+        g.strokeLine(plotWidth + 0.5, pane.top, plotWidth + 0.5, pane.top + pane.height);
+    }
+
+    private void drawCandles(GraphicsContext g, ChartPane pane, double barsPerPixel) {
+        double bodyWidth = 0.7 / barsPerPixel;
+        g.setLineWidth(1);
+        for (int pass = 0; pass < 2; pass++) {
+            boolean bull = pass == 0;
+            g.setStroke(bull ? BULL : BEAR);
+            g.setFill(bull ? BULL : BEAR);
+            for (int k = 0; k < slotCount; k++) {
+                if ((candleClose[k] >= candleOpen[k]) != bull) continue;
+                double x = Math.round(slotX[k]) + 0.5;
+                double yHigh = pane.toY(candleHigh[k]);
+                double yLow = pane.toY(candleLow[k]);
+                g.strokeLine(x, yHigh, x, yLow);
+                if (bodyWidth >= 2) {
+                    double yOpen = pane.toY(candleOpen[k]);
+                    double yClose = pane.toY(candleClose[k]);
+                    double top = Math.min(yOpen, yClose);
+                    g.fillRect(slotX[k] - bodyWidth / 2, top, bodyWidth, Math.max(1, Math.abs(yOpen - yClose)));
+                }
+            }
+        }
+    }
+
+    private void drawLine(GraphicsContext g, ChartPane pane, Color color, double[][] agg, double barsPerPixel) {
+        g.setStroke(color);
+        g.setLineWidth(1.2);
+        g.beginPath();
+        boolean drawing = false;
+        boolean aggregated = barsPerPixel > 1;
+        for (int k = 0; k < slotCount; k++) {
+            if (Double.isNaN(agg[0][k])) {
+                drawing = false;
+                continue;
+            }
+            double x = slotX[k];
+            if (!drawing) {
+                g.moveTo(x, pane.toY(agg[0][k]));
+                drawing = true;
+            } else {
+                g.lineTo(x, pane.toY(agg[0][k]));
+            }
+            if (aggregated) {
+                g.lineTo(x, pane.toY(agg[1][k]));
+                g.lineTo(x, pane.toY(agg[2][k]));
+                g.lineTo(x, pane.toY(agg[3][k]));
+            }
+        }
+        g.stroke();
+    }
+
+    private void drawMarkers(GraphicsContext g, double barsPerPixel) {
+        g.setFont(MARKER_FONT);
+        g.setTextAlign(TextAlignment.CENTER);
+        for (int s = 0; s < 2; s++) {
+            boolean isBuy = s == TradeMarkerDataset.BUY_SERIES;
+            int[] index = markerIndex[s];
+            double[] price = markerPrice[s];
+            int i = lowerBound(index, (int) Math.ceil(viewStart));
+            double clusterX = Double.NaN;
+            double sumX = 0, sumPrice = 0;
+            int count = 0;
+            for (; i < index.length && index[i] <= viewEnd; i++) {
+                double x = (index[i] - viewStart) / barsPerPixel;
+                if (count > 0 && x - clusterX > MARKER_CLUSTER_PIXELS) {
+                    drawMarker(g, isBuy, sumX / count, sumPrice / count, count);
+                    count = 0;
+                }
+                if (count == 0) {
+                    clusterX = x;
+                    sumX = 0;
+                    sumPrice = 0;
+                }
+                sumX += x;
+                sumPrice += price[i];
+                count++;
+            }
+            if (count > 0) {
+                drawMarker(g, isBuy, sumX / count, sumPrice / count, count);
+            }
+        }
+    }
+
+    private void drawMarker(GraphicsContext g, boolean isBuy, double x, double price, int count) {
+        double y = mainPane.toY(price);
+        double direction = isBuy ? 1 : -1;
+        double tipY = y + direction * 4;
+        double baseY = tipY + direction * 10;
+        markerXs[0] = x;
+        markerXs[1] = x - 6;
+        markerXs[2] = x + 6;
+        markerYs[0] = tipY;
+        markerYs[1] = baseY;
+        markerYs[2] = baseY;
+        g.setFill(isBuy ? BUY : SELL);
+        g.fillPolygon(markerXs, markerYs, 3);
+        String label = count > 1 ? (isBuy ? "B×" : "S×") + count : (isBuy ? "B" : "S");
+        g.setTextBaseline(isBuy ? VPos.TOP : VPos.BOTTOM);
+        g.fillText(label, x, baseY + direction * 2);
+    }
+
+    private void drawLegend(GraphicsContext g, ChartPane pane) {
+        g.setFont(LABEL_FONT);
+        g.setTextAlign(TextAlignment.LEFT);
+        g.setTextBaseline(VPos.TOP);
+        double x = 6;
+        for (Line line : pane.lines) {
+            g.setFill(line.color());
+            g.fillText(line.name(), x, pane.top + 4);
+            x += line.name().length() * 7 + 14;
+        }
+    }
+
+    private void drawTimeAxis(GraphicsContext g, double plotWidth, double barsPerPixel) {
+        int n = times.length;
+        if (n == 0) return;
+        double bottom = getHeight() - AXIS_HEIGHT;
+        int step = (int) Math.max(1, niceStep(DATE_LABEL_SPACING * barsPerPixel));
+        int first = Math.max(0, (int) Math.ceil(viewStart));
+        int last = Math.min(n - 1, (int) Math.floor(viewEnd));
+        DateTimeFormatter format = last > first && times[last] - times[first] < THREE_DAYS_MILLIS ? MINUTE_FORMAT : DAY_FORMAT;
+        g.setFont(LABEL_FONT);
+        g.setTextAlign(TextAlignment.CENTER);
+        g.setTextBaseline(VPos.TOP);
+        g.setLineWidth(1);
+        for (int i = (first + step - 1) / step * step; i <= last; i += step) {
+            double x = Math.round((i - viewStart) / barsPerPixel) + 0.5;
+            g.setStroke(grid);
+            for (ChartPane pane : panes) {
+                if (pane.visible) g.strokeLine(x, pane.top, x, pane.top + pane.height);
+            }
+            g.setFill(textSecondary);
+            g.fillText(format.format(Instant.ofEpochMilli(times[i]).atZone(ZoneId.systemDefault())), x, bottom + 4);
+        }
+        g.setStroke(textSecondary);
+        g.strokeLine(0, bottom + 0.5, plotWidth, bottom + 0.5);
+    }
+
+    private void drawOverlay() {
+        GraphicsContext g = overlayCanvas.getGraphicsContext2D();
+        g.clearRect(0, 0, getWidth(), getHeight());
+        double plotWidth = plotWidth();
+        int n = times.length;
+        if (n == 0 || mouseX < 0 || mouseX > plotWidth) return;
+        ChartPane hovered = null;
+        for (ChartPane pane : panes) {
+            if (pane.visible && mouseY >= pane.top && mouseY <= pane.top + pane.height) hovered = pane;
+        }
+        if (hovered == null) return;
+
+        double barsPerPixel = (viewEnd - viewStart) / plotWidth;
+        int index = (int) Math.round(viewStart + mouseX * barsPerPixel);
+        index = Math.max(0, Math.min(n - 1, index));
+        double x = Math.round((index - viewStart) / barsPerPixel) + 0.5;
+        double y = Math.round(mouseY) + 0.5;
+
+        g.setStroke(textSecondary);
+        g.setLineWidth(1);
+        g.setLineDashes(4, 4);
+        for (ChartPane pane : panes) {
+            if (pane.visible) g.strokeLine(x, pane.top, x, pane.top + pane.height);
+        }
+        g.strokeLine(0, y, plotWidth, y);
+        g.setLineDashes(null);
+
+        // 纵轴上的当前值
+        g.setFont(LABEL_FONT);
+        g.setFill(textSecondary);
+        g.fillRect(plotWidth + 1, y - 9, AXIS_WIDTH - 1, 18);
+        g.setFill(plotBackground);
+        g.setTextAlign(TextAlignment.LEFT);
+        g.setTextBaseline(VPos.CENTER);
+        double value = hovered.fromY(mouseY);
+        g.fillText(formatValue(value, niceStep((hovered.yMax - hovered.yMin) / 10)), plotWidth + 6, y);
+
+        // 主图左上角显示该K线的开高低收
+        String info = String.format("%s  开 %.2f  高 %.2f  低 %.2f  收 %.2f",
+                DAY_FORMAT.format(Instant.ofEpochMilli(times[index]).atZone(ZoneId.systemDefault())),
+                open[index], high[index], low[index], close[index]);
+        g.setFill(textPrimary);
+        g.setTextBaseline(VPos.TOP);
+        g.fillText(info, 6, mainPane.top + 20);
+    }
+
+    // =========================== 工具方法 ===========================
+
+    /**
+     * 1、2、5 × 10^k 形式的刻度间隔
+     */
+    private static double niceStep(double raw) {
+        if (!(raw > 0) || Double.isInfinite(raw)) return 1;
+        double magnitude = Math.pow(10, Math.floor(Math.log10(raw)));
+        double normalized = raw / magnitude;
+        double nice = normalized <= 1 ? 1 : normalized <= 2 ? 2 : normalized <= 5 ? 5 : 10;
+        return nice * magnitude;
+    }
+
+    private static String formatValue(double value, double step) {
+        int decimals = step >= 1 ? 0 : (int) Math.min(6, Math.ceil(-Math.log10(step)));
+        return String.format("%." + decimals + "f", value);
+    }
+
+    private static int lowerBound(int[] sorted, int value) {
+        int lo = 0, hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < value) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+}
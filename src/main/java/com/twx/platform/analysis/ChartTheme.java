@@ -0,0 +1,51 @@
+package com.twx.platform.analysis;
+
+import java.awt.Color;
+
+/**
+ * 图表配色 (与 style.css 中的亮色/暗色主题对应)。
+ * JFreeChart 图表和 Canvas 图表共用同一套颜色，保证切换图表实现时外观一致。
+ *
+ * @param background     图表背景
+ * @param plotBackground 绘图区背景
+ * @param textPrimary    标题、坐标轴名称
+ * @param textSecondary  刻度文字、坐标轴线
+ * @param grid           网格线
+ */
+public record ChartTheme(Color background, Color plotBackground, Color textPrimary, Color textSecondary, Color grid) {
+
+    // --- STYLE CONSTANTS (from CSS) ---
+    public static final ChartTheme LIGHT = new ChartTheme(
+            Color.decode("#f4f5f7"), Color.decode("#ffffff"), Color.decode("#2c3e50"),
+            Color.decode("#7f8c8d"), Color.decode("#dcdfe6").brighter());
+
+    public static final ChartTheme DARK = new ChartTheme(
+            Color.decode("#233140"), Color.decode("#2c3e50"), Color.decode("#ecf0f1"),
+            Color.decode("#95a5a6"), Color.decode("#3e5166"));
+
+    // Indicator Colors (shared)
+    public static final Color COLOR_BULL = Color.decode("#26a69a"); // Positive
+    public static final Color COLOR_BEAR = Color.decode("#ef5350"); // Negative
+    public static final Color COLOR_BUY = new Color(220, 20, 60);
+    public static final Color COLOR_SELL = new Color(0, 128, 0);
+
+    public static ChartTheme of(boolean isDark) {
+        return isDark ? DARK : LIGHT;
+    }
+
+    public static Color[] maColors() {
+        return new Color[]{new Color(255, 165, 0), new Color(0, 191, 255)};
+    }
+
+    public static Color[] bollingerBandsColors() {
+        return new Color[]{Color.DARK_GRAY, new Color(138, 43, 226), Color.DARK_GRAY};
+    }
+
+    public static Color[] rsiColors() {
+        return new Color[]{new Color(0, 139, 139)};
+    }
+
+    public static Color[] macdColors() {
+        return new Color[]{Color.BLUE, new Color(255, 100, 0)};
+    }
+}
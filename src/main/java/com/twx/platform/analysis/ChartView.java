@@ -0,0 +1,62 @@
+package com.twx.platform.analysis;
+
+import com.twx.platform.analysis.chart.TradeMarkerDataset;
+import javafx.scene.Node;
+import org.jfree.data.xy.XYDataset;
+
+/**
+ * 行情图表组件接口。
+ * UIController 只通过这个接口向图表提供数据，具体实现可以是基于 JFreeChart 的 {@link FinancialChart}，
+ * 也可以是直接在 JavaFX Canvas 上绘制的 {@link CanvasFinancialChart}。
+ * 所有方法都必须在 JavaFX 应用线程中调用。
+ */
+public interface ChartView {
+
+    /**
+     * 放入界面中的节点
+     */
+    Node getNode();
+
+    /**
+     * 暂停 / 恢复重绘，用于批量更新数据集
+     */
+    void setNotify(boolean notify);
+
+    void applyTheme(boolean isDark);
+
+    /**
+     * 恢复为显示全部数据的自动范围
+     */
+    void restoreAutoBounds();
+
+    /**
+     * 清空所有数据集，并移除 RSI / MACD 子图
+     */
+    void clearAll();
+
+    void setCandlestickDataset(XYDataset dataset, boolean visible);
+
+    void setMaDataset(XYDataset dataset);
+
+    void setBollingerBandsDataset(XYDataset dataset);
+
+    /**
+     * 设置 RSI 数据并显示 RSI 子图，传入 null 时不显示
+     */
+    void setRsiDataset(XYDataset dataset);
+
+    /**
+     * 设置 MACD 数据并显示 MACD 子图，传入 null 时不显示
+     */
+    void setMacdDataset(XYDataset dataset);
+
+    /**
+     * 设置成交标记，传入 null 时清除
+     */
+    void setTradeMarkers(TradeMarkerDataset dataset);
+
+    /**
+     * 释放图表占用的资源 (帧定时器、后台线程、数据集)。图表被替换后调用，之后不能再使用。
+     */
+    void dispose();
+}
@@ -1,57 +1,69 @@
 package com.twx.platform.analysis;
 
+import com.twx.platform.analysis.chart.LodDataset;
+import com.twx.platform.analysis.chart.LodOHLCDataset;
+import com.twx.platform.analysis.chart.LodXYDataset;
+import com.twx.platform.analysis.chart.TradeMarkerDataset;
+import com.twx.platform.analysis.chart.TradeMarkerRenderer;
+import javafx.application.Platform;
+import javafx.scene.Node;
 import org.jfree.chart.JFreeChart;
-import org.jfree.chart.annotations.XYPointerAnnotation;
 import org.jfree.chart.axis.Axis;
 import org.jfree.chart.axis.DateAxis;
 import org.jfree.chart.axis.NumberAxis;
 import org.jfree.chart.fx.ChartViewer;
 import org.jfree.chart.plot.CombinedDomainXYPlot;
+import org.jfree.chart.plot.DatasetRenderingOrder;
 import org.jfree.chart.plot.XYPlot;
 import org.jfree.chart.renderer.xy.CandlestickRenderer;
 import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
 import org.jfree.chart.title.LegendTitle;
 import org.jfree.chart.title.TextTitle;
+import org.jfree.data.Range;
+import org.jfree.data.xy.OHLCDataset;
 import org.jfree.data.xy.XYDataset;
 import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Font;
 import java.text.SimpleDateFormat;
-
-public class FinancialChart {
-
-    // --- STYLE CONSTANTS (from CSS) ---
-    // Light Theme Colors
-    private static final Color LT_BG = Color.decode("#f4f5f7");
-    private static final Color LT_PLOT_BG = Color.decode("#ffffff");
-    private static final Color LT_TEXT_PRIMARY = Color.decode("#2c3e50");
-    private static final Color LT_TEXT_SECONDARY = Color.decode("#7f8c8d");
-    private static final Color LT_GRID = Color.decode("#dcdfe6").brighter();
-
-    // Dark Theme Colors
-    private static final Color DT_BG = Color.decode("#233140");
-    private static final Color DT_PLOT_BG = Color.decode("#2c3e50");
-    private static final Color DT_TEXT_PRIMARY = Color.decode("#ecf0f1");
-    private static final Color DT_TEXT_SECONDARY = Color.decode("#95a5a6");
-    private static final Color DT_GRID = Color.decode("#3e5166");
-
-    // Indicator Colors (shared)
-    private static final Color COLOR_BULL = Color.decode("#26a69a"); // Positive
-    private static final Color COLOR_BEAR = Color.decode("#ef5350"); // Negative
-    private static final Color[] MA_COLORS = { new Color(255, 165, 0), new Color(0, 191, 255) };
-    private static final Color[] BBANDS_COLORS = { Color.DARK_GRAY, new Color(138, 43, 226), Color.DARK_GRAY };
-    private static final Color[] RSI_COLORS = { new Color(0, 139, 139) };
-    private static final Color[] MACD_COLORS = { Color.BLUE, new Color(255, 100, 0) };
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class FinancialChart implements ChartView {
+
+    // Indicator Colors (shared with CanvasFinancialChart, see ChartTheme)
+    private static final Color COLOR_BULL = ChartTheme.COLOR_BULL; // Positive
+    private static final Color COLOR_BEAR = ChartTheme.COLOR_BEAR; // Negative
+    private static final Color[] MA_COLORS = ChartTheme.maColors();
+    private static final Color[] BBANDS_COLORS = ChartTheme.bollingerBandsColors();
+    private static final Color[] RSI_COLORS = ChartTheme.rsiColors();
+    private static final Color[] MACD_COLORS = ChartTheme.macdColors();
     private static final BasicStroke INDICATOR_STROKE = new BasicStroke(1.2f);
 
-    private static final int CANDLESTICK_INDEX = 0, MA_INDEX = 1, BBANDS_INDEX = 2;
+    private static final int CANDLESTICK_INDEX = 0, MA_INDEX = 1, BBANDS_INDEX = 2, TRADES_INDEX = 3;
     private final ChartViewer chartViewer;
     private final CombinedDomainXYPlot combinedPlot;
     private final JFreeChart chart;
     private final XYPlot mainPlot, rsiPlot, macdPlot;
+    private final DateAxis domainAxis;
+
+    // 【新增】按可见区间降采样 (LOD)：缩放/平移后在后台线程重新计算视图，只保留最新一次请求的结果
+    private static final int DEFAULT_PIXEL_WIDTH = 1600;
+    private final List<LodDataset> lodDatasets = new ArrayList<>();
+    private final AtomicLong lodGeneration = new AtomicLong();
+    private final ExecutorService lodExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "chart-lod");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private double lastLodLower = Double.NaN, lastLodUpper = Double.NaN;
+    private int lastLodPixels;
 
     public FinancialChart(String title, boolean isDark) {
-        DateAxis domainAxis = new DateAxis("Date");
+        domainAxis = new DateAxis("Date");
         domainAxis.setDateFormatOverride(new SimpleDateFormat("yyyy-MM-dd"));
         NumberAxis mainRangeAxis = new NumberAxis("Price");
         mainRangeAxis.setAutoRangeIncludesZero(false);
@@ -64,6 +76,9 @@ public class FinancialChart {
         mainPlot.setRenderer(CANDLESTICK_INDEX, candlestickRenderer);
         mainPlot.setRenderer(MA_INDEX, createLineRenderer(MA_COLORS));
         mainPlot.setRenderer(BBANDS_INDEX, createLineRenderer(BBANDS_COLORS));
+        // 【新增】成交标记层，按数据集序号正序绘制，使标记位于K线和指标线之上
+        mainPlot.setRenderer(TRADES_INDEX, new TradeMarkerRenderer());
+        mainPlot.setDatasetRenderingOrder(DatasetRenderingOrder.FORWARD);
 //        candlestickRenderer.setAutoWidthMethod(CandlestickRenderer.WIDTHMETHOD_INTERVALDATA);
 
         rsiPlot = createSubplot("RSI", createLineRenderer(RSI_COLORS));
@@ -83,17 +98,24 @@ public class FinancialChart {
 
         // Apply initial theme
         applyTheme(isDark);
+
+        domainAxis.addChangeListener(event -> scheduleLodRefresh());
     }
 
     public ChartViewer getChartViewer() { return chartViewer; }
+    @Override
+    public Node getNode() { return chartViewer; }
+    @Override
     public void setNotify(boolean notify) { this.chart.setNotify(notify); }
 
+    @Override
     public void applyTheme(boolean isDark) {
-        Color bg = isDark ? DT_BG : LT_BG;
-        Color plotBg = isDark ? DT_PLOT_BG : LT_PLOT_BG;
-        Color textPrimary = isDark ? DT_TEXT_PRIMARY : LT_TEXT_PRIMARY;
-        Color textSecondary = isDark ? DT_TEXT_SECONDARY : LT_TEXT_SECONDARY;
-        Color grid = isDark ? DT_GRID : LT_GRID;
+        ChartTheme theme = ChartTheme.of(isDark);
+        Color bg = theme.background();
+        Color plotBg = theme.plotBackground();
+        Color textPrimary = theme.textPrimary();
+        Color textSecondary = theme.textSecondary();
+        Color grid = theme.grid();
 
         chart.setBackgroundPaint(bg);
 
@@ -130,6 +152,7 @@ public class FinancialChart {
         axis.setAxisLinePaint(secondary);
     }
 
+    @Override
     public void restoreAutoBounds() {
         mainPlot.getDomainAxis().setAutoRange(true);
         mainPlot.getRangeAxis().setAutoRange(true);
@@ -138,14 +161,84 @@ public class FinancialChart {
         }
     }
 
+    /**
+     * 【新增】把数据集包装为 LOD 数据集 (本身已支持 LOD 的直接使用)，并按当前可见区间生成初始视图。
+     */
+    private XYDataset withLod(XYDataset dataset) {
+        if (dataset == null) return null;
+        LodDataset lod;
+        if (dataset instanceof LodDataset existing) {
+            lod = existing;
+        } else if (dataset instanceof OHLCDataset ohlc) {
+            lod = new LodOHLCDataset(ohlc);
+        } else {
+            lod = new LodXYDataset(dataset);
+        }
+        double[] domain = lod.getFullDomain();
+        if (domain != null) {
+            Range range = domainAxis.isAutoRange() ? new Range(domain[0], domain[1]) : domainAxis.getRange();
+            lod.prepareView(range.getLowerBound(), range.getUpperBound(), pixelWidth()).run();
+        }
+        lodDatasets.add(lod);
+        return (XYDataset) lod;
+    }
+
+    private int pixelWidth() {
+        int width = (int) chartViewer.getWidth();
+        return width > 0 ? width : DEFAULT_PIXEL_WIDTH;
+    }
+
+    /**
+     * 【新增】坐标轴范围变化后在后台重新降采样，新的请求会使尚未完成的旧请求作废。
+     */
+    private void scheduleLodRefresh() {
+        if (lodDatasets.isEmpty()) return;
+        Range range = domainAxis.getRange();
+        double lower = range.getLowerBound();
+        double upper = range.getUpperBound();
+        int pixels = pixelWidth();
+        if (lower == lastLodLower && upper == lastLodUpper && pixels == lastLodPixels) return;
+        lastLodLower = lower;
+        lastLodUpper = upper;
+        lastLodPixels = pixels;
+
+        long generation = lodGeneration.incrementAndGet();
+        List<LodDataset> targets = List.copyOf(lodDatasets);
+        lodExecutor.execute(() -> {
+            if (generation != lodGeneration.get()) return;
+            List<Runnable> updates = new ArrayList<>(targets.size());
+            for (LodDataset target : targets) {
+                updates.add(target.prepareView(lower, upper, pixels));
+            }
+            Platform.runLater(() -> {
+                if (generation != lodGeneration.get()) return;
+                chart.setNotify(false);
+                try {
+                    updates.forEach(Runnable::run);
+                } finally {
+                    chart.setNotify(true);
+                }
+            });
+        });
+    }
+
     // ... (其他所有 setDataset, clearAll 等方法保持不变) ...
-    public void clearAll() { mainPlot.clearAnnotations(); mainPlot.setDataset(CANDLESTICK_INDEX, null); mainPlot.setDataset(MA_INDEX, null); mainPlot.setDataset(BBANDS_INDEX, null); combinedPlot.remove(rsiPlot); combinedPlot.remove(macdPlot); rsiPlot.setDataset(0, null); macdPlot.setDataset(0, null); }
-    public void setCandlestickDataset(XYDataset dataset, boolean visible) { mainPlot.setDataset(CANDLESTICK_INDEX, dataset); ((CandlestickRenderer)mainPlot.getRenderer(CANDLESTICK_INDEX)).setSeriesVisible(0, visible, false); }
-    public void setMaDataset(XYDataset dataset) { mainPlot.setDataset(MA_INDEX, dataset); }
-    public void setBollingerBandsDataset(XYDataset dataset) { mainPlot.setDataset(BBANDS_INDEX, dataset); }
-    public void setRsiDataset(XYDataset dataset) { if (dataset != null) { rsiPlot.setDataset(0, dataset); combinedPlot.add(rsiPlot, 1); } }
-    public void setMacdDataset(XYDataset dataset) { if (dataset != null) { macdPlot.setDataset(0, dataset); combinedPlot.add(macdPlot, 1); } }
-    public void addTradeSignalAnnotation(XYPointerAnnotation annotation) { mainPlot.addAnnotation(annotation, false); }
+    @Override
+    public void clearAll() { lodDatasets.clear(); lodGeneration.incrementAndGet(); lastLodLower = lastLodUpper = Double.NaN; mainPlot.clearAnnotations(); mainPlot.setDataset(CANDLESTICK_INDEX, null); mainPlot.setDataset(MA_INDEX, null); mainPlot.setDataset(BBANDS_INDEX, null); mainPlot.setDataset(TRADES_INDEX, null); combinedPlot.remove(rsiPlot); combinedPlot.remove(macdPlot); rsiPlot.setDataset(0, null); macdPlot.setDataset(0, null); }
+    @Override
+    public void setCandlestickDataset(XYDataset dataset, boolean visible) { mainPlot.setDataset(CANDLESTICK_INDEX, withLod(dataset)); ((CandlestickRenderer)mainPlot.getRenderer(CANDLESTICK_INDEX)).setSeriesVisible(0, visible, false); }
+    @Override
+    public void setMaDataset(XYDataset dataset) { mainPlot.setDataset(MA_INDEX, withLod(dataset)); }
+    @Override
+    public void setBollingerBandsDataset(XYDataset dataset) { mainPlot.setDataset(BBANDS_INDEX, withLod(dataset)); }
+    @Override
+    public void setRsiDataset(XYDataset dataset) { if (dataset != null) { rsiPlot.setDataset(0, withLod(dataset)); combinedPlot.add(rsiPlot, 1); } }
+    @Override
+    public void setMacdDataset(XYDataset dataset) { if (dataset != null) { macdPlot.setDataset(0, withLod(dataset)); combinedPlot.add(macdPlot, 1); } }
+    @Override
+    public void setTradeMarkers(TradeMarkerDataset dataset) { mainPlot.setDataset(TRADES_INDEX, withLod(dataset)); }
+    @Override
+    public void dispose() { clearAll(); lodExecutor.shutdownNow(); }
     private XYLineAndShapeRenderer createLineRenderer(Color[] colors) { XYLineAndShapeRenderer renderer = new XYLineAndShapeRenderer(true, false); for (int i = 0; i < colors.length; i++) { renderer.setSeriesPaint(i, colors[i]); renderer.setSeriesStroke(i, INDICATOR_STROKE); } return renderer; }
     private XYPlot createSubplot(String yAxisLabel, XYLineAndShapeRenderer renderer) { NumberAxis rangeAxis = new NumberAxis(yAxisLabel); rangeAxis.setAutoRangeIncludesZero(false); return new XYPlot(null, null, rangeAxis, renderer); }
 }
\ No newline at end of file
@@ -0,0 +1,157 @@
+package com.twx.platform.analysis;
+
+import com.twx.platform.data.BarColumns;
+import com.twx.platform.metrics.MetricsRegistry;
+import com.twx.platform.metrics.Timer;
+import org.jfree.data.xy.XYDataset;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * 图表指标的增量计算缓存。
+ * <p>
+ * 每个指标以 key (如 "RSI") 标识，并声明它所依赖的参数。只有参数或K线数据变化的指标才会重新计算，
+ * 需要重算的指标在给定的线程池上并行执行。同一个指标在旧的计算完成前又被要求以新参数计算时，
+ * 旧计算会被取消，其结果不会写入缓存。调用方只需为当前可见的指标提交 {@link IndicatorSpec}，
+ * 隐藏的指标不会被计算，直到再次提交。
+ * <p>
+ * 所有公开方法都是线程安全的。
+ */
+public class IndicatorCache {
+
+    /**
+     * 一个指标的计算描述。
+     *
+     * @param key     指标标识
+     * @param params  指标依赖的全部参数，用于判断缓存是否失效
+     * @param factory 按参数创建分析技术
+     */
+    public record IndicatorSpec(String key, List<Object> params, Supplier<AnalysisTechnique> factory) {
+        public IndicatorSpec {
+            Objects.requireNonNull(key, "指标标识不能为空");
+            params = List.copyOf(params);
+        }
+    }
+
+    private record Entry(List<Object> params, List<XYDataset> datasets) {
+    }
+
+    private record Pending(List<Object> params, CompletableFuture<List<XYDataset>> future) {
+    }
+
+    private final Executor executor;
+    private final Map<String, Entry> entries = new HashMap<>();
+    private final Map<String, Pending> pending = new HashMap<>();
+    private BarColumns columns;
+    private long generation;
+
+    public IndicatorCache(Executor executor) {
+        this.executor = Objects.requireNonNull(executor);
+    }
+
+    /**
+     * 切换K线数据。数据与当前不是同一份时，所有缓存失效，进行中的计算全部取消。
+     */
+    public synchronized void setColumns(BarColumns columns) {
+        if (columns == this.columns) {
+            return;
+        }
+        this.columns = columns;
+        generation++;
+        entries.clear();
+        pending.values().forEach(p -> p.future().cancel(false));
+        pending.clear();
+    }
+
+    /**
+     * 获取已缓存的指标数据集。
+     *
+     * @return 未计算或已失效时返回 null
+     */
+    public synchronized List<XYDataset> get(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? null : entry.datasets();
+    }
+
+    /**
+     * 确保给定的指标都已按当前参数计算完毕。
+     * 参数未变的指标直接复用缓存 (或复用正在进行的同参数计算)，其余指标并行重算。
+     *
+     * @return 全部指标就绪后完成，结果按提交顺序排列；其中任一计算被更新的请求取代时以 CancellationException 结束
+     */
+    public synchronized CompletableFuture<Map<String, List<XYDataset>>> refresh(List<IndicatorSpec> specs) {
+        if (columns == null) {
+            return CompletableFuture.failedFuture(new IllegalStateException("尚未加载K线数据"));
+        }
+        Map<String, CompletableFuture<List<XYDataset>>> futures = new LinkedHashMap<>();
+        for (IndicatorSpec spec : specs) {
+            futures.put(spec.key(), resolve(spec));
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture[0]))
+                .thenApply(ignored -> {
+                    Map<String, List<XYDataset>> result = new LinkedHashMap<>();
+                    futures.forEach((key, future) -> result.put(key, future.join()));
+                    return result;
+                });
+    }
+
+    private CompletableFuture<List<XYDataset>> resolve(IndicatorSpec spec) {
+        String key = spec.key();
+        Entry entry = entries.get(key);
+        if (entry != null && entry.params().equals(spec.params())) {
+            return CompletableFuture.completedFuture(entry.datasets());
+        }
+        Pending inFlight = pending.get(key);
+        if (inFlight != null) {
+            if (inFlight.params().equals(spec.params())) {
+                return inFlight.future();
+            }
+            // 参数已变，旧的计算作废
+            inFlight.future().cancel(false);
+        }
+
+        BarColumns data = columns;
+        long expectedGeneration = generation;
+        CompletableFuture<List<XYDataset>> future = new CompletableFuture<>();
+        Pending task = new Pending(spec.params(), future);
+        pending.put(key, task);
+        executor.execute(() -> {
+            // 排队期间已被取消的任务不再计算
+            if (future.isDone()) {
+                return;
+            }
+            Timer timer = MetricsRegistry.getInstance().timer("indicator." + key, key + " 指标计算");
+            long timing = timer.start();
+            try {
+                List<XYDataset> datasets = spec.factory().get().calculate(data);
+                timer.stop(timing);
+                store(key, task, expectedGeneration, datasets);
+                future.complete(datasets);
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                clearPending(key, task);
+            }
+        });
+        return future;
+    }
+
+    private synchronized void store(String key, Pending task, long expectedGeneration, List<XYDataset> datasets) {
+        if (generation != expectedGeneration || task.future().isCancelled() || pending.get(key) != task) {
+            throw new CancellationException("指标 " + key + " 的计算已被新的请求取代");
+        }
+        entries.put(key, new Entry(task.params(), datasets));
+    }
+
+    private synchronized void clearPending(String key, Pending task) {
+        pending.remove(key, task);
+    }
+}
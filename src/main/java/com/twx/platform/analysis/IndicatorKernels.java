@@ -0,0 +1,251 @@
+package com.twx.platform.analysis;
+
+/**
+ * 基于 double[] 的技术指标计算内核。
+ * 每个方法都是对整列数据的一次 O(n) 扫描，语义与 ta4j 中同名指标保持一致
+ * (包括序列开头不足一个周期时按已有数据计算的行为)，便于和现有策略的结果对齐。
+ */
+public final class IndicatorKernels {
+
+    private IndicatorKernels() {
+    }
+
+    /**
+     * 简单移动平均 (对应 ta4j SMAIndicator)。
+     */
+    public static double[] sma(double[] values, int period) {
+        checkPeriod(period);
+        int n = values.length;
+        double[] out = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += values[i];
+            if (i >= period) {
+                sum -= values[i - period];
+            }
+            out[i] = sum / Math.min(period, i + 1);
+        }
+        return out;
+    }
+
+    /**
+     * 只计算第 index 根K线上的 SMA，O(period)，与 sma(values, period)[index] 相同。
+     * 适合只关心最新一根K线的场景 (例如选股)。
+     */
+    public static double smaAt(double[] values, int period, int index) {
+        checkPeriod(period);
+        int from = Math.max(0, index - period + 1);
+        double sum = 0;
+        for (int i = from; i <= index; i++) {
+            sum += values[i];
+        }
+        return sum / (index - from + 1);
+    }
+
+    /**
+     * 只计算第 index 根K线上的总体标准差，O(period)，与 stdev(values, period)[index] 语义相同。
+     */
+    public static double stdevAt(double[] values, int period, int index) {
+        double mean = smaAt(values, period, index);
+        int from = Math.max(0, index - period + 1);
+        double sumSq = 0;
+        for (int i = from; i <= index; i++) {
+            double d = values[i] - mean;
+            sumSq += d * d;
+        }
+        return Math.sqrt(sumSq / (index - from + 1));
+    }
+
+    /**
+     * 指数移动平均 (对应 ta4j EMAIndicator，平滑系数 2 / (period + 1))。
+     */
+    public static double[] ema(double[] values, int period) {
+        checkPeriod(period);
+        return smooth(values, 2.0 / (period + 1));
+    }
+
+    /**
+     * 修正移动平均 (对应 ta4j MMAIndicator，平滑系数 1 / period)。
+     */
+    public static double[] mma(double[] values, int period) {
+        checkPeriod(period);
+        return smooth(values, 1.0 / period);
+    }
+
+    private static double[] smooth(double[] values, double multiplier) {
+        int n = values.length;
+        double[] out = new double[n];
+        if (n == 0) {
+            return out;
+        }
+        double prev = values[0];
+        out[0] = prev;
+        for (int i = 1; i < n; i++) {
+            prev = (values[i] - prev) * multiplier + prev;
+            out[i] = prev;
+        }
+        return out;
+    }
+
+    /**
+     * 相对强弱指标 (对应 ta4j RSIIndicator，涨跌幅使用 MMA 平滑)。
+     */
+    public static double[] rsi(double[] values, int period) {
+        checkPeriod(period);
+        int n = values.length;
+        double[] out = new double[n];
+        double multiplier = 1.0 / period;
+        double avgGain = 0;
+        double avgLoss = 0;
+        for (int i = 0; i < n; i++) {
+            double change = i == 0 ? 0 : values[i] - values[i - 1];
+            double gain = change > 0 ? change : 0;
+            double loss = change < 0 ? -change : 0;
+            if (i == 0) {
+                avgGain = gain;
+                avgLoss = loss;
+            } else {
+                avgGain += (gain - avgGain) * multiplier;
+                avgLoss += (loss - avgLoss) * multiplier;
+            }
+            if (avgLoss == 0) {
+                out[i] = avgGain == 0 ? 0 : 100;
+            } else {
+                out[i] = 100 - 100 / (1 + avgGain / avgLoss);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * 总体标准差 (对应 ta4j StandardDeviationIndicator)。
+     * 使用滑动窗口的 Welford 更新，每根K线 O(1)。
+     * 不用 "平方和/n - 均值²"：价格远大于波动时两项几乎相等，相减会损失全部有效数字甚至得到负数。
+     */
+    public static double[] stdev(double[] values, int period) {
+        checkPeriod(period);
+        int n = values.length;
+        double[] out = new double[n];
+        double mean = 0;
+        double m2 = 0; // 窗口内离差平方和
+        for (int i = 0; i < n; i++) {
+            double v = values[i];
+            if (i < period) {
+                // 窗口未满：加入一个值
+                double delta = v - mean;
+                mean += delta / (i + 1);
+                m2 += delta * (v - mean);
+            } else {
+                // 窗口已满：用新值替换最旧的值
+                double old = values[i - period];
+                double previousMean = mean;
+                mean += (v - old) / period;
+                m2 += (v - old) * (v - mean + old - previousMean);
+            }
+            int count = Math.min(period, i + 1);
+            out[i] = m2 > 0 ? Math.sqrt(m2 / count) : 0;
+        }
+        return out;
+    }
+
+    /**
+     * 周期内最高值 (对应 ta4j HighestValueIndicator)，使用单调队列，整体 O(n)。
+     */
+    public static double[] highest(double[] values, int period) {
+        return rollingExtreme(values, period, true);
+    }
+
+    /**
+     * 周期内最低值 (对应 ta4j LowestValueIndicator)。
+     */
+    public static double[] lowest(double[] values, int period) {
+        return rollingExtreme(values, period, false);
+    }
+
+    private static double[] rollingExtreme(double[] values, int period, boolean max) {
+        checkPeriod(period);
+        int n = values.length;
+        double[] out = new double[n];
+        int[] deque = new int[n];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < n; i++) {
+            double v = values[i];
+            while (tail > head && (max ? values[deque[tail - 1]] <= v : values[deque[tail - 1]] >= v)) {
+                tail--;
+            }
+            deque[tail++] = i;
+            if (deque[head] <= i - period) {
+                head++;
+            }
+            out[i] = values[deque[head]];
+        }
+        return out;
+    }
+
+    /**
+     * 平均真实波幅 (对应 ta4j ATRIndicator)。
+     */
+    public static double[] atr(double[] high, double[] low, double[] close, int period) {
+        checkPeriod(period);
+        int n = close.length;
+        double[] tr = new double[n];
+        for (int i = 0; i < n; i++) {
+            tr[i] = trueRange(high[i], low[i], i == 0 ? Double.NaN : close[i - 1]);
+        }
+        return mma(tr, period);
+    }
+
+    /**
+     * 单根K线的真实波幅；首根K线没有前收盘价时传入 NaN。
+     */
+    public static double trueRange(double high, double low, double prevClose) {
+        double range = Math.abs(high - low);
+        if (Double.isNaN(prevClose)) {
+            return range;
+        }
+        return Math.max(range, Math.max(Math.abs(high - prevClose), Math.abs(prevClose - low)));
+    }
+
+    /**
+     * 上穿 (对应 ta4j CrossedUpIndicatorRule)：当前 first > second，
+     * 且向前跳过相等的K线后，最近一次两者不等时 first < second。
+     * 返回 1.0 表示满足，0.0 表示不满足。
+     */
+    public static double[] crossUp(double[] first, double[] second) {
+        int n = first.length;
+        double[] out = new double[n];
+        // 严格早于当前K线的、最近一次两者不相等的位置及方向
+        int lastIndex = -1;
+        boolean lastBelow = false;
+        for (int i = 0; i < n; i++) {
+            double a = first[i];
+            double b = second[i];
+            if (i > 0 && a > b) {
+                double pa = first[i - 1];
+                double pb = second[i - 1];
+                if (pa < pb || (pa == pb && lastIndex > 0 && lastBelow)) {
+                    out[i] = 1.0;
+                }
+            }
+            if (a != b) {
+                lastIndex = i;
+                lastBelow = a < b;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * 下穿 (对应 ta4j CrossedDownIndicatorRule)。
+     */
+    public static double[] crossDown(double[] first, double[] second) {
+        return crossUp(second, first);
+    }
+
+    private static void checkPeriod(int period) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("指标周期必须为正整数: " + period);
+        }
+    }
+}
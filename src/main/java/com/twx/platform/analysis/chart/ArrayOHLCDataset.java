@@ -0,0 +1,114 @@
+package com.twx.platform.analysis.chart;
+
+import com.twx.platform.data.BarColumns;
+import org.jfree.data.DomainOrder;
+import org.jfree.data.xy.AbstractXYDataset;
+import org.jfree.data.xy.OHLCDataset;
+
+/**
+ * 直接由 BarColumns 支撑的只读 K线数据集，代替需要 Date[] 的 DefaultHighLowDataset。
+ */
+public class ArrayOHLCDataset extends AbstractXYDataset implements OHLCDataset {
+
+    private final String key;
+    private final BarColumns columns;
+
+    public ArrayOHLCDataset(String key, BarColumns columns) {
+        this.key = key;
+        this.columns = columns;
+    }
+
+    public BarColumns getColumns() {
+        return columns;
+    }
+
+    @Override
+    public DomainOrder getDomainOrder() {
+        return DomainOrder.ASCENDING;
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return 1;
+    }
+
+    @Override
+    public Comparable getSeriesKey(int series) {
+        return key;
+    }
+
+    @Override
+    public int getItemCount(int series) {
+        return columns.size();
+    }
+
+    @Override
+    public Number getX(int series, int item) {
+        return columns.times()[item];
+    }
+
+    @Override
+    public double getXValue(int series, int item) {
+        return columns.times()[item];
+    }
+
+    @Override
+    public Number getY(int series, int item) {
+        return columns.close()[item];
+    }
+
+    @Override
+    public double getYValue(int series, int item) {
+        return columns.close()[item];
+    }
+
+    @Override
+    public Number getOpen(int series, int item) {
+        return columns.open()[item];
+    }
+
+    @Override
+    public double getOpenValue(int series, int item) {
+        return columns.open()[item];
+    }
+
+    @Override
+    public Number getHigh(int series, int item) {
+        return columns.high()[item];
+    }
+
+    @Override
+    public double getHighValue(int series, int item) {
+        return columns.high()[item];
+    }
+
+    @Override
+    public Number getLow(int series, int item) {
+        return columns.low()[item];
+    }
+
+    @Override
+    public double getLowValue(int series, int item) {
+        return columns.low()[item];
+    }
+
+    @Override
+    public Number getClose(int series, int item) {
+        return columns.close()[item];
+    }
+
+    @Override
+    public double getCloseValue(int series, int item) {
+        return columns.close()[item];
+    }
+
+    @Override
+    public Number getVolume(int series, int item) {
+        return columns.volume()[item];
+    }
+
+    @Override
+    public double getVolumeValue(int series, int item) {
+        return columns.volume()[item];
+    }
+}
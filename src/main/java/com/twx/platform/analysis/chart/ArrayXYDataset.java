@@ -0,0 +1,91 @@
+package com.twx.platform.analysis.chart;
+
+import org.jfree.data.DomainOrder;
+import org.jfree.data.xy.AbstractXYDataset;
+
+/**
+ * 直接由 long[] 时间戳和 double[] 指标值支撑的只读 XYDataset。
+ * 所有序列共享同一组时间戳，构造时不复制、不排序、不装箱，
+ * 代替逐点 XYSeries.add (有序插入 + 重复检查 + 每点一个 XYDataItem) 的构建方式。
+ * 调用方在交给本类之后不应再修改这些数组。
+ */
+public class ArrayXYDataset extends AbstractXYDataset {
+
+    private final long[] times;
+    private final String[] keys;
+    private final double[][] values;
+
+    /**
+     * 单序列数据集
+     */
+    public ArrayXYDataset(long[] times, String key, double[] values) {
+        this(times, new String[]{key}, new double[][]{values});
+    }
+
+    /**
+     * @param times  升序的毫秒时间戳
+     * @param keys   每个序列的名称
+     * @param values 每个序列的数值，长度必须与 times 相同
+     */
+    public ArrayXYDataset(long[] times, String[] keys, double[][] values) {
+        if (keys.length != values.length) {
+            throw new IllegalArgumentException("序列名称与数据数量不一致");
+        }
+        for (double[] series : values) {
+            if (series.length != times.length) {
+                throw new IllegalArgumentException("序列长度与时间戳数量不一致");
+            }
+        }
+        this.times = times;
+        this.keys = keys;
+        this.values = values;
+    }
+
+    public long[] getTimes() {
+        return times;
+    }
+
+    public double[] getValues(int series) {
+        return values[series];
+    }
+
+    @Override
+    public DomainOrder getDomainOrder() {
+        return DomainOrder.ASCENDING;
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return keys.length;
+    }
+
+    @Override
+    public Comparable getSeriesKey(int series) {
+        return keys[series];
+    }
+
+    @Override
+    public int getItemCount(int series) {
+        return times.length;
+    }
+
+    @Override
+    public Number getX(int series, int item) {
+        return times[item];
+    }
+
+    @Override
+    public double getXValue(int series, int item) {
+        return times[item];
+    }
+
+    @Override
+    public Number getY(int series, int item) {
+        return values[series][item];
+    }
+
+    @Override
+    public double getYValue(int series, int item) {
+        return values[series][item];
+    }
+}
@@ -0,0 +1,135 @@
+package com.twx.platform.analysis.chart;
+
+import java.util.Arrays;
+
+/**
+ * 图表降采样算法。
+ * 只负责挑选下标 / 计算分桶边界，不关心数据来自哪种数据集，所有方法都是无状态的，可以在后台线程调用。
+ */
+public final class Downsampling {
+
+    private Downsampling() {
+    }
+
+    /**
+     * Largest-Triangle-Three-Buckets 降采样：把 [from, to) 上的折线压缩为 threshold 个点，
+     * 每个桶里选出与前一个已选点、下一个桶均值构成三角形面积最大的点，能较好地保留峰谷形状。
+     * 首尾两点总会被保留。
+     *
+     * @param x         横坐标 (升序)
+     * @param y         纵坐标，NaN 点不参与均值计算
+     * @param from      起始下标 (含)
+     * @param to        结束下标 (不含)
+     * @param threshold 目标点数
+     * @return 选中的下标，升序；点数不超过 threshold 时返回全部下标
+     */
+    public static int[] lttb(double[] x, double[] y, int from, int to, int threshold) {
+        int n = to - from;
+        if (n <= 0) {
+            return new int[0];
+        }
+        if (threshold >= n || threshold < 3) {
+            return range(from, to);
+        }
+        int[] out = new int[threshold];
+        double every = (double) (n - 2) / (threshold - 2);
+        int a = from;
+        int k = 0;
+        out[k++] = from;
+        for (int i = 0; i < threshold - 2; i++) {
+            // 下一个桶的均值点
+            int avgStart = from + (int) Math.floor((i + 1) * every) + 1;
+            int avgEnd = Math.min(from + (int) Math.floor((i + 2) * every) + 1, to);
+            double avgX = 0;
+            double avgY = 0;
+            int count = 0;
+            for (int j = avgStart; j < avgEnd; j++) {
+                if (!Double.isNaN(y[j])) {
+                    avgX += x[j];
+                    avgY += y[j];
+                    count++;
+                }
+            }
+            if (count > 0) {
+                avgX /= count;
+                avgY /= count;
+            } else {
+                avgX = x[avgEnd - 1];
+                avgY = y[a];
+            }
+
+            // 当前桶中面积最大的点
+            int rangeStart = from + (int) Math.floor(i * every) + 1;
+            int rangeEnd = from + (int) Math.floor((i + 1) * every) + 1;
+            double ax = x[a];
+            double ay = y[a];
+            double maxArea = -1;
+            int next = rangeStart;
+            for (int j = rangeStart; j < rangeEnd; j++) {
+                double area = Math.abs((ax - avgX) * (y[j] - ay) - (ax - x[j]) * (avgY - ay));
+                if (area > maxArea) {
+                    maxArea = area;
+                    next = j;
+                }
+            }
+            out[k++] = next;
+            a = next;
+        }
+        out[k] = to - 1;
+        return out;
+    }
+
+    /**
+     * 把 [from, to) 平均分成 buckets 段，返回 buckets + 1 个边界，第 b 段为 [bounds[b], bounds[b + 1])。
+     * 数据量不超过 buckets 时每个元素单独一段。
+     */
+    public static int[] bucketBounds(int from, int to, int buckets) {
+        int n = to - from;
+        if (n <= 0) {
+            return new int[]{from};
+        }
+        int count = Math.max(1, Math.min(n, buckets));
+        int[] bounds = new int[count + 1];
+        for (int b = 0; b <= count; b++) {
+            bounds[b] = from + (int) ((long) b * n / count);
+        }
+        return bounds;
+    }
+
+    /**
+     * 在升序数组中查找第一个 &gt;= value 的下标 (都小于 value 时返回 length)。
+     */
+    public static int lowerBound(double[] sorted, double value) {
+        int lo = 0;
+        int hi = sorted.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (sorted[mid] < value) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * 可见区间 [lower, upper] 对应的下标范围，两侧各多保留一个点，使折线能画到绘图区边缘。
+     * @return {from, to}，to 不含
+     */
+    public static int[] visibleRange(double[] x, double lower, double upper) {
+        int from = Math.max(0, lowerBound(x, lower) - 1);
+        int to = Math.min(x.length, lowerBound(x, upper) + 1);
+        if (from >= to) {
+            from = Math.max(0, Math.min(from, x.length - 1));
+            to = Math.min(x.length, from + 1);
+        }
+        return new int[]{from, to};
+    }
+
+    private static int[] range(int from, int to) {
+        int[] out = new int[to - from];
+        Arrays.setAll(out, i -> from + i);
+        return out;
+    }
+}
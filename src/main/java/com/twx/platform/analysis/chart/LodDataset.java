@@ -0,0 +1,24 @@
+package com.twx.platform.analysis.chart;
+
+/**
+ * 支持按可见区间降采样 (level of detail) 的图表数据集。
+ * 数据集内部保存完整分辨率的原始数据，对外只暴露当前视图的数据点。
+ */
+public interface LodDataset {
+
+    /**
+     * 按可见区间和像素宽度计算新的视图。本方法只读原始数据，可以在后台线程调用；
+     * 返回的 Runnable 负责把新视图装入数据集并通知图表，必须在界面线程执行。
+     *
+     * @param lower  可见区间下界 (毫秒时间戳)
+     * @param upper  可见区间上界 (毫秒时间戳)
+     * @param pixels 绘图区宽度 (像素)
+     * @return 安装新视图的操作
+     */
+    Runnable prepareView(double lower, double upper, int pixels);
+
+    /**
+     * 原始数据的横坐标范围，{最小值, 最大值}；没有数据时返回 null。
+     */
+    double[] getFullDomain();
+}
@@ -0,0 +1,206 @@
+package com.twx.platform.analysis.chart;
+
+import com.twx.platform.data.BarColumns;
+import org.jfree.data.DomainOrder;
+import org.jfree.data.xy.AbstractXYDataset;
+import org.jfree.data.xy.OHLCDataset;
+
+/**
+ * K线数据集的 LOD 包装：可见区间内的K线数量超过可以清晰绘制的数量 (每根至少 MIN_CANDLE_PIXELS 像素) 时，
+ * 把相邻K线按桶聚合 (开盘取第一根、收盘取最后一根、最高/最低取极值、成交量求和)，否则保留原始K线。
+ * 视图总会带上首尾两根K线，保证坐标轴自动范围仍然覆盖全部数据。
+ * 只包装源数据集的第一个序列。
+ */
+public class LodOHLCDataset extends AbstractXYDataset implements OHLCDataset, LodDataset {
+
+    private static final int MIN_CANDLE_PIXELS = 3;
+
+    private final Comparable<?> key;
+    private final double[] x;
+    private final double[] open;
+    private final double[] high;
+    private final double[] low;
+    private final double[] close;
+    private final double[] volume;
+    private double[][] view;
+
+    /**
+     * 复制源数据集的全部K线，之后源数据集的变化不会反映到本数据集中。
+     * 源数据集是 ArrayOHLCDataset 时直接共享其只读列数据。
+     */
+    public LodOHLCDataset(OHLCDataset source) {
+        key = source.getSeriesCount() > 0 ? source.getSeriesKey(0) : "OHLC";
+        if (source instanceof ArrayOHLCDataset arrays) {
+            BarColumns columns = arrays.getColumns();
+            x = LodXYDataset.toDoubles(columns.times());
+            open = columns.open();
+            high = columns.high();
+            low = columns.low();
+            close = columns.close();
+            volume = columns.volume();
+            view = new double[][]{x, open, high, low, close, volume};
+            return;
+        }
+        int n = source.getSeriesCount() > 0 ? source.getItemCount(0) : 0;
+        x = new double[n];
+        open = new double[n];
+        high = new double[n];
+        low = new double[n];
+        close = new double[n];
+        volume = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = source.getXValue(0, i);
+            open[i] = source.getOpenValue(0, i);
+            high[i] = source.getHighValue(0, i);
+            low[i] = source.getLowValue(0, i);
+            close[i] = source.getCloseValue(0, i);
+            volume[i] = source.getVolumeValue(0, i);
+        }
+        view = new double[][]{x, open, high, low, close, volume};
+    }
+
+    @Override
+    public Runnable prepareView(double lower, double upper, int pixels) {
+        int[] visible = Downsampling.visibleRange(x, lower, upper);
+        int[] bounds = Downsampling.bucketBounds(visible[0], visible[1], Math.max(1, pixels / MIN_CANDLE_PIXELS));
+        boolean head = visible[0] > 0;
+        boolean tail = visible[1] < x.length;
+        int buckets = bounds.length - 1;
+        int n = buckets + (head ? 1 : 0) + (tail ? 1 : 0);
+        double[][] next = new double[6][n];
+        int k = 0;
+        if (head) {
+            copyBar(next, k++, 0);
+        }
+        for (int b = 0; b < buckets; b++) {
+            int from = bounds[b];
+            int to = bounds[b + 1];
+            double h = Double.NEGATIVE_INFINITY;
+            double l = Double.POSITIVE_INFINITY;
+            double v = 0;
+            for (int i = from; i < to; i++) {
+                h = Math.max(h, high[i]);
+                l = Math.min(l, low[i]);
+                v += volume[i];
+            }
+            next[0][k] = x[from];
+            next[1][k] = open[from];
+            next[2][k] = h;
+            next[3][k] = l;
+            next[4][k] = close[to - 1];
+            next[5][k] = v;
+            k++;
+        }
+        if (tail) {
+            copyBar(next, k, x.length - 1);
+        }
+        return () -> {
+            view = next;
+            fireDatasetChanged();
+        };
+    }
+
+    private void copyBar(double[][] target, int k, int i) {
+        target[0][k] = x[i];
+        target[1][k] = open[i];
+        target[2][k] = high[i];
+        target[3][k] = low[i];
+        target[4][k] = close[i];
+        target[5][k] = volume[i];
+    }
+
+    @Override
+    public double[] getFullDomain() {
+        return x.length == 0 ? null : new double[]{x[0], x[x.length - 1]};
+    }
+
+    @Override
+    public DomainOrder getDomainOrder() {
+        return DomainOrder.ASCENDING;
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return 1;
+    }
+
+    @Override
+    public Comparable getSeriesKey(int series) {
+        return key;
+    }
+
+    @Override
+    public int getItemCount(int series) {
+        return view[0].length;
+    }
+
+    @Override
+    public Number getX(int series, int item) {
+        return view[0][item];
+    }
+
+    @Override
+    public double getXValue(int series, int item) {
+        return view[0][item];
+    }
+
+    @Override
+    public Number getY(int series, int item) {
+        return view[4][item];
+    }
+
+    @Override
+    public double getYValue(int series, int item) {
+        return view[4][item];
+    }
+
+    @Override
+    public Number getOpen(int series, int item) {
+        return view[1][item];
+    }
+
+    @Override
+    public double getOpenValue(int series, int item) {
+        return view[1][item];
+    }
+
+    @Override
+    public Number getHigh(int series, int item) {
+        return view[2][item];
+    }
+
+    @Override
+    public double getHighValue(int series, int item) {
+        return view[2][item];
+    }
+
+    @Override
+    public Number getLow(int series, int item) {
+        return view[3][item];
+    }
+
+    @Override
+    public double getLowValue(int series, int item) {
+        return view[3][item];
+    }
+
+    @Override
+    public Number getClose(int series, int item) {
+        return view[4][item];
+    }
+
+    @Override
+    public double getCloseValue(int series, int item) {
+        return view[4][item];
+    }
+
+    @Override
+    public Number getVolume(int series, int item) {
+        return view[5][item];
+    }
+
+    @Override
+    public double getVolumeValue(int series, int item) {
+        return view[5][item];
+    }
+}
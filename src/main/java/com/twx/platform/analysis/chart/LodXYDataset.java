@@ -0,0 +1,152 @@
+package com.twx.platform.analysis.chart;
+
+import org.jfree.data.DomainOrder;
+import org.jfree.data.xy.AbstractXYDataset;
+import org.jfree.data.xy.XYDataset;
+
+/**
+ * 折线数据集的 LOD 包装：可见区间内的点数超过像素宽度时用 LTTB 降采样，否则保留全部点。
+ * 视图总会带上整条序列的首尾两点，保证坐标轴自动范围仍然覆盖全部数据。
+ * 视图只能在界面线程中替换 (见 {@link #prepareView})。
+ */
+public class LodXYDataset extends AbstractXYDataset implements LodDataset {
+
+    private final Comparable<?>[] keys;
+    private final double[][] xs;
+    private final double[][] ys;
+    private double[][] viewX;
+    private double[][] viewY;
+
+    /**
+     * 复制源数据集的全部数据点，之后源数据集的变化不会反映到本数据集中。
+     * 源数据集是 ArrayXYDataset 时直接共享其只读数组，时间戳只转换一次。
+     */
+    public LodXYDataset(XYDataset source) {
+        int seriesCount = source.getSeriesCount();
+        keys = new Comparable<?>[seriesCount];
+        xs = new double[seriesCount][];
+        ys = new double[seriesCount][];
+        if (source instanceof ArrayXYDataset arrays) {
+            double[] x = toDoubles(arrays.getTimes());
+            for (int s = 0; s < seriesCount; s++) {
+                keys[s] = source.getSeriesKey(s);
+                xs[s] = x;
+                ys[s] = arrays.getValues(s);
+            }
+            viewX = xs;
+            viewY = ys;
+            return;
+        }
+        for (int s = 0; s < seriesCount; s++) {
+            keys[s] = source.getSeriesKey(s);
+            int n = source.getItemCount(s);
+            xs[s] = new double[n];
+            ys[s] = new double[n];
+            for (int i = 0; i < n; i++) {
+                xs[s][i] = source.getXValue(s, i);
+                ys[s][i] = source.getYValue(s, i);
+            }
+        }
+        viewX = xs;
+        viewY = ys;
+    }
+
+    static double[] toDoubles(long[] values) {
+        double[] out = new double[values.length];
+        for (int i = 0; i < values.length; i++) {
+            out[i] = values[i];
+        }
+        return out;
+    }
+
+    @Override
+    public Runnable prepareView(double lower, double upper, int pixels) {
+        int seriesCount = keys.length;
+        double[][] newX = new double[seriesCount][];
+        double[][] newY = new double[seriesCount][];
+        for (int s = 0; s < seriesCount; s++) {
+            double[] x = xs[s];
+            double[] y = ys[s];
+            int[] visible = Downsampling.visibleRange(x, lower, upper);
+            int[] picked = Downsampling.lttb(x, y, visible[0], visible[1], Math.max(3, pixels));
+            boolean head = visible[0] > 0;
+            boolean tail = visible[1] < x.length;
+            int n = picked.length + (head ? 1 : 0) + (tail ? 1 : 0);
+            double[] vx = new double[n];
+            double[] vy = new double[n];
+            int k = 0;
+            if (head) {
+                vx[k] = x[0];
+                vy[k++] = y[0];
+            }
+            for (int i : picked) {
+                vx[k] = x[i];
+                vy[k++] = y[i];
+            }
+            if (tail) {
+                vx[k] = x[x.length - 1];
+                vy[k] = y[x.length - 1];
+            }
+            newX[s] = vx;
+            newY[s] = vy;
+        }
+        return () -> {
+            viewX = newX;
+            viewY = newY;
+            fireDatasetChanged();
+        };
+    }
+
+    @Override
+    public double[] getFullDomain() {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double[] x : xs) {
+            if (x.length > 0) {
+                min = Math.min(min, x[0]);
+                max = Math.max(max, x[x.length - 1]);
+            }
+        }
+        return min <= max ? new double[]{min, max} : null;
+    }
+
+    @Override
+    public DomainOrder getDomainOrder() {
+        return DomainOrder.ASCENDING;
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return keys.length;
+    }
+
+    @Override
+    public Comparable getSeriesKey(int series) {
+        return keys[series];
+    }
+
+    @Override
+    public int getItemCount(int series) {
+        return viewX[series].length;
+    }
+
+    @Override
+    public Number getX(int series, int item) {
+        return viewX[series][item];
+    }
+
+    @Override
+    public double getXValue(int series, int item) {
+        return viewX[series][item];
+    }
+
+    @Override
+    public Number getY(int series, int item) {
+        return viewY[series][item];
+    }
+
+    @Override
+    public double getYValue(int series, int item) {
+        return viewY[series][item];
+    }
+}
@@ -0,0 +1,201 @@
+package com.twx.platform.analysis.chart;
+
+import com.twx.platform.common.Order;
+import com.twx.platform.common.TradeSignal;
+import org.jfree.data.DomainOrder;
+import org.jfree.data.xy.AbstractXYDataset;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 成交标记数据集：序列 0 为买入，序列 1 为卖出，数据保存在按时间升序的 double[] 中。
+ * <p>
+ * 作为 LOD 数据集，它只输出可见区间内的标记；相邻标记在屏幕上的距离小于 CLUSTER_PIXELS 时
+ * 合并成一个聚合标记 (位置取平均，数量见 {@link #getCount})，放大到足够细时自然退化为逐笔标记。
+ */
+public class TradeMarkerDataset extends AbstractXYDataset implements LodDataset {
+
+    public static final int BUY_SERIES = 0;
+    public static final int SELL_SERIES = 1;
+    private static final int CLUSTER_PIXELS = 14;
+    private static final String[] KEYS = {"买入", "卖出"};
+
+    private final double[][] times;
+    private final double[][] prices;
+    private double[][] viewX;
+    private double[][] viewY;
+    private int[][] viewCount;
+
+    /**
+     * @param buyTimes   买入时间 (毫秒时间戳，升序)
+     * @param buyPrices  买入价格
+     * @param sellTimes  卖出时间 (毫秒时间戳，升序)
+     * @param sellPrices 卖出价格
+     */
+    public TradeMarkerDataset(double[] buyTimes, double[] buyPrices, double[] sellTimes, double[] sellPrices) {
+        this.times = new double[][]{buyTimes, sellTimes};
+        this.prices = new double[][]{buyPrices, sellPrices};
+        this.viewX = times;
+        this.viewY = prices;
+        this.viewCount = new int[][]{ones(buyTimes.length), ones(sellTimes.length)};
+    }
+
+    /**
+     * 由回测的成交记录构建
+     */
+    public static TradeMarkerDataset of(List<Order> orders) {
+        Order[] sorted = orders.toArray(new Order[0]);
+        Arrays.sort(sorted, (a, b) -> a.timestamp().compareTo(b.timestamp()));
+        int buys = 0;
+        for (Order order : sorted) {
+            if (order.signal() == TradeSignal.BUY) buys++;
+        }
+        double[] buyTimes = new double[buys];
+        double[] buyPrices = new double[buys];
+        double[] sellTimes = new double[sorted.length - buys];
+        double[] sellPrices = new double[sorted.length - buys];
+        int b = 0;
+        int s = 0;
+        for (Order order : sorted) {
+            double time = order.timestamp().toInstant().toEpochMilli();
+            if (order.signal() == TradeSignal.BUY) {
+                buyTimes[b] = time;
+                buyPrices[b++] = order.price();
+            } else {
+                sellTimes[s] = time;
+                sellPrices[s++] = order.price();
+            }
+        }
+        return new TradeMarkerDataset(buyTimes, buyPrices, sellTimes, sellPrices);
+    }
+
+    private static int[] ones(int n) {
+        int[] out = new int[n];
+        Arrays.fill(out, 1);
+        return out;
+    }
+
+    @Override
+    public Runnable prepareView(double lower, double upper, int pixels) {
+        double clusterWidth = (upper - lower) * CLUSTER_PIXELS / Math.max(1, pixels);
+        double[][] newX = new double[2][];
+        double[][] newY = new double[2][];
+        int[][] newCount = new int[2][];
+        for (int s = 0; s < 2; s++) {
+            double[] x = times[s];
+            double[] y = prices[s];
+            int from = Downsampling.lowerBound(x, lower);
+            int to = Downsampling.lowerBound(x, Math.nextUp(upper));
+            double[] cx = new double[to - from];
+            double[] cy = new double[to - from];
+            int[] cc = new int[to - from];
+            int k = -1;
+            double start = Double.NEGATIVE_INFINITY;
+            double sumX = 0;
+            double sumY = 0;
+            for (int i = from; i < to; i++) {
+                if (x[i] - start > clusterWidth) {
+                    if (k >= 0) {
+                        cx[k] = sumX / cc[k];
+                        cy[k] = sumY / cc[k];
+                    }
+                    k++;
+                    start = x[i];
+                    sumX = 0;
+                    sumY = 0;
+                }
+                sumX += x[i];
+                sumY += y[i];
+                cc[k]++;
+            }
+            if (k >= 0) {
+                cx[k] = sumX / cc[k];
+                cy[k] = sumY / cc[k];
+            }
+            newX[s] = Arrays.copyOf(cx, k + 1);
+            newY[s] = Arrays.copyOf(cy, k + 1);
+            newCount[s] = Arrays.copyOf(cc, k + 1);
+        }
+        return () -> {
+            viewX = newX;
+            viewY = newY;
+            viewCount = newCount;
+            fireDatasetChanged();
+        };
+    }
+
+    @Override
+    public double[] getFullDomain() {
+        double min = Double.POSITIVE_INFINITY;
+        double max = Double.NEGATIVE_INFINITY;
+        for (double[] x : times) {
+            if (x.length > 0) {
+                min = Math.min(min, x[0]);
+                max = Math.max(max, x[x.length - 1]);
+            }
+        }
+        return min <= max ? new double[]{min, max} : null;
+    }
+
+    /**
+     * 某个序列全部成交的时间 (毫秒时间戳，升序)，不受当前视图影响。调用方不应修改。
+     */
+    public double[] getTradeTimes(int series) {
+        return times[series];
+    }
+
+    /**
+     * 某个序列全部成交的价格，与 getTradeTimes 一一对应。调用方不应修改。
+     */
+    public double[] getTradePrices(int series) {
+        return prices[series];
+    }
+
+    /**
+     * 当前视图中一个标记代表的成交笔数 (1 表示单笔成交)
+     */
+    public int getCount(int series, int item) {
+        return viewCount[series][item];
+    }
+
+    @Override
+    public DomainOrder getDomainOrder() {
+        return DomainOrder.ASCENDING;
+    }
+
+    @Override
+    public int getSeriesCount() {
+        return 2;
+    }
+
+    @Override
+    public Comparable getSeriesKey(int series) {
+        return KEYS[series];
+    }
+
+    @Override
+    public int getItemCount(int series) {
+        return viewX[series].length;
+    }
+
+    @Override
+    public Number getX(int series, int item) {
+        return viewX[series][item];
+    }
+
+    @Override
+    public double getXValue(int series, int item) {
+        return viewX[series][item];
+    }
+
+    @Override
+    public Number getY(int series, int item) {
+        return viewY[series][item];
+    }
+
+    @Override
+    public double getYValue(int series, int item) {
+        return viewY[series][item];
+    }
+}
@@ -0,0 +1,77 @@
+package com.twx.platform.analysis.chart;
+
+import com.twx.platform.analysis.ChartTheme;
+import org.jfree.chart.LegendItem;
+import org.jfree.chart.axis.ValueAxis;
+import org.jfree.chart.plot.CrosshairState;
+import org.jfree.chart.plot.PlotRenderingInfo;
+import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.xy.AbstractXYItemRenderer;
+import org.jfree.chart.renderer.xy.XYItemRendererState;
+import org.jfree.data.xy.XYDataset;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+
+/**
+ * 成交标记渲染器：买入画在价格下方、箭头朝上，卖出画在价格上方、箭头朝下，
+ * 聚合标记在字母后附带笔数 (如 "B×12")。
+ * 字体、颜色和箭头路径都是复用的，不会为每个标记分配对象；可见区间以外的标记直接跳过。
+ */
+public class TradeMarkerRenderer extends AbstractXYItemRenderer {
+
+    private static final Color BUY_COLOR = ChartTheme.COLOR_BUY;
+    private static final Color SELL_COLOR = ChartTheme.COLOR_SELL;
+    private static final Font LABEL_FONT = new Font("SansSerif", Font.BOLD, 14);
+    private static final double GAP = 4;
+    private static final double ARROW_HEIGHT = 10;
+    private static final double ARROW_HALF_WIDTH = 6;
+
+    private final Path2D.Double arrow = new Path2D.Double();
+
+    @Override
+    public void drawItem(Graphics2D g2, XYItemRendererState state, Rectangle2D dataArea, PlotRenderingInfo info,
+                         XYPlot plot, ValueAxis domainAxis, ValueAxis rangeAxis, XYDataset dataset,
+                         int series, int item, CrosshairState crosshairState, int pass) {
+        double x = dataset.getXValue(series, item);
+        double y = dataset.getYValue(series, item);
+        if (!domainAxis.getRange().contains(x) || Double.isNaN(y)) {
+            return;
+        }
+        double tx = domainAxis.valueToJava2D(x, dataArea, plot.getDomainAxisEdge());
+        double ty = rangeAxis.valueToJava2D(y, dataArea, plot.getRangeAxisEdge());
+
+        boolean isBuy = series == TradeMarkerDataset.BUY_SERIES;
+        // 买入在下方 (屏幕坐标 y 增大)，卖出在上方
+        double direction = isBuy ? 1 : -1;
+        double tipY = ty + direction * GAP;
+        double baseY = tipY + direction * ARROW_HEIGHT;
+        arrow.reset();
+        arrow.moveTo(tx, tipY);
+        arrow.lineTo(tx - ARROW_HALF_WIDTH, baseY);
+        arrow.lineTo(tx + ARROW_HALF_WIDTH, baseY);
+        arrow.closePath();
+        g2.setPaint(isBuy ? BUY_COLOR : SELL_COLOR);
+        g2.fill(arrow);
+
+        int count = dataset instanceof TradeMarkerDataset markers ? markers.getCount(series, item) : 1;
+        String label = count > 1 ? (isBuy ? "B×" : "S×") + count : (isBuy ? "B" : "S");
+        g2.setFont(LABEL_FONT);
+        FontMetrics metrics = g2.getFontMetrics();
+        float labelX = (float) (tx - metrics.stringWidth(label) / 2.0);
+        float labelY = (float) (isBuy ? baseY + metrics.getAscent() : baseY - metrics.getDescent());
+        g2.drawString(label, labelX, labelY);
+    }
+
+    /**
+     * 成交标记不出现在图例中
+     */
+    @Override
+    public LegendItem getLegendItem(int datasetIndex, int series) {
+        return null;
+    }
+}
@@ -1,20 +1,11 @@
 package com.twx.platform.analysis.impl;
 
 import com.twx.platform.analysis.AnalysisTechnique;
+import com.twx.platform.analysis.IndicatorKernels;
+import com.twx.platform.analysis.chart.ArrayXYDataset;
+import com.twx.platform.data.BarColumns;
 import org.jfree.data.xy.XYDataset;
-import org.jfree.data.xy.XYSeries;
-import org.jfree.data.xy.XYSeriesCollection;
-import org.ta4j.core.BarSeries;
-import org.ta4j.core.Indicator;
-import org.ta4j.core.indicators.SMAIndicator;
-import org.ta4j.core.indicators.bollinger.BollingerBandsLowerIndicator;
-import org.ta4j.core.indicators.bollinger.BollingerBandsMiddleIndicator;
-import org.ta4j.core.indicators.bollinger.BollingerBandsUpperIndicator;
-import org.ta4j.core.indicators.helpers.ClosePriceIndicator;
-import org.ta4j.core.indicators.statistics.StandardDeviationIndicator;
-import org.ta4j.core.num.Num;
 
-import java.util.Date;
 import java.util.List;
 
 public class BollingerBandsTechnique implements AnalysisTechnique {
@@ -28,41 +19,27 @@ public class BollingerBandsTechnique implements AnalysisTechnique {
     }
 
     @Override
-    public List<XYDataset> calculate(BarSeries series) {
-        ClosePriceIndicator closePrice = new ClosePriceIndicator(series);
-        SMAIndicator sma = new SMAIndicator(closePrice, period);
-        StandardDeviationIndicator sd = new StandardDeviationIndicator(closePrice, period);
-
-        BollingerBandsMiddleIndicator middleBand = new BollingerBandsMiddleIndicator(sma);
-        Num kNum = series.numOf(k);
-        BollingerBandsLowerIndicator lowerBand = new BollingerBandsLowerIndicator(middleBand, sd, kNum);
-        BollingerBandsUpperIndicator upperBand = new BollingerBandsUpperIndicator(middleBand, sd, kNum);
-
-        // 为每个指标创建一个 JFreeChart 的 XYSeries
-        XYSeries middleSeries = createSeries("BB Middle", series, middleBand);
-        XYSeries upperSeries = createSeries("BB Upper", series, upperBand);
-        XYSeries lowerSeries = createSeries("BB Lower", series, lowerBand);
+    public List<XYDataset> calculate(BarColumns columns) {
+        double[] middle = IndicatorKernels.sma(columns.close(), period);
+        double[] sd = IndicatorKernels.stdev(columns.close(), period);
+
+        double[] upper = new double[middle.length];
+        double[] lower = new double[middle.length];
+        for (int i = 0; i < middle.length; i++) {
+            upper[i] = middle[i] + k * sd[i];
+            lower[i] = middle[i] - k * sd[i];
+        }
 
-        // 将所有 XYSeries 添加到一个数据集中
-        XYSeriesCollection dataset = new XYSeriesCollection();
-        dataset.addSeries(middleSeries);
-        dataset.addSeries(upperSeries);
-        dataset.addSeries(lowerSeries);
+        // 序列顺序与 FinancialChart 中 BBANDS_COLORS 的顺序一致: 中轨、上轨、下轨
+        XYDataset dataset = new ArrayXYDataset(columns.times(),
+                new String[]{"BB Middle", "BB Upper", "BB Lower"},
+                new double[][]{middle, upper, lower});
 
         return List.of(dataset);
     }
 
-    private XYSeries createSeries(String name, BarSeries barSeries, Indicator<Num> indicator) {
-        XYSeries series = new XYSeries(name);
-        for (int i = 0; i < barSeries.getBarCount(); i++) {
-            Date date = Date.from(barSeries.getBar(i).getEndTime().toInstant());
-            series.add(date.getTime(), indicator.getValue(i).doubleValue());
-        }
-        return series;
-    }
-
     @Override
     public String getName() {
         return "Bollinger Bands";
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,49 @@
+package com.twx.platform.analysis.rolling;
+
+import com.twx.platform.analysis.IndicatorKernels;
+
+/**
+ * 逐根K线更新的平均真实波幅 (Wilder 平滑，与 ta4j ATRIndicator 一致)，每次更新 O(1)。
+ * 本类不是线程安全的。
+ */
+public class IncrementalAtr {
+
+    private final int period;
+    private double prevClose = Double.NaN;
+    private double value = Double.NaN;
+    private int count;
+
+    public IncrementalAtr(int period) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("ATR 周期必须为正整数");
+        }
+        this.period = period;
+    }
+
+    /**
+     * 用一根新K线更新 ATR。
+     * @return 更新后的 ATR
+     */
+    public double update(double high, double low, double close) {
+        double tr = IndicatorKernels.trueRange(high, low, prevClose);
+        value = count == 0 ? tr : value + (tr - value) / period;
+        prevClose = close;
+        count++;
+        return value;
+    }
+
+    public double value() {
+        return value;
+    }
+
+    /**
+     * 是否已经累积了至少一个周期的数据
+     */
+    public boolean isReady() {
+        return count >= period;
+    }
+
+    public int period() {
+        return period;
+    }
+}
@@ -0,0 +1,88 @@
+package com.twx.platform.analysis.rolling;
+
+/**
+ * 固定窗口的滚动均值 / 方差。
+ * 使用环形缓冲区 + 窗口化 Welford 更新，每次 add 都是 O(1)，且不会像 "平方和减平方" 那样在长序列上累积误差。
+ * 本类不是线程安全的。
+ */
+public class RollingMoments {
+
+    private final double[] window;
+    private int next;
+    private int count;
+    private double mean;
+    private double m2;
+
+    /**
+     * @param period 窗口长度
+     */
+    public RollingMoments(int period) {
+        if (period < 2) {
+            throw new IllegalArgumentException("窗口长度至少为 2");
+        }
+        this.window = new double[period];
+    }
+
+    /**
+     * 加入一个新值，窗口已满时同时移除最旧的值。
+     */
+    public void add(double value) {
+        if (count < window.length) {
+            count++;
+            double delta = value - mean;
+            mean += delta / count;
+            m2 += delta * (value - mean);
+        } else {
+            double old = window[next];
+            double newMean = mean + (value - old) / count;
+            m2 += (value - old) * (value - newMean + old - mean);
+            mean = newMean;
+            if (m2 < 0) {
+                m2 = 0;
+            }
+        }
+        window[next] = value;
+        next = (next + 1) % window.length;
+    }
+
+    public double mean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * 总体方差 (除以 n)，与 ta4j VarianceIndicator 一致
+     */
+    public double variance() {
+        return count == 0 ? Double.NaN : m2 / count;
+    }
+
+    /**
+     * 样本方差 (除以 n - 1)
+     */
+    public double sampleVariance() {
+        return count < 2 ? Double.NaN : m2 / (count - 1);
+    }
+
+    public double stdev() {
+        return Math.sqrt(variance());
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public int period() {
+        return window.length;
+    }
+
+    public boolean isFull() {
+        return count == window.length;
+    }
+
+    public void reset() {
+        next = 0;
+        count = 0;
+        mean = 0;
+        m2 = 0;
+    }
+}
@@ -0,0 +1,102 @@
+package com.twx.platform.analysis.rolling;
+
+/**
+ * 固定窗口的滚动一元线性回归 y = alpha + beta * x。
+ * 维护窗口内 x、y 的均值和 (协)方差离差和，采用窗口化 Welford 更新，每次 add 都是 O(1)。
+ * 本类不是线程安全的。
+ */
+public class RollingRegression {
+
+    private final double[] xs;
+    private final double[] ys;
+    private int next;
+    private int count;
+    private double meanX;
+    private double meanY;
+    private double sxx;
+    private double syy;
+    private double sxy;
+
+    /**
+     * @param period 窗口长度
+     */
+    public RollingRegression(int period) {
+        if (period < 2) {
+            throw new IllegalArgumentException("回归窗口长度至少为 2");
+        }
+        this.xs = new double[period];
+        this.ys = new double[period];
+    }
+
+    /**
+     * 加入一对新观测值，窗口已满时同时移除最旧的一对。
+     */
+    public void add(double x, double y) {
+        if (count == xs.length) {
+            remove(xs[next], ys[next]);
+        }
+        count++;
+        double dx = x - meanX;
+        double dy = y - meanY;
+        meanX += dx / count;
+        meanY += dy / count;
+        sxx += dx * (x - meanX);
+        syy += dy * (y - meanY);
+        sxy += dx * (y - meanY);
+        xs[next] = x;
+        ys[next] = y;
+        next = (next + 1) % xs.length;
+    }
+
+    private void remove(double x, double y) {
+        if (count == 1) {
+            count = 0;
+            meanX = meanY = sxx = syy = sxy = 0;
+            return;
+        }
+        double newMeanX = (meanX * count - x) / (count - 1);
+        double newMeanY = (meanY * count - y) / (count - 1);
+        sxx -= (x - meanX) * (x - newMeanX);
+        syy -= (y - meanY) * (y - newMeanY);
+        sxy -= (x - meanX) * (y - newMeanY);
+        meanX = newMeanX;
+        meanY = newMeanY;
+        count--;
+    }
+
+    /**
+     * 回归斜率 (对冲比例)
+     */
+    public double beta() {
+        return count < 2 || sxx <= 0 ? Double.NaN : sxy / sxx;
+    }
+
+    /**
+     * 回归截距
+     */
+    public double alpha() {
+        return meanY - beta() * meanX;
+    }
+
+    /**
+     * 皮尔逊相关系数
+     */
+    public double correlation() {
+        return count < 2 || sxx <= 0 || syy <= 0 ? Double.NaN : sxy / Math.sqrt(sxx * syy);
+    }
+
+    /**
+     * 给定观测值相对于当前回归线的残差 y - (alpha + beta * x)
+     */
+    public double residual(double x, double y) {
+        return y - (alpha() + beta() * x);
+    }
+
+    public int count() {
+        return count;
+    }
+
+    public boolean isFull() {
+        return count == xs.length;
+    }
+}
@@ -0,0 +1,363 @@
+package com.twx.platform.batch;
+
+import com.twx.platform.common.TimeFrame;
+import com.twx.platform.risk.impl.StandardRiskManager;
+import com.twx.platform.universe.PairsScanner;
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 批量回测任务，从 JSON 任务文件读取。格式示例:
+ * <pre>
+ * {
+ *   "name": "ma-grid",
+ *   "output": "batch-output",
+ *   "startDate": "2020-01-01",
+ *   "endDate": "2024-12-31",
+ *   "timeFrame": "DAILY",
+ *   "initialCash": 100000,
+ *   "commissionRate": 0.0003,
+ *   "tickers": ["600519", "000001"],
+ *   "strategies": [
+ *     {"type": "MovingAverageCrossStrategy", "params": {"shortPeriod": [5, 10], "longPeriod": [20, 30, 60]}},
+ *     {"type": "RsiStrategy", "params": {"period": 14, "lower": [25, 30], "upper": 70}}
+ *   ],
+ *   "sizers": [{"type": "cashPercent", "param": 95}, {"type": "fixedQuantity", "param": 100}],
+ *   "risk": {"stopLoss": 5, "trailingStop": 8},
+ *   "formats": ["csv", "json"],
+ *   "crossSectional": [
+ *     {"type": "MomentumFactor", "params": {"period": 120, "skip": 20, "topN": [10, 20], "rebalancePeriod": 20}}
+ *   ],
+ *   "factorStore": "factor-store",
+ *   "pairs": {"top": 5, "window": 60, "entryZ": 2.0, "exitZ": 0.5, "minCorrelation": 0.8},
+ *   "correlation": {"window": 60, "step": 5},
+ *   "screen": {"conditions": [
+ *     {"type": "MovingAverageCrossCondition", "params": {"period": 60, "direction": "ABOVE"}},
+ *     {"type": "RsiCondition", "params": {"period": 14, "direction": "BELOW", "threshold": 40}}
+ *   ]}
+ * }
+ * </pre>
+ * 参数值写成数组时表示网格，所有网格参数做笛卡尔积；百分比参数 (仓位、风控) 与界面一致按百分数填写。
+ * 任务中的每个 (股票, 策略参数组合, 仓位管理) 都会执行一次回测。
+ * <p>
+ * 股票池任务把 tickers 中下载成功的全部股票作为一个股票池，结果固定输出为 CSV：
+ * <ul>
+ *     <li>crossSectional：横截面排序回测，type 为因子类名 (MomentumFactor、RsiFactor、VolatilityFactor)，
+ *     params 中除因子参数外还可以给出 topN、rebalancePeriod、selectHighest，同样支持网格</li>
+ *     <li>factorStore：可选的因子库目录 (相对任务文件所在目录)。给出时股票池的开高低收量和横截面任务用到的因子
+ *     写入 {@link com.twx.platform.universe.FactorStore}，回测从因子库读取因子矩阵，之后也可以用 FactorStore.open 直接复用</li>
+ *     <li>pairs：扫描股票池中的协整配对，对 ADF 统计量最显著的前 top 对用配对交易策略按 sizers 逐一回测，
+ *     回测结果与单只股票的回测一起输出；其余字段为扫描器参数，缺省值见 {@link PairsScanner.Config#defaults()}</li>
+ *     <li>correlation：输出全样本收益率相关系数矩阵；window 大于 0 时再用滚动窗口每 step 个交易日
+ *     输出一次窗口内的平均两两相关系数，用于观察股票池分散程度的变化</li>
+ *     <li>screen：在股票池的最后一个交易日上选股，条件之间为逻辑与，type 为 screener.impl 中的条件类名，
+ *     条件参数不支持网格；latestOnly 为 false 时停牌股票按其最后一根K线判断</li>
+ * </ul>
+ * 只包含股票池任务的任务文件可以省略 strategies。
+ *
+ * @param name           任务名，用作输出文件名前缀
+ * @param output         输出目录
+ * @param startDate      回测开始日期
+ * @param endDate        回测结束日期
+ * @param timeFrame      K线周期
+ * @param initialCash    初始资金
+ * @param commissionRate 手续费率
+ * @param tickers        股票代码
+ * @param strategies     策略及其参数网格
+ * @param sizers         仓位管理方式
+ * @param riskLimits     风控参数 (比例)
+ * @param formats        输出格式: csv、json
+ * @param crossSectional 横截面排序回测的因子及其参数网格
+ * @param factorStore    因子库目录，不使用因子库时为 null
+ * @param pairs          配对扫描与回测参数，不扫描时为 null
+ * @param correlation    相关系数矩阵参数，不计算时为 null
+ * @param screen         选股参数，不选股时为 null
+ */
+public record BatchJob(String name, Path output, LocalDate startDate, LocalDate endDate, TimeFrame timeFrame,
+                       double initialCash, double commissionRate, List<String> tickers,
+                       List<StrategySpec> strategies, List<SizerSpec> sizers,
+                       StandardRiskManager.Limits riskLimits, List<String> formats,
+                       List<StrategySpec> crossSectional, Path factorStore, PairsSpec pairs,
+                       CorrelationSpec correlation, ScreenSpec screen) {
+
+    /**
+     * 一个策略类型及其参数网格。
+     *
+     * @param type   策略类名，与界面中的策略标识相同 (横截面任务中为因子类名)
+     * @param params 参数名 -> 候选值列表
+     */
+    public record StrategySpec(String type, Map<String, List<Object>> params) {
+
+        /**
+         * 展开参数网格。
+         * @return 每个元素是一组完整的参数
+         */
+        public List<Map<String, Object>> expand() {
+            List<Map<String, Object>> combinations = new ArrayList<>();
+            combinations.add(new LinkedHashMap<>());
+            for (Map.Entry<String, List<Object>> param : params.entrySet()) {
+                List<Map<String, Object>> next = new ArrayList<>();
+                for (Map<String, Object> partial : combinations) {
+                    for (Object value : param.getValue()) {
+                        Map<String, Object> combination = new LinkedHashMap<>(partial);
+                        combination.put(param.getKey(), value);
+                        next.add(combination);
+                    }
+                }
+                combinations = next;
+            }
+            return combinations;
+        }
+    }
+
+    /**
+     * 仓位管理方式。
+     *
+     * @param type  cashPercent、fixedQuantity、fixedCash、volatilityTarget、kelly
+     * @param param 参数，含义与界面中的仓位参数相同
+     */
+    public record SizerSpec(String type, double param) {
+    }
+
+    /**
+     * 配对扫描与回测参数。
+     *
+     * @param top     回测排名前几的配对
+     * @param scanner 扫描器参数，其中的滚动窗口同时用作策略的窗口
+     * @param entryZ  策略的入场阈值
+     * @param exitZ   策略的离场阈值
+     */
+    public record PairsSpec(int top, PairsScanner.Config scanner, double entryZ, double exitZ) {
+        public PairsSpec {
+            if (top <= 0) {
+                throw new IllegalArgumentException("配对回测数量 (top) 必须为正整数");
+            }
+            if (entryZ <= exitZ) {
+                throw new IllegalArgumentException("入场阈值必须大于离场阈值");
+            }
+        }
+    }
+
+    /**
+     * 相关系数矩阵参数。
+     *
+     * @param window 滚动窗口 (交易日)，0 表示只计算全样本矩阵
+     * @param step   滚动时每隔几个交易日输出一次
+     */
+    public record CorrelationSpec(int window, int step) {
+        public CorrelationSpec {
+            if (window < 0 || step <= 0) {
+                throw new IllegalArgumentException("相关系数的滚动窗口不能为负数，输出间隔必须为正整数");
+            }
+        }
+    }
+
+    /**
+     * 选股参数。
+     *
+     * @param conditions 需要同时满足的条件
+     * @param latestOnly 是否只考虑最后一根K线落在最后一个交易日的股票
+     */
+    public record ScreenSpec(List<StrategySpec> conditions, boolean latestOnly) {
+        public ScreenSpec {
+            if (conditions.isEmpty()) {
+                throw new IllegalArgumentException("选股任务至少需要一个条件 (conditions)");
+            }
+            for (StrategySpec condition : conditions) {
+                if (condition.expand().size() > 1) {
+                    throw new IllegalArgumentException("选股条件不支持参数网格: " + condition.type());
+                }
+            }
+            conditions = List.copyOf(conditions);
+        }
+    }
+
+    public BatchJob {
+        if (tickers.isEmpty()) {
+            throw new IllegalArgumentException("任务文件中没有股票代码 (tickers)");
+        }
+        if (strategies.isEmpty() && crossSectional.isEmpty() && factorStore == null && pairs == null
+                && correlation == null && screen == null) {
+            throw new IllegalArgumentException("任务文件中没有策略 (strategies)");
+        }
+        if (endDate.isBefore(startDate)) {
+            throw new IllegalArgumentException("结束日期不能早于开始日期");
+        }
+        tickers = List.copyOf(tickers);
+        strategies = List.copyOf(strategies);
+        sizers = List.copyOf(sizers);
+        formats = List.copyOf(formats);
+        crossSectional = List.copyOf(crossSectional);
+    }
+
+    /**
+     * 使用另一个输出目录 (命令行参数优先于任务文件)
+     */
+    public BatchJob withOutput(Path output) {
+        return new BatchJob(name, output, startDate, endDate, timeFrame, initialCash, commissionRate, tickers,
+                strategies, sizers, riskLimits, formats, crossSectional, factorStore, pairs, correlation, screen);
+    }
+
+    /**
+     * 是否包含需要整个股票池的任务
+     */
+    public boolean hasUniverseTasks() {
+        return !crossSectional.isEmpty() || factorStore != null || pairs != null || correlation != null
+                || screen != null;
+    }
+
+    /**
+     * 回测总次数
+     */
+    public int runCount() {
+        int combinations = strategies.stream().mapToInt(s -> s.expand().size()).sum();
+        return tickers.size() * combinations * sizers.size();
+    }
+
+    /**
+     * 读取任务文件。
+     *
+     * @param file 任务文件路径；相对的输出目录按任务文件所在目录解析
+     */
+    public static BatchJob load(Path file) throws IOException {
+        String content = Files.readString(file, StandardCharsets.UTF_8);
+        try {
+            JSONObject json = new JSONObject(content);
+            String name = json.optString("name", stripExtension(file.getFileName().toString()));
+            Path base = file.toAbsolutePath().getParent();
+            Path output = base.resolve(json.optString("output", "batch-output"));
+
+            List<String> tickers = new ArrayList<>();
+            JSONArray tickerArray = json.getJSONArray("tickers");
+            for (int i = 0; i < tickerArray.length(); i++) {
+                tickers.add(tickerArray.getString(i));
+            }
+
+            List<StrategySpec> strategies = strategySpecs(json.optJSONArray("strategies"));
+            List<StrategySpec> crossSectional = strategySpecs(json.optJSONArray("crossSectional"));
+            String factorStore = json.optString("factorStore", "");
+            PairsSpec pairs = null;
+            JSONObject pairsObject = json.optJSONObject("pairs");
+            if (pairsObject != null) {
+                PairsScanner.Config defaults = PairsScanner.Config.defaults();
+                pairs = new PairsSpec(pairsObject.optInt("top", 5),
+                        new PairsScanner.Config(
+                                pairsObject.optInt("minObservations", defaults.minObservations()),
+                                pairsObject.optDouble("minCorrelation", defaults.minCorrelation()),
+                                pairsObject.optDouble("adfCritical", defaults.adfCritical()),
+                                pairsObject.optDouble("minHalfLife", defaults.minHalfLife()),
+                                pairsObject.optDouble("maxHalfLife", defaults.maxHalfLife()),
+                                pairsObject.optInt("window", defaults.zWindow())),
+                        pairsObject.optDouble("entryZ", 2.0),
+                        pairsObject.optDouble("exitZ", 0.5));
+            }
+            CorrelationSpec correlation = null;
+            JSONObject correlationObject = json.optJSONObject("correlation");
+            if (correlationObject != null) {
+                correlation = new CorrelationSpec(correlationObject.optInt("window", 0), correlationObject.optInt("step", 5));
+            }
+            ScreenSpec screen = null;
+            JSONObject screenObject = json.optJSONObject("screen");
+            if (screenObject != null) {
+                screen = new ScreenSpec(strategySpecs(screenObject.optJSONArray("conditions")),
+                        screenObject.optBoolean("latestOnly", true));
+            }
+
+            List<SizerSpec> sizers = new ArrayList<>();
+            JSONArray sizerArray = json.optJSONArray("sizers");
+            if (sizerArray == null || sizerArray.isEmpty()) {
+                sizers.add(new SizerSpec("fixedQuantity", 100));
+            } else {
+                for (int i = 0; i < sizerArray.length(); i++) {
+                    JSONObject sizer = sizerArray.getJSONObject(i);
+                    sizers.add(new SizerSpec(sizer.getString("type"), sizer.getDouble("param")));
+                }
+            }
+
+            StandardRiskManager.Limits limits = StandardRiskManager.Limits.none();
+            JSONObject risk = json.optJSONObject("risk");
+            if (risk != null) {
+                limits = new StandardRiskManager.Limits(
+                        risk.optDouble("stopLoss", 0) / 100.0,
+                        risk.optDouble("takeProfit", 0) / 100.0,
+                        risk.optDouble("trailingStop", 0) / 100.0,
+                        risk.optDouble("maxExposure", 0) / 100.0,
+                        risk.optDouble("maxDrawdown", 0) / 100.0);
+            }
+
+            List<String> formats = new ArrayList<>();
+            JSONArray formatArray = json.optJSONArray("formats");
+            if (formatArray == null) {
+                formats.addAll(List.of("csv", "json"));
+            } else {
+                for (int i = 0; i < formatArray.length(); i++) {
+                    String format = formatArray.getString(i).toLowerCase();
+                    if (!format.equals("csv") && !format.equals("json")) {
+                        throw new IllegalArgumentException("不支持的输出格式: " + format);
+                    }
+                    formats.add(format);
+                }
+            }
+
+            return new BatchJob(name, output,
+                    LocalDate.parse(json.getString("startDate")),
+                    LocalDate.parse(json.optString("endDate", LocalDate.now().toString())),
+                    TimeFrame.valueOf(json.optString("timeFrame", "DAILY").toUpperCase()),
+                    json.optDouble("initialCash", 100000),
+                    json.optDouble("commissionRate", 0.0003),
+                    tickers, strategies, sizers, limits, formats, crossSectional,
+                    factorStore.isBlank() ? null : base.resolve(factorStore), pairs, correlation,
+                    screen);
+        } catch (JSONException | DateTimeParseException e) {
+            throw new IllegalArgumentException("任务文件格式错误: " + e.getMessage(), e);
+        }
+    }
+
+    private static List<StrategySpec> strategySpecs(JSONArray array) {
+        List<StrategySpec> specs = new ArrayList<>();
+        if (array == null) {
+            return specs;
+        }
+        for (int i = 0; i < array.length(); i++) {
+            JSONObject spec = array.getJSONObject(i);
+            Map<String, List<Object>> params = new LinkedHashMap<>();
+            JSONObject paramObject = spec.optJSONObject("params");
+            if (paramObject != null) {
+                for (String key : paramObject.keySet()) {
+                    params.put(key, toList(paramObject.get(key)));
+                }
+            }
+            specs.add(new StrategySpec(spec.getString("type"), params));
+        }
+        return specs;
+    }
+
+    private static List<Object> toList(Object value) {
+        List<Object> values = new ArrayList<>();
+        if (value instanceof JSONArray array) {
+            for (int i = 0; i < array.length(); i++) {
+                values.add(array.get(i));
+            }
+        } else {
+            values.add(value);
+        }
+        return values;
+    }
+
+    private static String stripExtension(String fileName) {
+        int dot = fileName.lastIndexOf('.');
+        return dot > 0 ? fileName.substring(0, dot) : fileName;
+    }
+}
@@ -0,0 +1,289 @@
+package com.twx.platform.batch;
+
+import com.twx.platform.common.Order;
+import com.twx.platform.engine.CrossSectionalEngine;
+import com.twx.platform.engine.CrossSectionalResult;
+import com.twx.platform.screener.ScreenCondition;
+import com.twx.platform.screener.ScreenResult;
+import com.twx.platform.screener.Screener;
+import com.twx.platform.universe.PairsScanner;
+import com.twx.platform.universe.UniversePanel;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 把批量回测结果写入任务的输出目录:
+ * <ul>
+ *     <li>csv: &lt;任务名&gt;-metrics.csv (每次回测一行) 与 &lt;任务名&gt;-trades.csv (每笔成交一行)</li>
+ *     <li>json: &lt;任务名&gt;-results.json (指标、参数与成交记录)</li>
+ *     <li>横截面回测: &lt;任务名&gt;-cross-sectional.csv (每组参数一行) 与 &lt;任务名&gt;-holdings.csv (每次调仓的持仓)</li>
+ *     <li>配对扫描: &lt;任务名&gt;-pairs.csv (通过筛选的全部配对，配对回测本身记在 metrics/trades 中)</li>
+ *     <li>选股: &lt;任务名&gt;-screen.csv (满足条件的股票及各条件的因子值)</li>
+ *     <li>相关系数: &lt;任务名&gt;-correlation.csv (全样本矩阵) 与 &lt;任务名&gt;-rolling-correlation.csv (滚动平均相关系数)</li>
+ * </ul>
+ * CSV 使用 UTF-8 BOM，便于直接用 Excel 打开。
+ */
+public class BatchReportWriter {
+
+    private static final String METRICS_HEADER = "run,ticker,strategy,params,sizer,bars,final_value,total_return,"
+            + "annualized_return,max_drawdown,sharpe,trades,error";
+    private static final String TRADES_HEADER = "run,ticker,strategy,params,time,signal,quantity,price";
+    private static final String CROSS_SECTIONAL_HEADER = "run,factor,top_n,rebalance_period,select,days,rebalances,trades,"
+            + "final_value,total_return,annualized_return,max_drawdown";
+    private static final String HOLDINGS_HEADER = "run,factor,time,rank,ticker,score";
+    private static final String ROLLING_CORRELATION_HEADER = "date,average_correlation";
+    private static final String PAIRS_HEADER = "rank,y,x,observations,hedge_ratio,intercept,correlation,adf,half_life,z_score";
+
+    private final BatchJob job;
+
+    public BatchReportWriter(BatchJob job) {
+        this.job = job;
+    }
+
+    /**
+     * @return 写入的文件列表
+     */
+    public List<Path> write(List<BatchResult> results) throws IOException {
+        Files.createDirectories(job.output());
+        List<Path> files = new ArrayList<>();
+        if (job.formats().contains("csv")) {
+            files.add(writeMetricsCsv(results));
+            files.add(writeTradesCsv(results));
+        }
+        if (job.formats().contains("json")) {
+            files.add(writeJson(results));
+        }
+        return files;
+    }
+
+    /**
+     * 写入横截面回测的汇总与调仓持仓
+     *
+     * @return 写入的文件列表
+     */
+    public List<Path> writeCrossSectional(List<CrossSectionalResult> results) throws IOException {
+        Files.createDirectories(job.output());
+        Path summaryFile = job.output().resolve(job.name() + "-cross-sectional.csv");
+        Path holdingsFile = job.output().resolve(job.name() + "-holdings.csv");
+        try (BufferedWriter summary = newCsv(summaryFile, CROSS_SECTIONAL_HEADER);
+             BufferedWriter holdings = newCsv(holdingsFile, HOLDINGS_HEADER)) {
+            int run = 0;
+            for (CrossSectionalResult r : results) {
+                run++;
+                CrossSectionalEngine.Config config = r.config();
+                summary.write(String.join(",", String.valueOf(run), csv(r.factorName()),
+                        String.valueOf(config.topN()), String.valueOf(config.rebalancePeriod()),
+                        config.selectHighest() ? "highest" : "lowest", String.valueOf(r.dates().length),
+                        String.valueOf(r.rebalances().size()), String.valueOf(r.orders().size()),
+                        number(r.finalValue()), number(r.totalReturn()), number(r.annualizedReturn()), number(r.maxDrawdown())));
+                summary.newLine();
+                for (CrossSectionalEngine.Rebalance rebalance : r.rebalances()) {
+                    for (int i = 0; i < rebalance.tickers().size(); i++) {
+                        holdings.write(String.join(",", String.valueOf(run), csv(r.factorName()),
+                                csv(format(rebalance.date())), String.valueOf(i + 1),
+                                csv(rebalance.tickers().get(i).symbol()), number(rebalance.scores()[i])));
+                        holdings.newLine();
+                    }
+                }
+            }
+        }
+        return List.of(summaryFile, holdingsFile);
+    }
+
+    /**
+     * 写入配对扫描结果
+     */
+    public Path writePairs(List<PairsScanner.PairCandidate> candidates) throws IOException {
+        Files.createDirectories(job.output());
+        Path file = job.output().resolve(job.name() + "-pairs.csv");
+        try (BufferedWriter writer = newCsv(file, PAIRS_HEADER)) {
+            int rank = 0;
+            for (PairsScanner.PairCandidate c : candidates) {
+                writer.write(String.join(",", String.valueOf(++rank), csv(c.y().symbol()), csv(c.x().symbol()),
+                        String.valueOf(c.observations()), number(c.hedgeRatio()), number(c.intercept()),
+                        number(c.correlation()), number(c.adfStatistic()), number(c.halfLife()), number(c.zScore())));
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+
+    /**
+     * 写入选股结果，每个条件一列因子值
+     */
+    public Path writeScreen(Screener screener, List<ScreenResult> matches) throws IOException {
+        Files.createDirectories(job.output());
+        Path file = job.output().resolve(job.name() + "-screen.csv");
+        StringBuilder header = new StringBuilder("ticker,time,close");
+        for (ScreenCondition condition : screener.getConditions()) {
+            header.append(',').append(csv(condition.getName()));
+        }
+        try (BufferedWriter writer = newCsv(file, header.toString())) {
+            for (ScreenResult match : matches) {
+                StringBuilder line = new StringBuilder(csv(match.ticker().symbol()));
+                line.append(',').append(csv(format(Instant.ofEpochMilli(match.time()).atZone(ZoneId.systemDefault()))));
+                line.append(',').append(number(match.close()));
+                for (double value : match.values()) {
+                    line.append(',').append(number(value));
+                }
+                writer.write(line.toString());
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+
+    /**
+     * 写入相关系数矩阵，第一行和第一列为股票代码
+     */
+    public Path writeCorrelation(UniversePanel panel, double[][] matrix) throws IOException {
+        Files.createDirectories(job.output());
+        Path file = job.output().resolve(job.name() + "-correlation.csv");
+        List<String> symbols = panel.tickers().stream().map(ticker -> csv(ticker.symbol())).toList();
+        try (BufferedWriter writer = newCsv(file, "ticker," + String.join(",", symbols))) {
+            for (int i = 0; i < matrix.length; i++) {
+                StringBuilder line = new StringBuilder(symbols.get(i));
+                for (double value : matrix[i]) {
+                    line.append(',').append(number(value));
+                }
+                writer.write(line.toString());
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+
+    /**
+     * 写入滚动平均相关系数
+     *
+     * @param averages 交易日序号 -> 平均相关系数
+     */
+    public Path writeRollingCorrelation(UniversePanel panel, Map<Integer, Double> averages) throws IOException {
+        Files.createDirectories(job.output());
+        Path file = job.output().resolve(job.name() + "-rolling-correlation.csv");
+        try (BufferedWriter writer = newCsv(file, ROLLING_CORRELATION_HEADER)) {
+            for (Map.Entry<Integer, Double> entry : averages.entrySet()) {
+                LocalDate date = Instant.ofEpochMilli(panel.dates()[entry.getKey()]).atZone(ZoneId.systemDefault()).toLocalDate();
+                writer.write(date + "," + number(entry.getValue()));
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+
+    private static BufferedWriter newCsv(Path file, String header) throws IOException {
+        BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        writer.write('\uFEFF');
+        writer.write(header);
+        writer.newLine();
+        return writer;
+    }
+
+    private Path writeMetricsCsv(List<BatchResult> results) throws IOException {
+        Path file = job.output().resolve(job.name() + "-metrics.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write('\uFEFF');
+            writer.write(METRICS_HEADER);
+            writer.newLine();
+            for (BatchResult r : results) {
+                writer.write(String.join(",",
+                        String.valueOf(r.run()), csv(r.ticker()), csv(r.strategy()), csv(r.paramsText()), csv(r.sizer()),
+                        String.valueOf(r.bars()), number(r.finalValue()), number(r.totalReturn()),
+                        number(r.annualizedReturn()), number(r.maxDrawdown()), number(r.sharpeRatio()),
+                        String.valueOf(r.orders().size()), csv(r.error() == null ? "" : r.error())));
+                writer.newLine();
+            }
+        }
+        return file;
+    }
+
+    private Path writeTradesCsv(List<BatchResult> results) throws IOException {
+        Path file = job.output().resolve(job.name() + "-trades.csv");
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            writer.write('\uFEFF');
+            writer.write(TRADES_HEADER);
+            writer.newLine();
+            for (BatchResult r : results) {
+                String prefix = String.join(",", String.valueOf(r.run()), csv(r.ticker()), csv(r.strategy()), csv(r.paramsText()));
+                for (Order order : r.orders()) {
+                    writer.write(String.join(",", prefix, csv(format(order.timestamp())), order.signal().name(),
+                            number(order.quantity()), number(order.price())));
+                    writer.newLine();
+                }
+            }
+        }
+        return file;
+    }
+
+    private Path writeJson(List<BatchResult> results) throws IOException {
+        JSONArray runs = new JSONArray();
+        for (BatchResult r : results) {
+            JSONObject run = new JSONObject();
+            run.put("run", r.run());
+            run.put("ticker", r.ticker());
+            run.put("strategy", r.strategy());
+            run.put("params", new JSONObject(r.params()));
+            run.put("sizer", r.sizer());
+            run.put("bars", r.bars());
+            run.put("finalValue", json(r.finalValue()));
+            run.put("totalReturn", json(r.totalReturn()));
+            run.put("annualizedReturn", json(r.annualizedReturn()));
+            run.put("maxDrawdown", json(r.maxDrawdown()));
+            run.put("sharpe", json(r.sharpeRatio()));
+            run.put("error", r.error() == null ? JSONObject.NULL : r.error());
+            JSONArray trades = new JSONArray();
+            for (Order order : r.orders()) {
+                trades.put(new JSONObject()
+                        .put("time", format(order.timestamp()))
+                        .put("signal", order.signal().name())
+                        .put("quantity", order.quantity())
+                        .put("price", order.price()));
+            }
+            run.put("trades", trades);
+            runs.put(run);
+        }
+        JSONObject root = new JSONObject()
+                .put("job", job.name())
+                .put("startDate", job.startDate().toString())
+                .put("endDate", job.endDate().toString())
+                .put("generatedAt", ZonedDateTime.now().toString())
+                .put("runs", runs);
+
+        Path file = job.output().resolve(job.name() + "-results.json");
+        Files.writeString(file, root.toString(2), StandardCharsets.UTF_8);
+        return file;
+    }
+
+    private static String format(ZonedDateTime time) {
+        return time == null ? "" : time.toOffsetDateTime().toString();
+    }
+
+    private static String number(double value) {
+        return Double.isFinite(value) ? String.format(Locale.ROOT, "%.6f", value) : "";
+    }
+
+    private static Object json(double value) {
+        return Double.isFinite(value) ? value : JSONObject.NULL;
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,96 @@
+package com.twx.platform.batch;
+
+import com.twx.platform.common.Order;
+import com.twx.platform.engine.BacktestResult;
+import org.ta4j.core.BarSeries;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 批量回测中单次回测的结果与绩效指标。
+ *
+ * @param run              回测序号 (从 1 开始，与任务展开顺序一致)
+ * @param ticker           股票代码
+ * @param strategy         策略类型
+ * @param params           本次使用的策略参数
+ * @param sizer            仓位管理方式
+ * @param bars             K线数量
+ * @param finalValue       最终总值
+ * @param totalReturn      总收益率
+ * @param annualizedReturn 按每年 252 个交易日折算的年化收益率
+ * @param maxDrawdown      最大回撤
+ * @param sharpeRatio      年化夏普比率 (无风险利率按 0 计)
+ * @param orders           成交记录
+ * @param error            失败原因，成功时为 null
+ */
+public record BatchResult(int run, String ticker, String strategy, Map<String, Object> params, String sizer, int bars,
+                          double finalValue, double totalReturn, double annualizedReturn, double maxDrawdown,
+                          double sharpeRatio, List<Order> orders, String error) {
+
+    /**
+     * 由一次回测的结果计算绩效指标
+     */
+    public static BatchResult of(int run, String ticker, String strategy, Map<String, Object> params, String sizer,
+                                 BacktestResult result) {
+        double initialCash = result.finalPortfolio().getInitialCash();
+        BarSeries history = result.finalPortfolio().getValueHistory();
+        int n = history.getBarCount();
+        double[] equity = new double[n];
+        for (int i = 0; i < n; i++) {
+            equity[i] = history.getBar(i).getClosePrice().doubleValue();
+        }
+        double finalValue = n == 0 ? initialCash : equity[n - 1];
+
+        double peak = initialCash;
+        double maxDrawdown = 0;
+        for (double value : equity) {
+            peak = Math.max(peak, value);
+            maxDrawdown = Math.max(maxDrawdown, (peak - value) / peak);
+        }
+
+        // 日收益率的均值与标准差 (Welford)
+        double mean = 0;
+        double m2 = 0;
+        int count = 0;
+        double previous = initialCash;
+        for (double value : equity) {
+            double r = value / previous - 1;
+            previous = value;
+            count++;
+            double delta = r - mean;
+            mean += delta / count;
+            m2 += delta * (r - mean);
+        }
+        double stdev = count > 1 ? Math.sqrt(m2 / (count - 1)) : 0;
+        double sharpe = stdev > 0 ? mean / stdev * Math.sqrt(252) : 0;
+        double annualized = n < 2 ? 0 : Math.pow(finalValue / initialCash, 252.0 / n) - 1;
+
+        return new BatchResult(run, ticker, strategy, params, sizer, result.series().getBarCount(),
+                finalValue, finalValue / initialCash - 1, annualized, maxDrawdown, sharpe,
+                List.copyOf(result.executedOrders()), null);
+    }
+
+    /**
+     * 回测失败时的占位结果，指标均为 NaN
+     */
+    public static BatchResult failed(int run, String ticker, String strategy, Map<String, Object> params, String sizer,
+                                     String error) {
+        return new BatchResult(run, ticker, strategy, params, sizer, 0, Double.NaN, Double.NaN, Double.NaN,
+                Double.NaN, Double.NaN, List.of(), error);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    /**
+     * 参数的紧凑文本形式，如 "shortPeriod=5;longPeriod=20"
+     */
+    public String paramsText() {
+        return params.entrySet().stream()
+                .map(e -> e.getKey() + "=" + e.getValue())
+                .collect(Collectors.joining(";"));
+    }
+}
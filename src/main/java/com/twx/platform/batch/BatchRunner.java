@@ -0,0 +1,518 @@
+package com.twx.platform.batch;
+
+import com.twx.platform.common.HttpTransport;
+import com.twx.platform.common.TaskScheduler;
+import com.twx.platform.common.Ticker;
+import com.twx.platform.data.DataProvider;
+import com.twx.platform.data.FetchResult;
+import com.twx.platform.data.impl.PreloadedDataProvider;
+import com.twx.platform.engine.BacktestEngine;
+import com.twx.platform.engine.BacktestResult;
+import com.twx.platform.engine.CrossSectionalEngine;
+import com.twx.platform.engine.CrossSectionalResult;
+import com.twx.platform.metrics.MetricsRegistry;
+import com.twx.platform.portfolio.impl.BasicPortfolio;
+import com.twx.platform.position.PositionSizer;
+import com.twx.platform.position.impl.*;
+import com.twx.platform.screener.ScreenCondition;
+import com.twx.platform.screener.ScreenResult;
+import com.twx.platform.screener.Screener;
+import com.twx.platform.screener.impl.BollingerBandsCondition;
+import com.twx.platform.screener.impl.MacdCrossCondition;
+import com.twx.platform.screener.impl.MovingAverageCrossCondition;
+import com.twx.platform.screener.impl.RsiCondition;
+import com.twx.platform.strategy.Strategy;
+import com.twx.platform.strategy.factor.Factor;
+import com.twx.platform.strategy.factor.impl.MomentumFactor;
+import com.twx.platform.strategy.factor.impl.RsiFactor;
+import com.twx.platform.strategy.factor.impl.VolatilityFactor;
+import com.twx.platform.strategy.impl.BollingerBandsStrategy;
+import com.twx.platform.strategy.impl.MACDStrategy;
+import com.twx.platform.strategy.impl.MovingAverageCrossStrategy;
+import com.twx.platform.strategy.impl.PairsTradingStrategy;
+import com.twx.platform.strategy.impl.RsiStrategy;
+import com.twx.platform.strategy.impl.RuleStrategy;
+import com.twx.platform.universe.CorrelationService;
+import com.twx.platform.universe.FactorStore;
+import com.twx.platform.universe.PairsScanner;
+import com.twx.platform.universe.UniversePanel;
+import org.ta4j.core.BarSeries;
+
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 无界面的批量回测入口:
+ * <pre>
+ * java -cp quantitative-trading.jar:&lt;依赖&gt; com.twx.platform.batch.BatchRunner job.json [输出目录]
+ * </pre>
+ * 读取 {@link BatchJob} 任务文件，每只股票的行情只下载一次 (在虚拟线程上并行下载)，
+ * 随后所有 (股票, 策略参数, 仓位管理) 组合以批量优先级在计算线程池上并行回测，
+ * 最后由 {@link BatchReportWriter} 输出指标和成交记录。
+ * 任务中包含股票池任务 (横截面排序等) 时，下载成功的全部股票再组成一个 {@link UniversePanel}，
+ * 行情与单只股票的回测共用，不会重复下载。
+ * <p>
+ * 这个类及其依赖不引用任何 javafx 类，可以在没有图形环境的服务器上运行，也不会触发 JavaFX / WebView 的初始化。
+ */
+public class BatchRunner {
+
+    private final DataProvider dataProvider;
+    private static final String PAIRS_STRATEGY = "PairsTradingStrategy";
+
+    private final TaskScheduler scheduler = TaskScheduler.getInstance();
+    private final Map<String, CompletableFuture<BarSeries>> downloads = new ConcurrentHashMap<>();
+
+    public BatchRunner(DataProvider dataProvider) {
+        this.dataProvider = dataProvider;
+    }
+
+    public static void main(String[] args) {
+        // 乱码设置：控制台输出统一使用 UTF-8，进程启动时设置一次
+        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out), true, StandardCharsets.UTF_8));
+        System.setErr(new PrintStream(new FileOutputStream(FileDescriptor.err), true, StandardCharsets.UTF_8));
+        if (args.length < 1) {
+            System.err.println("用法: BatchRunner <任务文件.json> [输出目录]");
+            System.exit(2);
+        }
+        long started = System.nanoTime();
+        try {
+            BatchJob job = BatchJob.load(Path.of(args[0]));
+            if (args.length > 1) {
+                job = job.withOutput(Path.of(args[1]));
+            }
+            System.out.printf("任务 %s: %d 只股票, 共 %d 次回测%n", job.name(), job.tickers().size(), job.runCount());
+
+            BatchRunner runner = new BatchRunner(new com.twx.platform.data.impl.DataProvider());
+            BatchReportWriter writer = new BatchReportWriter(job);
+            List<BatchResult> results = new ArrayList<>(runner.run(job));
+            List<Path> files = new ArrayList<>();
+            if (job.hasUniverseTasks()) {
+                UniversePanel panel = runner.loadUniverse(job);
+                System.out.printf("股票池: %d 只股票, %d 个交易日%n", panel.tickerCount(), panel.dateCount());
+                FactorStore store = null;
+                if (job.factorStore() != null) {
+                    store = FactorStore.create(job.factorStore(), panel);
+                    files.add(store.getDirectory());
+                }
+                if (!job.crossSectional().isEmpty()) {
+                    List<CrossSectionalResult> crossSectional = runner.runCrossSectional(job, panel, store);
+                    crossSectional.forEach(result -> System.out.println(result.getSummary()));
+                    files.addAll(writer.writeCrossSectional(crossSectional));
+                }
+                if (job.pairs() != null) {
+                    List<PairsScanner.PairCandidate> candidates = runner.scanPairs(job, panel);
+                    System.out.printf("配对扫描: %d 对通过协整与半衰期筛选%n", candidates.size());
+                    files.add(writer.writePairs(candidates));
+                    results.addAll(runner.runPairs(job, candidates));
+                }
+                if (job.screen() != null) {
+                    Screener screener = createScreener(job.screen());
+                    List<ScreenResult> matches = screener.screen(panel, job.screen().latestOnly());
+                    System.out.printf("选股: %d 只股票满足全部条件%n", matches.size());
+                    matches.forEach(match -> System.out.println("  " + match.ticker().symbol()));
+                    files.add(writer.writeScreen(screener, matches));
+                }
+                if (job.correlation() != null) {
+                    CorrelationService service = new CorrelationService(panel);
+                    files.add(writer.writeCorrelation(panel, service.correlation()));
+                    if (job.correlation().window() > 0) {
+                        files.add(writer.writeRollingCorrelation(panel,
+                                rollingAverageCorrelation(service, job.correlation().window(), job.correlation().step())));
+                    }
+                }
+            }
+            if (!results.isEmpty()) {
+                files.addAll(writer.write(results));
+            }
+
+            long failed = results.stream().filter(r -> !r.isSuccess()).count();
+            System.out.printf("完成 %d 次回测 (失败 %d)，耗时 %.1f 秒%n", results.size(), failed,
+                    (System.nanoTime() - started) / 1e9);
+            files.forEach(file -> System.out.println("已写入: " + file));
+            HttpTransport.getInstance().snapshot().forEach(host -> System.out.printf(
+                    "网络 %s: %d 次请求 (失败 %d), %.1f KB, 平均 %.0f ms, 最长 %d ms%n", host.host(), host.requests(),
+                    host.errors(), host.bytes() / 1024.0, host.averageMillis(), host.maxMillis()));
+            // 用 -Dquant.metrics=true 运行时输出各环节的耗时统计
+            if (MetricsRegistry.getInstance().isEnabled()) {
+                MetricsRegistry.getInstance().snapshot().forEach(metric -> System.out.println("指标 " + metric.format()));
+            }
+            System.exit(!results.isEmpty() && failed == results.size() ? 1 : 0);
+        } catch (IOException | IllegalArgumentException e) {
+            System.err.println("批量回测失败: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 执行任务中的全部回测。单次回测失败不会中断整个任务，而是记录为失败结果。
+     *
+     * @return 按任务展开顺序排列的结果
+     */
+    public List<BatchResult> run(BatchJob job) {
+        if (job.strategies().isEmpty()) {
+            return List.of();
+        }
+        // 1. 每只股票下载一次行情
+        for (String symbol : job.tickers()) {
+            download(symbol, job);
+        }
+
+        // 2. 展开参数网格，行情就绪后提交回测
+        int total = job.runCount();
+        AtomicInteger finished = new AtomicInteger();
+        List<CompletableFuture<BatchResult>> runs = new ArrayList<>(total);
+        int run = 0;
+        for (String symbol : job.tickers()) {
+            for (BatchJob.StrategySpec strategy : job.strategies()) {
+                for (Map<String, Object> params : strategy.expand()) {
+                    for (BatchJob.SizerSpec sizer : job.sizers()) {
+                        int runId = ++run;
+                        String sizerText = sizer.type() + "(" + sizer.param() + ")";
+                        CompletableFuture<BatchResult> future = download(symbol, job)
+                                .thenCompose(series -> scheduler.submit(null, "回测 " + symbol + " " + strategy.type(),
+                                        TaskScheduler.Kind.CPU, TaskScheduler.Priority.BATCH,
+                                        () -> runOne(job, runId, symbol, series, strategy.type(), params, sizer)))
+                                .exceptionally(error -> {
+                                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                                    return BatchResult.failed(runId, symbol, strategy.type(), params, sizerText, String.valueOf(cause.getMessage()));
+                                })
+                                .thenApply(result -> {
+                                    report(finished.incrementAndGet(), total, result);
+                                    return result;
+                                });
+                        runs.add(future);
+                    }
+                }
+            }
+        }
+        return runs.stream().map(CompletableFuture::join).toList();
+    }
+
+    /**
+     * 由任务中下载成功的全部股票组成股票池面板，下载失败或区间内没有数据的股票跳过。
+     */
+    public UniversePanel loadUniverse(BatchJob job) {
+        for (String symbol : job.tickers()) {
+            download(symbol, job);
+        }
+        Map<Ticker, BarSeries> universe = new LinkedHashMap<>();
+        for (String symbol : job.tickers()) {
+            try {
+                BarSeries series = download(symbol, job).join();
+                if (series != null && !series.isEmpty()) {
+                    universe.put(new Ticker(symbol), series);
+                }
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause() != null ? e.getCause() : e;
+                System.err.println("股票池跳过 " + symbol + ": " + cause.getMessage());
+            }
+        }
+        if (universe.isEmpty()) {
+            throw new IllegalArgumentException("股票池中没有可用的行情数据");
+        }
+        return UniversePanel.of(universe);
+    }
+
+    /**
+     * 在股票池上执行全部横截面排序回测，每组 (因子参数, 持仓数量, 调仓间隔) 一次。
+     * 因子计算和回测内部已经并行，这里按顺序执行。
+     *
+     * @param store 因子库，非 null 时因子先写入因子库 (同一因子只算一次)，回测读取因子库中的矩阵
+     */
+    public List<CrossSectionalResult> runCrossSectional(BatchJob job, UniversePanel panel, FactorStore store) throws IOException {
+        CrossSectionalEngine engine = new CrossSectionalEngine(store != null ? store.toPanel() : panel);
+        List<CrossSectionalResult> results = new ArrayList<>();
+        for (BatchJob.StrategySpec spec : job.crossSectional()) {
+            for (Map<String, Object> params : spec.expand()) {
+                Factor factor = createFactor(spec.type(), params);
+                CrossSectionalEngine.Config config = new CrossSectionalEngine.Config(
+                        intParam(params, "topN", 10), intParam(params, "rebalancePeriod", 20),
+                        booleanParam(params, "selectHighest", factor instanceof MomentumFactor),
+                        job.initialCash(), job.commissionRate());
+                if (store == null) {
+                    results.add(engine.run(factor, config));
+                } else {
+                    String field = store.putFactorIfAbsent(factor);
+                    results.add(engine.run(factor.getName(), store.tickerMajor(field), config));
+                }
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 扫描股票池中的协整配对
+     *
+     * @return 通过筛选的配对，协整最显著的在前
+     */
+    public List<PairsScanner.PairCandidate> scanPairs(BatchJob job, UniversePanel panel) {
+        return new PairsScanner(panel).scan(job.pairs().scanner());
+    }
+
+    /**
+     * 对排名前 top 的配对按任务中的每种仓位管理方式回测配对交易策略 (只交易 y 一腿)。
+     * 回测序号接在单只股票回测之后。
+     */
+    public List<BatchResult> runPairs(BatchJob job, List<PairsScanner.PairCandidate> candidates) {
+        BatchJob.PairsSpec spec = job.pairs();
+        List<PairsScanner.PairCandidate> selected = candidates.subList(0, Math.min(spec.top(), candidates.size()));
+        int total = selected.size() * job.sizers().size();
+        AtomicInteger finished = new AtomicInteger();
+        List<CompletableFuture<BatchResult>> runs = new ArrayList<>(total);
+        int run = job.runCount();
+        for (PairsScanner.PairCandidate candidate : selected) {
+            Map<String, Object> params = new LinkedHashMap<>();
+            params.put("hedge", candidate.x().symbol());
+            params.put("window", spec.scanner().zWindow());
+            params.put("entryZ", spec.entryZ());
+            params.put("exitZ", spec.exitZ());
+            params.put("halfLife", Math.round(candidate.halfLife() * 10) / 10.0);
+            String symbol = candidate.y().symbol();
+            for (BatchJob.SizerSpec sizer : job.sizers()) {
+                int runId = ++run;
+                String sizerText = sizer.type() + "(" + sizer.param() + ")";
+                runs.add(scheduler.submit(null, "配对回测 " + symbol + "/" + candidate.x().symbol(),
+                                TaskScheduler.Kind.CPU, TaskScheduler.Priority.BATCH,
+                                () -> runPair(job, runId, candidate, params, sizer))
+                        .exceptionally(error -> {
+                            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                            return BatchResult.failed(runId, symbol, PAIRS_STRATEGY, params, sizerText, String.valueOf(cause.getMessage()));
+                        })
+                        .thenApply(result -> {
+                            report(finished.incrementAndGet(), total, result);
+                            return result;
+                        }));
+            }
+        }
+        return runs.stream().map(CompletableFuture::join).toList();
+    }
+
+    private BatchResult runPair(BatchJob job, int runId, PairsScanner.PairCandidate candidate, Map<String, Object> params,
+                                BatchJob.SizerSpec sizerSpec) {
+        BatchJob.PairsSpec spec = job.pairs();
+        String symbol = candidate.y().symbol();
+        // 扫描前已经下载完成，这里直接取结果
+        BarSeries series = download(symbol, job).join();
+        BarSeries hedgeSeries = download(candidate.x().symbol(), job).join();
+        Strategy strategy = new PairsTradingStrategy(series, hedgeSeries, spec.scanner().zWindow(), spec.entryZ(), spec.exitZ());
+        BacktestEngine engine = new BacktestEngine(new PreloadedDataProvider(series), candidate.y(),
+                job.startDate(), job.endDate(), job.timeFrame());
+        BacktestResult result = engine.run(strategy, new BasicPortfolio(job.initialCash(), job.commissionRate()),
+                createPositionSizer(sizerSpec), job.riskLimits().newManager());
+        return BatchResult.of(runId, symbol, PAIRS_STRATEGY, params, sizerSpec.type() + "(" + sizerSpec.param() + ")", result);
+    }
+
+    /**
+     * 滚动窗口内的平均两两相关系数 (不含对角线，忽略全程停牌造成的 NaN)。
+     * 窗口每前进一天做一次增量更新，每 step 个交易日取一次快照。
+     *
+     * @return 交易日序号 -> 平均相关系数，序号为窗口结束位置 (不含) 减一
+     */
+    static Map<Integer, Double> rollingAverageCorrelation(CorrelationService service, int window, int step) {
+        Map<Integer, Double> averages = new LinkedHashMap<>();
+        CorrelationService.RollingCovariance rolling = service.rolling(window);
+        while (true) {
+            int last = rolling.endIndex() - 1;
+            if ((last - window) % step == 0 || !rolling.hasNext()) {
+                averages.put(last, averageOffDiagonal(rolling.correlation()));
+            }
+            if (!rolling.hasNext()) {
+                return averages;
+            }
+            rolling.advance();
+        }
+    }
+
+    private static double averageOffDiagonal(double[][] matrix) {
+        double sum = 0;
+        long count = 0;
+        for (int i = 0; i < matrix.length; i++) {
+            for (int j = i + 1; j < matrix.length; j++) {
+                if (!Double.isNaN(matrix[i][j])) {
+                    sum += matrix[i][j];
+                    count++;
+                }
+            }
+        }
+        return count == 0 ? Double.NaN : sum / count;
+    }
+
+    /**
+     * 每只股票只下载一次，单只股票的回测与股票池任务共用同一个结果
+     */
+    private CompletableFuture<BarSeries> download(String symbol, BatchJob job) {
+        return downloads.computeIfAbsent(symbol, key -> scheduler.submit(null, "下载行情 " + key,
+                TaskScheduler.Kind.IO, TaskScheduler.Priority.BATCH, () -> fetch(key, job)));
+    }
+
+    /**
+     * 下载一只股票的行情，失败时抛出带失败类型的异常，由 {@link BatchResult#failed} 记录到结果中
+     */
+    private BarSeries fetch(String symbol, BatchJob job) {
+        FetchResult<BarSeries> result = dataProvider.fetchHistoricalData(new Ticker(symbol), job.startDate(), job.endDate(), job.timeFrame());
+        if (result instanceof FetchResult.Failure<BarSeries> failure) {
+            throw new IllegalStateException("下载行情失败 (" + failure + ")", failure.cause());
+        }
+        return result.orElse(null);
+    }
+
+    private BatchResult runOne(BatchJob job, int runId, String symbol, BarSeries series, String strategyType,
+                               Map<String, Object> params, BatchJob.SizerSpec sizerSpec) {
+        String sizerText = sizerSpec.type() + "(" + sizerSpec.param() + ")";
+        if (series == null || series.isEmpty()) {
+            return BatchResult.failed(runId, symbol, strategyType, params, sizerText, "无法获取行情数据");
+        }
+        Strategy strategy = createStrategy(strategyType, params, series);
+        BacktestEngine engine = new BacktestEngine(new PreloadedDataProvider(series), new Ticker(symbol),
+                job.startDate(), job.endDate(), job.timeFrame());
+        BacktestResult result = engine.run(strategy, new BasicPortfolio(job.initialCash(), job.commissionRate()),
+                createPositionSizer(sizerSpec), job.riskLimits().newManager());
+        return BatchResult.of(runId, symbol, strategyType, params, sizerText, result);
+    }
+
+    private static void report(int finished, int total, BatchResult result) {
+        if (result.isSuccess()) {
+            System.out.printf("[%d/%d] %s %s %s %s: 收益 %.2f%%, 回撤 %.2f%%, 夏普 %.2f%n", finished, total,
+                    result.ticker(), result.strategy(), result.paramsText(), result.sizer(),
+                    result.totalReturn() * 100, result.maxDrawdown() * 100, result.sharpeRatio());
+        } else {
+            System.err.printf("[%d/%d] %s %s %s 失败: %s%n", finished, total,
+                    result.ticker(), result.strategy(), result.paramsText(), result.error());
+        }
+    }
+
+    /**
+     * 按类型和参数创建策略，类型与界面中的策略标识相同，未给出的参数使用界面的默认值。
+     */
+    static Strategy createStrategy(String type, Map<String, Object> params, BarSeries series) {
+        return switch (type) {
+            case "MovingAverageCrossStrategy" -> new MovingAverageCrossStrategy(series,
+                    intParam(params, "shortPeriod", 10), intParam(params, "longPeriod", 30));
+            case "RsiStrategy" -> new RsiStrategy(series,
+                    intParam(params, "period", 14), intParam(params, "lower", 30), intParam(params, "upper", 70));
+            case "BollingerBandsStrategy" -> new BollingerBandsStrategy(series,
+                    intParam(params, "period", 20), doubleParam(params, "k", 2.0));
+            case "MACDStrategy" -> new MACDStrategy(series,
+                    intParam(params, "shortPeriod", 12), intParam(params, "longPeriod", 26), intParam(params, "signalPeriod", 9));
+            case "RuleStrategy" -> new RuleStrategy(series,
+                    stringParam(params, "buyRule"), stringParam(params, "sellRule"));
+            default -> throw new IllegalArgumentException("不支持的策略类型: " + type);
+        };
+    }
+
+    /**
+     * 按类型创建横截面因子。动量默认选最高的，RSI 和波动率默认选最低的 (均值回归、低波动)。
+     */
+    static Factor createFactor(String type, Map<String, Object> params) {
+        return switch (type) {
+            case "MomentumFactor" -> new MomentumFactor(intParam(params, "period", 120), intParam(params, "skip", 0));
+            case "RsiFactor" -> new RsiFactor(intParam(params, "period", 14));
+            case "VolatilityFactor" -> new VolatilityFactor(intParam(params, "period", 20));
+            default -> throw new IllegalArgumentException("不支持的因子类型: " + type);
+        };
+    }
+
+    /**
+     * 按任务中的条件创建选股器
+     */
+    static Screener createScreener(BatchJob.ScreenSpec spec) {
+        List<ScreenCondition> conditions = new ArrayList<>();
+        for (BatchJob.StrategySpec condition : spec.conditions()) {
+            conditions.add(createCondition(condition.type(), condition.expand().get(0)));
+        }
+        return new Screener(conditions);
+    }
+
+    /**
+     * 按类型创建选股条件，未给出的参数使用对应技术指标的常用值
+     */
+    static ScreenCondition createCondition(String type, Map<String, Object> params) {
+        ScreenCondition.Direction direction = directionParam(params, "direction", ScreenCondition.Direction.ABOVE);
+        return switch (type) {
+            case "MovingAverageCrossCondition" -> new MovingAverageCrossCondition(intParam(params, "period", 60), direction);
+            case "RsiCondition" -> new RsiCondition(intParam(params, "period", 14),
+                    directionParam(params, "direction", ScreenCondition.Direction.BELOW), doubleParam(params, "threshold", 30));
+            case "BollingerBandsCondition" -> new BollingerBandsCondition(intParam(params, "period", 20),
+                    doubleParam(params, "k", 2.0), direction);
+            case "MacdCrossCondition" -> new MacdCrossCondition(intParam(params, "shortPeriod", 12),
+                    intParam(params, "longPeriod", 26), intParam(params, "signalPeriod", 9), direction);
+            default -> throw new IllegalArgumentException("不支持的选股条件: " + type);
+        };
+    }
+
+    /**
+     * 按类型创建仓位管理器，参数含义与界面一致 (百分比类参数按百分数填写)。
+     */
+    static PositionSizer createPositionSizer(BatchJob.SizerSpec spec) {
+        double param = spec.param();
+        return switch (spec.type()) {
+            case "cashPercent" -> new CashPercentagePositionSizer(param / 100.0);
+            case "fixedQuantity" -> new FixedQuantityPositionSizer((int) param);
+            case "fixedCash" -> new FixedCashQuantityPositionSizer(param);
+            case "volatilityTarget" -> new VolatilityTargetPositionSizer(param / 100.0,
+                    VolatilityTargetPositionSizer.VolatilityMeasure.ATR, 14, 2.0);
+            case "kelly" -> new KellyPositionSizer(param / 100.0);
+            default -> throw new IllegalArgumentException("不支持的仓位管理方式: " + spec.type());
+        };
+    }
+
+    private static int intParam(Map<String, Object> params, String name, int defaultValue) {
+        Object value = params.get(name);
+        if (value == null) return defaultValue;
+        if (value instanceof Number number) return number.intValue();
+        try {
+            return Integer.parseInt(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("参数 " + name + " 必须是整数: " + value);
+        }
+    }
+
+    private static double doubleParam(Map<String, Object> params, String name, double defaultValue) {
+        Object value = params.get(name);
+        if (value == null) return defaultValue;
+        if (value instanceof Number number) return number.doubleValue();
+        try {
+            return Double.parseDouble(value.toString().trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("参数 " + name + " 必须是数字: " + value);
+        }
+    }
+
+    private static boolean booleanParam(Map<String, Object> params, String name, boolean defaultValue) {
+        Object value = params.get(name);
+        if (value == null) return defaultValue;
+        if (value instanceof Boolean bool) return bool;
+        return Boolean.parseBoolean(value.toString().trim());
+    }
+
+    private static ScreenCondition.Direction directionParam(Map<String, Object> params, String name,
+                                                            ScreenCondition.Direction defaultValue) {
+        Object value = params.get(name);
+        if (value == null) return defaultValue;
+        try {
+            return ScreenCondition.Direction.valueOf(value.toString().trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("参数 " + name + " 必须是 ABOVE 或 BELOW: " + value);
+        }
+    }
+
+    private static String stringParam(Map<String, Object> params, String name) {
+        Object value = params.get(name);
+        if (value == null || value.toString().isBlank()) {
+            throw new IllegalArgumentException("缺少参数: " + name);
+        }
+        return value.toString();
+    }
+}
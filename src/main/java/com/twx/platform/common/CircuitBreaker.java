@@ -0,0 +1,94 @@
+package com.twx.platform.common;
+
+/**
+ * 简单的熔断器。
+ * <ul>
+ *     <li>CLOSED：正常放行，连续失败达到阈值后打开</li>
+ *     <li>OPEN：在冷却时间内直接拒绝请求，不再占用连接和等待超时</li>
+ *     <li>HALF_OPEN：冷却结束后只放行一个试探请求，成功则关闭，失败则重新打开</li>
+ * </ul>
+ * 所有方法都是线程安全的。
+ */
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED, OPEN, HALF_OPEN
+    }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probeInFlight;
+
+    /**
+     * @param failureThreshold 连续失败多少次后打开
+     * @param openMillis       打开后的冷却时间
+     */
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        if (failureThreshold <= 0) {
+            throw new IllegalArgumentException("熔断阈值必须大于 0");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * @return 是否允许发出请求
+     */
+    public synchronized boolean allowRequest() {
+        return switch (state) {
+            case CLOSED -> true;
+            case OPEN -> {
+                if (System.currentTimeMillis() - openedAt < openMillis) {
+                    yield false;
+                }
+                state = State.HALF_OPEN;
+                probeInFlight = true;
+                yield true;
+            }
+            case HALF_OPEN -> {
+                if (probeInFlight) {
+                    yield false;
+                }
+                probeInFlight = true;
+                yield true;
+            }
+        };
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        probeInFlight = false;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        probeInFlight = false;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * 请求没有结果就结束了 (被取消或中断)：不改变状态，只释放半开状态下的试探名额，下一个请求可以重新试探
+     */
+    public synchronized void onAbort() {
+        probeInFlight = false;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    /**
+     * @return 打开状态下距离允许试探请求还有多少毫秒，其他状态为 0
+     */
+    public synchronized long remainingOpenMillis() {
+        return state == State.OPEN ? Math.max(0, openMillis - (System.currentTimeMillis() - openedAt)) : 0;
+    }
+}
@@ -1,5 +1,7 @@
 package com.twx.platform.common;
 
+import java.util.Arrays;
+import java.util.List;
 import java.util.prefs.Preferences;
 
 /**
@@ -18,9 +20,13 @@ public class ConfigurationManager {
     // >>> 新增配置项键名 <<<
     private static final String SEARCH_API_KEY = "SEARCH_API_KEY";
     private static final String SEARCH_API_URL = "SEARCH_API_URL";
+    private static final String CANVAS_CHART = "CANVAS_CHART";
+    private static final String SEARCH_ENGINES = "SEARCH_ENGINES";
 
     // 默认的搜索引擎 API URL (以 Brave Search API 为例)
     private static final String DEFAULT_SEARCH_API_URL = "https://api.search.brave.com/res/v1/web/search";
+    // 默认的网页搜索引擎，按优先顺序排列
+    private static final String DEFAULT_SEARCH_ENGINES = "bing,baidu";
 
     private ConfigurationManager() {
         // userNodeForPackage 会为这个类所在的包创建一个独立的、属于当前用户的配置存储节点
@@ -97,4 +103,43 @@ public class ConfigurationManager {
             prefs.remove(SEARCH_API_URL);
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 是否使用 Canvas 高性能图表 (否则使用 JFreeChart 图表).
+     * @return 默认为 false
+     */
+    public boolean isCanvasChartEnabled() {
+        return prefs.getBoolean(CANVAS_CHART, false);
+    }
+
+    /**
+     * 保存图表实现的选择.
+     * @param enabled true 表示使用 Canvas 高性能图表
+     */
+    public void setCanvasChartEnabled(boolean enabled) {
+        prefs.putBoolean(CANVAS_CHART, enabled);
+    }
+
+    /**
+     * 获取 AI 网络搜索使用的搜索引擎，按优先顺序排列 (bing、baidu、sogou).
+     * @return 默认为 bing, baidu
+     */
+    public List<String> getSearchEngines() {
+        return Arrays.stream(prefs.get(SEARCH_ENGINES, DEFAULT_SEARCH_ENGINES).split(","))
+                .map(String::trim)
+                .filter(name -> !name.isEmpty())
+                .toList();
+    }
+
+    /**
+     * 保存搜索引擎列表.
+     * @param engines 按优先顺序排列的引擎名称，为空时恢复默认
+     */
+    public void setSearchEngines(List<String> engines) {
+        if (engines != null && !engines.isEmpty()) {
+            prefs.put(SEARCH_ENGINES, String.join(",", engines));
+        } else {
+            prefs.remove(SEARCH_ENGINES);
+        }
+    }
+}
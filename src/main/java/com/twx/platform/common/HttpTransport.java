@@ -0,0 +1,524 @@
+package com.twx.platform.common;
+
+import com.twx.platform.metrics.MetricsRegistry;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
+import java.nio.charset.IllegalCharsetNameException;
+import java.nio.charset.UnsupportedCharsetException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+import java.util.zip.GZIPInputStream;
+
+import javax.net.ssl.SSLSession;
+
+/**
+ * 全局共享的 HTTP 传输层，所有访问网络的类 (行情、股票搜索、网络搜索、AI 对话) 都通过它发送请求。
+ * <ul>
+ *     <li>只有一个 HttpClient，连接池在所有调用方之间复用 (keep-alive)；优先使用 HTTP/2，服务器不支持时自动回退到 HTTP/1.1</li>
+ *     <li>每个主机同时进行的请求数有上限 (默认 {@value #DEFAULT_MAX_PER_HOST}，可用系统属性 quant.http.maxPerHost 调整)，
+ *     避免批量下载时对同一主机打开过多连接</li>
+ *     <li>普通请求自动带上 Accept-Encoding: gzip 并解压响应</li>
+ *     <li>按主机统计请求数、错误数、字节数和耗时，见 {@link #snapshot()}</li>
+ *     <li>按主机熔断，并可按 {@link RetryPolicy} 重试和发送对冲请求，见 {@link #send(HttpRequest, RetryPolicy)}</li>
+ * </ul>
+ */
+public class HttpTransport {
+
+    public static final int DEFAULT_MAX_PER_HOST = 6;
+
+    private static final HttpTransport INSTANCE = new HttpTransport(Integer.getInteger("quant.http.maxPerHost", DEFAULT_MAX_PER_HOST));
+
+    /**
+     * 一个主机的累计统计。
+     *
+     * @param host        主机名
+     * @param requests    请求数
+     * @param errors      失败数 (网络异常或 4xx/5xx 状态码)
+     * @param bytes       收到的响应体字节数 (解压前)
+     * @param totalMillis 累计耗时
+     * @param maxMillis   单次最长耗时
+     * @param inFlight    正在进行的请求数
+     * @param retries     重试次数
+     * @param hedges      发出的对冲请求数
+     * @param p95Millis   近期成功请求耗时的 p95
+     * @param circuit     熔断器状态
+     */
+    public record HostStats(String host, long requests, long errors, long bytes, long totalMillis, long maxMillis,
+                            int inFlight, long retries, long hedges, long p95Millis, CircuitBreaker.State circuit) {
+
+        public double averageMillis() {
+            return requests == 0 ? 0 : (double) totalMillis / requests;
+        }
+    }
+
+    private static final class Host {
+        final Semaphore permits;
+        final LongAdder requests = new LongAdder();
+        final LongAdder errors = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+        final LongAdder totalMillis = new LongAdder();
+        final AtomicLong maxMillis = new AtomicLong();
+        final LongAdder retries = new LongAdder();
+        final LongAdder hedges = new LongAdder();
+        final CircuitBreaker breaker = new CircuitBreaker(CIRCUIT_FAILURE_THRESHOLD, CIRCUIT_OPEN_MILLIS);
+        // 最近成功请求的耗时 (环形缓冲)，用于估计对冲延迟
+        private final long[] recent = new long[LATENCY_SAMPLES];
+        private int recentCount;
+        private int recentNext;
+
+        Host(int maxConcurrent) {
+            this.permits = new Semaphore(maxConcurrent, true);
+        }
+
+        void record(long millis, boolean error) {
+            requests.increment();
+            totalMillis.add(millis);
+            maxMillis.accumulateAndGet(millis, Math::max);
+            if (error) {
+                errors.increment();
+            } else {
+                synchronized (recent) {
+                    recent[recentNext] = millis;
+                    recentNext = (recentNext + 1) % recent.length;
+                    recentCount = Math.min(recentCount + 1, recent.length);
+                }
+            }
+        }
+
+        /**
+         * @return 近期成功请求耗时的 p95，样本不足时返回 -1
+         */
+        long p95() {
+            long[] samples;
+            synchronized (recent) {
+                if (recentCount < MIN_LATENCY_SAMPLES) return -1;
+                samples = Arrays.copyOf(recent, recentCount);
+            }
+            Arrays.sort(samples);
+            return samples[(int) Math.ceil(samples.length * 0.95) - 1];
+        }
+    }
+
+    /**
+     * 主机的熔断器处于打开状态，请求未发出
+     */
+    public static class CircuitOpenException extends IOException {
+        public CircuitOpenException(String host, long retryAfterMillis) {
+            super("对 " + host + " 的请求已熔断，" + (retryAfterMillis / 1000 + 1) + " 秒后重试");
+        }
+    }
+
+    private static final int CIRCUIT_FAILURE_THRESHOLD = 5;
+    private static final long CIRCUIT_OPEN_MILLIS = 30_000;
+    private static final int LATENCY_SAMPLES = 64;
+    private static final int MIN_LATENCY_SAMPLES = 8;
+
+    private final HttpClient httpClient;
+    private final int maxPerHost;
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * @param maxPerHost 每个主机同时进行的请求数上限
+     */
+    public HttpTransport(int maxPerHost) {
+        if (maxPerHost <= 0) {
+            throw new IllegalArgumentException("每个主机的并发请求数必须大于 0");
+        }
+        this.maxPerHost = maxPerHost;
+        this.httpClient = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .connectTimeout(Duration.ofSeconds(10))
+                .followRedirects(HttpClient.Redirect.NORMAL)
+                .cookieHandler(new CookieManager())
+                .build();
+        registerGauges();
+    }
+
+    /**
+     * 获取全局唯一的 HttpTransport 实例.
+     * @return HttpTransport 实例
+     */
+    public static HttpTransport getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 发送请求并读取完整的响应体 (已按 Content-Encoding 解压)。只请求一次，不经过熔断器。
+     *
+     * @param request 请求
+     * @return 响应，状态码由调用方检查
+     */
+    public HttpResponse<byte[]> send(HttpRequest request) throws IOException, InterruptedException {
+        return await(sendAsync(request, host(request.uri())));
+    }
+
+    /**
+     * 按重试策略发送请求：
+     * <ul>
+     *     <li>熔断器打开时直接抛出 {@link CircuitOpenException}</li>
+     *     <li>网络异常、429 和 5xx 视为失败，按带随机抖动的指数退避重试；其他状态码直接返回给调用方</li>
+     *     <li>开启对冲时，请求超过该主机近期 p95 耗时仍未返回，就再发一个相同的请求 (主机名额不足时不发)，取先成功的一个</li>
+     * </ul>
+     *
+     * @return 响应，状态码由调用方检查
+     * @throws IOException 所有尝试都失败时抛出最后一次的异常
+     */
+    public HttpResponse<byte[]> send(HttpRequest request, RetryPolicy policy) throws IOException, InterruptedException {
+        Host host = host(request.uri());
+        IOException last = null;
+        for (int attempt = 1; attempt <= policy.maxAttempts(); attempt++) {
+            if (!host.breaker.allowRequest()) {
+                throw new CircuitOpenException(request.uri().getHost(), host.breaker.remainingOpenMillis());
+            }
+            if (attempt > 1) host.retries.increment();
+            try {
+                HttpResponse<byte[]> response = policy.hedge() ? sendHedged(request, host, policy) : send(request);
+                int status = response.statusCode();
+                if (status != 429 && status < 500) {
+                    host.breaker.onSuccess();
+                    return response;
+                }
+                last = new IOException("HTTP 状态码 " + status);
+            } catch (IOException e) {
+                last = e;
+            } catch (InterruptedException | RuntimeException e) {
+                // 被取消或出现意外错误时不计成败，但要让出试探名额，否则半开状态下的熔断器再也不会放行
+                host.breaker.onAbort();
+                throw e;
+            }
+            host.breaker.onFailure();
+            if (attempt < policy.maxAttempts()) {
+                Thread.sleep(policy.backoffMillis(attempt));
+            }
+        }
+        throw last;
+    }
+
+    private HttpResponse<byte[]> sendHedged(HttpRequest request, Host host, RetryPolicy policy)
+            throws IOException, InterruptedException {
+        long hedgeDelay = Math.max(policy.minHedgeDelay().toMillis(), host.p95());
+        CompletableFuture<HttpResponse<byte[]>> primary = sendAsync(request, host);
+        try {
+            return primary.get(hedgeDelay, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // 超过 p95 仍未返回，发送对冲请求
+        } catch (InterruptedException e) {
+            // 等待期间被取消：中止主请求，由 exchange 归还它占用的主机名额
+            primary.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+        if (!host.permits.tryAcquire()) {
+            return await(primary);
+        }
+        host.hedges.increment();
+        CompletableFuture<HttpResponse<byte[]>> hedge = exchange(request, host);
+
+        CompletableFuture<HttpResponse<byte[]>> winner = new CompletableFuture<>();
+        AtomicInteger failed = new AtomicInteger();
+        for (CompletableFuture<HttpResponse<byte[]>> attempt : List.of(primary, hedge)) {
+            attempt.whenComplete((response, error) -> {
+                if (error == null) {
+                    winner.complete(response);
+                } else if (failed.incrementAndGet() == 2) {
+                    winner.completeExceptionally(error);
+                }
+            });
+        }
+        try {
+            return await(winner);
+        } finally {
+            primary.cancel(true);
+            hedge.cancel(true);
+        }
+    }
+
+    private CompletableFuture<HttpResponse<byte[]>> sendAsync(HttpRequest request, Host host) throws InterruptedException {
+        host.permits.acquire();
+        return exchange(request, host);
+    }
+
+    /**
+     * 异步发送并解压；调用前必须已经占用一个主机名额，完成 (包括被取消) 时归还。
+     * 取消返回的 future 会中止底层的请求。
+     */
+    private CompletableFuture<HttpResponse<byte[]>> exchange(HttpRequest request, Host host) {
+        HttpRequest gzipRequest = HttpRequest.newBuilder(request, (name, value) -> true)
+                .setHeader("Accept-Encoding", "gzip")
+                .build();
+        long started = System.nanoTime();
+        CompletableFuture<HttpResponse<byte[]>> raw = httpClient.sendAsync(gzipRequest, HttpResponse.BodyHandlers.ofByteArray());
+        CompletableFuture<HttpResponse<byte[]>> result = raw.handle((response, error) -> {
+            host.permits.release();
+            long millis = (System.nanoTime() - started) / 1_000_000;
+            if (error != null) {
+                // 对冲中被取消的一方不计为错误
+                if (!(error instanceof CancellationException)) host.record(millis, true);
+                throw error instanceof CompletionException ce ? ce : new CompletionException(error);
+            }
+            host.bytes.add(response.body().length);
+            host.record(millis, response.statusCode() >= 400);
+            try {
+                return decode(response);
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+        result.whenComplete((response, error) -> {
+            if (result.isCancelled()) raw.cancel(true);
+        });
+        return result;
+    }
+
+    private static HttpResponse<byte[]> decode(HttpResponse<byte[]> response) throws IOException {
+        if (response.headers().firstValue("Content-Encoding").filter("gzip"::equalsIgnoreCase).isEmpty()) {
+            return response;
+        }
+        try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            return new DecodedResponse(response, in.readAllBytes());
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        }
+    }
+
+    private static IOException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof IOException io ? io : new IOException(cause);
+    }
+
+    /**
+     * 发送请求并以流的形式读取响应体 (用于 SSE 等流式响应，不请求压缩)。
+     * 调用方必须关闭返回的流；在关闭之前，该请求一直占用所在主机的并发名额。
+     */
+    public HttpResponse<InputStream> stream(HttpRequest request) throws IOException, InterruptedException {
+        Host host = host(request.uri());
+        host.permits.acquire();
+        long started = System.nanoTime();
+        HttpResponse<InputStream> response;
+        try {
+            response = httpClient.send(request, HttpResponse.BodyHandlers.ofInputStream());
+        } catch (IOException | InterruptedException | RuntimeException e) {
+            host.permits.release();
+            host.record((System.nanoTime() - started) / 1_000_000, true);
+            throw e;
+        }
+        // 流式响应的耗时按收到响应头计算，字节数在关闭时累计
+        host.record((System.nanoTime() - started) / 1_000_000, response.statusCode() >= 400);
+        return new StreamResponse(response, new CountingInputStream(response.body(), host));
+    }
+
+    /**
+     * 按响应头 Content-Type 中的 charset 解码响应体，没有声明时使用 fallback
+     */
+    public static String bodyAsString(HttpResponse<byte[]> response, Charset fallback) {
+        Charset charset = fallback;
+        String contentType = response.headers().firstValue("Content-Type").orElse("");
+        int index = contentType.toLowerCase().indexOf("charset=");
+        if (index >= 0) {
+            String name = contentType.substring(index + 8).split(";")[0].replace("\"", "").trim();
+            try {
+                charset = Charset.forName(name);
+            } catch (IllegalCharsetNameException | UnsupportedCharsetException e) {
+                // 使用 fallback
+            }
+        }
+        return new String(response.body(), charset);
+    }
+
+    /**
+     * 各主机的累计统计，按累计耗时从高到低排列
+     */
+    public List<HostStats> snapshot() {
+        List<HostStats> stats = new ArrayList<>();
+        hosts.forEach((name, host) -> stats.add(new HostStats(name, host.requests.sum(), host.errors.sum(),
+                host.bytes.sum(), host.totalMillis.sum(), host.maxMillis.get(),
+                maxPerHost - host.permits.availablePermits(), host.retries.sum(), host.hedges.sum(),
+                host.p95(), host.breaker.getState())));
+        stats.sort(Comparator.comparingLong(HostStats::totalMillis).reversed());
+        return stats;
+    }
+
+    /**
+     * 【新增】把各主机的累计统计汇总为指标。同名仪表只注册一次，所以诊断面板看到的是第一个实例 (即全局实例) 的数据。
+     */
+    private void registerGauges() {
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.gauge("http.requests", "HTTP 请求总数", () -> sum(host -> host.requests.sum()));
+        metrics.gauge("http.errors", "HTTP 失败总数", () -> sum(host -> host.errors.sum()));
+        metrics.gauge("http.retries", "HTTP 重试次数", () -> sum(host -> host.retries.sum()));
+        metrics.gauge("http.hedges", "HTTP 对冲请求数", () -> sum(host -> host.hedges.sum()));
+        metrics.gauge("http.inFlight", "进行中的 HTTP 请求数", () -> sum(host -> maxPerHost - host.permits.availablePermits()));
+        metrics.gauge("http.openCircuits", "熔断中的主机数",
+                () -> sum(host -> host.breaker.getState() == CircuitBreaker.State.CLOSED ? 0 : 1));
+    }
+
+    private double sum(ToLongFunction<Host> field) {
+        long total = 0;
+        for (Host host : hosts.values()) {
+            total += field.applyAsLong(host);
+        }
+        return total;
+    }
+
+    private Host host(URI uri) {
+        String name = uri.getHost() == null ? "" : uri.getHost();
+        return hosts.computeIfAbsent(name, key -> new Host(maxPerHost));
+    }
+
+    /**
+     * 关闭时归还主机名额，并累计读取的字节数
+     */
+    private static final class CountingInputStream extends FilterInputStream {
+        private final Host host;
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        CountingInputStream(InputStream in, Host host) {
+            super(in);
+            this.host = host;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) host.bytes.increment();
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int n = super.read(buffer, offset, length);
+            if (n > 0) host.bytes.add(n);
+            return n;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (closed.compareAndSet(false, true)) {
+                try {
+                    super.close();
+                } finally {
+                    host.permits.release();
+                }
+            }
+        }
+    }
+
+    /**
+     * 把原响应的 body 替换为解压后的内容
+     */
+    private record DecodedResponse(HttpResponse<byte[]> raw, byte[] body) implements HttpResponse<byte[]> {
+        @Override
+        public int statusCode() {
+            return raw.statusCode();
+        }
+
+        @Override
+        public HttpRequest request() {
+            return raw.request();
+        }
+
+        @Override
+        public Optional<HttpResponse<byte[]>> previousResponse() {
+            return raw.previousResponse();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return raw.headers();
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return raw.sslSession();
+        }
+
+        @Override
+        public URI uri() {
+            return raw.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return raw.version();
+        }
+    }
+
+    private record StreamResponse(HttpResponse<InputStream> raw, InputStream body) implements HttpResponse<InputStream> {
+        @Override
+        public int statusCode() {
+            return raw.statusCode();
+        }
+
+        @Override
+        public HttpRequest request() {
+            return raw.request();
+        }
+
+        @Override
+        public Optional<HttpResponse<InputStream>> previousResponse() {
+            return raw.previousResponse();
+        }
+
+        @Override
+        public HttpHeaders headers() {
+            return raw.headers();
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return raw.sslSession();
+        }
+
+        @Override
+        public URI uri() {
+            return raw.uri();
+        }
+
+        @Override
+        public HttpClient.Version version() {
+            return raw.version();
+        }
+
+    }
+}
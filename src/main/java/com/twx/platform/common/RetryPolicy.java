@@ -0,0 +1,47 @@
+package com.twx.platform.common;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 网络请求的重试与对冲策略，见 {@link HttpTransport#send(java.net.http.HttpRequest, RetryPolicy)}。
+ *
+ * @param maxAttempts   最多尝试次数 (含第一次)
+ * @param baseDelay     第一次重试前的退避上限，之后每次翻倍
+ * @param maxDelay      退避上限的最大值
+ * @param hedge         是否在请求超过该主机近期 p95 耗时后再发一个相同的请求，取先返回的一个
+ * @param minHedgeDelay 对冲延迟的下限 (样本不足或 p95 很小时使用)
+ */
+public record RetryPolicy(int maxAttempts, Duration baseDelay, Duration maxDelay, boolean hedge, Duration minHedgeDelay) {
+
+    /**
+     * 只请求一次，不重试也不对冲
+     */
+    public static final RetryPolicy NONE = new RetryPolicy(1, Duration.ZERO, Duration.ZERO, false, Duration.ZERO);
+
+    public RetryPolicy {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("尝试次数必须至少为 1");
+        }
+    }
+
+    /**
+     * 行情请求的默认策略：最多 3 次 (系统属性 quant.data.maxAttempts)，退避 200ms 起、最多 2s，开启对冲
+     * (系统属性 quant.data.hedge=false 可关闭)。
+     */
+    public static RetryPolicy marketData() {
+        return new RetryPolicy(Integer.getInteger("quant.data.maxAttempts", 3),
+                Duration.ofMillis(200), Duration.ofSeconds(2),
+                !"false".equalsIgnoreCase(System.getProperty("quant.data.hedge")),
+                Duration.ofMillis(300));
+    }
+
+    /**
+     * 第 attempt 次失败后的等待时间，使用 "full jitter"：在 [0, min(maxDelay, baseDelay * 2^(attempt-1))] 中均匀取值，
+     * 避免大量并发请求在同一时刻一起重试。
+     */
+    public long backoffMillis(int attempt) {
+        long cap = Math.min(maxDelay.toMillis(), baseDelay.toMillis() << Math.min(attempt - 1, 20));
+        return cap <= 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1);
+    }
+}
@@ -0,0 +1,269 @@
+package com.twx.platform.common;
+
+import com.twx.platform.metrics.MetricsRegistry;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 应用程序统一的后台任务调度器.
+ * <ul>
+ *     <li>IO 任务 (网络请求、数据下载、AI 对话) 运行在虚拟线程上，不占用计算线程。</li>
+ *     <li>CPU 任务 (回测、指标计算) 运行在大小固定的线程池上，排队时交互任务优先于批量任务。</li>
+ *     <li>带 key 提交的任务会自动取消同 key 的旧任务：排队中的直接移出队列，运行中的收到中断。
+ *     用户连续点击同一个按钮时只有最后一次会执行完。</li>
+ *     <li>{@link #snapshot()} 和 {@link #addListener(Runnable)} 提供运行中 / 排队中任务的状态，供界面展示。</li>
+ * </ul>
+ * 使用单例模式，与 {@link ConfigurationManager} 相同。
+ */
+public class TaskScheduler {
+
+    private static final TaskScheduler INSTANCE = new TaskScheduler();
+
+    /**
+     * 任务类型
+     */
+    public enum Kind {
+        IO, CPU
+    }
+
+    /**
+     * 任务优先级，声明顺序即优先顺序
+     */
+    public enum Priority {
+        INTERACTIVE, BATCH
+    }
+
+    /**
+     * 任务状态
+     */
+    public enum State {
+        QUEUED, RUNNING
+    }
+
+    /**
+     * 任务状态快照。
+     *
+     * @param id          任务编号 (提交顺序)
+     * @param key         取消用的 key，匿名任务为 null
+     * @param name        显示名称
+     * @param kind        任务类型
+     * @param priority    优先级
+     * @param state       当前状态
+     * @param submittedAt 提交时间 (毫秒时间戳)
+     */
+    public record TaskInfo(long id, String key, String name, Kind kind, Priority priority, State state, long submittedAt) {
+    }
+
+    private final ThreadPoolExecutor cpuExecutor;
+    private final ExecutorService ioExecutor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("task-io-", 0).factory());
+    private final Map<Long, Task<?>> tasks = new ConcurrentHashMap<>();
+    private final Map<String, Task<?>> tasksByKey = new ConcurrentHashMap<>();
+    private final List<Runnable> listeners = new CopyOnWriteArrayList<>();
+    private final AtomicLong sequence = new AtomicLong();
+
+    private TaskScheduler() {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors() - 1);
+        AtomicInteger counter = new AtomicInteger();
+        this.cpuExecutor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<>(), r -> {
+            Thread thread = new Thread(r, "task-cpu-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.cpuExecutor.allowCoreThreadTimeOut(true);
+
+        MetricsRegistry metrics = MetricsRegistry.getInstance();
+        metrics.gauge("scheduler.cpu.active", "正在运行的计算任务数", cpuExecutor::getActiveCount);
+        metrics.gauge("scheduler.cpu.queued", "排队中的计算任务数", () -> cpuExecutor.getQueue().size());
+        metrics.gauge("scheduler.tasks", "运行中和排队中的任务总数", tasks::size);
+    }
+
+    /**
+     * 获取全局唯一的 TaskScheduler 实例.
+     * @return TaskScheduler 实例
+     */
+    public static TaskScheduler getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * 提交一个任务.
+     *
+     * @param key      取消用的 key；非 null 时会先取消同 key 的旧任务
+     * @param name     显示在状态栏上的名称
+     * @param kind     任务类型
+     * @param priority 优先级
+     * @param callable 任务内容，应在被中断时尽快返回
+     * @return 任务结果；被取消时以 CancellationException 结束
+     */
+    public <T> CompletableFuture<T> submit(String key, String name, Kind kind, Priority priority, Callable<T> callable) {
+        Task<T> task = new Task<>(sequence.incrementAndGet(), key, name, kind, priority, callable);
+        tasks.put(task.id, task);
+        if (key != null) {
+            Task<?> previous = tasksByKey.put(key, task);
+            if (previous != null) {
+                cancel(previous);
+            }
+        }
+        // 任务无论以何种方式结束 (包括被取消) 都从状态表中移除
+        task.future.whenComplete((result, error) -> finish(task));
+        if (kind == Kind.IO) {
+            ioExecutor.execute(task);
+        } else {
+            cpuExecutor.execute(task);
+        }
+        fireChanged();
+        return task.future;
+    }
+
+    /**
+     * 提交一个没有返回值的任务.
+     */
+    public CompletableFuture<Void> submit(String key, String name, Kind kind, Priority priority, Runnable runnable) {
+        return submit(key, name, kind, priority, () -> {
+            runnable.run();
+            return null;
+        });
+    }
+
+    /**
+     * 取消指定 key 的任务.
+     * @return 存在该任务并已取消时返回 true
+     */
+    public boolean cancel(String key) {
+        Task<?> task = tasksByKey.get(key);
+        return task != null && cancel(task);
+    }
+
+    /**
+     * 以匿名任务的形式包装为 Executor，供只接受 Executor 的组件使用 (如指标缓存).
+     */
+    public Executor executor(String name, Kind kind, Priority priority) {
+        return runnable -> submit(null, name, kind, priority, runnable);
+    }
+
+    /**
+     * 当前所有运行中和排队中的任务，运行中的在前，其余按优先级和提交顺序排列.
+     */
+    public List<TaskInfo> snapshot() {
+        List<TaskInfo> infos = new ArrayList<>();
+        for (Task<?> task : tasks.values()) {
+            infos.add(new TaskInfo(task.id, task.key, task.name, task.kind, task.priority,
+                    task.runner != null ? State.RUNNING : State.QUEUED, task.submittedAt));
+        }
+        infos.sort(Comparator.comparing(TaskInfo::state, Comparator.reverseOrder())
+                .thenComparing(TaskInfo::priority)
+                .thenComparingLong(TaskInfo::id));
+        return infos;
+    }
+
+    /**
+     * 注册任务状态变化的监听器。监听器在任意线程上调用，更新界面时需自行切换到 FX 线程.
+     */
+    public void addListener(Runnable listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Runnable listener) {
+        listeners.remove(listener);
+    }
+
+    private boolean cancel(Task<?> task) {
+        boolean cancelled = task.future.cancel(false);
+        if (task.kind == Kind.CPU) {
+            cpuExecutor.remove(task);
+        }
+        // 与任务结束时清空 runner 互斥，保证中断不会落到线程池中的下一个任务上
+        synchronized (task) {
+            if (task.runner != null) {
+                task.runner.interrupt();
+            }
+        }
+        return cancelled;
+    }
+
+    private void finish(Task<?> task) {
+        tasks.remove(task.id);
+        if (task.key != null) {
+            tasksByKey.remove(task.key, task);
+        }
+        fireChanged();
+    }
+
+    private void fireChanged() {
+        for (Runnable listener : listeners) {
+            try {
+                listener.run();
+            } catch (RuntimeException e) {
+                System.err.println("任务状态监听器出错: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 排队中的任务按 (优先级, 提交顺序) 排序
+     */
+    private final class Task<T> implements Runnable, Comparable<Task<?>> {
+        final long id;
+        final String key;
+        final String name;
+        final Kind kind;
+        final Priority priority;
+        final Callable<T> callable;
+        final long submittedAt = System.currentTimeMillis();
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        volatile Thread runner;
+
+        Task(long id, String key, String name, Kind kind, Priority priority, Callable<T> callable) {
+            this.id = id;
+            this.key = key;
+            this.name = name;
+            this.kind = kind;
+            this.priority = priority;
+            this.callable = callable;
+        }
+
+        @Override
+        public void run() {
+            // 先登记 runner 再检查是否已取消：在两者之间到达的取消一定能看到 runner 并中断它
+            runner = Thread.currentThread();
+            try {
+                if (future.isDone()) {
+                    return;
+                }
+                fireChanged();
+                future.complete(callable.call());
+            } catch (Throwable e) {
+                future.completeExceptionally(e);
+            } finally {
+                synchronized (this) {
+                    runner = null;
+                }
+                // 清除取消时可能留下的中断标记，避免影响线程池中的下一个任务
+                Thread.interrupted();
+            }
+        }
+
+        @Override
+        public int compareTo(Task<?> other) {
+            int byPriority = priority.compareTo(other.priority);
+            return byPriority != 0 ? byPriority : Long.compare(id, other.id);
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.twx.platform.data;
+
+import org.ta4j.core.Bar;
+import org.ta4j.core.BarSeries;
+
+/**
+ * K线序列的列式 (primitive array) 视图。
+ * 只在构造时遍历一次 BarSeries，之后所有的指标计算都直接读取 double[]，
+ * 避免在热循环里反复调用 getBar(i).getClosePrice().doubleValue()。
+ *
+ * @param times   每根K线结束时间的毫秒时间戳
+ * @param open    开盘价
+ * @param high    最高价
+ * @param low     最低价
+ * @param close   收盘价
+ * @param volume  成交量
+ */
+public record BarColumns(long[] times, double[] open, double[] high, double[] low, double[] close, double[] volume) {
+
+    /**
+     * 从 ta4j 的 BarSeries 中抽取所有字段。
+     * @param series K线序列
+     * @return 列式数据
+     */
+    public static BarColumns of(BarSeries series) {
+        int n = series.getBarCount();
+        long[] times = new long[n];
+        double[] open = new double[n];
+        double[] high = new double[n];
+        double[] low = new double[n];
+        double[] close = new double[n];
+        double[] volume = new double[n];
+        int begin = series.getBeginIndex();
+        for (int i = 0; i < n; i++) {
+            Bar bar = series.getBar(begin + i);
+            times[i] = bar.getEndTime().toInstant().toEpochMilli();
+            open[i] = bar.getOpenPrice().doubleValue();
+            high[i] = bar.getHighPrice().doubleValue();
+            low[i] = bar.getLowPrice().doubleValue();
+            close[i] = bar.getClosePrice().doubleValue();
+            volume[i] = bar.getVolume().doubleValue();
+        }
+        return new BarColumns(times, open, high, low, close, volume);
+    }
+
+    public int size() {
+        return close.length;
+    }
+}
@@ -44,8 +44,24 @@ public interface DataProvider {
         }
     }
 
+    /**
+     * 获取历史K线。失败时返回空序列，需要区分失败原因时使用 {@link #fetchHistoricalData}。
+     */
     BarSeries getHistoricalData(Ticker ticker, LocalDate startDate, LocalDate endDate, TimeFrame timeFrame);
 
+    /**
+     * 【新增】获取历史K线，并以类型化的结果报告失败原因。
+     * 默认实现基于 {@link #getHistoricalData}，只能把空序列报告为 {@link FetchResult.Reason#NO_DATA}。
+     */
+    default FetchResult<BarSeries> fetchHistoricalData(Ticker ticker, LocalDate startDate, LocalDate endDate, TimeFrame timeFrame) {
+        long started = System.nanoTime();
+        BarSeries series = getHistoricalData(ticker, startDate, endDate, timeFrame);
+        if (series == null || series.isEmpty()) {
+            return FetchResult.failure(FetchResult.Reason.NO_DATA, ticker.symbol() + " 在所选区间内没有数据");
+        }
+        return new FetchResult.Success<>(series, (System.nanoTime() - started) / 1_000_000);
+    }
+
     String getCompanyName(Ticker ticker) throws IOException;
 
     /**
@@ -0,0 +1,84 @@
+package com.twx.platform.data;
+
+/**
+ * 一次数据请求的结果：成功时携带数据，失败时携带失败类型和原因，
+ * 以便调用方区分 "网络暂时不可用"、"代码错误" 和 "该区间确实没有数据"，而不是都当作空序列处理。
+ *
+ * @param <T> 数据类型
+ */
+public sealed interface FetchResult<T> {
+
+    /**
+     * 失败类型
+     */
+    enum Reason {
+        /** 网络异常 (连接失败、重试耗尽等) */
+        NETWORK("网络错误"),
+        /** 请求超时 */
+        TIMEOUT("请求超时"),
+        /** 服务器返回了非 200 状态码 */
+        HTTP_STATUS("服务器错误"),
+        /** 熔断器打开，请求未发出 */
+        CIRCUIT_OPEN("数据源暂时不可用"),
+        /** 股票代码或参数无效 */
+        BAD_REQUEST("参数错误"),
+        /** 请求成功但区间内没有数据 */
+        NO_DATA("没有数据"),
+        /** 请求被取消 */
+        CANCELLED("已取消");
+
+        private final String displayName;
+
+        Reason(String displayName) {
+            this.displayName = displayName;
+        }
+
+        @Override
+        public String toString() {
+            return displayName;
+        }
+    }
+
+    /**
+     * @param value  数据
+     * @param millis 耗时 (包括重试)
+     */
+    record Success<T>(T value, long millis) implements FetchResult<T> {
+    }
+
+    /**
+     * @param reason  失败类型
+     * @param message 面向用户的说明
+     * @param cause   原始异常，可以为 null
+     */
+    record Failure<T>(Reason reason, String message, Throwable cause) implements FetchResult<T> {
+
+        /**
+         * 暂时性的失败，稍后重试可能成功
+         */
+        public boolean isTransient() {
+            return reason == Reason.NETWORK || reason == Reason.TIMEOUT
+                    || reason == Reason.HTTP_STATUS || reason == Reason.CIRCUIT_OPEN;
+        }
+
+        @Override
+        public String toString() {
+            return reason + ": " + message;
+        }
+    }
+
+    static <T> FetchResult<T> failure(Reason reason, String message) {
+        return new Failure<>(reason, message, null);
+    }
+
+    default boolean isSuccess() {
+        return this instanceof Success<T>;
+    }
+
+    /**
+     * @return 成功时返回数据，失败时返回 fallback
+     */
+    default T orElse(T fallback) {
+        return this instanceof Success<T> success ? success.value() : fallback;
+    }
+}
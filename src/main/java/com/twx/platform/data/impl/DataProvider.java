@@ -1,7 +1,13 @@
 package com.twx.platform.data.impl;
 
+import com.twx.platform.common.HttpTransport;
+import com.twx.platform.common.RetryPolicy;
 import com.twx.platform.common.Ticker;
 import com.twx.platform.common.TimeFrame;
+import com.twx.platform.data.FetchResult;
+import com.twx.platform.metrics.Counter;
+import com.twx.platform.metrics.MetricsRegistry;
+import com.twx.platform.metrics.Timer;
 import org.jetbrains.annotations.Nullable;
 import org.ta4j.core.BarSeries;
 import org.ta4j.core.BaseBar;
@@ -9,13 +15,12 @@ import org.ta4j.core.BaseBarSeries;
 import org.ta4j.core.num.DoubleNum;
 
 import java.io.*;
-import java.net.HttpURLConnection;
 import java.net.URI;
-import java.net.URL;
 import java.net.URLEncoder;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
+import java.net.http.HttpTimeoutException;
 import java.net.http.HttpResponse;
+import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.LocalDate;
@@ -37,79 +42,131 @@ public class DataProvider implements com.twx.platform.data.DataProvider {
             "\\[\"(?<day>\\d{4}-\\d{2}-\\d{2})\",\"(?<open>[\\d\\.]+)\",\"(?<close>[\\d\\.]+)\",\"(?<high>[\\d\\.]+)\",\"(?<low>[\\d\\.]+)\",\"(?<volume>[\\d\\.]+)\""
     );
 
-    private final HttpClient httpClient;
+    private static final Timer FETCH_TIMER = MetricsRegistry.getInstance().timer("data.fetch", "下载一只股票的K线 (含重试)");
+    private static final Timer PARSE_TIMER = MetricsRegistry.getInstance().timer("data.parse", "解析K线响应");
+    private static final Counter PARSED_BARS = MetricsRegistry.getInstance().counter("data.parse.bars", "解析出的K线条数");
+
+    // 【修改】所有请求都通过共享的 HttpTransport 发送 (连接复用、HTTP/2、gzip 与按主机统计)
+    private final HttpTransport transport;
+    private final RetryPolicy retryPolicy;
 
     public DataProvider() {
-        this.httpClient = HttpClient.newBuilder()
-                .version(HttpClient.Version.HTTP_1_1)
-                .connectTimeout(Duration.ofSeconds(10))
-                .build();
+        this(HttpTransport.getInstance(), RetryPolicy.marketData());
+    }
+
+    /**
+     * @param transport   HTTP 传输层
+     * @param retryPolicy K线请求的重试与对冲策略
+     */
+    public DataProvider(HttpTransport transport, RetryPolicy retryPolicy) {
+        this.transport = transport;
+        this.retryPolicy = retryPolicy;
     }
 
     @Override
     public BarSeries getHistoricalData(Ticker ticker, LocalDate startDate, LocalDate endDate, TimeFrame timeFrame) {
-        // 1. 乱码设置
-        try {
-            System.setOut(new PrintStream(System.out, true, "UTF-8"));
-            System.setErr(new PrintStream(System.err, true, "UTF-8"));
-        } catch (UnsupportedEncodingException e) {
-            e.printStackTrace();
+        FetchResult<BarSeries> result = fetchHistoricalData(ticker, startDate, endDate, timeFrame);
+        if (result instanceof FetchResult.Failure<BarSeries> failure) {
+            System.err.println("获取 " + ticker.symbol() + " 行情失败 (" + failure + ")");
         }
+        return result.orElse(new BaseBarSeries(ticker.symbol()));
+    }
 
-        // 2. 股票代码处理
-        String rawSymbol = ticker.symbol().trim().toLowerCase();
-        if (rawSymbol.contains(".")) rawSymbol = rawSymbol.split("\\.")[0];
-        String symbol = rawSymbol;
-        if (rawSymbol.matches("^\\d+$")) {
-            if (rawSymbol.startsWith("6") || rawSymbol.startsWith("9") || rawSymbol.startsWith("5")) symbol = "sh" + rawSymbol;
-            else symbol = "sz" + rawSymbol;
+    /**
+     * 【修改】按 {@link RetryPolicy} 重试 (带随机抖动的指数退避)，同一主机连续失败时熔断，
+     * 慢请求超过近期 p95 耗时后发送对冲请求；失败时返回具体原因而不是空序列。
+     */
+    @Override
+    public FetchResult<BarSeries> fetchHistoricalData(Ticker ticker, LocalDate startDate, LocalDate endDate, TimeFrame timeFrame) {
+        long timing = FETCH_TIMER.start();
+        FetchResult<BarSeries> result = fetch(ticker, startDate, endDate, timeFrame);
+        FETCH_TIMER.stop(timing);
+        if (result instanceof FetchResult.Failure<BarSeries> failure) {
+            MetricsRegistry.getInstance().counter("data.fetch.failures." + failure.reason().name().toLowerCase(),
+                    "行情请求失败: " + failure.reason()).increment();
         }
+        return result;
+    }
 
-        // 3. 构造 URL
+    private FetchResult<BarSeries> fetch(Ticker ticker, LocalDate startDate, LocalDate endDate, TimeFrame timeFrame) {
+        long started = System.nanoTime();
         // 修正日期范围（防止未来日期导致空数据）
         if (endDate.isAfter(LocalDate.now())) endDate = LocalDate.now();
         if (startDate.isAfter(endDate)) startDate = endDate.minusDays(1);
 
+        HttpRequest request = klineRequest(ticker, startDate, endDate);
+
+        HttpResponse<byte[]> response;
+        try {
+            response = transport.send(request, retryPolicy);
+        } catch (HttpTransport.CircuitOpenException e) {
+            return new FetchResult.Failure<>(FetchResult.Reason.CIRCUIT_OPEN, e.getMessage(), e);
+        } catch (HttpTimeoutException e) {
+            return new FetchResult.Failure<>(FetchResult.Reason.TIMEOUT, "请求行情超时", e);
+        } catch (IOException e) {
+            return new FetchResult.Failure<>(FetchResult.Reason.NETWORK, "请求行情失败: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new FetchResult.Failure<>(FetchResult.Reason.CANCELLED, "请求被取消", e);
+        }
+        String body = HttpTransport.bodyAsString(response, StandardCharsets.UTF_8);
+
+        // 错误检查
+        if (response.statusCode() != 200) {
+            return FetchResult.failure(FetchResult.Reason.HTTP_STATUS, "HTTP错误: " + response.statusCode());
+        }
+
+        // 【关键修改】删除了 body.contains("data:[]") 的检查，因为它会误判！
+        // 只要不是 "param error"，我们就尝试解析
+        if (body.contains("\"msg\":\"param error\"")) {
+            return FetchResult.failure(FetchResult.Reason.BAD_REQUEST, "API参数错误，请检查代码格式: " + apiSymbol(ticker));
+        }
+
+        // 5. 直接进入解析
+        BarSeries series = parseResponseWithRegex(body, ticker.symbol(), startDate, endDate);
+        if (series.isEmpty()) {
+            return FetchResult.failure(FetchResult.Reason.NO_DATA, ticker.symbol() + " 在 " + startDate + " ~ " + endDate + " 之间没有K线数据");
+        }
+        return new FetchResult.Success<>(series, (System.nanoTime() - started) / 1_000_000);
+    }
+
+    /**
+     * 构造腾讯K线接口的请求 (日期范围应已修正)。包内可见，供离线录制行情响应使用。
+     */
+    static HttpRequest klineRequest(Ticker ticker, LocalDate startDate, LocalDate endDate) {
+        // 3. 构造 URL
         DateTimeFormatter apiDateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
         String formattedUrl = String.format(KLINE_API_URL_FORMAT,
-                symbol, "day", startDate.format(apiDateFormatter), endDate.format(apiDateFormatter));
+                apiSymbol(ticker), "day", startDate.format(apiDateFormatter), endDate.format(apiDateFormatter));
 
-        // 4. 发送请求
-        HttpRequest request = HttpRequest.newBuilder()
+        // 4. 构造请求
+        return HttpRequest.newBuilder()
                 .uri(URI.create(formattedUrl))
                 .header("User-Agent", "Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/120.0.0.0 Safari/537.36")
+                .timeout(Duration.ofSeconds(20))
                 .GET()
                 .build();
+    }
 
-        try {
-            HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
-            String body = response.body();
-
-            // 错误检查
-            if (response.statusCode() != 200) {
-                System.err.println("HTTP错误: " + response.statusCode());
-                return new BaseBarSeries(ticker.symbol());
-            }
-
-            // 【关键修改】删除了 body.contains("data:[]") 的检查，因为它会误判！
-            // 只要不是 "param error"，我们就尝试解析
-            if (body.contains("\"msg\":\"param error\"")) {
-                System.err.println("API参数错误，请检查代码格式: " + symbol);
-                return new BaseBarSeries(ticker.symbol());
-            }
-
-            // 5. 直接进入解析
-            return parseResponseWithRegex(body, ticker.symbol(), startDate, endDate);
-
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new BaseBarSeries(ticker.symbol());
+    /**
+     * 接口使用的股票代码：去掉 .SH / .SZ 等后缀，纯数字代码按首位补上 sh / sz 前缀
+     */
+    static String apiSymbol(Ticker ticker) {
+        // 2. 股票代码处理
+        String rawSymbol = ticker.symbol().trim().toLowerCase();
+        if (rawSymbol.contains(".")) rawSymbol = rawSymbol.split("\\.")[0];
+        String symbol = rawSymbol;
+        if (rawSymbol.matches("^\\d+$")) {
+            if (rawSymbol.startsWith("6") || rawSymbol.startsWith("9") || rawSymbol.startsWith("5")) symbol = "sh" + rawSymbol;
+            else symbol = "sz" + rawSymbol;
         }
+        return symbol;
     }
 
     // 4. 解析方法（保持你刚才更新的逻辑，确保字段顺序正确）
-    // 解析腾讯 JSON 数据的正则版本
-    private BarSeries parseResponseWithRegex(String responseBody, String tickerSymbol, LocalDate startDate, LocalDate endDate) {
+    // 解析腾讯 JSON 数据的正则版本 (包内可见，供基准测试在录制的响应上直接调用)
+    static BarSeries parseResponseWithRegex(String responseBody, String tickerSymbol, LocalDate startDate, LocalDate endDate) {
+        long timing = PARSE_TIMER.start();
         BarSeries series = new BaseBarSeries(tickerSymbol, DoubleNum::valueOf);
         Matcher matcher = TENCENT_JSON_PATTERN.matcher(responseBody);
 
@@ -139,7 +196,9 @@ public class DataProvider implements com.twx.platform.data.DataProvider {
             }
         }
 
-        System.out.println("成功解析条数: " + count);
+        // 【修改】解析条数和耗时记入指标，不再每次都打印
+        PARSE_TIMER.stop(timing);
+        PARSED_BARS.add(count);
 
         // 如果一条都没解析出来，再打印警告
         if (count == 0) {
@@ -152,20 +211,27 @@ public class DataProvider implements com.twx.platform.data.DataProvider {
     @Override
     public String getCompanyName(Ticker ticker) throws IOException {
         String urlString = "https://hq.sinajs.cn/list=" + ticker.toString();
-        URL url = new URL(urlString);
-        HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-        conn.setRequestMethod("GET");
-        conn.setRequestProperty("User-Agent", "Mozilla/5.0");
-        conn.setRequestProperty("Referer", "https://finance.sina.com.cn/");
-        try (BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream(), "GBK"))) {
-            String inputLine = in.readLine();
-            if (inputLine != null && !inputLine.contains("\"\"")) {
-                String dataPart = inputLine.substring(inputLine.indexOf("\"") + 1, inputLine.lastIndexOf("\""));
-                String[] parts = dataPart.split(",");
-                return parts[0];
-            } else {
-                throw new IOException("无法找到该股票代码: " + ticker);
-            }
+        HttpRequest request = HttpRequest.newBuilder()
+                .uri(URI.create(urlString))
+                .header("User-Agent", "Mozilla/5.0")
+                .header("Referer", "https://finance.sina.com.cn/")
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+        HttpResponse<byte[]> response;
+        try {
+            response = transport.send(request);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("请求被中断", e);
+        }
+        String inputLine = HttpTransport.bodyAsString(response, Charset.forName("GBK")).lines().findFirst().orElse(null);
+        if (inputLine != null && !inputLine.contains("\"\"")) {
+            String dataPart = inputLine.substring(inputLine.indexOf("\"") + 1, inputLine.lastIndexOf("\""));
+            String[] parts = dataPart.split(",");
+            return parts[0];
+        } else {
+            throw new IOException("无法找到该股票代码: " + ticker);
         }
     }
 
@@ -177,15 +243,15 @@ public class DataProvider implements com.twx.platform.data.DataProvider {
         String encodedKeyword = URLEncoder.encode(keyword, StandardCharsets.UTF_8);
         String formattedUrl = String.format(SUGGEST_API_URL_FORMAT, encodedKeyword);
 
-        HttpRequest request = HttpRequest.newBuilder().uri(URI.create(formattedUrl)).GET().build();
-        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        HttpRequest request = HttpRequest.newBuilder().uri(URI.create(formattedUrl)).timeout(Duration.ofSeconds(10)).GET().build();
+        HttpResponse<byte[]> response = transport.send(request);
 
         List<StockSuggestion> suggestions = new ArrayList<>();
         if (response.statusCode() != 200 || response.body() == null) {
             return suggestions;
         }
 
-        String body = response.body();
+        String body = HttpTransport.bodyAsString(response, StandardCharsets.UTF_8);
         int start = body.indexOf('"');
         int end = body.lastIndexOf('"');
 
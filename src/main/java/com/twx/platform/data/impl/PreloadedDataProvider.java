@@ -0,0 +1,30 @@
+package com.twx.platform.data.impl;
+
+import com.twx.platform.common.Ticker;
+import com.twx.platform.common.TimeFrame;
+import org.ta4j.core.BarSeries;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 把已经下载好的行情交给 BacktestEngine，避免回测时再次下载。
+ * 批量回测中同一只股票的每组参数、界面上先下载后计算的回测都使用它。
+ */
+public record PreloadedDataProvider(BarSeries series) implements com.twx.platform.data.DataProvider {
+
+    @Override
+    public BarSeries getHistoricalData(Ticker ticker, LocalDate startDate, LocalDate endDate, TimeFrame timeFrame) {
+        return series;
+    }
+
+    @Override
+    public String getCompanyName(Ticker ticker) {
+        return ticker.symbol();
+    }
+
+    @Override
+    public List<StockSuggestion> searchStocks(String keyword, MarketType marketType) {
+        return List.of();
+    }
+}
@@ -5,8 +5,12 @@ import com.twx.platform.common.Ticker;
 import com.twx.platform.common.TimeFrame;
 import com.twx.platform.common.TradeSignal;
 import com.twx.platform.data.DataProvider;
+import com.twx.platform.metrics.Counter;
+import com.twx.platform.metrics.MetricsRegistry;
+import com.twx.platform.metrics.Timer;
 import com.twx.platform.portfolio.Portfolio;
 import com.twx.platform.position.PositionSizer;
+import com.twx.platform.risk.RiskManager;
 import com.twx.platform.strategy.Strategy;
 import org.ta4j.core.BarSeries;
 
@@ -19,6 +23,10 @@ import java.util.List;
  * 优化后，引擎还将负责计算策略中用到的技术指标，并将结果返回给UI。
  */
 public class BacktestEngine {
+    private static final Timer LOOP_TIMER = MetricsRegistry.getInstance().timer("engine.loop", "回测主循环 (不含下载)");
+    private static final Counter BARS = MetricsRegistry.getInstance().counter("engine.bars", "回测处理的K线条数");
+    private static final Counter ORDERS = MetricsRegistry.getInstance().counter("engine.orders", "回测成交的订单数");
+
     // ... 构造函数和成员变量保持不变 ...
     private final DataProvider dataProvider;
     private final Ticker ticker;
@@ -36,6 +44,14 @@ public class BacktestEngine {
 
 
     public BacktestResult run(Strategy strategy, Portfolio portfolio, PositionSizer positionSizer) {
+        return run(strategy, portfolio, positionSizer, RiskManager.NONE);
+    }
+
+    /**
+     * 带风控的回测。风控位于策略信号与下单之间，可以拦截信号、强制平仓或缩减下单数量。
+     * @param riskManager 本次回测专用的风控实例 (有状态，不能在多次回测间复用)
+     */
+    public BacktestResult run(Strategy strategy, Portfolio portfolio, PositionSizer positionSizer, RiskManager riskManager) {
         List<Order> executedOrders = new ArrayList<>();
         BarSeries series = dataProvider.getHistoricalData(ticker, startDate, endDate, timeFrame);
 
@@ -46,21 +62,36 @@ public class BacktestEngine {
         }
 
         // 核心循环
+        long timing = LOOP_TIMER.start();
         for (int i = 0; i < series.getBarCount(); i++) {
+            double price = series.getBar(i).getClosePrice().doubleValue();
+            positionSizer.onBar(series.getBar(i));
             TradeSignal signal = strategy.generateSignal(i, series, portfolio);
+            RiskManager.RiskDecision decision = riskManager.review(ticker, signal, price, portfolio);
+            signal = decision.signal();
 
             if (signal != TradeSignal.HOLD) {
-                double price = series.getBar(i).getClosePrice().doubleValue();
-                double quantity = positionSizer.calculateQuantity(price, portfolio);
+                double quantity = decision.quantity() > 0
+                        ? decision.quantity()
+                        : riskManager.limitQuantity(ticker, signal, positionSizer.calculateQuantity(signal, price, portfolio), price, portfolio);
                 if (quantity > 0) {
                     Order order = new Order(ticker, signal, quantity, price, series.getBar(i).getEndTime());
                     boolean success = portfolio.processOrder(order);
-                    if(success)executedOrders.add(order);
+                    if (success) {
+                        executedOrders.add(order);
+                        riskManager.onOrderExecuted(order);
+                        positionSizer.onOrderExecuted(order);
+                    }
                 }
             }
-            portfolio.updateValue(ticker, series.getBar(i).getClosePrice().doubleValue(), series, i);
+            portfolio.updateValue(ticker, price, series, i);
+            riskManager.onValueUpdated(portfolio.getTotalValue());
         }
 
+        LOOP_TIMER.stop(timing);
+        BARS.add(series.getBarCount());
+        ORDERS.add(executedOrders.size());
+
         // --- 移除所有指标计算代码 ---
         // UI相关的计算逻辑已经移动到UIController中
 
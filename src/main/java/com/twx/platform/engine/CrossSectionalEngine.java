@@ -0,0 +1,225 @@
+package com.twx.platform.engine;
+
+import com.twx.platform.common.Order;
+import com.twx.platform.common.Ticker;
+import com.twx.platform.common.TradeSignal;
+import com.twx.platform.strategy.factor.Factor;
+import com.twx.platform.universe.TopNSelector;
+import com.twx.platform.universe.UniversePanel;
+
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * 横截面排序回测引擎。
+ * 每隔 rebalancePeriod 个交易日，按因子值对整个股票池排序，等权持有排名前 topN 的股票
+ * (动量选最高，均值回归/低波动选最低)，其余时间按收盘价逐日估值。
+ * <ol>
+ *     <li>因子计算：每只股票独立计算，使用并行流分摊到所有 CPU 核心。</li>
+ *     <li>排序：调仓日只做部分选择 (quickselect)，不对整个股票池全量排序。</li>
+ *     <li>估值：每日只遍历当前持仓，停牌 (无K线) 的股票沿用最近一次收盘价。</li>
+ * </ol>
+ * 成交价为调仓日收盘价，数量向下取整到整股，佣金按成交金额比例收取。
+ */
+public class CrossSectionalEngine {
+
+    /**
+     * 横截面策略参数
+     *
+     * @param topN            持仓股票数量
+     * @param rebalancePeriod 调仓间隔 (交易日)
+     * @param selectHighest   true 选因子值最高的，false 选最低的
+     * @param initialCash     初始资金
+     * @param commissionRate  佣金费率
+     */
+    public record Config(int topN, int rebalancePeriod, boolean selectHighest, double initialCash, double commissionRate) {
+        public Config {
+            if (topN <= 0 || rebalancePeriod <= 0) {
+                throw new IllegalArgumentException("持仓数量和调仓间隔必须为正整数");
+            }
+            if (initialCash <= 0 || commissionRate < 0) {
+                throw new IllegalArgumentException("初始资金或佣金费率无效");
+            }
+        }
+    }
+
+    /**
+     * 一次调仓的记录
+     *
+     * @param date    调仓日
+     * @param tickers 调仓后持有的股票，按因子排名先后排列
+     * @param scores  对应的因子值
+     */
+    public record Rebalance(ZonedDateTime date, List<Ticker> tickers, double[] scores) {
+    }
+
+    private final UniversePanel panel;
+    private final ZoneId zone;
+
+    public CrossSectionalEngine(UniversePanel panel) {
+        this(panel, ZoneId.systemDefault());
+    }
+
+    public CrossSectionalEngine(UniversePanel panel, ZoneId zone) {
+        this.panel = panel;
+        this.zone = zone;
+    }
+
+    /**
+     * 并行计算所有股票的因子值，并对齐到共享日历上。
+     * @return factor[ticker][date]，缺失处为 NaN
+     */
+    public double[][] computeFactorMatrix(Factor factor) {
+        double[][] matrix = new double[panel.tickerCount()][];
+        IntStream.range(0, panel.tickerCount()).parallel()
+                .forEach(t -> matrix[t] = panel.align(t, factor.compute(panel.columns(t))));
+        return matrix;
+    }
+
+    public CrossSectionalResult run(Factor factor, Config config) {
+        return run(factor.getName(), computeFactorMatrix(factor), config);
+    }
+
+    /**
+     * 使用预先算好的因子矩阵回测，例如从 FactorStore 读取的因子。
+     * @param factorName 因子名称 (仅用于展示)
+     * @param scores     factor[ticker][date]，股票顺序和日历必须与面板一致，缺失处为 NaN
+     */
+    public CrossSectionalResult run(String factorName, double[][] scores, Config config) {
+        int tickerCount = panel.tickerCount();
+        int dateCount = panel.dateCount();
+        long[] dates = panel.dates();
+        if (scores.length != tickerCount) {
+            throw new IllegalArgumentException("因子矩阵的股票数量与面板不一致");
+        }
+        double[][] closes = new double[tickerCount][];
+        IntStream.range(0, tickerCount).parallel()
+                .forEach(t -> closes[t] = panel.align(t, panel.columns(t).close()));
+
+        double cash = config.initialCash();
+        double[] quantity = new double[tickerCount];
+        double[] lastPrice = new double[tickerCount];
+        int[] held = new int[0];
+        double[] equity = new double[dateCount];
+        List<Order> orders = new ArrayList<>();
+        List<Rebalance> rebalances = new ArrayList<>();
+
+        double[] candidateScores = new double[tickerCount];
+        int[] candidateIds = new int[tickerCount];
+
+        for (int d = 0; d < dateCount; d++) {
+            for (int t : held) {
+                double price = closes[t][d];
+                if (!Double.isNaN(price)) {
+                    lastPrice[t] = price;
+                }
+            }
+
+            if (d % config.rebalancePeriod() == 0) {
+                // 1. 收集当日有行情且因子有效的候选
+                int count = 0;
+                for (int t = 0; t < tickerCount; t++) {
+                    double score = scores[t][d];
+                    if (!Double.isNaN(score) && !Double.isNaN(closes[t][d])) {
+                        candidateScores[count] = score;
+                        candidateIds[count] = t;
+                        count++;
+                    }
+                }
+                if (count > 0) {
+                    // 2. 部分选择前 N 名
+                    int selected = TopNSelector.select(candidateScores, candidateIds, count, config.topN(), config.selectHighest());
+                    int[] target = new int[selected];
+                    System.arraycopy(candidateIds, 0, target, 0, selected);
+                    ZonedDateTime time = Instant.ofEpochMilli(dates[d]).atZone(zone);
+
+                    // 3. 先卖出不在目标中的持仓，再按等权重调整目标持仓
+                    boolean[] isTarget = new boolean[tickerCount];
+                    for (int t : target) {
+                        isTarget[t] = true;
+                    }
+                    for (int t : held) {
+                        if (!isTarget[t] && quantity[t] > 0 && !Double.isNaN(closes[t][d])) {
+                            cash += trade(orders, t, TradeSignal.SELL, quantity[t], closes[t][d], time, config.commissionRate());
+                            quantity[t] = 0;
+                        }
+                    }
+                    double value = cash;
+                    for (int t : held) {
+                        value += quantity[t] * lastPrice[t];
+                    }
+                    double targetValue = value / selected;
+                    for (int t : target) {
+                        double price = closes[t][d];
+                        lastPrice[t] = price;
+                        double desired = Math.floor(targetValue / (price * (1 + config.commissionRate())));
+                        double diff = desired - quantity[t];
+                        if (diff < 0) {
+                            cash += trade(orders, t, TradeSignal.SELL, -diff, price, time, config.commissionRate());
+                            quantity[t] = desired;
+                        }
+                    }
+                    for (int t : target) {
+                        double price = closes[t][d];
+                        double desired = Math.floor(targetValue / (price * (1 + config.commissionRate())));
+                        double diff = Math.min(desired - quantity[t], Math.floor(cash / (price * (1 + config.commissionRate()))));
+                        if (diff > 0) {
+                            cash += trade(orders, t, TradeSignal.BUY, diff, price, time, config.commissionRate());
+                            quantity[t] += diff;
+                        }
+                    }
+                    // 保留仍有持仓但本日停牌、无法卖出的股票
+                    held = mergeHeld(target, held, quantity);
+                    List<Ticker> tickers = new ArrayList<>(selected);
+                    double[] selectedScores = new double[selected];
+                    for (int i = 0; i < selected; i++) {
+                        tickers.add(panel.tickers().get(target[i]));
+                        selectedScores[i] = candidateScores[i];
+                    }
+                    rebalances.add(new Rebalance(time, tickers, selectedScores));
+                }
+            }
+
+            double value = cash;
+            for (int t : held) {
+                value += quantity[t] * lastPrice[t];
+            }
+            equity[d] = value;
+        }
+        return new CrossSectionalResult(factorName, config, dates, equity, orders, rebalances);
+    }
+
+    /**
+     * 记录一笔成交，返回现金变动 (买入为负，卖出为正)
+     */
+    private double trade(List<Order> orders, int t, TradeSignal signal, double quantity, double price,
+                         ZonedDateTime time, double commissionRate) {
+        orders.add(new Order(panel.tickers().get(t), signal, quantity, price, time));
+        double gross = quantity * price;
+        double commission = gross * commissionRate;
+        return signal == TradeSignal.BUY ? -(gross + commission) : gross - commission;
+    }
+
+    private static int[] mergeHeld(int[] target, int[] previous, double[] quantity) {
+        int[] merged = new int[target.length + previous.length];
+        int n = 0;
+        for (int t : target) {
+            merged[n++] = t;
+        }
+        outer:
+        for (int t : previous) {
+            if (quantity[t] <= 0) continue;
+            for (int i = 0; i < target.length; i++) {
+                if (target[i] == t) continue outer;
+            }
+            merged[n++] = t;
+        }
+        int[] result = new int[n];
+        System.arraycopy(merged, 0, result, 0, n);
+        return result;
+    }
+}
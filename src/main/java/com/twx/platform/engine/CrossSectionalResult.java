@@ -0,0 +1,62 @@
+package com.twx.platform.engine;
+
+import com.twx.platform.common.Order;
+
+import java.util.List;
+
+/**
+ * 横截面回测的结果。
+ *
+ * @param factorName 使用的因子名称
+ * @param config     回测参数
+ * @param dates      共享交易日历 (毫秒时间戳)
+ * @param equity     每个交易日收盘后的组合总值
+ * @param orders     所有成交记录
+ * @param rebalances 每次调仓的持仓明细
+ */
+public record CrossSectionalResult(String factorName, CrossSectionalEngine.Config config, long[] dates, double[] equity,
+                                   List<Order> orders, List<CrossSectionalEngine.Rebalance> rebalances) {
+
+    public double finalValue() {
+        return equity.length == 0 ? config.initialCash() : equity[equity.length - 1];
+    }
+
+    public double totalReturn() {
+        return finalValue() / config.initialCash() - 1;
+    }
+
+    /**
+     * 按每年 252 个交易日折算的年化收益率
+     */
+    public double annualizedReturn() {
+        if (equity.length < 2) {
+            return 0;
+        }
+        return Math.pow(finalValue() / config.initialCash(), 252.0 / equity.length) - 1;
+    }
+
+    public double maxDrawdown() {
+        double peak = config.initialCash();
+        double maxDrawdown = 0;
+        for (double value : equity) {
+            peak = Math.max(peak, value);
+            maxDrawdown = Math.max(maxDrawdown, (peak - value) / peak);
+        }
+        return maxDrawdown;
+    }
+
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append("## 横截面策略回测\n");
+        summary.append(String.format("因子: %s (%s %d 只, 每 %d 个交易日调仓)\n", factorName,
+                config.selectHighest() ? "最高" : "最低", config.topN(), config.rebalancePeriod()));
+        summary.append(String.format("交易日数: %d\n", dates.length));
+        summary.append(String.format("调仓次数: %d\n", rebalances.size()));
+        summary.append(String.format("成交笔数: %d\n", orders.size()));
+        summary.append(String.format("最终总值: %,.2f\n", finalValue()));
+        summary.append(String.format("总收益率: %.2f%%\n", totalReturn() * 100));
+        summary.append(String.format("年化收益率: %.2f%%\n", annualizedReturn() * 100));
+        summary.append(String.format("最大回撤: %.2f%%\n", maxDrawdown() * 100));
+        return summary.toString();
+    }
+}
@@ -0,0 +1,42 @@
+package com.twx.platform.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 只增不减的计数器，多线程同时累加时没有竞争 (LongAdder)。
+ */
+public final class Counter extends Metric {
+
+    private final LongAdder count = new LongAdder();
+
+    Counter(MetricsRegistry registry, String name, String description) {
+        super(registry, name, description);
+    }
+
+    public void increment() {
+        if (registry.isEnabled()) {
+            count.increment();
+        }
+    }
+
+    public void add(long delta) {
+        if (registry.isEnabled()) {
+            count.add(delta);
+        }
+    }
+
+    @Override
+    public Kind kind() {
+        return Kind.COUNTER;
+    }
+
+    @Override
+    public MetricSnapshot snapshot() {
+        return new MetricSnapshot(getName(), Kind.COUNTER, getDescription(), count.sum(), 0, 0, 0, 0, 0, 0);
+    }
+
+    @Override
+    public void reset() {
+        count.reset();
+    }
+}
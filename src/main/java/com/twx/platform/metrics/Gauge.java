@@ -0,0 +1,45 @@
+package com.twx.platform.metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * 仪表：读取时才向数据源取值 (如线程池队列长度、进行中的请求数)，记录路径上没有任何开销。
+ */
+public final class Gauge extends Metric {
+
+    private final DoubleSupplier source;
+
+    Gauge(MetricsRegistry registry, String name, String description, DoubleSupplier source) {
+        super(registry, name, description);
+        if (source == null) {
+            throw new IllegalArgumentException("仪表 " + name + " 的数据源不能为空");
+        }
+        this.source = source;
+    }
+
+    /**
+     * @return 当前值，数据源出错时为 NaN
+     */
+    public double read() {
+        try {
+            return source.getAsDouble();
+        } catch (RuntimeException e) {
+            return Double.NaN;
+        }
+    }
+
+    @Override
+    public Kind kind() {
+        return Kind.GAUGE;
+    }
+
+    @Override
+    public MetricSnapshot snapshot() {
+        return new MetricSnapshot(getName(), Kind.GAUGE, getDescription(), 0, read(), 0, 0, 0, 0, 0);
+    }
+
+    @Override
+    public void reset() {
+        // 仪表的值由数据源决定
+    }
+}
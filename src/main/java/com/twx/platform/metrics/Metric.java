@@ -0,0 +1,77 @@
+package com.twx.platform.metrics;
+
+/**
+ * 所有指标的基类，负责 JMX 属性，具体的记录方式由子类实现。
+ */
+public abstract class Metric implements MetricMXBean {
+
+    public enum Kind {
+        COUNTER, TIMER, GAUGE
+    }
+
+    protected final MetricsRegistry registry;
+    private final String name;
+    private final String description;
+
+    protected Metric(MetricsRegistry registry, String name, String description) {
+        this.registry = registry;
+        this.name = name;
+        this.description = description == null ? "" : description;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public String getKind() {
+        return kind().name();
+    }
+
+    public abstract Kind kind();
+
+    /**
+     * @return 当前值
+     */
+    public abstract MetricSnapshot snapshot();
+
+    @Override
+    public long getCount() {
+        return snapshot().count();
+    }
+
+    @Override
+    public double getValue() {
+        return snapshot().value();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return snapshot().meanMillis();
+    }
+
+    @Override
+    public double getP50Millis() {
+        return snapshot().p50Millis();
+    }
+
+    @Override
+    public double getP95Millis() {
+        return snapshot().p95Millis();
+    }
+
+    @Override
+    public double getP99Millis() {
+        return snapshot().p99Millis();
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return snapshot().maxMillis();
+    }
+}
@@ -0,0 +1,28 @@
+package com.twx.platform.metrics;
+
+/**
+ * 单个指标在 JMX 中的视图 (JConsole / VisualVM 的 MBeans 页签)。
+ * 属性含义见 {@link MetricSnapshot}，不适用于该指标类型的属性为 0。
+ */
+public interface MetricMXBean {
+
+    String getKind();
+
+    String getDescription();
+
+    long getCount();
+
+    double getValue();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP95Millis();
+
+    double getP99Millis();
+
+    double getMaxMillis();
+
+    void reset();
+}
@@ -0,0 +1,31 @@
+package com.twx.platform.metrics;
+
+/**
+ * 一个指标在某一时刻的值。不适用于该类型的字段为 0。
+ *
+ * @param name        指标名称
+ * @param kind        指标类型
+ * @param description 说明
+ * @param count       计数器的值 / 计时器的记录次数
+ * @param value       仪表的当前值 / 计时器的累计耗时 (毫秒)
+ * @param meanMillis  计时器的平均耗时
+ * @param p50Millis   计时器耗时的中位数 (直方图估计，相对误差约 12%)
+ * @param p95Millis   计时器耗时的 p95
+ * @param p99Millis   计时器耗时的 p99
+ * @param maxMillis   计时器的最长耗时
+ */
+public record MetricSnapshot(String name, Metric.Kind kind, String description, long count, double value,
+                             double meanMillis, double p50Millis, double p95Millis, double p99Millis, double maxMillis) {
+
+    /**
+     * 单行文本，用于控制台输出
+     */
+    public String format() {
+        return switch (kind) {
+            case COUNTER -> String.format("%-28s %d", name, count);
+            case GAUGE -> String.format("%-28s %.2f", name, value);
+            case TIMER -> String.format("%-28s n=%d 平均 %.2f ms, p50 %.2f ms, p95 %.2f ms, p99 %.2f ms, 最长 %.2f ms",
+                    name, count, meanMillis, p50Millis, p95Millis, p99Millis, maxMillis);
+        };
+    }
+}
@@ -0,0 +1,169 @@
+package com.twx.platform.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * 进程内的轻量指标注册表：计数器 ({@link Counter})、带直方图的计时器 ({@link Timer}) 和仪表 ({@link Gauge})。
+ * <ul>
+ *     <li>指标按名称注册，同名重复注册返回同一个实例，调用方通常把它保存在 static final 字段中</li>
+ *     <li>关闭时 (默认，系统属性 quant.metrics=true 可在启动时打开) 每次记录只有一次 volatile 读，不读时钟也不分配对象</li>
+ *     <li>每个指标注册为一个 JMX MXBean (com.twx.platform:type=Metric,name=...)，注册表本身可以通过
+ *     com.twx.platform:type=Metrics 在 JConsole 中开关和清零。为了不在启动路径上初始化 JMX，
+ *     这些 MXBean 在第一次打开统计 (包括 quant.metrics=true 启动) 或打开诊断面板时才注册，见 {@link #exportToJmx()}</li>
+ *     <li>{@link #snapshot()} 供界面的诊断面板和批量回测的统计输出使用</li>
+ * </ul>
+ * 使用单例模式，与 {@link com.twx.platform.common.ConfigurationManager} 相同。
+ */
+public class MetricsRegistry implements MetricsRegistryMXBean {
+
+    private static final String JMX_DOMAIN = "com.twx.platform";
+    private static final MetricsRegistry INSTANCE = new MetricsRegistry(Boolean.getBoolean("quant.metrics"));
+
+    private final Map<String, Metric> metrics = new ConcurrentHashMap<>();
+    private volatile boolean enabled;
+    // 是否已经注册到 JMX，只在 synchronized 方法中修改
+    private boolean exported;
+
+    private MetricsRegistry(boolean enabled) {
+        this.enabled = enabled;
+        if (enabled) {
+            exportToJmx();
+        }
+    }
+
+    /**
+     * 获取全局唯一的 MetricsRegistry 实例.
+     * @return MetricsRegistry 实例
+     */
+    public static MetricsRegistry getInstance() {
+        return INSTANCE;
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 打开或关闭记录。关闭期间计数器和计时器的调用直接返回，已有的数据保留。
+     */
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+        if (enabled) {
+            exportToJmx();
+        }
+    }
+
+    /**
+     * 把注册表和已有的全部指标注册到平台 MBeanServer，之后新建的指标在创建时注册。重复调用没有作用。
+     * 统计关闭时 (默认) 不会自动调用，启动时不需要初始化 JMX。
+     */
+    public synchronized void exportToJmx() {
+        if (exported) {
+            return;
+        }
+        exported = true;
+        register(objectName("type=Metrics"), this);
+        metrics.values().forEach(this::registerMetric);
+    }
+
+    /**
+     * 清空所有计数器和计时器 (仪表的值由其数据源决定，不受影响)
+     */
+    @Override
+    public void reset() {
+        metrics.values().forEach(Metric::reset);
+    }
+
+    public Counter counter(String name, String description) {
+        return getOrCreate(name, Counter.class, () -> new Counter(this, name, description));
+    }
+
+    public Timer timer(String name, String description) {
+        return getOrCreate(name, Timer.class, () -> new Timer(this, name, description));
+    }
+
+    /**
+     * 注册一个仪表。仪表只在读取时 (诊断面板刷新、JMX 查询) 调用数据源，记录路径上没有开销。
+     *
+     * @param source 当前值，应当线程安全且足够快
+     */
+    public Gauge gauge(String name, String description, DoubleSupplier source) {
+        return getOrCreate(name, Gauge.class, () -> new Gauge(this, name, description, source));
+    }
+
+    /**
+     * 所有指标的当前值，按名称排序
+     */
+    public List<MetricSnapshot> snapshot() {
+        List<MetricSnapshot> snapshots = new ArrayList<>(metrics.size());
+        for (Metric metric : metrics.values()) {
+            snapshots.add(metric.snapshot());
+        }
+        snapshots.sort(Comparator.comparing(MetricSnapshot::name));
+        return snapshots;
+    }
+
+    private <M extends Metric> M getOrCreate(String name, Class<M> type, Supplier<M> factory) {
+        if (name == null || name.isBlank()) {
+            throw new IllegalArgumentException("指标名称不能为空");
+        }
+        Metric metric = metrics.get(name);
+        if (metric == null) {
+            M created = factory.get();
+            metric = metrics.putIfAbsent(name, created);
+            if (metric == null) {
+                metric = created;
+                registerIfExported(created);
+            }
+        }
+        if (!type.isInstance(metric)) {
+            throw new IllegalArgumentException("指标 " + name + " 已注册为 " + metric.getKind() + "，不能再注册为其他类型");
+        }
+        return type.cast(metric);
+    }
+
+    private synchronized void registerIfExported(Metric metric) {
+        if (exported) {
+            registerMetric(metric);
+        }
+    }
+
+    private void registerMetric(Metric metric) {
+        register(objectName("type=Metric,name=" + ObjectName.quote(metric.getName())), metric);
+    }
+
+    private static ObjectName objectName(String properties) {
+        try {
+            return new ObjectName(JMX_DOMAIN + ":" + properties);
+        } catch (JMException e) {
+            throw new IllegalArgumentException("无效的 JMX 名称: " + properties, e);
+        }
+    }
+
+    /**
+     * JMX 不可用 (例如被安全策略禁止) 或名称已被占用时只打印警告，指标本身照常工作
+     */
+    private static void register(ObjectName name, Object bean) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (!server.isRegistered(name)) {
+                server.registerMBean(bean, name);
+            }
+        } catch (JMException | RuntimeException | LinkageError e) {
+            System.err.println("注册 JMX 指标 " + name + " 失败: " + e.getMessage());
+        }
+    }
+}
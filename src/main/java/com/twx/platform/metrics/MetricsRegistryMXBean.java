@@ -0,0 +1,13 @@
+package com.twx.platform.metrics;
+
+/**
+ * 注册表在 JMX 中的视图 (com.twx.platform:type=Metrics)，可以在 JConsole 中开关记录和清零。
+ */
+public interface MetricsRegistryMXBean {
+
+    boolean isEnabled();
+
+    void setEnabled(boolean enabled);
+
+    void reset();
+}
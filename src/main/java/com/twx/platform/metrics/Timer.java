@@ -0,0 +1,148 @@
+package com.twx.platform.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 计时器：记录次数、累计耗时、最长耗时，以及一个对数直方图用来估计分位数。
+ * <p>
+ * 直方图把每个 2 的幂区间再分成 4 格，共 {@value #BUCKETS} 格覆盖 0 ~ 2^63 纳秒，
+ * 固定占用约 2KB，记录一次只是几次原子加法；分位数取所在格的中点，相对误差不超过约 12%。
+ * <p>
+ * 用法 (注册表关闭时 start() 返回 0，stop(0) 直接返回，不读时钟)：
+ * <pre>{@code
+ * long started = TIMER.start();
+ * try {
+ *     ...
+ * } finally {
+ *     TIMER.stop(started);
+ * }
+ * }</pre>
+ */
+public final class Timer extends Metric {
+
+    private static final int SUB_BUCKET_BITS = 2;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final AtomicLong maxNanos = new AtomicLong();
+    private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS);
+
+    Timer(MetricsRegistry registry, String name, String description) {
+        super(registry, name, description);
+    }
+
+    /**
+     * @return 开始时间；注册表关闭时返回 0
+     */
+    public long start() {
+        return registry.isEnabled() ? System.nanoTime() : 0L;
+    }
+
+    /**
+     * 记录从 {@link #start()} 到现在的耗时
+     *
+     * @param startNanos start() 的返回值，为 0 时忽略
+     */
+    public void stop(long startNanos) {
+        if (startNanos != 0L) {
+            record(System.nanoTime() - startNanos);
+        }
+    }
+
+    /**
+     * 直接记录一次耗时 (例如已经由其他代码测得的耗时)
+     */
+    public void record(long nanos) {
+        if (!registry.isEnabled()) {
+            return;
+        }
+        long value = Math.max(0L, nanos);
+        count.increment();
+        totalNanos.add(value);
+        buckets.incrementAndGet(bucketOf(value));
+        long max = maxNanos.get();
+        while (value > max && !maxNanos.compareAndSet(max, value)) {
+            max = maxNanos.get();
+        }
+    }
+
+    @Override
+    public Kind kind() {
+        return Kind.TIMER;
+    }
+
+    @Override
+    public MetricSnapshot snapshot() {
+        long[] histogram = new long[BUCKETS];
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            histogram[i] = buckets.get(i);
+            total += histogram[i];
+        }
+        long n = count.sum();
+        long max = maxNanos.get();
+        double mean = n == 0 ? 0 : totalNanos.sum() / (double) n;
+        return new MetricSnapshot(getName(), Kind.TIMER, getDescription(), n, toMillis(totalNanos.sum()), toMillis(mean),
+                toMillis(percentile(histogram, total, 0.50, max)),
+                toMillis(percentile(histogram, total, 0.95, max)),
+                toMillis(percentile(histogram, total, 0.99, max)),
+                toMillis(max));
+    }
+
+    @Override
+    public void reset() {
+        count.reset();
+        totalNanos.reset();
+        maxNanos.set(0);
+        for (int i = 0; i < BUCKETS; i++) {
+            buckets.set(i, 0);
+        }
+    }
+
+    static int bucketOf(long nanos) {
+        if (nanos < SUB_BUCKETS) {
+            return (int) nanos;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+        int sub = (int) (nanos >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1);
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + sub;
+    }
+
+    /**
+     * @return 格的中点 (纳秒)
+     */
+    static double midpointOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int sub = bucket % SUB_BUCKETS;
+        long width = 1L << (exponent - SUB_BUCKET_BITS);
+        long lower = (SUB_BUCKETS + (long) sub) << (exponent - SUB_BUCKET_BITS);
+        return lower + width / 2.0;
+    }
+
+    private static double percentile(long[] histogram, long total, double quantile, long max) {
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < histogram.length; i++) {
+            seen += histogram[i];
+            if (seen >= rank) {
+                // 最后一格的中点可能超过实际最大值
+                return Math.min(midpointOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    private static double toMillis(double nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -1,10 +1,17 @@
 package com.twx.platform.position;
 
+import com.twx.platform.common.Order;
+import com.twx.platform.common.TradeSignal;
 import com.twx.platform.portfolio.Portfolio;
+import org.ta4j.core.Bar;
 
 /**
  * 仓位管理器接口。
  * 负责根据当前情况计算应该交易的数量。
+ * <p>
+ * 【新增】回测引擎会在每根K线计算数量之前调用 onBar，并在订单成交后调用 onOrderExecuted，
+ * 需要滚动统计量 (ATR、收益率方差、历史胜率等) 的实现可以借此增量维护 O(1) 的内部状态，
+ * 而不必每次都回看整个窗口。这类实现是有状态的，每次回测都应创建新实例。
  */
 public interface PositionSizer {
 
@@ -15,4 +22,32 @@ public interface PositionSizer {
      * @return 应该交易的数量
      */
     double calculateQuantity(double price, Portfolio portfolio);
-}
\ No newline at end of file
+
+    /**
+     * 【新增】按信号方向计算交易数量，回测引擎调用的是这个方法。
+     * 默认与方向无关，直接调用 {@link #calculateQuantity(double, Portfolio)}；
+     * 自己跟踪持仓的实现应在卖出时返回实际持有的数量，否则按现金算出的数量可能超过持仓而被组合拒绝。
+     * @param signal    BUY 或 SELL
+     * @param price     当前价格
+     * @param portfolio 投资组合
+     * @return 应该交易的数量
+     */
+    default double calculateQuantity(TradeSignal signal, double price, Portfolio portfolio) {
+        return calculateQuantity(price, portfolio);
+    }
+
+    /**
+     * 【新增】接收一根新K线 (在同一根K线的 calculateQuantity 之前调用)。
+     * 默认不做任何事。
+     * @param bar 最新的K线
+     */
+    default void onBar(Bar bar) {
+    }
+
+    /**
+     * 【新增】订单成交后的回调。默认不做任何事。
+     * @param order 已成交的订单
+     */
+    default void onOrderExecuted(Order order) {
+    }
+}
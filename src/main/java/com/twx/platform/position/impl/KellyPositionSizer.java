@@ -0,0 +1,157 @@
+package com.twx.platform.position.impl;
+
+import com.twx.platform.common.Order;
+import com.twx.platform.common.TradeSignal;
+import com.twx.platform.portfolio.Portfolio;
+import com.twx.platform.position.PositionSizer;
+
+/**
+ * 分数凯利仓位管理器。
+ * 根据最近 lookbackTrades 笔已平仓交易的胜率 W 和平均盈亏比 R 计算凯利比例
+ * f* = W - (1 - W) / R，实际投入 = 组合总值 × f* × kellyFraction，并限制在 maxFraction 以内。
+ * <p>
+ * 已平仓交易的收益率保存在环形缓冲区中，同时维护盈利/亏损的计数与累计值，
+ * 每次成交后 O(1) 更新，计算数量时无需回看历史。
+ * 已平仓交易不足 minTrades 笔时，使用 bootstrapFraction 作为投入比例。
+ * <p>
+ * 卖出时全部平掉当前持仓；分几次卖出时，持仓归零才算一笔交易，收益率按成交量加权的平均卖出价计算。
+ */
+public class KellyPositionSizer implements PositionSizer {
+
+    private final double kellyFraction;
+    private final double maxFraction;
+    private final double bootstrapFraction;
+    private final int minTrades;
+
+    private final double[] tradeReturns;
+    private int next;
+    private int count;
+    private int wins;
+    private double winSum;
+    private double lossSum;
+
+    // 当前持仓，用于在平仓时计算这笔交易的收益率
+    private double positionQuantity;
+    private double averageCost;
+    // 本笔交易已卖出的数量和金额 (分批卖出时累计)
+    private double exitQuantity;
+    private double exitValue;
+
+    /**
+     * @param kellyFraction     凯利比例的缩放系数 (e.g., 0.5 表示半凯利)
+     * @param lookbackTrades    统计最近多少笔已平仓交易
+     * @param minTrades         至少需要多少笔交易才使用凯利公式
+     * @param bootstrapFraction 交易数不足时使用的投入比例
+     * @param maxFraction       单次投入占组合总值的上限
+     */
+    public KellyPositionSizer(double kellyFraction, int lookbackTrades, int minTrades, double bootstrapFraction, double maxFraction) {
+        if (kellyFraction <= 0 || kellyFraction > 1) {
+            throw new IllegalArgumentException("凯利缩放系数必须在 (0, 1] 之间");
+        }
+        if (lookbackTrades <= 0 || minTrades <= 0 || minTrades > lookbackTrades) {
+            throw new IllegalArgumentException("交易统计窗口参数无效");
+        }
+        if (bootstrapFraction < 0 || bootstrapFraction > 1 || maxFraction <= 0 || maxFraction > 1) {
+            throw new IllegalArgumentException("投入比例必须在 [0, 1] 之间");
+        }
+        this.kellyFraction = kellyFraction;
+        this.maxFraction = maxFraction;
+        this.bootstrapFraction = bootstrapFraction;
+        this.minTrades = minTrades;
+        this.tradeReturns = new double[lookbackTrades];
+    }
+
+    /**
+     * 使用常见默认值：最近 30 笔交易，至少 10 笔，交易数不足时投入 10%，上限 100%。
+     */
+    public KellyPositionSizer(double kellyFraction) {
+        this(kellyFraction, 30, 10, 0.1, 1.0);
+    }
+
+    @Override
+    public double calculateQuantity(double price, Portfolio portfolio) {
+        return calculateQuantity(TradeSignal.BUY, price, portfolio);
+    }
+
+    @Override
+    public double calculateQuantity(TradeSignal signal, double price, Portfolio portfolio) {
+        if (price <= 0) {
+            return 0;
+        }
+        if (signal == TradeSignal.SELL) {
+            return positionQuantity;
+        }
+        double fraction = currentFraction();
+        double quantity = Math.floor(portfolio.getTotalValue() * fraction / price);
+        double affordable = Math.floor(portfolio.getCash() / price);
+        return Math.max(0, Math.min(quantity, affordable));
+    }
+
+    /**
+     * 当前应投入的组合比例
+     */
+    public double currentFraction() {
+        if (count < minTrades) {
+            return bootstrapFraction;
+        }
+        int losses = count - wins;
+        if (wins == 0) {
+            return 0;
+        }
+        if (losses == 0 || lossSum == 0) {
+            return maxFraction;
+        }
+        double winRate = (double) wins / count;
+        double payoffRatio = (winSum / wins) / (lossSum / losses);
+        double kelly = winRate - (1 - winRate) / payoffRatio;
+        return Math.max(0, Math.min(maxFraction, kelly * kellyFraction));
+    }
+
+    @Override
+    public void onOrderExecuted(Order order) {
+        if (order.signal() == TradeSignal.BUY) {
+            double newQuantity = positionQuantity + order.quantity();
+            averageCost = (averageCost * positionQuantity + order.price() * order.quantity()) / newQuantity;
+            positionQuantity = newQuantity;
+        } else if (order.signal() == TradeSignal.SELL && positionQuantity > 0) {
+            double sold = Math.min(order.quantity(), positionQuantity);
+            exitQuantity += sold;
+            exitValue += order.price() * sold;
+            positionQuantity -= sold;
+            if (positionQuantity < 0.0001) {
+                if (averageCost > 0) {
+                    recordTrade(exitValue / exitQuantity / averageCost - 1);
+                }
+                positionQuantity = 0;
+                averageCost = 0;
+                exitQuantity = 0;
+                exitValue = 0;
+            }
+        }
+    }
+
+    private void recordTrade(double tradeReturn) {
+        if (count == tradeReturns.length) {
+            removeFromStats(tradeReturns[next]);
+        } else {
+            count++;
+        }
+        tradeReturns[next] = tradeReturn;
+        next = (next + 1) % tradeReturns.length;
+        if (tradeReturn > 0) {
+            wins++;
+            winSum += tradeReturn;
+        } else {
+            lossSum -= tradeReturn;
+        }
+    }
+
+    private void removeFromStats(double tradeReturn) {
+        if (tradeReturn > 0) {
+            wins--;
+            winSum -= tradeReturn;
+        } else {
+            lossSum += tradeReturn;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.twx.platform.position.impl;
+
+import com.twx.platform.analysis.rolling.IncrementalAtr;
+import com.twx.platform.analysis.rolling.RollingMoments;
+import com.twx.platform.common.Order;
+import com.twx.platform.common.TradeSignal;
+import com.twx.platform.portfolio.Portfolio;
+import com.twx.platform.position.PositionSizer;
+import org.ta4j.core.Bar;
+
+/**
+ * 波动率目标仓位管理器。
+ * 每笔交易承担的风险 = 组合总值 × riskPerTrade，
+ * 每股风险 = multiplier × ATR (或 multiplier × 收益率标准差 × 价格)，
+ * 数量 = 每笔风险 / 每股风险，并且不超过可用现金能买到的数量。
+ * <p>
+ * ATR 和收益率方差都随 onBar 增量更新，每根K线 O(1)。
+ * 数据不足一个周期时返回 0 (不交易)。卖出时与波动率无关，全部平掉根据成交回报跟踪的持仓。
+ */
+public class VolatilityTargetPositionSizer implements PositionSizer {
+
+    /**
+     * 波动率的度量方式
+     */
+    public enum VolatilityMeasure {
+        ATR,
+        STDEV
+    }
+
+    private final double riskPerTrade;
+    private final double multiplier;
+    private final VolatilityMeasure measure;
+    private final IncrementalAtr atr;
+    private final RollingMoments returns;
+    private double lastClose = Double.NaN;
+    private double positionQuantity;
+
+    /**
+     * @param riskPerTrade 每笔交易愿意承担的风险占组合总值的比例 (e.g., 0.01 表示 1%)
+     * @param measure      波动率度量方式
+     * @param period       统计周期 (e.g., 14)
+     * @param multiplier   止损距离相当于几倍波动率 (e.g., 2.0)
+     */
+    public VolatilityTargetPositionSizer(double riskPerTrade, VolatilityMeasure measure, int period, double multiplier) {
+        if (riskPerTrade <= 0 || riskPerTrade > 1) {
+            throw new IllegalArgumentException("单笔风险比例必须在 (0, 1] 之间");
+        }
+        if (multiplier <= 0) {
+            throw new IllegalArgumentException("波动率倍数必须大于 0");
+        }
+        this.riskPerTrade = riskPerTrade;
+        this.multiplier = multiplier;
+        this.measure = measure;
+        this.atr = measure == VolatilityMeasure.ATR ? new IncrementalAtr(period) : null;
+        this.returns = measure == VolatilityMeasure.STDEV ? new RollingMoments(period) : null;
+    }
+
+    @Override
+    public void onBar(Bar bar) {
+        double close = bar.getClosePrice().doubleValue();
+        if (atr != null) {
+            atr.update(bar.getHighPrice().doubleValue(), bar.getLowPrice().doubleValue(), close);
+        } else if (!Double.isNaN(lastClose) && lastClose > 0) {
+            returns.add(close / lastClose - 1);
+        }
+        lastClose = close;
+    }
+
+    @Override
+    public void onOrderExecuted(Order order) {
+        if (order.signal() == TradeSignal.BUY) {
+            positionQuantity += order.quantity();
+        } else if (order.signal() == TradeSignal.SELL) {
+            positionQuantity = Math.max(0, positionQuantity - order.quantity());
+        }
+    }
+
+    @Override
+    public double calculateQuantity(TradeSignal signal, double price, Portfolio portfolio) {
+        return signal == TradeSignal.SELL ? positionQuantity : calculateQuantity(price, portfolio);
+    }
+
+    @Override
+    public double calculateQuantity(double price, Portfolio portfolio) {
+        if (price <= 0) {
+            return 0;
+        }
+        double riskPerShare = riskPerShare(price);
+        if (Double.isNaN(riskPerShare) || riskPerShare <= 0) {
+            return 0;
+        }
+        double quantity = Math.floor(portfolio.getTotalValue() * riskPerTrade / riskPerShare);
+        double affordable = Math.floor(portfolio.getCash() / price);
+        return Math.max(0, Math.min(quantity, affordable));
+    }
+
+    private double riskPerShare(double price) {
+        if (measure == VolatilityMeasure.ATR) {
+            return atr.isReady() ? multiplier * atr.value() : Double.NaN;
+        }
+        return returns.isFull() ? multiplier * returns.stdev() * price : Double.NaN;
+    }
+}
@@ -0,0 +1,97 @@
+package com.twx.platform.risk;
+
+import com.twx.platform.common.Order;
+import com.twx.platform.common.Ticker;
+import com.twx.platform.common.TradeSignal;
+import com.twx.platform.portfolio.Portfolio;
+
+/**
+ * 风控接口，位于 "策略信号" 与 "下单" 之间。
+ * 回测引擎每根K线依次调用 review -> limitQuantity -> onOrderExecuted -> onValueUpdated。
+ * <p>
+ * 实现类通常带有每次回测独立的状态 (持仓成本、最高价、净值峰值等)，
+ * 因此一个实例只能用于一次回测；并行扫描参数时每个任务应各自创建实例。
+ */
+public interface RiskManager {
+
+    /**
+     * 风控审核结果。
+     *
+     * @param signal   最终执行的信号
+     * @param quantity 强制平仓时的数量；小于等于 0 表示交给仓位管理器计算
+     * @param reason   风控介入的原因，未介入时为 null
+     */
+    record RiskDecision(TradeSignal signal, double quantity, String reason) {
+
+        public static RiskDecision pass(TradeSignal signal) {
+            return new RiskDecision(signal, 0, null);
+        }
+
+        public static RiskDecision exit(double quantity, String reason) {
+            return new RiskDecision(TradeSignal.SELL, quantity, reason);
+        }
+
+        public static RiskDecision block(String reason) {
+            return new RiskDecision(TradeSignal.HOLD, 0, reason);
+        }
+    }
+
+    /**
+     * 不做任何干预的风控实现。它没有状态，可以安全地共享。
+     */
+    RiskManager NONE = new RiskManager() {
+        @Override
+        public RiskDecision review(Ticker ticker, TradeSignal signal, double price, Portfolio portfolio) {
+            return RiskDecision.pass(signal);
+        }
+
+        @Override
+        public double limitQuantity(Ticker ticker, TradeSignal signal, double quantity, double price, Portfolio portfolio) {
+            return quantity;
+        }
+
+        @Override
+        public void onOrderExecuted(Order order) {
+        }
+
+        @Override
+        public void onValueUpdated(double totalValue) {
+        }
+
+        @Override
+        public String getSummary() {
+            return "";
+        }
+    };
+
+    /**
+     * 审核策略信号。可以放行、拦截 (返回 HOLD)，或在触发止损/止盈时强制卖出。
+     * @param ticker    标的
+     * @param signal    策略给出的信号
+     * @param price     当前成交价 (收盘价)
+     * @param portfolio 投资组合
+     * @return 风控审核结果
+     */
+    RiskDecision review(Ticker ticker, TradeSignal signal, double price, Portfolio portfolio);
+
+    /**
+     * 对仓位管理器给出的数量做上限约束 (例如单一标的最大敞口)。
+     * @return 调整后的数量，0 表示不下单
+     */
+    double limitQuantity(Ticker ticker, TradeSignal signal, double quantity, double price, Portfolio portfolio);
+
+    /**
+     * 订单成交后回调，用于更新持仓状态。
+     */
+    void onOrderExecuted(Order order);
+
+    /**
+     * 每根K线结束、投资组合净值更新后回调，用于跟踪回撤。
+     */
+    void onValueUpdated(double totalValue);
+
+    /**
+     * 风控事件统计摘要，没有事件时返回空字符串。
+     */
+    String getSummary();
+}
@@ -0,0 +1,189 @@
+package com.twx.platform.risk.impl;
+
+import com.twx.platform.common.Order;
+import com.twx.platform.common.Ticker;
+import com.twx.platform.common.TradeSignal;
+import com.twx.platform.portfolio.Portfolio;
+import com.twx.platform.risk.RiskManager;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 标准风控实现：固定止损、固定止盈、移动止损、单一标的最大敞口、组合回撤熔断。
+ * <p>
+ * 每个持仓只保存数量、平均成本和持仓以来的最高价三个数，每根K线的检查都是 O(1)。
+ * 所有判断都基于收盘价，与回测引擎按收盘价成交的假设一致。
+ * 回撤熔断一旦触发就保持到回测结束：下一根K线清仓，之后不再开新仓。
+ * <p>
+ * 本类不是线程安全的，每次回测需要通过 {@link Limits#newManager()} 创建新实例。
+ */
+public class StandardRiskManager implements RiskManager {
+
+    /**
+     * 风控参数，全部以比例表示 (0.05 表示 5%)，0 表示不启用该项。
+     * 该 record 不可变，可以在并行扫描的多个任务之间共享。
+     *
+     * @param stopLoss      固定止损：价格低于平均成本的比例
+     * @param takeProfit    固定止盈：价格高于平均成本的比例
+     * @param trailingStop  移动止损：价格从持仓以来最高价回落的比例
+     * @param maxExposure   单一标的市值占组合总值的上限
+     * @param maxDrawdown   组合净值从峰值回撤的熔断阈值
+     */
+    public record Limits(double stopLoss, double takeProfit, double trailingStop, double maxExposure, double maxDrawdown) {
+
+        public Limits {
+            checkFraction("止损比例", stopLoss, false);
+            checkFraction("移动止损比例", trailingStop, false);
+            checkFraction("最大回撤比例", maxDrawdown, false);
+            checkFraction("最大敞口比例", maxExposure, true);
+            if (takeProfit < 0) {
+                throw new IllegalArgumentException("止盈比例不能为负数");
+            }
+        }
+
+        public static Limits none() {
+            return new Limits(0, 0, 0, 0, 0);
+        }
+
+        public boolean isEnabled() {
+            return stopLoss > 0 || takeProfit > 0 || trailingStop > 0 || maxExposure > 0 || maxDrawdown > 0;
+        }
+
+        /**
+         * 为一次回测创建独立的风控实例；没有启用任何规则时返回 RiskManager.NONE。
+         */
+        public RiskManager newManager() {
+            return isEnabled() ? new StandardRiskManager(this) : RiskManager.NONE;
+        }
+
+        private static void checkFraction(String name, double value, boolean allowOne) {
+            if (value < 0 || value > 1 || (!allowOne && value == 1)) {
+                throw new IllegalArgumentException(name + "必须在 [0, 1" + (allowOne ? "]" : ")") + " 之间");
+            }
+        }
+    }
+
+    /**
+     * 单个持仓的风控状态
+     */
+    private static final class PositionState {
+        double quantity;
+        double averageCost;
+        double highestPrice;
+    }
+
+    private final Limits limits;
+    private final Map<String, PositionState> positions = new HashMap<>();
+
+    private double peakValue = Double.NaN;
+    private boolean haltTrading = false;
+
+    private int stopLossCount, takeProfitCount, trailingStopCount, blockedBuyCount, clampedBuyCount;
+
+    public StandardRiskManager(Limits limits) {
+        this.limits = limits;
+    }
+
+    @Override
+    public RiskDecision review(Ticker ticker, TradeSignal signal, double price, Portfolio portfolio) {
+        PositionState position = positions.get(ticker.symbol());
+        boolean holding = position != null && position.quantity > 0;
+
+        if (haltTrading) {
+            if (holding) {
+                return RiskDecision.exit(position.quantity, "组合回撤熔断");
+            }
+            if (signal == TradeSignal.BUY) {
+                blockedBuyCount++;
+                return RiskDecision.block("组合回撤熔断，禁止开仓");
+            }
+            return RiskDecision.pass(signal);
+        }
+
+        if (holding) {
+            if (price > position.highestPrice) {
+                position.highestPrice = price;
+            }
+            if (limits.stopLoss > 0 && price <= position.averageCost * (1 - limits.stopLoss)) {
+                stopLossCount++;
+                return RiskDecision.exit(position.quantity, "止损");
+            }
+            if (limits.takeProfit > 0 && price >= position.averageCost * (1 + limits.takeProfit)) {
+                takeProfitCount++;
+                return RiskDecision.exit(position.quantity, "止盈");
+            }
+            if (limits.trailingStop > 0 && price <= position.highestPrice * (1 - limits.trailingStop)) {
+                trailingStopCount++;
+                return RiskDecision.exit(position.quantity, "移动止损");
+            }
+        }
+        return RiskDecision.pass(signal);
+    }
+
+    @Override
+    public double limitQuantity(Ticker ticker, TradeSignal signal, double quantity, double price, Portfolio portfolio) {
+        if (signal != TradeSignal.BUY || limits.maxExposure <= 0 || price <= 0) {
+            return quantity;
+        }
+        PositionState position = positions.get(ticker.symbol());
+        double heldValue = position == null ? 0 : position.quantity * price;
+        double allowedValue = limits.maxExposure * portfolio.getTotalValue() - heldValue;
+        double allowedQuantity = Math.max(0, Math.floor(allowedValue / price));
+        if (allowedQuantity < quantity) {
+            clampedBuyCount++;
+            return allowedQuantity;
+        }
+        return quantity;
+    }
+
+    @Override
+    public void onOrderExecuted(Order order) {
+        String symbol = order.ticker().symbol();
+        if (order.signal() == TradeSignal.BUY) {
+            PositionState position = positions.computeIfAbsent(symbol, s -> new PositionState());
+            double newQuantity = position.quantity + order.quantity();
+            position.averageCost = (position.averageCost * position.quantity + order.price() * order.quantity()) / newQuantity;
+            position.highestPrice = position.quantity > 0 ? Math.max(position.highestPrice, order.price()) : order.price();
+            position.quantity = newQuantity;
+        } else if (order.signal() == TradeSignal.SELL) {
+            PositionState position = positions.get(symbol);
+            if (position != null) {
+                position.quantity -= order.quantity();
+                if (position.quantity < 0.0001) {
+                    positions.remove(symbol);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void onValueUpdated(double totalValue) {
+        if (Double.isNaN(peakValue) || totalValue > peakValue) {
+            peakValue = totalValue;
+        }
+        if (limits.maxDrawdown > 0 && peakValue > 0 && (peakValue - totalValue) / peakValue >= limits.maxDrawdown) {
+            haltTrading = true;
+        }
+    }
+
+    public boolean isTradingHalted() {
+        return haltTrading;
+    }
+
+    @Override
+    public String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        summary.append("## 风控统计\n");
+        summary.append(String.format("止损触发: %d\n", stopLossCount));
+        summary.append(String.format("止盈触发: %d\n", takeProfitCount));
+        summary.append(String.format("移动止损触发: %d\n", trailingStopCount));
+        summary.append(String.format("敞口限制缩减买单: %d\n", clampedBuyCount));
+        summary.append(String.format("回撤熔断: %s", haltTrading ? "已触发" : "未触发"));
+        if (blockedBuyCount > 0) {
+            summary.append(String.format(" (拦截买入信号 %d 次)", blockedBuyCount));
+        }
+        summary.append("\n");
+        return summary.toString();
+    }
+}
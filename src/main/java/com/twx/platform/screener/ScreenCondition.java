@@ -0,0 +1,41 @@
+package com.twx.platform.screener;
+
+import com.twx.platform.data.BarColumns;
+
+/**
+ * 选股条件接口。
+ * 每个条件只针对一只股票的最后一根K线做判断，满足时返回一个因子值 (用于展示和排序)，不满足时返回 NaN。
+ */
+public interface ScreenCondition {
+
+    /**
+     * 需要回看整段历史 (如 EMA、RSI 这类递推指标) 的条件，其开销按K线数量估算。
+     */
+    int FULL_HISTORY = -1;
+
+    /**
+     * 比较方向
+     */
+    enum Direction {
+        ABOVE, BELOW
+    }
+
+    /**
+     * 在最后一根K线上判断条件。
+     * @param columns 一只股票的K线列数据
+     * @return 满足条件时的因子值，不满足或数据不足时返回 NaN
+     */
+    double evaluate(BarColumns columns);
+
+    /**
+     * 估算的计算开销 (需要访问的K线数量)。选股器会先执行开销小的条件，遇到不满足的立即跳过该股票。
+     * @return K线数量，或 {@link #FULL_HISTORY}
+     */
+    int cost();
+
+    /**
+     * 获取条件的名称。
+     * @return 条件名
+     */
+    String getName();
+}
@@ -0,0 +1,14 @@
+package com.twx.platform.screener;
+
+import com.twx.platform.common.Ticker;
+
+/**
+ * 一只满足全部选股条件的股票。
+ *
+ * @param ticker 股票代码
+ * @param time   最后一根K线的时间 (毫秒时间戳)
+ * @param close  最后一根K线的收盘价
+ * @param values 各条件的因子值，顺序与创建 Screener 时传入的条件顺序一致
+ */
+public record ScreenResult(Ticker ticker, long time, double close, double[] values) {
+}
@@ -0,0 +1,95 @@
+package com.twx.platform.screener;
+
+import com.twx.platform.data.BarColumns;
+import com.twx.platform.universe.UniversePanel;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 全市场选股器：在已加载到内存的股票池上并行判断一组条件 (逻辑与)，
+ * 例如 "今天收盘价上穿 60 日均线且 RSI(14) 低于 40"。
+ * <p>
+ * 条件按估算开销从小到大执行，只看最近几根K线的条件 (均线、布林带) 排在需要整段历史的递推指标 (RSI、MACD) 之前，
+ * 一只股票只要有一个条件不满足就立即跳过，大部分股票在第一个便宜的条件上就被淘汰。
+ */
+public class Screener {
+
+    private final List<ScreenCondition> conditions;
+    private final int[] order;
+
+    /**
+     * @param conditions 需要同时满足的条件，结果中的因子值按这里的顺序排列
+     */
+    public Screener(List<ScreenCondition> conditions) {
+        if (conditions.isEmpty()) {
+            throw new IllegalArgumentException("至少需要一个选股条件");
+        }
+        this.conditions = List.copyOf(conditions);
+        this.order = IntStream.range(0, conditions.size()).boxed()
+                .sorted(Comparator.comparingLong(i -> effectiveCost(conditions.get(i))))
+                .mapToInt(Integer::intValue)
+                .toArray();
+    }
+
+    private static long effectiveCost(ScreenCondition condition) {
+        int cost = condition.cost();
+        return cost == ScreenCondition.FULL_HISTORY ? Long.MAX_VALUE : cost;
+    }
+
+    public List<ScreenCondition> getConditions() {
+        return conditions;
+    }
+
+    /**
+     * 对股票池做一次选股。只考虑最后一根K线落在日历最后一个交易日的股票 (停牌的股票不会 "今天" 触发信号)。
+     * @return 满足全部条件的股票，按股票池中的顺序排列
+     */
+    public List<ScreenResult> screen(UniversePanel panel) {
+        return screen(panel, true);
+    }
+
+    /**
+     * @param latestOnly 为 false 时对停牌股票按其最后一根K线判断
+     */
+    public List<ScreenResult> screen(UniversePanel panel, boolean latestOnly) {
+        if (panel.dateCount() == 0) {
+            return new ArrayList<>();
+        }
+        long latest = panel.dates()[panel.dateCount() - 1];
+        return IntStream.range(0, panel.tickerCount()).parallel()
+                .mapToObj(t -> {
+                    BarColumns columns = panel.columns(t);
+                    int size = columns.size();
+                    if (size == 0 || (latestOnly && columns.times()[size - 1] != latest)) {
+                        return null;
+                    }
+                    double[] values = evaluate(columns);
+                    return values == null ? null
+                            : new ScreenResult(panel.tickers().get(t), columns.times()[size - 1], columns.close()[size - 1], values);
+                })
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 按开销顺序判断全部条件，任一条件不满足即返回 null。
+     */
+    private double[] evaluate(BarColumns columns) {
+        double[] values = new double[conditions.size()];
+        Arrays.fill(values, Double.NaN);
+        for (int i : order) {
+            double value = conditions.get(i).evaluate(columns);
+            if (Double.isNaN(value)) {
+                return null;
+            }
+            values[i] = value;
+        }
+        return values;
+    }
+}
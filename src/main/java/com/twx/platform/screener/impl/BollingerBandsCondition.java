@@ -0,0 +1,59 @@
+package com.twx.platform.screener.impl;
+
+import com.twx.platform.analysis.IndicatorKernels;
+import com.twx.platform.data.BarColumns;
+import com.twx.platform.screener.ScreenCondition;
+
+/**
+ * 最后一根K线的收盘价突破布林带上轨 (ABOVE) 或跌破下轨 (BELOW)，与 BollingerBandsTechnique 的计算方式相同。
+ * 只计算最后一根K线上的均值和标准差，开销 O(period)。因子值为 %B = (close - 下轨) / (上轨 - 下轨)。
+ */
+public class BollingerBandsCondition implements ScreenCondition {
+
+    private final int period;
+    private final double k;
+    private final Direction direction;
+
+    /**
+     * @param period    布林带周期 (e.g., 20)
+     * @param k         标准差倍数 (e.g., 2.0)
+     * @param direction ABOVE 表示突破上轨，BELOW 表示跌破下轨
+     */
+    public BollingerBandsCondition(int period, double k, Direction direction) {
+        if (period <= 0 || k <= 0) {
+            throw new IllegalArgumentException("布林带参数无效");
+        }
+        this.period = period;
+        this.k = k;
+        this.direction = direction;
+    }
+
+    @Override
+    public double evaluate(BarColumns columns) {
+        double[] close = columns.close();
+        int last = close.length - 1;
+        if (last + 1 < period) {
+            return Double.NaN;
+        }
+        double middle = IndicatorKernels.smaAt(close, period, last);
+        double width = k * IndicatorKernels.stdevAt(close, period, last);
+        double upper = middle + width;
+        double lower = middle - width;
+        double price = close[last];
+        boolean matched = direction == Direction.ABOVE ? price > upper : price < lower;
+        if (!matched || width <= 0) {
+            return Double.NaN;
+        }
+        return (price - lower) / (upper - lower);
+    }
+
+    @Override
+    public int cost() {
+        return 2 * period;
+    }
+
+    @Override
+    public String getName() {
+        return String.format("布林带(%d, %.1f) %s", period, k, direction == Direction.ABOVE ? "突破上轨" : "跌破下轨");
+    }
+}
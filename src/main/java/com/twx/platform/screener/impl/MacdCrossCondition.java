@@ -0,0 +1,64 @@
+package com.twx.platform.screener.impl;
+
+import com.twx.platform.analysis.IndicatorKernels;
+import com.twx.platform.data.BarColumns;
+import com.twx.platform.screener.ScreenCondition;
+
+/**
+ * MACD 线在最后一根K线上穿 (ABOVE，金叉) 或下穿 (BELOW，死叉) 信号线，与 MacdTechnique 的计算方式相同。
+ * EMA 需要扫描整段历史。因子值为 MACD 柱 (MACD - 信号线)。
+ */
+public class MacdCrossCondition implements ScreenCondition {
+
+    private final int shortPeriod;
+    private final int longPeriod;
+    private final int signalPeriod;
+    private final Direction direction;
+
+    /**
+     * @param shortPeriod  快线周期 (e.g., 12)
+     * @param longPeriod   慢线周期 (e.g., 26)
+     * @param signalPeriod 信号线周期 (e.g., 9)
+     * @param direction    ABOVE 表示金叉，BELOW 表示死叉
+     */
+    public MacdCrossCondition(int shortPeriod, int longPeriod, int signalPeriod, Direction direction) {
+        if (shortPeriod <= 0 || longPeriod <= shortPeriod || signalPeriod <= 0) {
+            throw new IllegalArgumentException("MACD 周期参数无效");
+        }
+        this.shortPeriod = shortPeriod;
+        this.longPeriod = longPeriod;
+        this.signalPeriod = signalPeriod;
+        this.direction = direction;
+    }
+
+    @Override
+    public double evaluate(BarColumns columns) {
+        double[] close = columns.close();
+        int last = close.length - 1;
+        if (last < longPeriod) {
+            return Double.NaN;
+        }
+        double[] shortEma = IndicatorKernels.ema(close, shortPeriod);
+        double[] longEma = IndicatorKernels.ema(close, longPeriod);
+        double[] macd = new double[close.length];
+        for (int i = 0; i < macd.length; i++) {
+            macd[i] = shortEma[i] - longEma[i];
+        }
+        double[] signal = IndicatorKernels.ema(macd, signalPeriod);
+        double[] crossed = direction == Direction.ABOVE
+                ? IndicatorKernels.crossUp(macd, signal)
+                : IndicatorKernels.crossDown(macd, signal);
+        return crossed[last] > 0 ? macd[last] - signal[last] : Double.NaN;
+    }
+
+    @Override
+    public int cost() {
+        return FULL_HISTORY;
+    }
+
+    @Override
+    public String getName() {
+        return String.format("MACD(%d,%d,%d) %s", shortPeriod, longPeriod, signalPeriod,
+                direction == Direction.ABOVE ? "金叉" : "死叉");
+    }
+}
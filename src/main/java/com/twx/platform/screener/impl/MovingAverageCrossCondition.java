@@ -0,0 +1,67 @@
+package com.twx.platform.screener.impl;
+
+import com.twx.platform.analysis.IndicatorKernels;
+import com.twx.platform.data.BarColumns;
+import com.twx.platform.screener.ScreenCondition;
+
+/**
+ * 收盘价在最后一根K线上穿 (ABOVE) 或下穿 (BELOW) 简单移动平均线，
+ * 与 MovingAverageTechnique 使用相同的 SMA，穿越的判定与 ta4j 的 CrossedUp/DownIndicatorRule 一致。
+ * 只计算最后几根K线上的均线值，开销 O(period)。因子值为收盘价相对均线的偏离 close / SMA - 1。
+ */
+public class MovingAverageCrossCondition implements ScreenCondition {
+
+    private final int period;
+    private final Direction direction;
+
+    /**
+     * @param period    均线周期 (e.g., 60)
+     * @param direction ABOVE 表示上穿，BELOW 表示下穿
+     */
+    public MovingAverageCrossCondition(int period, Direction direction) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("均线周期必须为正整数");
+        }
+        this.period = period;
+        this.direction = direction;
+    }
+
+    @Override
+    public double evaluate(BarColumns columns) {
+        double[] close = columns.close();
+        int last = close.length - 1;
+        if (last < period) {
+            return Double.NaN;
+        }
+        double sma = IndicatorKernels.smaAt(close, period, last);
+        if (compare(close[last], sma) <= 0) {
+            return Double.NaN;
+        }
+        // 向前跳过收盘价恰好等于均线的K线，找到最近一次不相等的位置
+        int j = last - 1;
+        double previous = IndicatorKernels.smaAt(close, period, j);
+        while (j > 0 && close[j] == previous) {
+            j--;
+            previous = IndicatorKernels.smaAt(close, period, j);
+        }
+        boolean crossed = compare(close[j], previous) < 0 && (j == last - 1 || j > 0);
+        return crossed ? close[last] / sma - 1 : Double.NaN;
+    }
+
+    /**
+     * 按方向比较，正数表示 "在目标方向一侧"
+     */
+    private int compare(double price, double sma) {
+        return direction == Direction.ABOVE ? Double.compare(price, sma) : Double.compare(sma, price);
+    }
+
+    @Override
+    public int cost() {
+        return 2 * period;
+    }
+
+    @Override
+    public String getName() {
+        return String.format("收盘价%s SMA(%d)", direction == Direction.ABOVE ? "上穿" : "下穿", period);
+    }
+}
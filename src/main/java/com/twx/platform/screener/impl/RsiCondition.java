@@ -0,0 +1,51 @@
+package com.twx.platform.screener.impl;
+
+import com.twx.platform.analysis.IndicatorKernels;
+import com.twx.platform.data.BarColumns;
+import com.twx.platform.screener.ScreenCondition;
+
+/**
+ * 最后一根K线的 RSI 高于 (ABOVE) 或低于 (BELOW) 阈值，RSI 与 RsiTechnique 的计算方式相同。
+ * RSI 使用 MMA 递推平滑，需要扫描整段历史。因子值为 RSI。
+ */
+public class RsiCondition implements ScreenCondition {
+
+    private final int period;
+    private final Direction direction;
+    private final double threshold;
+
+    /**
+     * @param period    RSI 计算周期 (e.g., 14)
+     * @param direction ABOVE 表示高于阈值，BELOW 表示低于阈值
+     * @param threshold 阈值 (e.g., 40)
+     */
+    public RsiCondition(int period, Direction direction, double threshold) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("RSI 周期必须为正整数");
+        }
+        this.period = period;
+        this.direction = direction;
+        this.threshold = threshold;
+    }
+
+    @Override
+    public double evaluate(BarColumns columns) {
+        double[] close = columns.close();
+        if (close.length <= period) {
+            return Double.NaN;
+        }
+        double rsi = IndicatorKernels.rsi(close, period)[close.length - 1];
+        boolean matched = direction == Direction.ABOVE ? rsi > threshold : rsi < threshold;
+        return matched ? rsi : Double.NaN;
+    }
+
+    @Override
+    public int cost() {
+        return FULL_HISTORY;
+    }
+
+    @Override
+    public String getName() {
+        return String.format("RSI(%d) %s %.1f", period, direction == Direction.ABOVE ? ">" : "<", threshold);
+    }
+}
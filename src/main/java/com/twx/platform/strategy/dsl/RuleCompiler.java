@@ -0,0 +1,155 @@
+package com.twx.platform.strategy.dsl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 把一条或多条规则语法树编译成扁平的 {@link RuleProgram}。
+ * <ol>
+ *     <li>规范化：可交换运算 (and / or / + / * / == / !=) 的两个操作数按文本排序，
+ *     使 "a and b" 与 "b and a" 得到同一个节点；两个常量之间的运算直接折叠。</li>
+ *     <li>去重：按后序遍历为每个不同的子表达式分配一个槽位，相同的子树 (record 结构相等) 共用同一槽位。</li>
+ *     <li>输出：按拓扑顺序排列的指令数组，求值时每条指令对整列数据执行一次。</li>
+ * </ol>
+ */
+public final class RuleCompiler {
+
+    private static final Set<String> COMMUTATIVE = Set.of("and", "or", "+", "*", "==", "!=");
+
+    private final Map<RuleNode, Integer> slots = new LinkedHashMap<>();
+    private final List<RuleProgram.Op> ops = new ArrayList<>();
+    private final List<int[]> operands = new ArrayList<>();
+    private final List<Double> parameters = new ArrayList<>();
+    private final List<Integer> lookbacks = new ArrayList<>();
+
+    private RuleCompiler() {
+    }
+
+    /**
+     * 解析并编译多条规则，它们之间的公共子表达式只会计算一次。
+     * @param expressions 规则文本，例如买入规则和卖出规则
+     * @return 编译后的程序，roots 的顺序与参数顺序一致
+     */
+    public static RuleProgram compile(String... expressions) {
+        List<RuleNode> roots = new ArrayList<>(expressions.length);
+        for (String expression : expressions) {
+            roots.add(RuleParser.parse(expression));
+        }
+        return compile(roots);
+    }
+
+    /**
+     * 编译已经解析好的语法树。
+     */
+    public static RuleProgram compile(List<RuleNode> roots) {
+        RuleCompiler compiler = new RuleCompiler();
+        int[] rootSlots = new int[roots.size()];
+        int warmup = 0;
+        for (int i = 0; i < roots.size(); i++) {
+            rootSlots[i] = compiler.emit(normalize(roots.get(i)));
+            warmup = Math.max(warmup, compiler.lookbacks.get(rootSlots[i]));
+        }
+        RuleNode[] nodes = compiler.slots.keySet().toArray(new RuleNode[0]);
+        int[] left = new int[nodes.length];
+        int[] right = new int[nodes.length];
+        double[] params = new double[nodes.length];
+        for (int i = 0; i < nodes.length; i++) {
+            left[i] = compiler.operands.get(i)[0];
+            right[i] = compiler.operands.get(i)[1];
+            params[i] = compiler.parameters.get(i);
+        }
+        return new RuleProgram(compiler.ops.toArray(new RuleProgram.Op[0]), left, right, params, nodes, rootSlots, warmup);
+    }
+
+    /**
+     * 规范化语法树：常量折叠 + 可交换运算的操作数排序。
+     */
+    static RuleNode normalize(RuleNode node) {
+        if (node instanceof RuleNode.Call call) {
+            List<RuleNode> args = new ArrayList<>(call.args().size());
+            for (RuleNode arg : call.args()) {
+                args.add(normalize(arg));
+            }
+            return new RuleNode.Call(call.function(), args);
+        }
+        if (node instanceof RuleNode.Unary unary) {
+            RuleNode operand = normalize(unary.operand());
+            if (operand instanceof RuleNode.Constant c) {
+                return new RuleNode.Constant(RuleProgram.applyUnary(RuleProgram.Op.forUnary(unary.operator()), c.value()));
+            }
+            return new RuleNode.Unary(unary.operator(), operand);
+        }
+        if (node instanceof RuleNode.Binary binary) {
+            RuleNode left = normalize(binary.left());
+            RuleNode right = normalize(binary.right());
+            if (left instanceof RuleNode.Constant a && right instanceof RuleNode.Constant b) {
+                return new RuleNode.Constant(RuleProgram.applyBinary(RuleProgram.Op.forBinary(binary.operator()), a.value(), b.value()));
+            }
+            if (COMMUTATIVE.contains(binary.operator()) && left.toString().compareTo(right.toString()) > 0) {
+                RuleNode tmp = left;
+                left = right;
+                right = tmp;
+            }
+            return new RuleNode.Binary(binary.operator(), left, right);
+        }
+        return node;
+    }
+
+    private int emit(RuleNode node) {
+        Integer existing = slots.get(node);
+        if (existing != null) {
+            return existing;
+        }
+        RuleProgram.Op op;
+        int a = -1;
+        int b = -1;
+        double param = 0;
+        int lookback = 0;
+
+        if (node instanceof RuleNode.Constant c) {
+            op = RuleProgram.Op.CONST;
+            param = c.value();
+        } else if (node instanceof RuleNode.Field f) {
+            op = RuleProgram.Op.forField(f.name());
+        } else if (node instanceof RuleNode.Unary u) {
+            op = RuleProgram.Op.forUnary(u.operator());
+            a = emit(u.operand());
+            lookback = lookbacks.get(a);
+        } else if (node instanceof RuleNode.Binary bin) {
+            op = RuleProgram.Op.forBinary(bin.operator());
+            a = emit(bin.left());
+            b = emit(bin.right());
+            lookback = Math.max(lookbacks.get(a), lookbacks.get(b));
+        } else {
+            RuleNode.Call call = (RuleNode.Call) node;
+            RuleFunction function = RuleFunction.lookup(call.function());
+            op = RuleProgram.Op.forFunction(function);
+            List<RuleNode> args = call.args();
+            int period = function.periodArg() >= 0
+                    ? (int) ((RuleNode.Constant) args.get(function.periodArg())).value() : 0;
+            param = period;
+            for (int i = 0; i < args.size(); i++) {
+                if (i == function.periodArg()) continue;
+                int slot = emit(args.get(i));
+                if (a < 0) a = slot; else b = slot;
+                lookback = Math.max(lookback, lookbacks.get(slot));
+            }
+            if (function == RuleFunction.CROSS_UP || function == RuleFunction.CROSS_DOWN) {
+                lookback += 1;
+            } else {
+                lookback += period;
+            }
+        }
+
+        int slot = ops.size();
+        slots.put(node, slot);
+        ops.add(op);
+        operands.add(new int[]{a, b});
+        parameters.add(param);
+        lookbacks.add(lookback);
+        return slot;
+    }
+}
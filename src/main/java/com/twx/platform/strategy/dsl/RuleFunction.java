@@ -0,0 +1,79 @@
+package com.twx.platform.strategy.dsl;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 规则表达式中可用的内置函数。
+ * periodArg 表示哪个参数是指标周期 (必须是正整数常量)，-1 表示没有周期参数。
+ */
+public enum RuleFunction {
+    SMA(2, 1),
+    EMA(2, 1),
+    RSI(2, 1),
+    STDEV(2, 1),
+    HIGHEST(2, 1),
+    LOWEST(2, 1),
+    ATR(1, 0),
+    CROSS_UP(2, -1),
+    CROSS_DOWN(2, -1),
+    ABS(1, -1);
+
+    private final int arity;
+    private final int periodArg;
+
+    RuleFunction(int arity, int periodArg) {
+        this.arity = arity;
+        this.periodArg = periodArg;
+    }
+
+    public int arity() {
+        return arity;
+    }
+
+    public int periodArg() {
+        return periodArg;
+    }
+
+    /**
+     * 表达式中使用的函数名，例如 cross_up
+     */
+    public String symbol() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * 根据函数名查找内置函数。
+     * @return 找不到时返回 null
+     */
+    public static RuleFunction lookup(String name) {
+        for (RuleFunction function : values()) {
+            if (function.symbol().equals(name)) {
+                return function;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 检查函数调用是否合法。
+     * @return 合法时返回 null，否则返回错误描述
+     */
+    static String validate(String name, List<RuleNode> args) {
+        RuleFunction function = lookup(name);
+        if (function == null) {
+            return "未知的函数 '" + name + "'，可用函数: " + Arrays.stream(values()).map(RuleFunction::symbol).toList();
+        }
+        if (args.size() != function.arity) {
+            return String.format("函数 %s 需要 %d 个参数，实际传入 %d 个", name, function.arity, args.size());
+        }
+        if (function.periodArg >= 0) {
+            RuleNode period = args.get(function.periodArg);
+            if (!(period instanceof RuleNode.Constant c) || c.value() < 1 || c.value() != Math.rint(c.value())) {
+                return String.format("函数 %s 的周期参数必须是正整数，实际为 %s", name, period);
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,71 @@
+package com.twx.platform.strategy.dsl;
+
+import java.util.List;
+
+/**
+ * 规则表达式的语法树节点。
+ * 所有节点都是 record，天然具备结构化的 equals/hashCode，
+ * 编译器据此对相同的子表达式去重 (例如买入、卖出规则里重复出现的 sma(close,20) 只计算一次)。
+ */
+public sealed interface RuleNode {
+
+    /**
+     * 数字常量，例如 70、2.5
+     */
+    record Constant(double value) implements RuleNode {
+        @Override
+        public String toString() {
+            return value == Math.rint(value) && !Double.isInfinite(value)
+                    ? String.valueOf((long) value) : String.valueOf(value);
+        }
+    }
+
+    /**
+     * K线字段：open / high / low / close / volume
+     */
+    record Field(String name) implements RuleNode {
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    /**
+     * 函数调用，例如 sma(close, 5)、cross_up(a, b)
+     */
+    record Call(String function, List<RuleNode> args) implements RuleNode {
+        public Call {
+            args = List.copyOf(args);
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(function).append('(');
+            for (int i = 0; i < args.size(); i++) {
+                if (i > 0) sb.append(',');
+                sb.append(args.get(i));
+            }
+            return sb.append(')').toString();
+        }
+    }
+
+    /**
+     * 一元运算：取负 (-) 和逻辑非 (not)
+     */
+    record Unary(String operator, RuleNode operand) implements RuleNode {
+        @Override
+        public String toString() {
+            return operator + "(" + operand + ")";
+        }
+    }
+
+    /**
+     * 二元运算：算术、比较以及 and / or
+     */
+    record Binary(String operator, RuleNode left, RuleNode right) implements RuleNode {
+        @Override
+        public String toString() {
+            return "(" + left + " " + operator + " " + right + ")";
+        }
+    }
+}
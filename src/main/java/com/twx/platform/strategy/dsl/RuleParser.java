@@ -0,0 +1,234 @@
+package com.twx.platform.strategy.dsl;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * 策略规则表达式的递归下降解析器。
+ *
+ * <pre>
+ * 示例: cross_up(sma(close,5), sma(close,20)) and rsi(close,14) &lt; 70
+ *
+ * expr    := or
+ * or      := and (("or" | "||") and)*
+ * and     := not (("and" | "&amp;&amp;") not)*
+ * not     := ("not" | "!") not | compare
+ * compare := sum (("&lt;" | "&lt;=" | "&gt;" | "&gt;=" | "==" | "!=") sum)?
+ * sum     := product (("+" | "-") product)*
+ * product := unary (("*" | "/") unary)*
+ * unary   := "-" unary | primary
+ * primary := NUMBER | FIELD | NAME "(" expr ("," expr)* ")" | "(" expr ")"
+ * </pre>
+ *
+ * 函数名与字段名不区分大小写。解析失败时抛出 IllegalArgumentException，消息中带有出错位置。
+ */
+public final class RuleParser {
+
+    static final Set<String> FIELDS = Set.of("open", "high", "low", "close", "volume");
+
+    private final String source;
+    private int pos;
+
+    private RuleParser(String source) {
+        this.source = source;
+    }
+
+    /**
+     * 解析一条规则表达式。
+     * @param expression 规则文本
+     * @return 语法树根节点
+     */
+    public static RuleNode parse(String expression) {
+        if (expression == null || expression.isBlank()) {
+            throw new IllegalArgumentException("规则表达式不能为空");
+        }
+        RuleParser parser = new RuleParser(expression);
+        RuleNode node = parser.parseOr();
+        parser.skipWhitespace();
+        if (parser.pos < parser.source.length()) {
+            throw parser.error("无法识别的内容 '" + parser.source.substring(parser.pos) + "'");
+        }
+        return node;
+    }
+
+    private RuleNode parseOr() {
+        RuleNode left = parseAnd();
+        while (acceptKeyword("or") || accept("||")) {
+            left = new RuleNode.Binary("or", left, parseAnd());
+        }
+        return left;
+    }
+
+    private RuleNode parseAnd() {
+        RuleNode left = parseNot();
+        while (acceptKeyword("and") || accept("&&")) {
+            left = new RuleNode.Binary("and", left, parseNot());
+        }
+        return left;
+    }
+
+    private RuleNode parseNot() {
+        if (acceptKeyword("not") || (peek('!') && !peekAt(1, '=') && accept("!"))) {
+            return new RuleNode.Unary("not", parseNot());
+        }
+        return parseCompare();
+    }
+
+    private RuleNode parseCompare() {
+        RuleNode left = parseSum();
+        for (String op : new String[]{"<=", ">=", "==", "!=", "<", ">"}) {
+            if (accept(op)) {
+                return new RuleNode.Binary(op, left, parseSum());
+            }
+        }
+        return left;
+    }
+
+    private RuleNode parseSum() {
+        RuleNode left = parseProduct();
+        while (true) {
+            if (accept("+")) {
+                left = new RuleNode.Binary("+", left, parseProduct());
+            } else if (accept("-")) {
+                left = new RuleNode.Binary("-", left, parseProduct());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private RuleNode parseProduct() {
+        RuleNode left = parseUnary();
+        while (true) {
+            if (accept("*")) {
+                left = new RuleNode.Binary("*", left, parseUnary());
+            } else if (accept("/")) {
+                left = new RuleNode.Binary("/", left, parseUnary());
+            } else {
+                return left;
+            }
+        }
+    }
+
+    private RuleNode parseUnary() {
+        if (accept("-")) {
+            RuleNode operand = parseUnary();
+            if (operand instanceof RuleNode.Constant c) {
+                return new RuleNode.Constant(-c.value());
+            }
+            return new RuleNode.Unary("-", operand);
+        }
+        return parsePrimary();
+    }
+
+    private RuleNode parsePrimary() {
+        skipWhitespace();
+        if (pos >= source.length()) {
+            throw error("表达式意外结束");
+        }
+        char c = source.charAt(pos);
+        if (accept("(")) {
+            RuleNode inner = parseOr();
+            expect(")");
+            return inner;
+        }
+        if (Character.isDigit(c) || c == '.') {
+            return parseNumber();
+        }
+        if (Character.isLetter(c) || c == '_') {
+            int start = pos;
+            String name = readIdentifier();
+            if (accept("(")) {
+                List<RuleNode> args = new ArrayList<>();
+                if (!accept(")")) {
+                    do {
+                        args.add(parseOr());
+                    } while (accept(","));
+                    expect(")");
+                }
+                String problem = RuleFunction.validate(name, args);
+                if (problem != null) {
+                    pos = start;
+                    throw error(problem);
+                }
+                return new RuleNode.Call(name, args);
+            }
+            if (FIELDS.contains(name)) {
+                return new RuleNode.Field(name);
+            }
+            pos = start;
+            throw error("未知的字段 '" + name + "'，可用字段: " + FIELDS);
+        }
+        throw error("无法识别的字符 '" + c + "'");
+    }
+
+    private RuleNode parseNumber() {
+        int start = pos;
+        while (pos < source.length() && (Character.isDigit(source.charAt(pos)) || source.charAt(pos) == '.')) {
+            pos++;
+        }
+        try {
+            return new RuleNode.Constant(Double.parseDouble(source.substring(start, pos)));
+        } catch (NumberFormatException e) {
+            pos = start;
+            throw error("无效的数字");
+        }
+    }
+
+    private String readIdentifier() {
+        int start = pos;
+        while (pos < source.length() && (Character.isLetterOrDigit(source.charAt(pos)) || source.charAt(pos) == '_')) {
+            pos++;
+        }
+        return source.substring(start, pos).toLowerCase(Locale.ROOT);
+    }
+
+    private boolean acceptKeyword(String keyword) {
+        skipWhitespace();
+        int end = pos + keyword.length();
+        if (end > source.length() || !source.regionMatches(true, pos, keyword, 0, keyword.length())) {
+            return false;
+        }
+        if (end < source.length() && (Character.isLetterOrDigit(source.charAt(end)) || source.charAt(end) == '_')) {
+            return false;
+        }
+        pos = end;
+        return true;
+    }
+
+    private boolean accept(String token) {
+        skipWhitespace();
+        if (source.startsWith(token, pos)) {
+            pos += token.length();
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String token) {
+        if (!accept(token)) {
+            throw error("缺少 '" + token + "'");
+        }
+    }
+
+    private boolean peek(char c) {
+        skipWhitespace();
+        return pos < source.length() && source.charAt(pos) == c;
+    }
+
+    private boolean peekAt(int offset, char c) {
+        return pos + offset < source.length() && source.charAt(pos + offset) == c;
+    }
+
+    private void skipWhitespace() {
+        while (pos < source.length() && Character.isWhitespace(source.charAt(pos))) {
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException(String.format("规则解析错误 (第 %d 个字符): %s%n%s", pos + 1, message, source));
+    }
+}
@@ -0,0 +1,215 @@
+package com.twx.platform.strategy.dsl;
+
+import com.twx.platform.analysis.IndicatorKernels;
+import com.twx.platform.data.BarColumns;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 编译后的规则程序：一组按拓扑顺序排列的扁平指令。
+ * 每条指令读取前面槽位的 double[] 列，对整列数据计算一次，结果写入自己的槽位。
+ * 布尔值用 1.0 / 0.0 表示，NaN 视为 false。
+ * <p>
+ * 程序本身是不可变的，可以在多个线程中对不同的数据并发求值。
+ */
+public final class RuleProgram {
+
+    /**
+     * 指令类型
+     */
+    public enum Op {
+        CONST, OPEN, HIGH, LOW, CLOSE, VOLUME,
+        SMA, EMA, RSI, STDEV, HIGHEST, LOWEST, ATR, CROSS_UP, CROSS_DOWN, ABS,
+        NEG, NOT,
+        ADD, SUB, MUL, DIV, LT, LE, GT, GE, EQ, NE, AND, OR;
+
+        static Op forField(String name) {
+            return switch (name) {
+                case "open" -> OPEN;
+                case "high" -> HIGH;
+                case "low" -> LOW;
+                case "close" -> CLOSE;
+                case "volume" -> VOLUME;
+                default -> throw new IllegalArgumentException("未知的字段: " + name);
+            };
+        }
+
+        static Op forFunction(RuleFunction function) {
+            return valueOf(function.name());
+        }
+
+        static Op forUnary(String operator) {
+            return switch (operator) {
+                case "-" -> NEG;
+                case "not" -> NOT;
+                default -> throw new IllegalArgumentException("未知的一元运算符: " + operator);
+            };
+        }
+
+        static Op forBinary(String operator) {
+            return switch (operator) {
+                case "+" -> ADD;
+                case "-" -> SUB;
+                case "*" -> MUL;
+                case "/" -> DIV;
+                case "<" -> LT;
+                case "<=" -> LE;
+                case ">" -> GT;
+                case ">=" -> GE;
+                case "==" -> EQ;
+                case "!=" -> NE;
+                case "and" -> AND;
+                case "or" -> OR;
+                default -> throw new IllegalArgumentException("未知的二元运算符: " + operator);
+            };
+        }
+    }
+
+    private final Op[] ops;
+    private final int[] left;
+    private final int[] right;
+    private final double[] params;
+    private final RuleNode[] nodes;
+    private final int[] roots;
+    private final int warmupPeriod;
+
+    RuleProgram(Op[] ops, int[] left, int[] right, double[] params, RuleNode[] nodes, int[] roots, int warmupPeriod) {
+        this.ops = ops;
+        this.left = left;
+        this.right = right;
+        this.params = params;
+        this.nodes = nodes;
+        this.roots = roots;
+        this.warmupPeriod = warmupPeriod;
+    }
+
+    /**
+     * 对一段K线数据求值。
+     * @param columns K线的列式数据
+     * @return 每条根规则对应的一列结果，顺序与编译时传入的规则一致
+     */
+    public double[][] evaluate(BarColumns columns) {
+        return evaluate(columns, null);
+    }
+
+    /**
+     * 对一段K线数据求值，并通过 cache 在多个程序之间共享中间列。
+     * 参数扫描时，对同一份数据编译出的多个程序往往共用 sma(close,20) 之类的子表达式，
+     * 传入同一个 cache (并发时使用 ConcurrentHashMap) 即可避免重复计算。
+     *
+     * @param columns K线的列式数据
+     * @param cache   以子表达式为键的列缓存，只能用于同一份 columns；为 null 时不缓存
+     */
+    public double[][] evaluate(BarColumns columns, Map<RuleNode, double[]> cache) {
+        double[][] slots = new double[ops.length][];
+        for (int i = 0; i < ops.length; i++) {
+            double[] column = cache == null ? null : cache.get(nodes[i]);
+            if (column == null) {
+                column = execute(i, slots, columns);
+                if (cache != null && ops[i] != Op.CONST) {
+                    cache.putIfAbsent(nodes[i], column);
+                }
+            }
+            slots[i] = column;
+        }
+        double[][] result = new double[roots.length][];
+        for (int i = 0; i < roots.length; i++) {
+            result[i] = slots[roots[i]];
+        }
+        return result;
+    }
+
+    private double[] execute(int i, double[][] slots, BarColumns columns) {
+        int n = columns.size();
+        int period = (int) params[i];
+        double[] a = left[i] >= 0 ? slots[left[i]] : null;
+        double[] b = right[i] >= 0 ? slots[right[i]] : null;
+        double[] column = switch (ops[i]) {
+            case CONST -> {
+                double[] out = new double[n];
+                Arrays.fill(out, params[i]);
+                yield out;
+            }
+            case OPEN -> columns.open();
+            case HIGH -> columns.high();
+            case LOW -> columns.low();
+            case CLOSE -> columns.close();
+            case VOLUME -> columns.volume();
+            case SMA -> IndicatorKernels.sma(a, period);
+            case EMA -> IndicatorKernels.ema(a, period);
+            case RSI -> IndicatorKernels.rsi(a, period);
+            case STDEV -> IndicatorKernels.stdev(a, period);
+            case HIGHEST -> IndicatorKernels.highest(a, period);
+            case LOWEST -> IndicatorKernels.lowest(a, period);
+            case ATR -> IndicatorKernels.atr(columns.high(), columns.low(), columns.close(), period);
+            case CROSS_UP -> IndicatorKernels.crossUp(a, b);
+            case CROSS_DOWN -> IndicatorKernels.crossDown(a, b);
+            default -> null;
+        };
+        if (column != null) {
+            return column;
+        }
+
+        double[] out = new double[n];
+        Op op = ops[i];
+        if (b == null) {
+            for (int k = 0; k < n; k++) {
+                out[k] = applyUnary(op, a[k]);
+            }
+        } else {
+            for (int k = 0; k < n; k++) {
+                out[k] = applyBinary(op, a[k], b[k]);
+            }
+        }
+        return out;
+    }
+
+    static double applyUnary(Op op, double x) {
+        return switch (op) {
+            case NEG -> -x;
+            case NOT -> truth(x) ? 0.0 : 1.0;
+            case ABS -> Math.abs(x);
+            default -> throw new IllegalStateException("不是一元运算: " + op);
+        };
+    }
+
+    static double applyBinary(Op op, double x, double y) {
+        return switch (op) {
+            case ADD -> x + y;
+            case SUB -> x - y;
+            case MUL -> x * y;
+            case DIV -> x / y;
+            case LT -> x < y ? 1.0 : 0.0;
+            case LE -> x <= y ? 1.0 : 0.0;
+            case GT -> x > y ? 1.0 : 0.0;
+            case GE -> x >= y ? 1.0 : 0.0;
+            case EQ -> x == y ? 1.0 : 0.0;
+            case NE -> x != y ? 1.0 : 0.0;
+            case AND -> truth(x) && truth(y) ? 1.0 : 0.0;
+            case OR -> truth(x) || truth(y) ? 1.0 : 0.0;
+            default -> throw new IllegalStateException("不是二元运算: " + op);
+        };
+    }
+
+    /**
+     * 把数值解释为布尔值：非 0 且非 NaN 为 true
+     */
+    public static boolean truth(double value) {
+        return value != 0 && !Double.isNaN(value);
+    }
+
+    /**
+     * 去重后实际需要计算的列数
+     */
+    public int slotCount() {
+        return ops.length;
+    }
+
+    /**
+     * 规则需要的最少K线数量，在此之前策略不应发出信号
+     */
+    public int warmupPeriod() {
+        return warmupPeriod;
+    }
+}
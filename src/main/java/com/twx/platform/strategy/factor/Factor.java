@@ -0,0 +1,24 @@
+package com.twx.platform.strategy.factor;
+
+import com.twx.platform.data.BarColumns;
+
+/**
+ * 横截面因子接口。
+ * 因子对单只股票的完整K线逐根计算一个数值，横截面策略在调仓日按因子值对整个股票池排序。
+ * 实现必须是无状态的，以便对不同股票并行计算。
+ */
+public interface Factor {
+
+    /**
+     * 计算因子值。
+     * @param columns 单只股票的列式K线数据
+     * @return 与K线一一对应的因子值，数据不足的位置为 NaN
+     */
+    double[] compute(BarColumns columns);
+
+    /**
+     * 获取因子名称。
+     * @return 因子名
+     */
+    String getName();
+}
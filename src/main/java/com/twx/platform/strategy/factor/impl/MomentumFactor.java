@@ -0,0 +1,46 @@
+package com.twx.platform.strategy.factor.impl;
+
+import com.twx.platform.data.BarColumns;
+import com.twx.platform.strategy.factor.Factor;
+
+import java.util.Arrays;
+
+/**
+ * 动量因子：过去 period 根K线的收益率，可以跳过最近 skip 根K线 (经典的 12-1 动量即 period=250, skip=20)。
+ */
+public class MomentumFactor implements Factor {
+
+    private final int period;
+    private final int skip;
+
+    public MomentumFactor(int period, int skip) {
+        if (period <= 0 || skip < 0 || skip >= period) {
+            throw new IllegalArgumentException("动量周期参数无效");
+        }
+        this.period = period;
+        this.skip = skip;
+    }
+
+    public MomentumFactor(int period) {
+        this(period, 0);
+    }
+
+    @Override
+    public double[] compute(BarColumns columns) {
+        double[] close = columns.close();
+        double[] out = new double[close.length];
+        Arrays.fill(out, Double.NaN);
+        for (int i = period; i < close.length; i++) {
+            double base = close[i - period];
+            if (base > 0) {
+                out[i] = close[i - skip] / base - 1;
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public String getName() {
+        return skip == 0 ? String.format("Momentum(%d)", period) : String.format("Momentum(%d-%d)", period, skip);
+    }
+}
@@ -0,0 +1,31 @@
+package com.twx.platform.strategy.factor.impl;
+
+import com.twx.platform.analysis.IndicatorKernels;
+import com.twx.platform.data.BarColumns;
+import com.twx.platform.strategy.factor.Factor;
+
+import java.util.Arrays;
+
+/**
+ * RSI 因子：取值越低越超卖，常用于均值回归 (选 RSI 最低的 N 只)。
+ */
+public class RsiFactor implements Factor {
+
+    private final int period;
+
+    public RsiFactor(int period) {
+        this.period = period;
+    }
+
+    @Override
+    public double[] compute(BarColumns columns) {
+        double[] out = IndicatorKernels.rsi(columns.close(), period);
+        Arrays.fill(out, 0, Math.min(period, out.length), Double.NaN);
+        return out;
+    }
+
+    @Override
+    public String getName() {
+        return String.format("RSI(%d)", period);
+    }
+}
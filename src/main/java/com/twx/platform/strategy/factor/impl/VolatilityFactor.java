@@ -0,0 +1,44 @@
+package com.twx.platform.strategy.factor.impl;
+
+import com.twx.platform.analysis.rolling.RollingMoments;
+import com.twx.platform.data.BarColumns;
+import com.twx.platform.strategy.factor.Factor;
+
+import java.util.Arrays;
+
+/**
+ * 波动率因子：过去 period 根K线日收益率的标准差。低波动选股时选最低的 N 只。
+ */
+public class VolatilityFactor implements Factor {
+
+    private final int period;
+
+    public VolatilityFactor(int period) {
+        if (period < 2) {
+            throw new IllegalArgumentException("波动率周期至少为 2");
+        }
+        this.period = period;
+    }
+
+    @Override
+    public double[] compute(BarColumns columns) {
+        double[] close = columns.close();
+        double[] out = new double[close.length];
+        Arrays.fill(out, Double.NaN);
+        RollingMoments returns = new RollingMoments(period);
+        for (int i = 1; i < close.length; i++) {
+            if (close[i - 1] > 0) {
+                returns.add(close[i] / close[i - 1] - 1);
+            }
+            if (returns.isFull()) {
+                out[i] = returns.stdev();
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public String getName() {
+        return String.format("Volatility(%d)", period);
+    }
+}
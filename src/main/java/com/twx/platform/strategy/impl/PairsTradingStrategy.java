@@ -0,0 +1,94 @@
+package com.twx.platform.strategy.impl;
+
+import com.twx.platform.common.TradeSignal;
+import com.twx.platform.data.BarColumns;
+import com.twx.platform.portfolio.Portfolio;
+import com.twx.platform.strategy.Strategy;
+import com.twx.platform.universe.PairsScanner;
+import org.ta4j.core.BarSeries;
+
+/**
+ * 配对交易策略 (价差均值回归)。
+ * 价差为 log(y) 对 log(x) 滚动回归的残差，按滚动窗口标准化为 z-score：
+ * z-score 向下穿过 -entryZ (y 相对 x 被低估) 时买入 y，回升到 -exitZ 以上时卖出。
+ * <p>
+ * 回测引擎一次只交易一个标的，A 股也难以融券做空，所以这里只交易 y 这一腿，x 只用于计算价差。
+ * 构造时按时间戳把 x 对齐到 y 的K线上，整段 z-score 一次算完，generateSignal 只做数组读取。
+ */
+public class PairsTradingStrategy implements Strategy {
+
+    private final String hedgeName;
+    private final int window;
+    private final double entryZ;
+    private final double exitZ;
+    private final double[] zScores;
+    private final int beginIndex;
+
+    /**
+     * @param series      被交易一腿 (y) 的K线，也就是回测时传给引擎的序列
+     * @param hedgeSeries 对冲一腿 (x) 的K线
+     * @param window      滚动回归与 z-score 的窗口长度 (e.g., 60)
+     * @param entryZ      入场阈值 (e.g., 2.0)
+     * @param exitZ       离场阈值 (e.g., 0.5)
+     */
+    public PairsTradingStrategy(BarSeries series, BarSeries hedgeSeries, int window, double entryZ, double exitZ) {
+        if (entryZ <= exitZ) {
+            throw new IllegalArgumentException("入场阈值必须大于离场阈值");
+        }
+        this.hedgeName = hedgeSeries.getName();
+        this.window = window;
+        this.entryZ = entryZ;
+        this.exitZ = exitZ;
+        this.beginIndex = Math.max(0, series.getBeginIndex());
+
+        BarColumns yColumns = BarColumns.of(series);
+        BarColumns xColumns = BarColumns.of(hedgeSeries);
+        double[] y = new double[yColumns.size()];
+        double[] x = new double[yColumns.size()];
+        long[] xTimes = xColumns.times();
+        int j = 0;
+        for (int i = 0; i < y.length; i++) {
+            long time = yColumns.times()[i];
+            while (j < xTimes.length && xTimes[j] < time) {
+                j++;
+            }
+            boolean matched = j < xTimes.length && xTimes[j] == time;
+            y[i] = Math.log(yColumns.close()[i]);
+            // x 当天无K线 (停牌) 时该日不参与计算
+            x[i] = matched ? Math.log(xColumns.close()[j]) : Double.NaN;
+        }
+        this.zScores = new double[y.length];
+        PairsScanner.rollingZScores(y, x, window, zScores);
+    }
+
+    @Override
+    public TradeSignal generateSignal(int index, BarSeries series, Portfolio portfolio) {
+        int i = index - beginIndex;
+        if (i < 1 || i >= zScores.length) {
+            return TradeSignal.HOLD;
+        }
+        double z = zScores[i];
+        double previous = zScores[i - 1];
+        if (Double.isNaN(z) || Double.isNaN(previous)) {
+            return TradeSignal.HOLD;
+        }
+        if (previous > -entryZ && z <= -entryZ) {
+            return TradeSignal.BUY;
+        } else if (previous < -exitZ && z >= -exitZ) {
+            return TradeSignal.SELL;
+        }
+        return TradeSignal.HOLD;
+    }
+
+    @Override
+    public String getName() {
+        return String.format("Pairs Trading vs %s (%d) [%.1f/%.1f] Strategy", hedgeName, window, entryZ, exitZ);
+    }
+
+    /**
+     * 与K线一一对应的价差 z-score，预热期和对冲腿缺失处为 NaN
+     */
+    public double[] getZScores() {
+        return zScores;
+    }
+}
@@ -0,0 +1,77 @@
+package com.twx.platform.strategy.impl;
+
+import com.twx.platform.common.TradeSignal;
+import com.twx.platform.data.BarColumns;
+import com.twx.platform.portfolio.Portfolio;
+import com.twx.platform.strategy.Strategy;
+import com.twx.platform.strategy.dsl.RuleCompiler;
+import com.twx.platform.strategy.dsl.RuleProgram;
+import org.ta4j.core.BarSeries;
+
+/**
+ * 由用户自定义规则表达式驱动的策略。
+ * 例如买入规则 "cross_up(sma(close,5), sma(close,20)) and rsi(close,14) &lt; 70"，
+ * 卖出规则 "cross_down(sma(close,5), sma(close,20))"。
+ * <p>
+ * 两条规则在构造时一起编译 (公共子表达式只算一次)，并一次性对整个序列求值，
+ * generateSignal 只需读取两个 double[] 中的对应位置。
+ */
+public class RuleStrategy implements Strategy {
+
+    private final String buyRule;
+    private final String sellRule;
+    private final int warmupPeriod;
+    private final double[] buySignals;
+    private final double[] sellSignals;
+    private final int beginIndex;
+
+    /**
+     * @param series   完整的历史数据序列
+     * @param buyRule  买入规则表达式
+     * @param sellRule 卖出规则表达式
+     */
+    public RuleStrategy(BarSeries series, String buyRule, String sellRule) {
+        this(series, BarColumns.of(series), RuleCompiler.compile(buyRule, sellRule), buyRule, sellRule);
+    }
+
+    /**
+     * 复用已编译的程序和已抽取的列数据，适合参数扫描等需要大量创建策略的场景。
+     * @param program 由 RuleCompiler.compile(buyRule, sellRule) 得到的程序
+     */
+    public RuleStrategy(BarSeries series, BarColumns columns, RuleProgram program, String buyRule, String sellRule) {
+        this.buyRule = buyRule;
+        this.sellRule = sellRule;
+        this.warmupPeriod = program.warmupPeriod();
+        this.beginIndex = Math.max(0, series.getBeginIndex());
+        double[][] results = program.evaluate(columns);
+        this.buySignals = results[0];
+        this.sellSignals = results[1];
+    }
+
+    @Override
+    public TradeSignal generateSignal(int index, BarSeries series, Portfolio portfolio) {
+        int i = index - beginIndex;
+        if (i < warmupPeriod || i >= buySignals.length) {
+            return TradeSignal.HOLD;
+        }
+        if (RuleProgram.truth(buySignals[i])) {
+            return TradeSignal.BUY;
+        } else if (RuleProgram.truth(sellSignals[i])) {
+            return TradeSignal.SELL;
+        }
+        return TradeSignal.HOLD;
+    }
+
+    @Override
+    public String getName() {
+        return String.format("Rule Strategy [买入: %s | 卖出: %s]", buyRule, sellRule);
+    }
+
+    public String getBuyRule() {
+        return buyRule;
+    }
+
+    public String getSellRule() {
+        return sellRule;
+    }
+}
@@ -0,0 +1,113 @@
+package com.twx.platform.ui;
+
+import com.twx.platform.metrics.Metric;
+import com.twx.platform.metrics.MetricSnapshot;
+import com.twx.platform.metrics.MetricsRegistry;
+import javafx.animation.KeyFrame;
+import javafx.animation.Timeline;
+import javafx.beans.property.SimpleStringProperty;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.control.Button;
+import javafx.scene.control.CheckBox;
+import javafx.scene.control.Label;
+import javafx.scene.control.TableColumn;
+import javafx.scene.control.TableRow;
+import javafx.scene.control.TableView;
+import javafx.scene.control.Tooltip;
+import javafx.scene.layout.BorderPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.Region;
+import javafx.util.Duration;
+
+import java.util.function.Function;
+
+/**
+ * 【新增】性能诊断面板：以表格显示 {@link MetricsRegistry} 中的全部指标，打开期间每秒刷新一次。
+ * 可以在这里打开 / 关闭统计和清零；面板打开后同样的数据也可以在 JConsole 的 com.twx.platform 下查看。
+ */
+public class DiagnosticsPanel extends BorderPane {
+
+    private final MetricsRegistry registry = MetricsRegistry.getInstance();
+    private final TableView<MetricSnapshot> table = new TableView<>();
+    private final Timeline refresher = new Timeline(new KeyFrame(Duration.seconds(1), e -> refresh()));
+
+    public DiagnosticsPanel() {
+        registry.exportToJmx();
+        CheckBox enabledCheck = new CheckBox("启用统计");
+        enabledCheck.setSelected(registry.isEnabled());
+        enabledCheck.selectedProperty().addListener((obs, ov, nv) -> registry.setEnabled(nv));
+        Button resetButton = new Button("清零");
+        resetButton.setOnAction(e -> {
+            registry.reset();
+            refresh();
+        });
+        Region spacer = new Region();
+        HBox.setHgrow(spacer, Priority.ALWAYS);
+        Label hint = new Label("关闭时几乎没有开销；计时器的分位数为直方图估计值");
+        HBox toolbar = new HBox(10, enabledCheck, resetButton, spacer, hint);
+        toolbar.setAlignment(Pos.CENTER_LEFT);
+        toolbar.setPadding(new Insets(0, 0, 10, 0));
+        setTop(toolbar);
+
+        table.getColumns().add(column("指标", 170, MetricSnapshot::name));
+        table.getColumns().add(column("次数", 70, s -> s.kind() == Metric.Kind.GAUGE ? "" : String.valueOf(s.count())));
+        table.getColumns().add(column("当前值", 80, s -> s.kind() == Metric.Kind.GAUGE ? format(s.value()) : ""));
+        table.getColumns().add(column("平均 ms", 70, s -> timerValue(s, s.meanMillis())));
+        table.getColumns().add(column("p50 ms", 70, s -> timerValue(s, s.p50Millis())));
+        table.getColumns().add(column("p95 ms", 70, s -> timerValue(s, s.p95Millis())));
+        table.getColumns().add(column("p99 ms", 70, s -> timerValue(s, s.p99Millis())));
+        table.getColumns().add(column("最长 ms", 70, s -> timerValue(s, s.maxMillis())));
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
+        table.setPlaceholder(new Label("暂无指标"));
+        // 鼠标悬停显示指标说明
+        table.setRowFactory(view -> new TableRow<>() {
+            @Override
+            protected void updateItem(MetricSnapshot item, boolean empty) {
+                super.updateItem(item, empty);
+                setTooltip(empty || item == null || item.description().isEmpty() ? null : new Tooltip(item.description()));
+            }
+        });
+        setCenter(table);
+
+        refresher.setCycleCount(Timeline.INDEFINITE);
+        setPrefSize(760, 460);
+        refresh();
+    }
+
+    /**
+     * 开始定时刷新，面板显示时调用
+     */
+    public void start() {
+        refresh();
+        refresher.play();
+    }
+
+    /**
+     * 停止定时刷新，面板关闭时调用
+     */
+    public void stop() {
+        refresher.stop();
+    }
+
+    private void refresh() {
+        table.getItems().setAll(registry.snapshot());
+    }
+
+    private static TableColumn<MetricSnapshot, String> column(String title, double width, Function<MetricSnapshot, String> value) {
+        TableColumn<MetricSnapshot, String> column = new TableColumn<>(title);
+        column.setPrefWidth(width);
+        column.setSortable(false);
+        column.setCellValueFactory(cell -> new SimpleStringProperty(value.apply(cell.getValue())));
+        return column;
+    }
+
+    private static String timerValue(MetricSnapshot snapshot, double millis) {
+        return snapshot.kind() == Metric.Kind.TIMER && snapshot.count() > 0 ? format(millis) : "";
+    }
+
+    private static String format(double value) {
+        return Double.isNaN(value) ? "-" : String.format("%,.2f", value);
+    }
+}
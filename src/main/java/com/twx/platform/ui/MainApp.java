@@ -1,16 +1,30 @@
 package com.twx.platform.ui;
 
+import com.twx.platform.metrics.MetricsRegistry;
+import javafx.animation.AnimationTimer;
 import javafx.application.Application;
+import javafx.application.Platform;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.Parent;
 import javafx.scene.Scene;
 // ★ 1. 导入Image类
 import javafx.stage.Stage;
 
+import java.io.FileDescriptor;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
 
 public class MainApp extends Application {
 
+    /**
+     * 【新增】设置为 true 时，主窗口首次绘制完成后立即退出。
+     * 用于 appcds 构建配置生成 AppCDS 归档，只记录启动阶段加载的类。
+     */
+    private static final String EXIT_AFTER_SHOWN = "quant.startup.exitAfterShown";
+
     @Override
     public void start(Stage stage) throws IOException {
         FXMLLoader fxmlLoader = new FXMLLoader(MainApp.class.getResource("main-view.fxml"));
@@ -24,9 +38,37 @@ public class MainApp extends Application {
         stage.setTitle("专业量化交易回测平台");
         stage.setScene(scene);
         stage.show();
+        reportWhenFirstFrameRendered(controller);
+    }
+
+    /**
+     * 【新增】在主窗口的第一帧绘制完成后把启动耗时 (从 JVM 启动算起) 记录为仪表 startup.interactive，
+     * 随后才开始空闲预加载，避免预加载与首屏争抢资源。
+     */
+    private void reportWhenFirstFrameRendered(UIController controller) {
+        new AnimationTimer() {
+            private int frames;
+
+            @Override
+            public void handle(long now) {
+                // 第一个脉冲负责布局和绘制，到第二个脉冲时窗口已经可以交互
+                if (++frames < 2) return;
+                stop();
+                long elapsed = System.currentTimeMillis() - ManagementFactory.getRuntimeMXBean().getStartTime();
+                MetricsRegistry.getInstance().gauge("startup.interactive", "主窗口可交互耗时 ms (从 JVM 启动算起)", () -> elapsed);
+                if (Boolean.getBoolean(EXIT_AFTER_SHOWN)) {
+                    Platform.exit();
+                    return;
+                }
+                controller.preloadWhenIdle();
+            }
+        }.start();
     }
 
     public static void main(String[] args) {
+        // 乱码设置：控制台输出统一使用 UTF-8，进程启动时设置一次
+        System.setOut(new PrintStream(new FileOutputStream(FileDescriptor.out), true, StandardCharsets.UTF_8));
+        System.setErr(new PrintStream(new FileOutputStream(FileDescriptor.err), true, StandardCharsets.UTF_8));
         launch(args);
     }
-}
\ No newline at end of file
+}
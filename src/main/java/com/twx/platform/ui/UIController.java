@@ -2,21 +2,35 @@
 package com.twx.platform.ui;
 
 import com.twx.platform.ai.AIAssistant;
+import com.twx.platform.ai.MarkdownView;
+import com.twx.platform.analysis.CanvasFinancialChart;
+import com.twx.platform.analysis.ChartView;
 import com.twx.platform.analysis.FinancialChart;
+import com.twx.platform.analysis.IndicatorCache;
+import com.twx.platform.analysis.IndicatorCache.IndicatorSpec;
+import com.twx.platform.analysis.chart.TradeMarkerDataset;
 import com.twx.platform.analysis.impl.*;
 import com.twx.platform.common.*;
+import com.twx.platform.data.BarColumns;
+import com.twx.platform.data.FetchResult;
 import com.twx.platform.data.impl.DataProvider;
+import com.twx.platform.data.impl.PreloadedDataProvider;
 import com.twx.platform.engine.BacktestEngine;
 import com.twx.platform.engine.BacktestResult;
+import com.twx.platform.metrics.MetricsRegistry;
+import com.twx.platform.metrics.Timer;
 import com.twx.platform.portfolio.Portfolio;
 import com.twx.platform.portfolio.impl.BasicPortfolio;
 import com.twx.platform.position.PositionSizer;
 import com.twx.platform.position.impl.*;
+import com.twx.platform.risk.RiskManager;
+import com.twx.platform.risk.impl.StandardRiskManager;
 import com.twx.platform.strategy.Strategy;
 import com.twx.platform.strategy.impl.BollingerBandsStrategy;
 import com.twx.platform.strategy.impl.MACDStrategy;
 import com.twx.platform.strategy.impl.MovingAverageCrossStrategy;
 import com.twx.platform.strategy.impl.RsiStrategy;
+import com.twx.platform.strategy.impl.RuleStrategy;
 import javafx.application.Platform;
 import javafx.beans.property.SimpleDoubleProperty;
 import javafx.beans.property.SimpleObjectProperty;
@@ -36,18 +50,20 @@ import javafx.scene.control.TextField;
 import javafx.scene.layout.*;
 import javafx.scene.Node;
 import javafx.scene.control.*;
+import javafx.scene.web.WebView;
+import javafx.stage.Modality;
 import javafx.stage.Stage;
-import org.jfree.chart.annotations.XYPointerAnnotation;
 import org.jfree.data.xy.XYDataset;
-import org.jfree.chart.ui.TextAnchor;
 import org.ta4j.core.BarSeries;
 
-import java.awt.*;
 import java.io.IOException;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.*;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.stream.Stream;
 
 public class UIController {
@@ -67,11 +83,13 @@ public class UIController {
     @FXML private TextField rsiPeriod1Field, rsiPeriod2Field, rsiPeriod3Field;
     // 【修改】使用 BorderPane 替换 LineChart
     @FXML private BorderPane chartPane;
+    @FXML private Label taskStatusLabel;
 
 
     // --- 动态加载的面板及其内部控件 ---
     private BorderPane mainArea;
-    private AIAssistant aiAssistantPanel;
+    private AIAssistant aiAssistantPanel; // 【修改】第一次打开 (或空闲预加载) 时才创建
+    private Strategy lastStrategy;
     private Node chartSettingsPanel, resultsPanel, strategySettingsPanel;
 
     // 图表显示相关的 CheckBox
@@ -84,21 +102,32 @@ public class UIController {
     // 策略面板中的控件
     private RadioButton strategyRadioMA;
     private TextField strategyShortMaField, strategyLongMaField, strategyRsiPeriodField, strategyBbandsPeriodField;
+    private TextArea strategyBuyRuleField, strategySellRuleField;
+    private TextField riskStopLossField, riskTakeProfitField, riskTrailingStopField, riskMaxExposureField, riskMaxDrawdownField;
     private Map<String, Node> strategyParamsPanes;
 
     // --- 内部状态和常量 ---
     private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final Timer CHART_LOAD_TIMER = MetricsRegistry.getInstance().timer("chart.load", "准备K线数据集 (后台线程)");
+    private static final Timer CHART_REDRAW_TIMER = MetricsRegistry.getInstance().timer("chart.redraw", "重新设置图表数据集 (FX 线程)");
     private BacktestResult lastBacktestResult;
+    private RiskManager lastRiskManager = RiskManager.NONE;
 
     // 【新增】JFreeChart 图表辅助类和数据缓存
-    private FinancialChart financialChart;
-    private final Map<String, List<XYDataset>> indicatorDatasetMap = new HashMap<>();
+    private ChartView financialChart;
     private XYDataset candlestickDataset;
+    // 【新增】指标按参数增量计算，只算可见的指标，需要重算的指标在调度器的计算线程池上并行执行
+    private final IndicatorCache indicatorCache = new IndicatorCache(
+            TaskScheduler.getInstance().executor("指标计算", TaskScheduler.Kind.CPU, TaskScheduler.Priority.INTERACTIVE));
+    // 【新增】合并任务状态刷新，避免任务频繁变化时塞满 FX 事件队列
+    private final AtomicBoolean taskStatusRefreshPending = new AtomicBoolean();
 
 
     private static final String SIZER_CASH_PERCENT = "按资金百分比";
     private static final String SIZER_FIXED_QTY = "按固定股数";
     private static final String SIZER_FIXED_CASH = "按固定资金";
+    private static final String SIZER_VOL_TARGET = "按波动率目标";
+    private static final String SIZER_KELLY = "按凯利公式";
 
     private boolean isChartPopulated = false;
     private String selectedStrategy = "MovingAverageCrossStrategy";
@@ -114,9 +143,11 @@ public class UIController {
         startDatePicker.setValue(LocalDate.of(2024, 1, 1));
         endDatePicker.setValue(LocalDate.now());
 
-        // 【新增】初始化 JFreeChart
-        this.financialChart = new FinancialChart("金融量化分析", isDarkMode());
-        this.chartPane.setCenter(this.financialChart.getChartViewer());
+        // 【修改】按配置选择 JFreeChart 或 Canvas 图表
+        this.financialChart = createChartView(ConfigurationManager.getInstance().isCanvasChartEnabled());
+        this.chartPane.setCenter(this.financialChart.getNode());
+
+        TaskScheduler.getInstance().addListener(this::scheduleTaskStatusRefresh);
 
         loadDynamicPanels();
         createMenuBar();
@@ -124,6 +155,49 @@ public class UIController {
         initializePositionSizerControls();
     }
 
+    private ChartView createChartView(boolean canvas) {
+        return canvas ? new CanvasFinancialChart(isDarkMode()) : new FinancialChart("金融量化分析", isDarkMode());
+    }
+
+    /**
+     * 【新增】切换图表实现并用当前缓存的数据重绘
+     */
+    private void switchChartView(boolean canvas) {
+        ConfigurationManager.getInstance().setCanvasChartEnabled(canvas);
+        // 旧图表的帧定时器和后台线程必须停掉，否则每切换一次就泄漏一个图表
+        financialChart.dispose();
+        financialChart = createChartView(canvas);
+        chartPane.setCenter(financialChart.getNode());
+        redrawChart();
+    }
+
+    private void scheduleTaskStatusRefresh() {
+        if (taskStatusRefreshPending.compareAndSet(false, true)) {
+            Platform.runLater(this::refreshTaskStatus);
+        }
+    }
+
+    /**
+     * 【新增】在状态栏显示运行中和排队中的后台任务，鼠标悬停可查看完整列表
+     */
+    private void refreshTaskStatus() {
+        taskStatusRefreshPending.set(false);
+        if (taskStatusLabel == null) return;
+        List<TaskScheduler.TaskInfo> infos = TaskScheduler.getInstance().snapshot();
+        if (infos.isEmpty()) {
+            taskStatusLabel.setText("");
+            taskStatusLabel.setTooltip(null);
+            return;
+        }
+        long running = infos.stream().filter(t -> t.state() == TaskScheduler.State.RUNNING).count();
+        StringBuilder details = new StringBuilder();
+        for (TaskScheduler.TaskInfo info : infos) {
+            details.append(info.state() == TaskScheduler.State.RUNNING ? "[运行中] " : "[排队中] ").append(info.name()).append('\n');
+        }
+        taskStatusLabel.setText(String.format("运行中 %d · 排队 %d  %s", running, infos.size() - running, infos.get(0).name()));
+        taskStatusLabel.setTooltip(new Tooltip(details.toString().trim()));
+    }
+
     @FXML
     private void handleResetChartView() {
         if (financialChart != null) {
@@ -141,33 +215,43 @@ public class UIController {
         if (summaryArea != null) summaryArea.setText("正在运行回测，请稍候...");
         if (tradeLogTable != null) tradeLogTable.getItems().clear();
 
-        new Thread(() -> {
+        String symbol = tickerField.getText();
+        Ticker ticker = new Ticker(symbol);
+        LocalDate startDate = startDatePicker.getValue();
+        LocalDate endDate = endDatePicker.getValue();
+        TaskScheduler scheduler = TaskScheduler.getInstance();
+        // 【修改】下载放在 IO 线程池，下载完成后再把计算交给 CPU 线程池，避免网络等待占用计算线程。
+        // 两个阶段使用同一个 key，取消 "backtest" 时无论处在哪个阶段都会生效
+        scheduler.submit("backtest", "下载行情 " + symbol, TaskScheduler.Kind.IO, TaskScheduler.Priority.INTERACTIVE,
+                () -> new DataProvider().fetchHistoricalData(ticker, startDate, endDate, TimeFrame.DAILY)
+        ).thenCompose(fetched -> scheduler.submit("backtest", "回测 " + symbol, TaskScheduler.Kind.CPU, TaskScheduler.Priority.INTERACTIVE, () -> {
             try {
-                com.twx.platform.data.DataProvider dataProvider = new DataProvider();
-                Ticker ticker = new Ticker(tickerField.getText());
-                LocalDate startDate = startDatePicker.getValue();
-                LocalDate endDate = endDatePicker.getValue();
-                BarSeries series = dataProvider.getHistoricalData(ticker, startDate, endDate, TimeFrame.DAILY);
-
-                if (series == null || series.isEmpty()) {
-                    Platform.runLater(() -> { if (summaryArea != null) summaryArea.setText("无法获取'" + ticker.symbol() + "'的数据。"); });
+                // 【修改】区分网络故障、熔断、代码错误和区间内无数据，给出具体原因
+                if (fetched instanceof FetchResult.Failure<BarSeries> failure) {
+                    String hint = failure.isTransient() ? "\n数据源暂时不可用，请稍后重试。" : "";
+                    Platform.runLater(() -> { if (summaryArea != null) summaryArea.setText("无法获取'" + ticker.symbol() + "'的数据 (" + failure + ")。" + hint); });
                     return;
                 }
+                BarSeries series = fetched.orElse(null);
 
                 Portfolio portfolio = new BasicPortfolio(Double.parseDouble(initialCashField.getText()), 0.0003);
                 Strategy strategy = createStrategy(series);
                 if (strategy == null) return;
 
-                BacktestEngine engine = new BacktestEngine(dataProvider, ticker, startDate, endDate, TimeFrame.DAILY);
-                lastBacktestResult = engine.run(strategy, portfolio, createPositionSizerFromUI());
+                RiskManager riskManager = createRiskLimitsFromUI().newManager();
+                BacktestEngine engine = new BacktestEngine(new PreloadedDataProvider(series), ticker, startDate, endDate, TimeFrame.DAILY);
+                lastBacktestResult = engine.run(strategy, portfolio, createPositionSizerFromUI(), riskManager);
+                lastRiskManager = riskManager;
 
-                // 【修改】调用新的数据缓存方法
-                cacheAllChartData(lastBacktestResult.series());
+                // 【修改】只在后台准备K线数据，指标在首次绘制时按需计算
+                XYDataset candles = loadChartData(lastBacktestResult.series());
 
                 Platform.runLater(() -> {
+                    candlestickDataset = candles;
                     // 【修改】调用新的图表绘制方法
                     populateChartFirstTime();
                     updateSummaryAndLog(lastBacktestResult);
+                    lastStrategy = strategy;
                     if (aiAssistantPanel != null) {
                         aiAssistantPanel.updateAnalysisContext(lastBacktestResult, strategy);
                     }
@@ -175,42 +259,72 @@ public class UIController {
             } catch (Exception e) {
                 e.printStackTrace();
                 Platform.runLater(() -> { if (summaryArea != null) summaryArea.setText("发生错误: \n" + e.getMessage()); });
-            } finally {
-                Platform.runLater(() -> runButton.setDisable(false));
             }
-        }).start();
+        })).whenComplete((result, error) -> Platform.runLater(() -> {
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (cause != null && !(cause instanceof CancellationException) && summaryArea != null) {
+                summaryArea.setText("发生错误: \n" + cause.getMessage());
+            }
+            runButton.setDisable(false);
+        }));
     }
 
     // ... createStrategy 方法保持不变 ...
 
     /**
-     * 【重写】缓存所有适用于 JFreeChart 的图表数据
+     * 【重写】抽取一次列数据供K线和所有指标共享，并让指标缓存切换到新数据 (旧的指标结果全部失效)。
+     * @return K线数据集
      */
-    private void cacheAllChartData(BarSeries series) {
-        indicatorDatasetMap.clear();
-        candlestickDataset = null;
-
-        // K线图数据
-        CandlestickChartTechnique candlestickTechnique = new CandlestickChartTechnique();
-        List<XYDataset> candlestickData = candlestickTechnique.calculate(series);
-        if (!candlestickData.isEmpty()) {
-            candlestickDataset = candlestickData.get(0);
-        }
+    private XYDataset loadChartData(BarSeries series) {
+        long timing = CHART_LOAD_TIMER.start();
+        BarColumns columns = BarColumns.of(series);
+        indicatorCache.setColumns(columns);
+        List<XYDataset> candlestickData = new CandlestickChartTechnique().calculate(columns);
+        CHART_LOAD_TIMER.stop(timing);
+        return candlestickData.isEmpty() ? null : candlestickData.get(0);
+    }
 
+    /**
+     * 【新增】按当前参数刷新可见的指标：参数没变的直接复用，变了的在线程池上并行重算，完成后重绘图表。
+     * 用户连续修改参数时，被取代的计算结果会被丢弃。
+     */
+    private void refreshIndicators() {
+        if (!isChartPopulated) return;
+        List<IndicatorSpec> specs = new ArrayList<>();
         try {
-            int shortMa = Integer.parseInt(strategyShortMaField.getText());
-            int longMa = Integer.parseInt(strategyLongMaField.getText());
-            int rsiPeriod = Integer.parseInt(strategyRsiPeriodField.getText());
-            int bbandsPeriod = Integer.parseInt(strategyBbandsPeriodField.getText());
-
-            indicatorDatasetMap.put("MA", new MovingAverageTechnique(shortMa, longMa).calculate(series));
-            indicatorDatasetMap.put("MACD", new MacdTechnique(12, 26, 9).calculate(series));
-            indicatorDatasetMap.put("RSI", new RsiTechnique(rsiPeriod).calculate(series));
-            indicatorDatasetMap.put("BB", new BollingerBandsTechnique(bbandsPeriod, 2.0).calculate(series));
-
+            if (showMaCheck.isSelected()) {
+                int shortMa = Integer.parseInt(strategyShortMaField.getText());
+                int longMa = Integer.parseInt(strategyLongMaField.getText());
+                specs.add(new IndicatorSpec("MA", List.of(shortMa, longMa), () -> new MovingAverageTechnique(shortMa, longMa)));
+            }
+            if (showMacdCheck.isSelected()) {
+                specs.add(new IndicatorSpec("MACD", List.of(12, 26, 9), () -> new MacdTechnique(12, 26, 9)));
+            }
+            if (showRsiCheck.isSelected()) {
+                int rsiPeriod = Integer.parseInt(strategyRsiPeriodField.getText());
+                specs.add(new IndicatorSpec("RSI", List.of(rsiPeriod), () -> new RsiTechnique(rsiPeriod)));
+            }
+            if (showBbCheck.isSelected()) {
+                int bbandsPeriod = Integer.parseInt(strategyBbandsPeriodField.getText());
+                specs.add(new IndicatorSpec("BB", List.of(bbandsPeriod, 2.0), () -> new BollingerBandsTechnique(bbandsPeriod, 2.0)));
+            }
         } catch (NumberFormatException e) {
-            Platform.runLater(() -> new Alert(Alert.AlertType.WARNING, "图表指标参数无效，请检查策略设置面板。").showAndWait());
+            new Alert(Alert.AlertType.WARNING, "图表指标参数无效，请检查策略设置面板。").show();
+            return;
         }
+
+        indicatorCache.refresh(specs).whenComplete((datasets, error) -> {
+            Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+            if (cause instanceof CancellationException) {
+                return; // 已被更新的请求取代，由新的请求负责重绘
+            }
+            if (cause != null) {
+                cause.printStackTrace();
+                Platform.runLater(() -> new Alert(Alert.AlertType.ERROR, "更新指标时出错: " + cause.getMessage()).show());
+                return;
+            }
+            Platform.runLater(this::redrawChart);
+        });
     }
 
     private void initializeChartSettingsControls(Map<String, Object> namespace) {
@@ -222,7 +336,11 @@ public class UIController {
         showCandlestickCheck.setSelected(true);
 
         Stream.of(showCandlestickCheck, showMaCheck, showMacdCheck, showRsiCheck, showBbCheck)
-                .forEach(cb -> cb.selectedProperty().addListener((obs, ov, nv) -> redrawChart()));
+                .forEach(cb -> cb.selectedProperty().addListener((obs, ov, nv) -> {
+                    // 先立即按已有数据重绘，刚显示的指标计算完成后再补上
+                    redrawChart();
+                    refreshIndicators();
+                }));
     }
 
     // 在 UIController.java 文件中
@@ -230,6 +348,7 @@ public class UIController {
     private void redrawChart() {
         if (!isChartPopulated) return;
 
+        long timing = CHART_REDRAW_TIMER.start();
         financialChart.setNotify(false);
 
         try {
@@ -241,29 +360,29 @@ public class UIController {
             }
 
             // 均线
-            if (showMaCheck.isSelected() && indicatorDatasetMap.containsKey("MA")) {
-                financialChart.setMaDataset(indicatorDatasetMap.get("MA").get(0));
+            if (showMaCheck.isSelected() && indicatorCache.get("MA") != null) {
+                financialChart.setMaDataset(indicatorCache.get("MA").get(0));
             } else {
                 financialChart.setMaDataset(null);
             }
 
             // 布林带
-            if (showBbCheck.isSelected() && indicatorDatasetMap.containsKey("BB")) {
-                financialChart.setBollingerBandsDataset(indicatorDatasetMap.get("BB").get(0));
+            if (showBbCheck.isSelected() && indicatorCache.get("BB") != null) {
+                financialChart.setBollingerBandsDataset(indicatorCache.get("BB").get(0));
             } else {
                 financialChart.setBollingerBandsDataset(null);
             }
 
             // 【修改】调用新的方法来显示或隐藏RSI子图
-            if (showRsiCheck.isSelected() && indicatorDatasetMap.containsKey("RSI")) {
+            if (showRsiCheck.isSelected() && indicatorCache.get("RSI") != null) {
                 // 假设RSI的calculate方法返回的List中只有一个Dataset
-                financialChart.setRsiDataset(indicatorDatasetMap.get("RSI").get(0));
+                financialChart.setRsiDataset(indicatorCache.get("RSI").get(0));
             }
 
             // 【修改】调用新的方法来显示或隐藏MACD子图
-            if (showMacdCheck.isSelected() && indicatorDatasetMap.containsKey("MACD")) {
+            if (showMacdCheck.isSelected() && indicatorCache.get("MACD") != null) {
                 // 假设MACD的calculate方法返回的List中只有一个Dataset
-                financialChart.setMacdDataset(indicatorDatasetMap.get("MACD").get(0));
+                financialChart.setMacdDataset(indicatorCache.get("MACD").get(0));
             }
 
             // 交易信号
@@ -271,39 +390,16 @@ public class UIController {
 
         } finally {
             financialChart.setNotify(true);
+            CHART_REDRAW_TIMER.stop(timing);
         }
     }
 
     private void updateTradeSignalsOnChart() {
         if (lastBacktestResult != null && !lastBacktestResult.executedOrders().isEmpty()) {
-            for (Order order : lastBacktestResult.executedOrders()) {
-                // 【重要修复】LocalDateTime.toInstant() 需要一个时区参数
-                long time = order.timestamp().toInstant().toEpochMilli();
-                double price = order.price();
-                boolean isBuy = order.signal() == TradeSignal.BUY;
-
-                String label = isBuy ? "B" : "S";
-                Color color = isBuy ? new Color(220, 20, 60) : new Color(0, 128, 0);
-
-                XYPointerAnnotation annotation = new XYPointerAnnotation(label, time, price, -Math.PI / 2.0);
-
-                // --- 【核心新增代码】 ---
-                // 1. 创建一个新的字体对象：SansSerif, 粗体, 14号字
-                //    您可以根据需要调整字号大小，例如 16 或 18
-                Font labelFont = new Font("SansSerif", Font.BOLD, 16);
-                // 2. 将这个字体应用到注解上
-                annotation.setFont(labelFont);
-                // --- 【新增代码结束】 ---
-
-                annotation.setBaseRadius(35.0);
-                annotation.setTipRadius(10.0);
-                annotation.setArrowPaint(color);
-                annotation.setLabelOffset(15.0);
-                annotation.setPaint(color);
-                annotation.setTextAnchor(TextAnchor.HALF_ASCENT_CENTER);
-
-                financialChart.addTradeSignalAnnotation(annotation);
-            }
+            // 【修改】所有成交作为一个数据集交给标记层绘制，不再为每笔成交创建一个注解
+            financialChart.setTradeMarkers(TradeMarkerDataset.of(lastBacktestResult.executedOrders()));
+        } else {
+            financialChart.setTradeMarkers(null);
         }
     }
 
@@ -311,6 +407,7 @@ public class UIController {
         if (lastBacktestResult == null) return;
         isChartPopulated = true;
         redrawChart();
+        refreshIndicators();
     }
 
     /// 在 UIController.java 中添加这个新方法
@@ -322,18 +419,8 @@ public class UIController {
             return;
         }
 
-        // 在后台线程中重新计算指标，避免UI卡顿
-        new Thread(() -> {
-            try {
-                // 使用最后一次回测的 BarSeries 重新计算所有图表数据
-                cacheAllChartData(lastBacktestResult.series());
-                // 在UI线程上重绘图表
-                Platform.runLater(this::redrawChart);
-            } catch (Exception e) {
-                e.printStackTrace();
-                Platform.runLater(() -> new Alert(Alert.AlertType.ERROR, "更新指标时出错: " + e.getMessage()).show());
-            }
-        }).start();
+        // 【修改】只重算参数变化了的可见指标，不再每次点击都新开线程全部重算
+        refreshIndicators();
     }
     private void createMenuBar() {
         // --- 文件 (F) ---
@@ -367,7 +454,10 @@ public class UIController {
         showRsiMenuItem.selectedProperty().bindBidirectional(showRsiCheck.selectedProperty());
         showBbMenuItem.selectedProperty().bindBidirectional(showBbCheck.selectedProperty());
         indicatorsMenu.getItems().addAll(showCandlestickMenuItem, showMaMenuItem, showMacdMenuItem, showRsiMenuItem, showBbMenuItem);
-        viewMenu.getItems().add(indicatorsMenu);
+        CheckMenuItem canvasChartItem = new CheckMenuItem("高性能图表 (Canvas)");
+        canvasChartItem.setSelected(ConfigurationManager.getInstance().isCanvasChartEnabled());
+        canvasChartItem.selectedProperty().addListener((obs, ov, nv) -> switchChartView(nv));
+        viewMenu.getItems().addAll(indicatorsMenu, new SeparatorMenuItem(), canvasChartItem);
 
         // --- 策略 (S) ---
         Menu strategyMenu = new Menu("策略(_S)");
@@ -393,9 +483,10 @@ public class UIController {
         RadioMenuItem rsiStrategyItem = createRadioMenuItem("RSI策略", "RsiStrategy", menuStrategyGroup, false);
         RadioMenuItem bollingerStrategyItem = createRadioMenuItem("布林带策略", "BollingerBandsStrategy", menuStrategyGroup, false);
         RadioMenuItem macdStrategyItem = createRadioMenuItem("MACD策略", "MACDStrategy", menuStrategyGroup, false);
+        RadioMenuItem ruleStrategyItem = createRadioMenuItem("自定义规则策略", "RuleStrategy", menuStrategyGroup, false);
 
         strategyMenu.getItems().addAll(
-                maCrossStrategyItem, rsiStrategyItem, bollingerStrategyItem, macdStrategyItem,
+                maCrossStrategyItem, rsiStrategyItem, bollingerStrategyItem, macdStrategyItem, ruleStrategyItem,
                 new SeparatorMenuItem(),
                 createMenuItem("配置策略参数...", e -> showStrategyParamsDialog())
         );
@@ -437,6 +528,7 @@ public class UIController {
 
         toolsMenu.getItems().addAll(
                 createMenuItem("设置 API Key...", e -> showApiKeyDialog()),
+                createMenuItem("性能诊断...", e -> showDiagnosticsDialog()),
                 themeToggle
         );
 
@@ -450,9 +542,38 @@ public class UIController {
         return rootPane.getStyleClass().contains("theme-dark");
     }
 
+    /**
+     * 【新增】按需创建 AI 助手面板 (含 WebView 和 flexmark)，并补上创建之前的回测上下文
+     */
+    private AIAssistant getAiAssistantPanel() {
+        if (aiAssistantPanel == null) {
+            aiAssistantPanel = new AIAssistant();
+            aiAssistantPanel.getStyleClass().add("ai-assistant-panel");
+            if (lastBacktestResult != null) {
+                aiAssistantPanel.updateAnalysisContext(lastBacktestResult, lastStrategy);
+            }
+        }
+        return aiAssistantPanel;
+    }
+
+    /**
+     * 【新增】主窗口显示后，在空闲的后台线程上预加载 AI 助手的重量级依赖：
+     * 先在后台加载并预热 flexmark，再回到 FX 线程创建一个不显示的 WebView 完成 WebKit 初始化，最后创建面板本身。
+     * 用户在预加载完成前打开 AI 助手也没有问题，只是由那次操作承担初始化开销。
+     */
+    public void preloadWhenIdle() {
+        TaskScheduler.getInstance().submit("preload-ai", "预加载 AI 助手", TaskScheduler.Kind.CPU, TaskScheduler.Priority.BATCH, () -> {
+            MarkdownView.preload();
+            Platform.runLater(() -> {
+                new WebView();
+                getAiAssistantPanel();
+            });
+        });
+    }
+
     private void setupPanelToggles() {
         // 左侧和底部面板
-        aiAssistantToggle.selectedProperty().addListener((obs, ov, show) -> mainArea.setLeft(show ? aiAssistantPanel : null));
+        aiAssistantToggle.selectedProperty().addListener((obs, ov, show) -> mainArea.setLeft(show ? getAiAssistantPanel() : null));
         resultsToggle.selectedProperty().addListener((obs, ov, show) -> mainArea.setBottom(show ? resultsPanel : null));
 
         // 【核心修改】为右侧的两个 ToggleButton 创建一个 ToggleGroup 实现互斥
@@ -474,9 +595,6 @@ public class UIController {
 
     private void loadDynamicPanels() {
         try {
-            aiAssistantPanel = new AIAssistant();
-            aiAssistantPanel.getStyleClass().add("ai-assistant-panel");
-
             // --- 加载图表设置面板 ---
             FXMLLoader chartSettingsLoader = new FXMLLoader(getClass().getResource("chart-settings-panel.fxml"));
             chartSettingsPanel = chartSettingsLoader.load();
@@ -511,6 +629,9 @@ public class UIController {
                         Integer.parseInt(strategyBbandsPeriodField.getText()),
                         2.0);
                 case "MACDStrategy" -> new MACDStrategy(series, 12, 26, 9);
+                case "RuleStrategy" -> new RuleStrategy(series,
+                        strategyBuyRuleField.getText(),
+                        strategySellRuleField.getText());
                 default -> {
                     Platform.runLater(() -> { if (summaryArea != null) summaryArea.setText("未选择或不支持的策略。"); });
                     yield null;
@@ -531,34 +652,47 @@ public class UIController {
         RadioButton strategyRadioRSI = (RadioButton) namespace.get("strategyRadioRSI");
         RadioButton strategyRadioBB = (RadioButton) namespace.get("strategyRadioBB");
         RadioButton strategyRadioMACD = (RadioButton) namespace.get("strategyRadioMACD");
+        RadioButton strategyRadioRule = (RadioButton) namespace.get("strategyRadioRule");
 
         strategyShortMaField = (TextField) namespace.get("strategyShortMaField");
         strategyLongMaField = (TextField) namespace.get("strategyLongMaField");
         strategyRsiPeriodField = (TextField) namespace.get("strategyRsiPeriodField");
         strategyBbandsPeriodField = (TextField) namespace.get("strategyBbandsPeriodField");
+        strategyBuyRuleField = (TextArea) namespace.get("strategyBuyRuleField");
+        strategySellRuleField = (TextArea) namespace.get("strategySellRuleField");
+        riskStopLossField = (TextField) namespace.get("riskStopLossField");
+        riskTakeProfitField = (TextField) namespace.get("riskTakeProfitField");
+        riskTrailingStopField = (TextField) namespace.get("riskTrailingStopField");
+        riskMaxExposureField = (TextField) namespace.get("riskMaxExposureField");
+        riskMaxDrawdownField = (TextField) namespace.get("riskMaxDrawdownField");
 
         // 设置默认值
         strategyShortMaField.setText("10");
         strategyLongMaField.setText("30");
         strategyRsiPeriodField.setText("13");
         strategyBbandsPeriodField.setText("26");
+        strategyBuyRuleField.setText("cross_up(sma(close,5), sma(close,20)) and rsi(close,14) < 70");
+        strategySellRuleField.setText("cross_down(sma(close,5), sma(close,20))");
 
         strategyParamsPanes = new HashMap<>();
         strategyParamsPanes.put("MovingAverageCrossStrategy", (Node) namespace.get("maParamsPane"));
         strategyParamsPanes.put("RsiStrategy", (Node) namespace.get("rsiParamsPane"));
         strategyParamsPanes.put("BollingerBandsStrategy", (Node) namespace.get("bbandsParamsPane"));
         strategyParamsPanes.put("MACDStrategy", (Node) namespace.get("macdInfoPane"));
+        strategyParamsPanes.put("RuleStrategy", (Node) namespace.get("ruleParamsPane"));
 
         ToggleGroup panelStrategyGroup = new ToggleGroup();
         strategyRadioMA.setToggleGroup(panelStrategyGroup);
         strategyRadioRSI.setToggleGroup(panelStrategyGroup);
         strategyRadioBB.setToggleGroup(panelStrategyGroup);
         strategyRadioMACD.setToggleGroup(panelStrategyGroup);
+        strategyRadioRule.setToggleGroup(panelStrategyGroup);
 
         strategyRadioMA.setUserData("MovingAverageCrossStrategy");
         strategyRadioRSI.setUserData("RsiStrategy");
         strategyRadioBB.setUserData("BollingerBandsStrategy");
         strategyRadioMACD.setUserData("MACDStrategy");
+        strategyRadioRule.setUserData("RuleStrategy");
 
         panelStrategyGroup.selectedToggleProperty().addListener((obs, oldVal, newVal) -> {
             if (newVal == null) return;
@@ -649,6 +783,20 @@ public class UIController {
                 grid.add(new Label("信号线周期:"), 0, 2);
                 grid.add(new Label("9"), 1, 2);
                 break;
+            case "RuleStrategy":
+                dialog.setTitle("配置策略参数");
+                dialog.setHeaderText("自定义规则策略");
+                TextArea dialogBuyRuleField = new TextArea();
+                TextArea dialogSellRuleField = new TextArea();
+                dialogBuyRuleField.setPrefRowCount(2);
+                dialogSellRuleField.setPrefRowCount(2);
+                dialogBuyRuleField.textProperty().bindBidirectional(this.strategyBuyRuleField.textProperty());
+                dialogSellRuleField.textProperty().bindBidirectional(this.strategySellRuleField.textProperty());
+                grid.add(new Label("买入规则:"), 0, 0);
+                grid.add(dialogBuyRuleField, 1, 0);
+                grid.add(new Label("卖出规则:"), 0, 1);
+                grid.add(dialogSellRuleField, 1, 1);
+                break;
             default:
                 CustomDialog.show(stage, CustomDialog.DialogType.WARNING, "操作提示", "请先从'策略'菜单中选择一个策略。", isDarkMode());
                 return;
@@ -678,13 +826,15 @@ public class UIController {
     }
 
     private void initializePositionSizerControls() {
-        positionSizerComboBox.getItems().addAll(SIZER_CASH_PERCENT, SIZER_FIXED_QTY, SIZER_FIXED_CASH);
+        positionSizerComboBox.getItems().addAll(SIZER_CASH_PERCENT, SIZER_FIXED_QTY, SIZER_FIXED_CASH, SIZER_VOL_TARGET, SIZER_KELLY);
         positionSizerComboBox.getSelectionModel().selectedItemProperty().addListener((obs, ov, nv) -> {
             if (nv == null) return;
             switch (nv) {
                 case SIZER_CASH_PERCENT -> { sizerParamLabel.setText("资金比例(%):"); sizerParamField.setText("15.0"); }
                 case SIZER_FIXED_QTY -> { sizerParamLabel.setText("固定股数:"); sizerParamField.setText("100"); }
                 case SIZER_FIXED_CASH -> { sizerParamLabel.setText("固定资金:"); sizerParamField.setText("1000"); }
+                case SIZER_VOL_TARGET -> { sizerParamLabel.setText("单笔风险(%):"); sizerParamField.setText("1.0"); }
+                case SIZER_KELLY -> { sizerParamLabel.setText("凯利系数(%):"); sizerParamField.setText("50"); }
             }
         });
         positionSizerComboBox.getSelectionModel().selectFirst();
@@ -697,6 +847,9 @@ public class UIController {
                 case SIZER_CASH_PERCENT -> new CashPercentagePositionSizer(param / 100.0);
                 case SIZER_FIXED_QTY -> new FixedQuantityPositionSizer((int) param);
                 case SIZER_FIXED_CASH -> new FixedCashQuantityPositionSizer(param);
+                case SIZER_VOL_TARGET -> new VolatilityTargetPositionSizer(param / 100.0,
+                        VolatilityTargetPositionSizer.VolatilityMeasure.ATR, 14, 2.0);
+                case SIZER_KELLY -> new KellyPositionSizer(param / 100.0);
                 default -> new FixedQuantityPositionSizer(100);
             };
         } catch (NumberFormatException e) {
@@ -705,9 +858,37 @@ public class UIController {
         }
     }
 
+    /**
+     * 从策略面板读取风控参数 (百分比)，留空或填 0 表示不启用该项。
+     */
+    private StandardRiskManager.Limits createRiskLimitsFromUI() {
+        try {
+            return new StandardRiskManager.Limits(
+                    parsePercent(riskStopLossField),
+                    parsePercent(riskTakeProfitField),
+                    parsePercent(riskTrailingStopField),
+                    parsePercent(riskMaxExposureField),
+                    parsePercent(riskMaxDrawdownField));
+        } catch (IllegalArgumentException e) {
+            Platform.runLater(() -> { if (summaryArea != null) summaryArea.setText("风控参数无效，已禁用风控: " + e.getMessage()); });
+            return StandardRiskManager.Limits.none();
+        }
+    }
+
+    private double parsePercent(TextField field) {
+        if (field == null || field.getText() == null || field.getText().isBlank()) {
+            return 0;
+        }
+        return Double.parseDouble(field.getText().trim()) / 100.0;
+    }
+
     private void updateSummaryAndLog(BacktestResult result) {
         if (result.finalPortfolio() instanceof BasicPortfolio bp) {
             summaryArea.setText(bp.getSummary());
+            String riskSummary = lastRiskManager.getSummary();
+            if (!riskSummary.isEmpty()) {
+                summaryArea.appendText("\n" + riskSummary);
+            }
         }
         tradeLogTable.getItems().setAll(result.executedOrders());
     }
@@ -820,22 +1001,23 @@ public class UIController {
             resultsView.getItems().clear();
             resultsView.setPlaceholder(new Label("正在搜索..."));
 
-            new Thread(() -> {
-                try {
-                    com.twx.platform.data.DataProvider dataProvider = new DataProvider();
-                    List<com.twx.platform.data.DataProvider.StockSuggestion> results = dataProvider.searchStocks(keyword, selectedMarket);
-                    Platform.runLater(() -> {
-                        if (results.isEmpty()) {
-                            resultsView.setPlaceholder(new Label("未找到匹配的结果"));
-                        } else {
-                            resultsView.getItems().setAll(results);
-                        }
-                    });
-                } catch (Exception e) {
-                    e.printStackTrace();
-                    Platform.runLater(() -> resultsView.setPlaceholder(new Label("搜索出错: " + e.getMessage())));
-                }
-            }).start();
+            // 【修改】同一时间只保留最新的一次搜索，被取代的搜索结果直接丢弃
+            TaskScheduler.getInstance().submit("stock-search", "搜索股票 " + keyword, TaskScheduler.Kind.IO, TaskScheduler.Priority.INTERACTIVE,
+                    () -> new DataProvider().searchStocks(keyword, selectedMarket)
+            ).whenComplete((results, error) -> {
+                Throwable cause = error instanceof CompletionException ? error.getCause() : error;
+                if (cause instanceof CancellationException) return;
+                Platform.runLater(() -> {
+                    if (cause != null) {
+                        cause.printStackTrace();
+                        resultsView.setPlaceholder(new Label("搜索出错: " + cause.getMessage()));
+                    } else if (results.isEmpty()) {
+                        resultsView.setPlaceholder(new Label("未找到匹配的结果"));
+                    } else {
+                        resultsView.getItems().setAll(results);
+                    }
+                });
+            });
         };
 
         searchButton.setOnAction(e -> performSearch.run());
@@ -863,6 +1045,25 @@ public class UIController {
         result.ifPresent(stock -> tickerField.setText(stock.ticker()));
     }
 
+    /**
+     * 【新增】非模态的性能诊断窗口，打开期间每秒刷新指标，关闭后停止刷新
+     */
+    private void showDiagnosticsDialog() {
+        Dialog<Void> dialog = new Dialog<>();
+        dialog.setTitle("性能诊断");
+        dialog.setHeaderText("下载、解析、指标计算、回测循环、图表和 AI 对话的耗时统计");
+        dialog.initOwner(stage);
+        dialog.initModality(Modality.NONE);
+        dialog.setResizable(true);
+        dialog.getDialogPane().getButtonTypes().add(ButtonType.CLOSE);
+
+        DiagnosticsPanel panel = new DiagnosticsPanel();
+        dialog.getDialogPane().setContent(panel);
+        dialog.setOnShown(e -> panel.start());
+        dialog.setOnHidden(e -> panel.stop());
+        dialog.show();
+    }
+
     private void showAboutDialog() {
         String content = "版本: 1.2.0\n作者: twx\n\n一个基于JavaFX和ta4j的量化回测工具。";
         CustomDialog.show(stage, CustomDialog.DialogType.INFORMATION, "关于 金融量化分析平台", content, isDarkMode());
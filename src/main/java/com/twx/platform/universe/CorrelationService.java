@@ -0,0 +1,283 @@
+package com.twx.platform.universe;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+/**
+ * 股票池收益率的协方差 / 相关系数矩阵。
+ * <p>
+ * 收益率为对数收益率，按 UniversePanel 的共享日历对齐：某只股票在某日停牌 (无K线) 时当日收益记为 0，
+ * 复牌当天的收益率相对于停牌前最后一根K线计算，所以停牌期间的涨跌不会丢失。
+ * 这样所有股票的收益率都是等长的稠密向量，矩阵可以直接用分块的点积内核计算：
+ * 股票两两组合按 tile × tile 分块并行，日期方向再按 DATE_BLOCK 切段，
+ * 每个任务反复访问的数据都能留在 CPU 缓存里。
+ * <p>
+ * 构造完成后对象不可变，可以被多个线程同时使用；滚动窗口请使用 {@link #rolling(int)}。
+ */
+public class CorrelationService {
+
+    private static final int TILE = 64;
+    private static final int DATE_BLOCK = 512;
+
+    private final UniversePanel panel;
+    private final double[][] returns;
+
+    public CorrelationService(UniversePanel panel) {
+        this.panel = panel;
+        this.returns = new double[panel.tickerCount()][];
+        IntStream.range(0, panel.tickerCount()).parallel().forEach(t -> returns[t] = logReturns(panel, t));
+    }
+
+    private static double[] logReturns(UniversePanel panel, int t) {
+        double[] close = panel.columns(t).close();
+        int[] index = panel.calendarIndex(t);
+        double[] out = new double[panel.dateCount()];
+        for (int i = 1; i < close.length; i++) {
+            if (close[i] > 0 && close[i - 1] > 0) {
+                out[index[i]] = Math.log(close[i] / close[i - 1]);
+            }
+        }
+        return out;
+    }
+
+    public UniversePanel panel() {
+        return panel;
+    }
+
+    /**
+     * 对齐后的收益率矩阵 returns[ticker][date]，第一个交易日恒为 0。调用方不应修改。
+     */
+    public double[][] returns() {
+        return returns;
+    }
+
+    /**
+     * 全样本协方差矩阵
+     */
+    public double[][] covariance() {
+        return covariance(1, panel.dateCount());
+    }
+
+    /**
+     * 日期区间 [from, to) 上的样本协方差矩阵
+     */
+    public double[][] covariance(int from, int to) {
+        int n = to - from;
+        if (from < 0 || to > panel.dateCount() || n < 2) {
+            throw new IllegalArgumentException("协方差区间至少需要 2 个交易日");
+        }
+        int tickers = returns.length;
+        double[][] centered = new double[tickers][];
+        IntStream.range(0, tickers).parallel().forEach(t -> {
+            double[] row = Arrays.copyOfRange(returns[t], from, to);
+            double mean = 0;
+            for (double v : row) {
+                mean += v;
+            }
+            mean /= n;
+            for (int d = 0; d < n; d++) {
+                row[d] -= mean;
+            }
+            centered[t] = row;
+        });
+        double[][] matrix = crossProducts(centered, 0, n);
+        double scale = 1.0 / (n - 1);
+        IntStream.range(0, tickers).parallel().forEach(i -> {
+            for (int j = i; j < tickers; j++) {
+                matrix[i][j] *= scale;
+            }
+        });
+        mirror(matrix);
+        return matrix;
+    }
+
+    /**
+     * 全样本相关系数矩阵
+     */
+    public double[][] correlation() {
+        return toCorrelation(covariance());
+    }
+
+    /**
+     * 日期区间 [from, to) 上的相关系数矩阵
+     */
+    public double[][] correlation(int from, int to) {
+        return toCorrelation(covariance(from, to));
+    }
+
+    /**
+     * 创建一个从日历开头开始的滚动窗口，之后每次 advance 只做 O(N²) 的增量更新。
+     * @param window 窗口长度 (交易日)
+     */
+    public RollingCovariance rolling(int window) {
+        return new RollingCovariance(returns, window);
+    }
+
+    /**
+     * 把协方差矩阵原地转换为相关系数矩阵并返回。方差为 0 的股票 (全程停牌) 相关系数为 NaN。
+     */
+    public static double[][] toCorrelation(double[][] covariance) {
+        int n = covariance.length;
+        double[] stdev = new double[n];
+        for (int i = 0; i < n; i++) {
+            stdev[i] = Math.sqrt(covariance[i][i]);
+        }
+        IntStream.range(0, n).parallel().forEach(i -> {
+            double[] row = covariance[i];
+            for (int j = 0; j < n; j++) {
+                double denominator = stdev[i] * stdev[j];
+                row[j] = denominator > 0 ? row[j] / denominator : Double.NaN;
+            }
+        });
+        return covariance;
+    }
+
+    /**
+     * 分块计算 rows[i][from..to) 与 rows[j][from..to) 的点积，只填写上三角 (j >= i)。
+     */
+    static double[][] crossProducts(double[][] rows, int from, int to) {
+        int n = rows.length;
+        double[][] out = new double[n][n];
+        int tiles = (n + TILE - 1) / TILE;
+        IntStream.range(0, tiles * tiles).parallel().forEach(k -> {
+            int ti = k / tiles;
+            int tj = k % tiles;
+            if (tj < ti) {
+                return;
+            }
+            int iEnd = Math.min(n, (ti + 1) * TILE);
+            int jEnd = Math.min(n, (tj + 1) * TILE);
+            for (int d0 = from; d0 < to; d0 += DATE_BLOCK) {
+                int d1 = Math.min(to, d0 + DATE_BLOCK);
+                for (int i = ti * TILE; i < iEnd; i++) {
+                    double[] a = rows[i];
+                    double[] target = out[i];
+                    for (int j = Math.max(i, tj * TILE); j < jEnd; j++) {
+                        target[j] += dot(a, rows[j], d0, d1);
+                    }
+                }
+            }
+        });
+        return out;
+    }
+
+    private static double dot(double[] a, double[] b, int from, int to) {
+        // 四路累加，打断浮点加法的依赖链
+        double s0 = 0, s1 = 0, s2 = 0, s3 = 0;
+        int d = from;
+        for (; d + 3 < to; d += 4) {
+            s0 += a[d] * b[d];
+            s1 += a[d + 1] * b[d + 1];
+            s2 += a[d + 2] * b[d + 2];
+            s3 += a[d + 3] * b[d + 3];
+        }
+        for (; d < to; d++) {
+            s0 += a[d] * b[d];
+        }
+        return (s0 + s1) + (s2 + s3);
+    }
+
+    static void mirror(double[][] matrix) {
+        for (int i = 0; i < matrix.length; i++) {
+            for (int j = i + 1; j < matrix.length; j++) {
+                matrix[j][i] = matrix[i][j];
+            }
+        }
+    }
+
+    /**
+     * 滚动窗口协方差。维护窗口内每只股票的收益和与两两乘积和，
+     * 窗口前进一天只需加上新一天、减去移出那天的外积。本类不是线程安全的。
+     */
+    public static class RollingCovariance {
+
+        private final double[][] returns;
+        private final int window;
+        private final int tickers;
+        private final double[] sums;
+        private final double[][] products;
+        private int end;
+
+        private RollingCovariance(double[][] returns, int window) {
+            this.returns = returns;
+            this.window = window;
+            this.tickers = returns.length;
+            int dateCount = tickers == 0 ? 0 : returns[0].length;
+            if (window < 2 || window >= dateCount) {
+                throw new IllegalArgumentException("滚动窗口长度必须在 2 与交易日数量之间");
+            }
+            // 第一个交易日没有收益率，窗口从第二个交易日开始
+            this.end = 1 + window;
+            this.sums = new double[tickers];
+            for (int t = 0; t < tickers; t++) {
+                for (int d = 1; d < end; d++) {
+                    sums[t] += returns[t][d];
+                }
+            }
+            this.products = crossProducts(returns, 1, end);
+        }
+
+        /**
+         * 当前窗口的结束位置 (不含)，窗口为 [endIndex - window, endIndex)
+         */
+        public int endIndex() {
+            return end;
+        }
+
+        public boolean hasNext() {
+            return end < returns[0].length;
+        }
+
+        /**
+         * 窗口向后移动一个交易日。
+         */
+        public void advance() {
+            if (!hasNext()) {
+                throw new IllegalStateException("滚动窗口已到达日历末尾");
+            }
+            int added = end;
+            int removed = end - window;
+            double[] in = new double[tickers];
+            double[] out = new double[tickers];
+            for (int t = 0; t < tickers; t++) {
+                in[t] = returns[t][added];
+                out[t] = returns[t][removed];
+                sums[t] += in[t] - out[t];
+            }
+            IntStream.range(0, tickers).parallel().forEach(i -> {
+                double[] row = products[i];
+                double a = in[i];
+                double b = out[i];
+                for (int j = i; j < tickers; j++) {
+                    row[j] += a * in[j] - b * out[j];
+                }
+            });
+            end++;
+        }
+
+        /**
+         * 当前窗口的样本协方差矩阵 (新分配的快照)
+         */
+        public double[][] covariance() {
+            double[][] matrix = new double[tickers][tickers];
+            double scale = 1.0 / (window - 1);
+            IntStream.range(0, tickers).parallel().forEach(i -> {
+                double[] row = products[i];
+                double[] target = matrix[i];
+                double meanI = sums[i] / window;
+                for (int j = i; j < tickers; j++) {
+                    target[j] = (row[j] - meanI * sums[j]) * scale;
+                }
+            });
+            mirror(matrix);
+            return matrix;
+        }
+
+        /**
+         * 当前窗口的相关系数矩阵 (新分配的快照)
+         */
+        public double[][] correlation() {
+            return toCorrelation(covariance());
+        }
+    }
+}
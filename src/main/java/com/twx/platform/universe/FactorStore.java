@@ -0,0 +1,358 @@
+package com.twx.platform.universe;
+
+import com.twx.platform.common.Ticker;
+import com.twx.platform.data.BarColumns;
+import com.twx.platform.strategy.factor.Factor;
+
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/**
+ * 日期 × 股票 的列式因子库。
+ * <p>
+ * 每个字段 (开高低收量以及计算好的因子) 是一个按日期优先 (date-major) 连续存放的 double 矩阵，
+ * 单独保存为一个文件并通过内存映射访问，所有字段共享同一条交易日轴和股票顺序：
+ * <pre>
+ *   dates.bin     共享交易日历 (long 毫秒时间戳)
+ *   tickers.txt   股票代码，每行一个
+ *   mask.bin      停牌掩码 (位图，1 表示当日有K线)
+ *   &lt;field&gt;.f64  字段矩阵，第 d 个交易日第 t 只股票位于 d * tickerCount + t
+ * </pre>
+ * 停牌日的数值为 NaN。按日期取一行 (横截面) 是一次连续的批量读取；按股票取一列是定长跨步读取。
+ * 读操作只使用绝对位置访问，可以被多个线程同时调用；写入 (putField) 需要由调用方保证不与读取同一字段并发。
+ * 单个字段文件受内存映射限制不能超过 2GB (约 2.6 亿个单元格)。
+ */
+public final class FactorStore {
+
+    public static final String OPEN = "open";
+    public static final String HIGH = "high";
+    public static final String LOW = "low";
+    public static final String CLOSE = "close";
+    public static final String VOLUME = "volume";
+
+    private static final String FIELD_SUFFIX = ".f64";
+    private static final Pattern FIELD_NAME = Pattern.compile("[A-Za-z0-9_\\-]+");
+
+    private final Path directory;
+    private final List<Ticker> tickers;
+    private final Map<Ticker, Integer> tickerIndex;
+    private final long[] dates;
+    private final LongBuffer mask;
+    private final Map<String, DoubleBuffer> fields = new ConcurrentHashMap<>();
+    private volatile UniversePanel panel;
+
+    private FactorStore(Path directory, List<Ticker> tickers, long[] dates, LongBuffer mask) {
+        this.directory = directory;
+        this.tickers = List.copyOf(tickers);
+        this.dates = dates;
+        this.mask = mask;
+        this.tickerIndex = new HashMap<>();
+        for (int t = 0; t < tickers.size(); t++) {
+            tickerIndex.put(tickers.get(t), t);
+        }
+    }
+
+    /**
+     * 把股票池面板的开高低收量写入一个新的因子库 (目录下已有的同名文件会被覆盖)。
+     */
+    public static FactorStore create(Path directory, UniversePanel panel) throws IOException {
+        Files.createDirectories(directory);
+        long[] dates = panel.dates();
+        int tickerCount = panel.tickerCount();
+
+        List<String> symbols = new ArrayList<>(tickerCount);
+        for (Ticker ticker : panel.tickers()) {
+            symbols.add(ticker.symbol());
+        }
+        Files.write(directory.resolve("tickers.txt"), symbols, StandardCharsets.UTF_8);
+        map(directory.resolve("dates.bin"), (long) dates.length * Long.BYTES, true).asLongBuffer().put(0, dates);
+
+        long cells = (long) dates.length * tickerCount;
+        LongBuffer mask = map(directory.resolve("mask.bin"), ((cells + 63) >>> 6) * Long.BYTES, true).asLongBuffer();
+        for (int t = 0; t < tickerCount; t++) {
+            for (int d : panel.calendarIndex(t)) {
+                long cell = (long) d * tickerCount + t;
+                int word = (int) (cell >>> 6);
+                mask.put(word, mask.get(word) | (1L << (cell & 63)));
+            }
+        }
+
+        FactorStore store = new FactorStore(directory, panel.tickers(), dates, mask);
+        store.panel = panel;
+        store.putField(OPEN, store.alignAll(BarColumns::open));
+        store.putField(HIGH, store.alignAll(BarColumns::high));
+        store.putField(LOW, store.alignAll(BarColumns::low));
+        store.putField(CLOSE, store.alignAll(BarColumns::close));
+        store.putField(VOLUME, store.alignAll(BarColumns::volume));
+        return store;
+    }
+
+    /**
+     * 打开一个已存在的因子库，字段文件按需映射。
+     */
+    public static FactorStore open(Path directory) throws IOException {
+        List<Ticker> tickers = new ArrayList<>();
+        for (String line : Files.readAllLines(directory.resolve("tickers.txt"), StandardCharsets.UTF_8)) {
+            if (!line.isBlank()) {
+                tickers.add(new Ticker(line.trim()));
+            }
+        }
+        Path datesFile = directory.resolve("dates.bin");
+        long[] dates = new long[(int) (Files.size(datesFile) / Long.BYTES)];
+        map(datesFile, Files.size(datesFile), false).asLongBuffer().get(0, dates);
+        Path maskFile = directory.resolve("mask.bin");
+        LongBuffer mask = map(maskFile, Files.size(maskFile), false).asLongBuffer();
+
+        FactorStore store = new FactorStore(directory, tickers, dates, mask);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + FIELD_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                name = name.substring(0, name.length() - FIELD_SUFFIX.length());
+                if (Files.size(file) != store.fieldBytes()) {
+                    System.err.println("因子文件大小与日历不符，已忽略: " + file);
+                    continue;
+                }
+                store.fields.put(name, map(file, Files.size(file), false).asDoubleBuffer());
+            }
+        }
+        return store;
+    }
+
+    private static MappedByteBuffer map(Path file, long size, boolean write) throws IOException {
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("单个文件超过内存映射上限: " + file);
+        }
+        StandardOpenOption[] options = write
+                ? new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE,
+                StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING}
+                : new StandardOpenOption[]{StandardOpenOption.READ};
+        // 映射建立后关闭通道不影响映射本身
+        try (FileChannel channel = FileChannel.open(file, options)) {
+            MappedByteBuffer buffer = channel.map(write ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY, 0, size);
+            buffer.order(ByteOrder.nativeOrder());
+            return buffer;
+        }
+    }
+
+    private long fieldBytes() {
+        return (long) dates.length * tickers.size() * Double.BYTES;
+    }
+
+    private double[][] alignAll(Function<BarColumns, double[]> selector) {
+        UniversePanel p = toPanel();
+        double[][] out = new double[tickers.size()][];
+        IntStream.range(0, out.length).parallel().forEach(t -> out[t] = p.align(t, selector.apply(p.columns(t))));
+        return out;
+    }
+
+    /**
+     * 写入 (或覆盖) 一个字段。
+     * @param name       字段名，只能包含字母、数字、下划线和连字符
+     * @param tickerMajor values[ticker][date]，与 CrossSectionalEngine.computeFactorMatrix 的布局相同
+     */
+    public void putField(String name, double[][] tickerMajor) throws IOException {
+        if (!FIELD_NAME.matcher(name).matches()) {
+            throw new IllegalArgumentException("非法的字段名: " + name);
+        }
+        if (tickerMajor.length != tickers.size()) {
+            throw new IllegalArgumentException("字段的股票数量与因子库不一致");
+        }
+        int tickerCount = tickers.size();
+        DoubleBuffer buffer = map(directory.resolve(name + FIELD_SUFFIX), fieldBytes(), true).asDoubleBuffer();
+        // 按日期分段转置，每段内连续写入
+        IntStream.range(0, dates.length).parallel().forEach(d -> {
+            double[] row = new double[tickerCount];
+            for (int t = 0; t < tickerCount; t++) {
+                row[t] = isTrading(d, t) ? tickerMajor[t][d] : Double.NaN;
+            }
+            buffer.put(d * tickerCount, row);
+        });
+        fields.put(name, buffer);
+    }
+
+    /**
+     * 计算一个因子并以因子名 (去掉不能用作文件名的字符) 写入因子库。
+     * @return 实际使用的字段名
+     */
+    public String putFactor(Factor factor) throws IOException {
+        String name = fieldName(factor);
+        UniversePanel p = toPanel();
+        double[][] values = new double[tickers.size()][];
+        IntStream.range(0, values.length).parallel().forEach(t -> values[t] = p.align(t, factor.compute(p.columns(t))));
+        putField(name, values);
+        return name;
+    }
+
+    /**
+     * 与 putFactor 相同，但因子库中已经有同名字段时直接返回，不重新计算 (例如同一因子搭配多组调仓参数)。
+     * @return 实际使用的字段名
+     */
+    public String putFactorIfAbsent(Factor factor) throws IOException {
+        String name = fieldName(factor);
+        return hasField(name) ? name : putFactor(factor);
+    }
+
+    private static String fieldName(Factor factor) {
+        return factor.getName().replaceAll("[^A-Za-z0-9_\\-]+", "_").replaceAll("^_+|_+$", "");
+    }
+
+    private DoubleBuffer field(String name) {
+        DoubleBuffer buffer = fields.get(name);
+        if (buffer == null) {
+            throw new IllegalArgumentException("因子库中没有字段: " + name);
+        }
+        return buffer;
+    }
+
+    public boolean hasField(String name) {
+        return fields.containsKey(name);
+    }
+
+    public List<String> fieldNames() {
+        List<String> names = new ArrayList<>(fields.keySet());
+        names.sort(null);
+        return names;
+    }
+
+    public double get(String field, int date, int ticker) {
+        return field(field).get(date * tickers.size() + ticker);
+    }
+
+    /**
+     * 一个交易日的横截面 (所有股票)，连续批量读取。
+     */
+    public double[] row(String field, int date) {
+        double[] out = new double[tickers.size()];
+        field(field).get(date * tickers.size(), out);
+        return out;
+    }
+
+    /**
+     * 一只股票的时间序列 (所有交易日)，停牌日为 NaN。
+     */
+    public double[] column(String field, int ticker) {
+        DoubleBuffer buffer = field(field);
+        int tickerCount = tickers.size();
+        double[] out = new double[dates.length];
+        for (int d = 0, i = ticker; d < out.length; d++, i += tickerCount) {
+            out[d] = buffer.get(i);
+        }
+        return out;
+    }
+
+    /**
+     * 整个字段转换为 values[ticker][date] 布局，可直接交给 CrossSectionalEngine.run(String, double[][], Config)。
+     */
+    public double[][] tickerMajor(String field) {
+        double[][] out = new double[tickers.size()][];
+        IntStream.range(0, out.length).parallel().forEach(t -> out[t] = column(field, t));
+        return out;
+    }
+
+    /**
+     * 某只股票在某个交易日是否有K线 (false 表示停牌或尚未上市)。
+     */
+    public boolean isTrading(int date, int ticker) {
+        long cell = (long) date * tickers.size() + ticker;
+        return (mask.get((int) (cell >>> 6)) >>> (cell & 63) & 1L) != 0;
+    }
+
+    /**
+     * 由因子库中的开高低收量重建股票池面板 (结果会被缓存)，供选股器和横截面回测使用，无需重新下载数据。
+     */
+    public UniversePanel toPanel() {
+        UniversePanel p = panel;
+        if (p == null) {
+            BarColumns[] columns = new BarColumns[tickers.size()];
+            IntStream.range(0, columns.length).parallel().forEach(t -> columns[t] = columns(t));
+            p = UniversePanel.of(tickers, columns);
+            panel = p;
+        }
+        return p;
+    }
+
+    /**
+     * 某只股票有K线的交易日上的开高低收量
+     */
+    public BarColumns columns(int ticker) {
+        int count = 0;
+        for (int d = 0; d < dates.length; d++) {
+            if (isTrading(d, ticker)) count++;
+        }
+        int[] index = new int[count];
+        for (int d = 0, i = 0; d < dates.length; d++) {
+            if (isTrading(d, ticker)) index[i++] = d;
+        }
+        long[] times = new long[count];
+        for (int i = 0; i < count; i++) {
+            times[i] = dates[index[i]];
+        }
+        return new BarColumns(times, gather(OPEN, ticker, index), gather(HIGH, ticker, index),
+                gather(LOW, ticker, index), gather(CLOSE, ticker, index), gather(VOLUME, ticker, index));
+    }
+
+    private double[] gather(String field, int ticker, int[] index) {
+        DoubleBuffer buffer = field(field);
+        int tickerCount = tickers.size();
+        double[] out = new double[index.length];
+        for (int i = 0; i < index.length; i++) {
+            out[i] = buffer.get(index[i] * tickerCount + ticker);
+        }
+        return out;
+    }
+
+    public List<Ticker> tickers() {
+        return tickers;
+    }
+
+    public int tickerCount() {
+        return tickers.size();
+    }
+
+    /**
+     * @return 股票序号，不存在时返回 -1
+     */
+    public int tickerIndex(Ticker ticker) {
+        return tickerIndex.getOrDefault(ticker, -1);
+    }
+
+    /**
+     * 共享交易日历 (毫秒时间戳，升序)
+     */
+    public long[] dates() {
+        return dates;
+    }
+
+    public int dateCount() {
+        return dates.length;
+    }
+
+    /**
+     * @return 交易日序号，不是交易日时返回 -(插入位置) - 1，与 Arrays.binarySearch 相同
+     */
+    public int dateIndex(long time) {
+        return Arrays.binarySearch(dates, time);
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+}
@@ -0,0 +1,238 @@
+package com.twx.platform.universe;
+
+import com.twx.platform.analysis.rolling.RollingMoments;
+import com.twx.platform.analysis.rolling.RollingRegression;
+import com.twx.platform.common.Ticker;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 配对交易扫描器：在股票池的所有两两组合中寻找协整配对。
+ * <p>
+ * 对每一对 (y, x)，在两者都有K线的交易日上依次做：
+ * <ol>
+ *     <li>全样本对数价格 OLS，得到对冲比例和相关系数，相关性不足的直接淘汰 (最便宜的检查放在最前)；</li>
+ *     <li>对残差做 Engle-Granger (无滞后项 ADF) 检验，并由 AR(1) 系数估计均值回归半衰期；</li>
+ *     <li>对通过检验的配对，用滚动回归 + 滚动均值/方差逐根K线增量计算价差 z-score (每根K线 O(1))。</li>
+ * </ol>
+ * 两两组合矩阵按 tileSize × tileSize 分块，每块作为一个并行任务，
+ * 块内反复访问的只是 2 × tileSize 只股票的价格数组，对 CPU 缓存友好。
+ */
+public class PairsScanner {
+
+    /**
+     * 扫描参数
+     *
+     * @param minObservations 两只股票共同交易日的最少数量
+     * @param minCorrelation  对数价格相关系数下限
+     * @param adfCritical     ADF 统计量临界值，统计量必须小于它 (两变量 Engle-Granger 5% 约为 -3.34)
+     * @param minHalfLife     半衰期下限 (交易日)，回归过快通常是噪声
+     * @param maxHalfLife     半衰期上限 (交易日)，回归过慢无法在合理时间内获利
+     * @param zWindow         滚动对冲比例与 z-score 的窗口长度
+     */
+    public record Config(int minObservations, double minCorrelation, double adfCritical,
+                         double minHalfLife, double maxHalfLife, int zWindow) {
+        public Config {
+            if (zWindow < 2 || minObservations < zWindow) {
+                throw new IllegalArgumentException("滚动窗口至少为 2，且最少观测数不能小于滚动窗口");
+            }
+            if (minHalfLife < 0 || maxHalfLife <= minHalfLife) {
+                throw new IllegalArgumentException("半衰期范围无效");
+            }
+        }
+
+        public static Config defaults() {
+            return new Config(250, 0.8, -3.34, 2, 60, 60);
+        }
+    }
+
+    /**
+     * 一个通过筛选的配对，价差定义为 log(y) - intercept - hedgeRatio * log(x)
+     *
+     * @param y            被解释的一腿
+     * @param x            对冲的一腿
+     * @param observations 共同交易日数量
+     * @param hedgeRatio   全样本对冲比例
+     * @param intercept    全样本截距
+     * @param correlation  对数价格相关系数
+     * @param adfStatistic 残差的 ADF 统计量，越小协整越显著
+     * @param halfLife     均值回归半衰期 (交易日)
+     * @param zScore       最后一个共同交易日的滚动价差 z-score
+     */
+    public record PairCandidate(Ticker y, Ticker x, int observations, double hedgeRatio, double intercept,
+                                double correlation, double adfStatistic, double halfLife, double zScore) {
+    }
+
+    private static final int DEFAULT_TILE_SIZE = 32;
+
+    private final UniversePanel panel;
+    private final int tileSize;
+    private final double[][] logCloses;
+
+    public PairsScanner(UniversePanel panel) {
+        this(panel, DEFAULT_TILE_SIZE);
+    }
+
+    public PairsScanner(UniversePanel panel, int tileSize) {
+        if (tileSize <= 0) {
+            throw new IllegalArgumentException("分块大小必须为正整数");
+        }
+        this.panel = panel;
+        this.tileSize = tileSize;
+        this.logCloses = new double[panel.tickerCount()][];
+        IntStream.range(0, panel.tickerCount()).parallel().forEach(t -> {
+            double[] closes = panel.align(t, panel.columns(t).close());
+            for (int d = 0; d < closes.length; d++) {
+                closes[d] = closes[d] > 0 ? Math.log(closes[d]) : Double.NaN;
+            }
+            logCloses[t] = closes;
+        });
+    }
+
+    /**
+     * 扫描全部配对。
+     * @return 通过协整与半衰期筛选的配对，按 ADF 统计量从小到大 (协整最显著的在前) 排序
+     */
+    public List<PairCandidate> scan(Config config) {
+        int n = panel.tickerCount();
+        int tiles = (n + tileSize - 1) / tileSize;
+        // 只处理上三角 (含对角) 的分块
+        int[][] tilePairs = new int[tiles * (tiles + 1) / 2][];
+        int k = 0;
+        for (int a = 0; a < tiles; a++) {
+            for (int b = a; b < tiles; b++) {
+                tilePairs[k++] = new int[]{a, b};
+            }
+        }
+        return IntStream.range(0, tilePairs.length).parallel()
+                .mapToObj(i -> scanTile(tilePairs[i][0], tilePairs[i][1], config))
+                .flatMap(List::stream)
+                .sorted(Comparator.comparingDouble(PairCandidate::adfStatistic))
+                .collect(Collectors.toList());
+    }
+
+    private List<PairCandidate> scanTile(int tileA, int tileB, Config config) {
+        int n = panel.tickerCount();
+        int endA = Math.min(n, (tileA + 1) * tileSize);
+        int endB = Math.min(n, (tileB + 1) * tileSize);
+        List<PairCandidate> result = new ArrayList<>();
+        for (int i = tileA * tileSize; i < endA; i++) {
+            int startJ = tileA == tileB ? i + 1 : tileB * tileSize;
+            for (int j = startJ; j < endB; j++) {
+                PairCandidate candidate = test(i, j, config);
+                if (candidate != null) {
+                    result.add(candidate);
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 检验一对股票，不满足条件时返回 null。
+     */
+    private PairCandidate test(int yi, int xi, Config config) {
+        double[] y = logCloses[yi];
+        double[] x = logCloses[xi];
+
+        // 1. 全样本 OLS (单遍 Welford)
+        int count = 0;
+        double meanX = 0, meanY = 0, sxx = 0, syy = 0, sxy = 0;
+        for (int d = 0; d < y.length; d++) {
+            double yv = y[d];
+            double xv = x[d];
+            if (Double.isNaN(yv) || Double.isNaN(xv)) continue;
+            count++;
+            double dx = xv - meanX;
+            double dy = yv - meanY;
+            meanX += dx / count;
+            meanY += dy / count;
+            sxx += dx * (xv - meanX);
+            syy += dy * (yv - meanY);
+            sxy += dx * (yv - meanY);
+        }
+        if (count < config.minObservations() || sxx <= 0 || syy <= 0) {
+            return null;
+        }
+        double correlation = sxy / Math.sqrt(sxx * syy);
+        if (correlation < config.minCorrelation()) {
+            return null;
+        }
+        double beta = sxy / sxx;
+        double alpha = meanY - beta * meanX;
+
+        // 2. 残差的 ADF 检验: Δe(t) = γ·e(t-1) + ε
+        double sumLagSq = 0, sumLagDiff = 0, sumDiffSq = 0;
+        double previous = Double.NaN;
+        int m = 0;
+        for (int d = 0; d < y.length; d++) {
+            if (Double.isNaN(y[d]) || Double.isNaN(x[d])) continue;
+            double e = y[d] - alpha - beta * x[d];
+            if (!Double.isNaN(previous)) {
+                double diff = e - previous;
+                sumLagSq += previous * previous;
+                sumLagDiff += previous * diff;
+                sumDiffSq += diff * diff;
+                m++;
+            }
+            previous = e;
+        }
+        if (m < 3 || sumLagSq <= 0) {
+            return null;
+        }
+        double gamma = sumLagDiff / sumLagSq;
+        double residualSq = Math.max(0, sumDiffSq - gamma * sumLagDiff);
+        double standardError = Math.sqrt(residualSq / (m - 1) / sumLagSq);
+        double adf = standardError > 0 ? gamma / standardError : Double.NEGATIVE_INFINITY;
+        if (!(adf < config.adfCritical()) || gamma >= 0 || gamma <= -1) {
+            return null;
+        }
+        double halfLife = -Math.log(2) / Math.log(1 + gamma);
+        if (halfLife < config.minHalfLife() || halfLife > config.maxHalfLife()) {
+            return null;
+        }
+
+        // 3. 滚动价差 z-score
+        double zScore = rollingZScores(y, x, config.zWindow(), null);
+        return new PairCandidate(panel.tickers().get(yi), panel.tickers().get(xi), count, beta, alpha,
+                correlation, adf, halfLife, zScore);
+    }
+
+    /**
+     * 在两只股票都有数据的日期上增量计算滚动价差 z-score。
+     *
+     * @param y      被解释一腿的对数价格 (NaN 表示缺失)
+     * @param x      对冲一腿的对数价格 (NaN 表示缺失)
+     * @param window 滚动窗口
+     * @param out    可选，非 null 时写入每个日期的 z-score (缺失或预热期为 NaN)
+     * @return 最后一个共同交易日的 z-score
+     */
+    public static double rollingZScores(double[] y, double[] x, int window, double[] out) {
+        RollingRegression regression = new RollingRegression(window);
+        RollingMoments spreads = new RollingMoments(window);
+        double last = Double.NaN;
+        for (int d = 0; d < y.length; d++) {
+            double z = Double.NaN;
+            if (!Double.isNaN(y[d]) && !Double.isNaN(x[d])) {
+                regression.add(x[d], y[d]);
+                if (regression.isFull()) {
+                    double spread = regression.residual(x[d], y[d]);
+                    spreads.add(spread);
+                    double stdev = spreads.stdev();
+                    if (spreads.isFull() && stdev > 0) {
+                        z = (spread - spreads.mean()) / stdev;
+                    }
+                }
+                last = z;
+            }
+            if (out != null) {
+                out[d] = z;
+            }
+        }
+        return last;
+    }
+}
@@ -0,0 +1,119 @@
+package com.twx.platform.universe;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 部分选择：从 m 个候选中选出得分最高 (或最低) 的 n 个。
+ * 使用 quickselect 把前 n 个元素划分到数组前部，平均 O(m)，
+ * 只对选中的 n 个元素排序 (O(n log n))，避免对整个股票池做全量排序。
+ */
+public final class TopNSelector {
+
+    private TopNSelector() {
+    }
+
+    /**
+     * 原地选择。调用后 ids[0..n) 为选中的元素，并按得分从好到差排序；scores 与 ids 同步移动。
+     *
+     * @param scores  候选得分，只使用前 count 个
+     * @param ids     候选编号，与 scores 一一对应
+     * @param count   候选数量
+     * @param n       需要选出的数量
+     * @param highest true 表示选得分最高的，false 表示选得分最低的
+     * @return 实际选出的数量 (min(n, count))
+     */
+    public static int select(double[] scores, int[] ids, int count, int n, boolean highest) {
+        int k = Math.min(n, count);
+        if (k <= 0) {
+            return 0;
+        }
+        if (highest) {
+            negate(scores, count);
+        }
+        if (k < count) {
+            quickselect(scores, ids, 0, count - 1, k - 1);
+        }
+        sortPrefix(scores, ids, k);
+        if (highest) {
+            negate(scores, count);
+        }
+        return k;
+    }
+
+    private static void quickselect(double[] a, int[] ids, int lo, int hi, int k) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (lo < hi) {
+            int p = partition(a, ids, lo, hi, lo + random.nextInt(hi - lo + 1));
+            if (p == k) {
+                return;
+            } else if (p < k) {
+                lo = p + 1;
+            } else {
+                hi = p - 1;
+            }
+        }
+    }
+
+    private static int partition(double[] a, int[] ids, int lo, int hi, int pivotIndex) {
+        double pivot = a[pivotIndex];
+        swap(a, ids, pivotIndex, hi);
+        int store = lo;
+        for (int i = lo; i < hi; i++) {
+            if (a[i] < pivot) {
+                swap(a, ids, i, store++);
+            }
+        }
+        swap(a, ids, store, hi);
+        return store;
+    }
+
+    private static void sortPrefix(double[] a, int[] ids, int k) {
+        if (k > 32) {
+            sortSmall(a, ids, 0, k - 1);
+            return;
+        }
+        for (int i = 1; i < k; i++) {
+            double v = a[i];
+            int id = ids[i];
+            int j = i - 1;
+            while (j >= 0 && a[j] > v) {
+                a[j + 1] = a[j];
+                ids[j + 1] = ids[j];
+                j--;
+            }
+            a[j + 1] = v;
+            ids[j + 1] = id;
+        }
+    }
+
+    /**
+     * 选中数量较大时使用的快速排序
+     */
+    private static void sortSmall(double[] a, int[] ids, int lo, int hi) {
+        while (lo < hi) {
+            int p = partition(a, ids, lo, hi, (lo + hi) >>> 1);
+            if (p - lo < hi - p) {
+                sortSmall(a, ids, lo, p - 1);
+                lo = p + 1;
+            } else {
+                sortSmall(a, ids, p + 1, hi);
+                hi = p - 1;
+            }
+        }
+    }
+
+    private static void negate(double[] a, int count) {
+        for (int i = 0; i < count; i++) {
+            a[i] = -a[i];
+        }
+    }
+
+    private static void swap(double[] a, int[] ids, int i, int j) {
+        double t = a[i];
+        a[i] = a[j];
+        a[j] = t;
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+    }
+}
@@ -0,0 +1,73 @@
+package com.twx.platform.universe;
+
+import com.twx.platform.common.Ticker;
+import com.twx.platform.common.TimeFrame;
+import com.twx.platform.data.DataProvider;
+import com.twx.platform.data.FetchResult;
+import org.ta4j.core.BarSeries;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * 股票池数据加载器：通过 DataProvider 并发获取多只股票的历史K线。
+ * 并发数有上限，避免对行情接口造成突发压力；获取失败或为空的股票会被跳过。
+ */
+public class UniverseLoader {
+
+    private final DataProvider dataProvider;
+    private final int parallelism;
+
+    /**
+     * @param dataProvider 数据源
+     * @param parallelism  最大并发请求数 (e.g., 16)
+     */
+    public UniverseLoader(DataProvider dataProvider, int parallelism) {
+        if (parallelism <= 0) {
+            throw new IllegalArgumentException("并发数必须为正整数");
+        }
+        this.dataProvider = dataProvider;
+        this.parallelism = parallelism;
+    }
+
+    /**
+     * 加载股票池中所有股票的K线，返回顺序与传入顺序一致。
+     */
+    public Map<Ticker, BarSeries> load(List<Ticker> tickers, LocalDate startDate, LocalDate endDate, TimeFrame timeFrame) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, Math.max(1, tickers.size())));
+        try {
+            List<Future<FetchResult<BarSeries>>> futures = new ArrayList<>(tickers.size());
+            for (Ticker ticker : tickers) {
+                futures.add(executor.submit(() -> dataProvider.fetchHistoricalData(ticker, startDate, endDate, timeFrame)));
+            }
+            Map<Ticker, BarSeries> result = new LinkedHashMap<>();
+            for (int i = 0; i < tickers.size(); i++) {
+                try {
+                    FetchResult<BarSeries> fetched = futures.get(i).get();
+                    if (fetched instanceof FetchResult.Success<BarSeries> success) {
+                        result.put(tickers.get(i), success.value());
+                    } else if (fetched instanceof FetchResult.Failure<BarSeries> failure
+                            && failure.reason() != FetchResult.Reason.NO_DATA) {
+                        // 区间内没有数据 (停牌、未上市) 属于正常情况，不打印
+                        System.err.println("加载 " + tickers.get(i) + " 失败 (" + failure + ")");
+                    }
+                } catch (ExecutionException e) {
+                    System.err.println("加载 " + tickers.get(i) + " 失败: " + e.getCause());
+                }
+            }
+            return result;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("股票池加载被中断", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.twx.platform.universe;
+
+import com.twx.platform.common.Ticker;
+import com.twx.platform.data.BarColumns;
+import org.ta4j.core.BarSeries;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * 股票池面板：把多只股票的K线对齐到同一个交易日历上。
+ * <p>
+ * 日历取所有股票交易日的并集。每只股票保留自己的原始列数据 (用于计算指标，避免停牌的空洞打断计算)，
+ * 同时记录自己第 i 根K线落在日历上的位置，需要横截面比较时再把结果散布到日历上，缺失处为 NaN。
+ * 构造完成后对象不可变，可以被多个线程同时读取。
+ */
+public final class UniversePanel {
+
+    private final List<Ticker> tickers;
+    private final long[] dates;
+    private final BarColumns[] columns;
+    private final int[][] calendarIndex;
+
+    private UniversePanel(List<Ticker> tickers, long[] dates, BarColumns[] columns, int[][] calendarIndex) {
+        this.tickers = tickers;
+        this.dates = dates;
+        this.columns = columns;
+        this.calendarIndex = calendarIndex;
+    }
+
+    /**
+     * 由 UniverseLoader 的加载结果构建面板。
+     */
+    public static UniversePanel of(Map<Ticker, BarSeries> universe) {
+        List<Ticker> tickers = new ArrayList<>(universe.keySet());
+        List<BarSeries> series = new ArrayList<>(universe.values());
+        BarColumns[] columns = new BarColumns[tickers.size()];
+        IntStream.range(0, columns.length).parallel().forEach(t -> columns[t] = BarColumns.of(series.get(t)));
+        return of(tickers, columns);
+    }
+
+    /**
+     * 由已经抽取好的列数据构建面板。
+     */
+    public static UniversePanel of(List<Ticker> tickers, BarColumns[] columns) {
+        int total = 0;
+        for (BarColumns c : columns) {
+            total += c.size();
+        }
+        long[] all = new long[total];
+        int pos = 0;
+        for (BarColumns c : columns) {
+            System.arraycopy(c.times(), 0, all, pos, c.size());
+            pos += c.size();
+        }
+        long[] dates = Arrays.stream(all).sorted().distinct().toArray();
+
+        int[][] calendarIndex = new int[columns.length][];
+        IntStream.range(0, columns.length).parallel().forEach(t -> {
+            long[] times = columns[t].times();
+            int[] index = new int[times.length];
+            int d = 0;
+            for (int i = 0; i < times.length; i++) {
+                // 每只股票的时间戳本身是递增的，所以可以沿日历单向推进
+                while (dates[d] < times[i]) {
+                    d++;
+                }
+                index[i] = d;
+            }
+            calendarIndex[t] = index;
+        });
+        return new UniversePanel(List.copyOf(tickers), dates, columns, calendarIndex);
+    }
+
+    /**
+     * 把某只股票按自身K线计算出的数值散布到日历上，没有K线的日期填 NaN。
+     * @param tickerIndex 股票序号
+     * @param values      与该股票K线一一对应的数值
+     */
+    public double[] align(int tickerIndex, double[] values) {
+        double[] out = new double[dates.length];
+        Arrays.fill(out, Double.NaN);
+        int[] index = calendarIndex[tickerIndex];
+        for (int i = 0; i < index.length; i++) {
+            out[index[i]] = values[i];
+        }
+        return out;
+    }
+
+    public List<Ticker> tickers() {
+        return tickers;
+    }
+
+    public int tickerCount() {
+        return tickers.size();
+    }
+
+    /**
+     * 共享交易日历 (毫秒时间戳，升序)
+     */
+    public long[] dates() {
+        return dates;
+    }
+
+    public int dateCount() {
+        return dates.length;
+    }
+
+    public BarColumns columns(int tickerIndex) {
+        return columns[tickerIndex];
+    }
+
+    /**
+     * 某只股票第 i 根K线在日历上的位置
+     */
+    public int[] calendarIndex(int tickerIndex) {
+        return calendarIndex[tickerIndex];
+    }
+}